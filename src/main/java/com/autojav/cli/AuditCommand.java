@@ -2,15 +2,40 @@ package com.autojav.cli;
 
 import com.autojav.core.CodeParser;
 import com.autojav.core.ConfigManager;
+import com.autojav.core.FileDiscovery;
+import com.autojav.core.ParseOutcome;
+import com.autojav.core.ParserProfile;
+import com.autojav.core.SourceFile;
 import com.autojav.core.TerminalUtils;
 import com.autojav.core.audit.AuditManager;
 import com.autojav.core.audit.AuditResult;
+import com.autojav.core.audit.AuditRule;
+import com.autojav.core.audit.RuleRegistry;
+import com.autojav.core.audit.RuleStatistics;
+import com.autojav.core.audit.query.QueryRuleProvider;
+import com.autojav.core.audit.rules.SqlInjectionRuleProvider;
+import com.autojav.core.audit.taint.TaintSummaries;
+import com.autojav.core.audit.taint.TaintSummaryStore;
+import com.autojav.core.cache.AuditCache;
+import com.autojav.core.git.GitChangeSet;
+import com.autojav.core.pipeline.ParsePipeline;
+import com.autojav.core.pipeline.PipelineStats;
 import com.github.javaparser.ast.CompilationUnit;
 import picocli.CommandLine;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @CommandLine.Command(
         name = "audit",
@@ -18,6 +43,26 @@ import java.util.concurrent.Callable;
 )
 public class AuditCommand implements Callable<Integer> {
 
+    /**
+     * 默认的单个文件解析时限（毫秒）
+     */
+    private static final long DEFAULT_PARSE_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * 默认的单个规则审计单个文件的时限（毫秒）
+     */
+    private static final long DEFAULT_RULE_TIMEOUT_MILLIS = 5_000;
+
+    /**
+     * 更新污点模型时最多保留多少个文件的语法树供审计复用，超出的文件在审计时重新解析
+     */
+    private static final int TAINT_RETAINED_FILES = 256;
+
+    /**
+     * 解析问题在审计结果中使用的规则名称
+     */
+    private static final String PARSE_RULE_NAME = "语法解析";
+
     @CommandLine.Parameters(index = "0", description = "Java文件或目录路径")
     private String path;
 
@@ -27,35 +72,200 @@ public class AuditCommand implements Callable<Integer> {
     @CommandLine.Option(names = {"-o", "--output"}, description = "审计结果输出文件")
     private String output;
 
+    @CommandLine.Option(names = {"-t", "--threads"}, description = "解析线程数，默认为CPU核数")
+    private int threads = CodeParser.DEFAULT_THREADS;
+
+    @CommandLine.Option(names = {"--parser-profile"}, description = "解析配置档位: audit, full（默认audit），审计需要位置信息，不支持 lean 和 doc")
+    private String parserProfile;
+
+    @CommandLine.Option(names = {"--parse-timeout"}, paramLabel = "<ms>", description = "单个文件的解析时限（毫秒），超时的文件跳过审计，0表示不限制，默认10000")
+    private Long parseTimeout;
+
+    @CommandLine.Option(names = {"--no-recovery"}, description = "存在语法问题的文件不审计（默认使用部分语法树继续审计）")
+    private boolean noRecovery;
+
+    @CommandLine.Mixin
+    private DiscoveryOptions discoveryOptions;
+
+    @CommandLine.Option(names = {"--no-cache"}, description = "不使用审计结果缓存（污点模型仍会保存和复用）")
+    private boolean noCache;
+
+    @CommandLine.Option(names = {"--cache-dir"}, description = "审计结果缓存目录，默认为 .autojav/cache")
+    private String cacheDir;
+
+    @CommandLine.Option(names = {"--since"}, paramLabel = "<rev>", description = "只审计相对于指定git版本变更的文件和行，未跟踪的新文件整个审计")
+    private String since;
+
+    @CommandLine.Option(names = {"--staged"}, description = "只审计git暂存区中变更的文件和行")
+    private boolean staged;
+
+    @CommandLine.Option(names = {"--no-taint"}, description = "不做跨文件的污点分析，SQL注入检查只使用本文件内的方法摘要")
+    private boolean noTaint;
+
+    @CommandLine.Option(names = {"--rule-timeout"}, paramLabel = "<ms>", description = "单个规则审计单个文件的时限（毫秒），超时的规则在该文件上跳过，0表示不限制，默认5000")
+    private Long ruleTimeout;
+
+    @CommandLine.Option(names = {"--rule-stats"}, description = "审计结束后输出各规则的耗时统计")
+    private boolean ruleStats;
+
+    @CommandLine.Option(names = {"--split-lines"}, paramLabel = "<lines>", description = "行数不少于该值的文件按方法拆分给多个线程审计，0表示不拆分，默认" + AuditManager.DEFAULT_SPLIT_LINES)
+    private Integer splitLines;
+
+    @CommandLine.Option(names = {"--rules"}, split = ",", paramLabel = "<id|tag>", description = "只启用指定ID或标签的规则，多个用逗号分隔，如 security")
+    private List<String> includedRules;
+
+    @CommandLine.Option(names = {"--skip-rules"}, split = ",", paramLabel = "<id|tag>", description = "不启用指定ID或标签的规则，多个用逗号分隔")
+    private List<String> skippedRules;
+
+    @CommandLine.Option(names = {"--query-rules"}, paramLabel = "<file>", description = "从文件加载查询规则，所有查询规则合并为一次匹配")
+    private File queryRules;
+
     @Override
     public Integer call() throws Exception {
         TerminalUtils.printInfo("开始审计: " + path);
         TerminalUtils.printInfo("递归处理: " + recursive);
+        if (threads < 1) {
+            TerminalUtils.printError("解析线程数必须大于0: " + threads);
+            return 1;
+        }
         if (output != null) {
             TerminalUtils.printInfo("输出文件: " + output);
         }
 
-        CodeParser parser = new CodeParser();
-        AuditManager auditManager = new AuditManager();
+        ConfigManager configManager = new ConfigManager();
+        ParserProfile profile;
+        try {
+            profile = ParserProfile.of(parserProfile != null
+                    ? parserProfile : configManager.get("audit.parser.profile", "audit"));
+        } catch (IllegalArgumentException e) {
+            TerminalUtils.printError(e.getMessage());
+            return 1;
+        }
+        if (!profile.isStoreTokens()) {
+            // 不保存词法单元的档位没有行号列号，审计结果无法定位，也无法按变更行过滤
+            TerminalUtils.printError("代码审计需要位置信息，不能使用解析档位 " + profile.name().toLowerCase());
+            return 1;
+        }
+        CodeParser parser = new CodeParser(profile);
+        Long configuredTimeout = parseTimeout != null ? parseTimeout
+                : longConfig(configManager, "audit.parse.timeout.ms", DEFAULT_PARSE_TIMEOUT_MILLIS);
+        if (configuredTimeout == null) {
+            return 1;
+        }
+        long timeout = configuredTimeout;
+        if (timeout < 0) {
+            TerminalUtils.printError("解析时限不能为负数: " + timeout);
+            return 1;
+        }
+        parser.setParseTimeout(timeout);
+        parser.setRecovery(!noRecovery && Boolean.parseBoolean(configManager.get("audit.parse.recovery", "true")));
+        FileDiscovery fileDiscovery;
+        try {
+            fileDiscovery = discoveryOptions.toFileDiscovery(configManager);
+        } catch (IllegalArgumentException e) {
+            TerminalUtils.printError(e.getMessage());
+            return 1;
+        }
+        parser.setFileDiscovery(fileDiscovery);
+        AuditManager auditManager;
+        try {
+            RuleRegistry registry = RuleRegistry.load();
+            String queryRulesPath = queryRules != null ? queryRules.getPath() : configManager.get("audit.query.rules", "");
+            if (!queryRulesPath.isEmpty()) {
+                registry = registry.with(QueryRuleProvider.load(new File(queryRulesPath)));
+            }
+            // 只创建选中的规则，未选中的规则没有初始化和遍历开销
+            auditManager = new AuditManager(registry.select(
+                    includedRules != null ? includedRules : splitList(configManager.get("audit.rules", "")),
+                    skippedRules != null ? skippedRules : splitList(configManager.get("audit.skip.rules", ""))));
+        } catch (IOException e) {
+            TerminalUtils.printError("读取查询规则文件失败: " + e.getMessage());
+            return 1;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            TerminalUtils.printError(e.getMessage());
+            return 1;
+        }
+        TerminalUtils.printInfo("审计规则: " + String.join(", ", auditManager.getRuleIds()));
+        Long configuredRuleTimeout = ruleTimeout != null ? ruleTimeout
+                : longConfig(configManager, "audit.rule.timeout.ms", DEFAULT_RULE_TIMEOUT_MILLIS);
+        if (configuredRuleTimeout == null) {
+            return 1;
+        }
+        long ruleTimeoutMillis = configuredRuleTimeout;
+        if (ruleTimeoutMillis < 0) {
+            TerminalUtils.printError("规则时限不能为负数: " + ruleTimeoutMillis);
+            return 1;
+        }
+        auditManager.setRuleTimeout(ruleTimeoutMillis);
+        if (ruleStats) {
+            auditManager.setRuleStatistics(new RuleStatistics());
+        }
+        Long configuredSplitLines = splitLines != null ? Long.valueOf(splitLines)
+                : longConfig(configManager, "audit.split.lines", AuditManager.DEFAULT_SPLIT_LINES);
+        if (configuredSplitLines == null) {
+            return 1;
+        }
+        if (configuredSplitLines < 0 || configuredSplitLines > Integer.MAX_VALUE) {
+            TerminalUtils.printError("拆分行数阈值必须在 0 到 " + Integer.MAX_VALUE + " 之间: " + configuredSplitLines);
+            return 1;
+        }
+        int splitLinesValue = configuredSplitLines.intValue();
+        // 大文件的各方法与其他文件共用同样多的线程
+        auditManager.setSplitLines(splitLinesValue);
+        auditManager.setMemberThreads(threads);
+        try {
+            return audit(parser, auditManager, configManager, fileDiscovery);
+        } finally {
+            auditManager.close();
+        }
+    }
+
+    /**
+     * 审计目标路径：单个文件、目录或git变更涉及的文件
+     * @return 退出码
+     */
+    private int audit(CodeParser parser, AuditManager auditManager, ConfigManager configManager,
+                      FileDiscovery fileDiscovery) throws IOException {
         File target = new File(path);
 
+        if (since != null || staged) {
+            if (since != null && staged) {
+                TerminalUtils.printError("--since 与 --staged 不能同时使用");
+                return 1;
+            }
+            if (!target.exists()) {
+                TerminalUtils.printError("路径不存在: " + path);
+                return 1;
+            }
+            return auditChanges(parser, auditManager, configManager, fileDiscovery, target);
+        }
+
         if (target.isFile()) {
-            CompilationUnit cu = parser.parseFile(target);
+            if (!target.getName().endsWith(".java")) {
+                TerminalUtils.printError("无效的Java文件: " + target.getAbsolutePath());
+                return 1;
+            }
+            SourceFile source = SourceFile.read(target);
+            ParseOutcome outcome = parser.tryParse(source);
+            CompilationUnit cu = outcome.getCompilationUnit();
+            List<AuditResult> parseResults = toParseResults(outcome, source.getPath());
             if (cu != null) {
                 TerminalUtils.printSuccess("文件解析成功: " + target.getName());
                 TerminalUtils.printInfo("类数量: " + parser.extractClasses(cu).size());
                 TerminalUtils.printInfo("方法数量: " + parser.extractMethods(cu).size());
 
-                List<AuditResult> results = auditManager.audit(cu);
+                List<AuditResult> results = new ArrayList<>(parseResults);
+                results.addAll(auditManager.audit(cu));
                 printAuditResults(results);
+                printRuleStatistics(auditManager);
             } else {
                 TerminalUtils.printError("文件解析失败: " + target.getName());
+                parseResults.forEach(this::printAuditResult);
             }
         } else if (target.isDirectory()) {
-            List<CompilationUnit> compilationUnits = parser.parseDirectory(target, recursive);
-            TerminalUtils.printSuccess("目录解析完成，共解析 " + compilationUnits.size() + " 个Java文件");
-            List<AuditResult> results = auditManager.audit(compilationUnits);
-            printAuditResults(results);
+            ParsePipeline<List<AuditResult>> pipeline = new ParsePipeline<>(parser, threads);
+            auditStream(parser, auditManager, configManager,
+                    (worker, sink) -> pipeline.run(target, recursive, worker, sink), null, target, recursive, null);
         } else {
             File checkFile = new File(path);
             if (!checkFile.exists()) {
@@ -72,6 +282,307 @@ public class AuditCommand implements Callable<Integer> {
         return 0;
     }
 
+    /**
+     * 只审计git变更涉及的文件，并只报告落在变更行范围内的问题
+     * @return 退出码
+     */
+    private int auditChanges(CodeParser parser, AuditManager auditManager, ConfigManager configManager,
+                             FileDiscovery fileDiscovery, File target) throws IOException {
+        GitChangeSet changeSet = staged ? GitChangeSet.staged(target) : GitChangeSet.since(target, since);
+        Path targetPath = target.toPath().toRealPath();
+
+        List<File> files = new ArrayList<>();
+        // 已删除的文件不审计，但要移除它们的污点模型
+        List<File> taintFiles = new ArrayList<>();
+        for (Path file : changeSet.getFiles()) {
+            boolean exists = Files.isRegularFile(file);
+            boolean selected = target.isFile()
+                    ? exists && Files.isSameFile(file, targetPath)
+                    : fileDiscovery.matches(targetPath, file);
+            if (selected) {
+                taintFiles.add(file.toFile());
+                if (exists) {
+                    files.add(file.toFile());
+                }
+            }
+        }
+        TerminalUtils.printInfo("变更的Java文件: " + files.size() + " 个");
+
+        ParsePipeline<List<AuditResult>> pipeline = new ParsePipeline<>(parser, threads);
+        // 变更的文件可能调用未变更文件中的方法，只更新变更文件及其调用的方法所在文件的污点模型
+        auditStream(parser, auditManager, configManager,
+                (worker, sink) -> pipeline.run(files, worker, sink), changeSet,
+                target.isDirectory() ? target : null, true, taintFiles);
+        return 0;
+    }
+
+    /**
+     * 流式审计：每个文件解析后立即审计并输出，语法树不在内存中累积
+     * @param changeSet 变更集，不为null时只输出变更行上的问题
+     * @param taintRoot 计算方法污点摘要的目录，为null时只使用各文件自身的方法摘要
+     * @param taintRecursive 是否递归计算子目录中的方法摘要
+     * @param taintFiles 只需更新这些文件及其依赖的方法模型，为null时更新整个目录
+     */
+    private void auditStream(CodeParser parser, AuditManager auditManager, ConfigManager configManager,
+                             PipelineRunner runner, GitChangeSet changeSet,
+                             File taintRoot, boolean taintRecursive, List<File> taintFiles) throws IOException {
+        AuditCache cache = openCache(parser, auditManager, configManager);
+        TaintSummaryStore taintStore = null;
+        TaintSummaries taint = null;
+        // 污点摘要只服务于SQL注入检查，未启用该规则时不计算
+        if (taintRoot != null && !noTaint && auditManager.getRuleIds().contains(SqlInjectionRuleProvider.ID)
+                && Boolean.parseBoolean(configManager.get("audit.taint.enabled", "true"))) {
+            // 先更新方法模型（只解析内容变化的文件），再组合出项目级摘要供各文件审计使用；
+            // 模型与审计结果缓存分开保存，--no-cache 时同样复用
+            taintStore = TaintSummaryStore.open(cacheDirectory(configManager), cacheFingerprint(parser, auditManager));
+            // 更新时解析出的语法树留给审计使用，同一文件不解析两次
+            taintStore.retainParsed(taintFiles != null ? taintFiles.size() : TAINT_RETAINED_FILES);
+            if (taintFiles != null) {
+                taintStore.refresh(taintFiles, taintRoot, parser, threads);
+            } else {
+                taintStore.refresh(taintRoot, taintRecursive, parser, threads);
+            }
+            taint = taintStore.compose();
+            TerminalUtils.printInfo("污点摘要: " + taint.size() + " 个方法，复用 " + taintStore.getReused()
+                    + " 个文件，重新分析 " + taintStore.getAnalyzed() + " 个文件");
+        }
+        TaintSummaryStore models = taintStore;
+        TaintSummaries summaries = taint;
+        int[] issueCount = {0};
+        AtomicInteger prefiltered = new AtomicInteger();
+        AtomicInteger partial = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger ruleTimeouts = new AtomicInteger();
+        PipelineStats stats = runner.run(source -> {
+            String cacheKey = source.getContentHash();
+            Set<String> calledKeys = Collections.emptySet();
+            if (summaries != null) {
+                // 审计结果还依赖所调用方法的摘要，摘要变化时缓存不再有效
+                calledKeys = models.calledKeys(source.getFile());
+                cacheKey = cacheKey + ":" + summaries.fingerprint(calledKeys);
+            }
+            if (cache != null) {
+                // 内容未变化的文件直接使用缓存结果，跳过解析和审计
+                List<AuditResult> cached = cache.get(cacheKey, source.getPath());
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            List<AuditResult> results;
+            // 调用了会执行SQL的项目方法时，文件中可能没有规则的触发词，不能预过滤
+            List<AuditRule> rules = summaries != null && summaries.hasSink(calledKeys)
+                    ? auditManager.getRules() : auditManager.selectRules(source.getContent());
+            if (rules.isEmpty()) {
+                // 没有规则可能命中，跳过语法树构建
+                prefiltered.incrementAndGet();
+                results = new ArrayList<>();
+            } else {
+                ParseOutcome outcome = models != null ? models.takeParsed(source) : null;
+                if (outcome == null) {
+                    outcome = parser.tryParse(source);
+                }
+                results = toParseResults(outcome, source.getPath());
+                if (outcome.getStatus() == ParseOutcome.Status.TIMEOUT) {
+                    // 超时与机器负载有关，不写入缓存，下次重新尝试
+                    skipped.incrementAndGet();
+                    return results;
+                }
+                if (outcome.getStatus() == ParseOutcome.Status.PARTIAL) {
+                    partial.incrementAndGet();
+                }
+                if (outcome.getCompilationUnit() != null) {
+                    if (summaries != null) {
+                        TaintSummaries.attach(outcome.getCompilationUnit(), summaries);
+                    }
+                    List<AuditResult> auditResults = auditManager.audit(outcome.getCompilationUnit(), rules);
+                    results.addAll(auditResults);
+                    long timedOut = auditResults.stream()
+                            .filter(result -> AuditManager.TIMEOUT_RULE_NAME.equals(result.getRuleName()))
+                            .count();
+                    if (timedOut > 0) {
+                        // 规则超时同样与机器负载有关，不写入缓存
+                        ruleTimeouts.addAndGet((int) timedOut);
+                        return results;
+                    }
+                }
+            }
+            if (cache != null) {
+                cache.put(cacheKey, results);
+            }
+            return results;
+        }, results -> {
+            for (AuditResult result : results) {
+                // 行号为0的是文件级问题（如解析超时），变更集模式下同样输出
+                if (changeSet == null || result.getLine() <= 0
+                        || changeSet.isChanged(Paths.get(result.getFilePath()), result.getLine())) {
+                    issueCount[0]++;
+                    printAuditResult(result);
+                }
+            }
+        });
+        TerminalUtils.printSuccess("目录审计完成，共审计 " + stats.getProcessed() + " 个Java文件");
+        if (prefiltered.get() > 0) {
+            TerminalUtils.printInfo("预过滤跳过语法分析 " + prefiltered.get() + " 个文件");
+        }
+        if (partial.get() > 0) {
+            TerminalUtils.printWarning("存在语法问题、只审计了部分内容 " + partial.get() + " 个文件");
+        }
+        if (skipped.get() > 0) {
+            TerminalUtils.printWarning("解析超时跳过 " + skipped.get() + " 个文件");
+        }
+        if (ruleTimeouts.get() > 0) {
+            TerminalUtils.printWarning("规则超时跳过 " + ruleTimeouts.get() + " 次");
+        }
+        if (stats.getFailed() > 0) {
+            TerminalUtils.printWarning("处理失败 " + stats.getFailed() + " 个文件，详见日志");
+        }
+        if (issueCount[0] == 0) {
+            TerminalUtils.printSuccess("未发现问题");
+        } else {
+            TerminalUtils.printInfo("审计完成（共 " + issueCount[0] + " 个问题）");
+        }
+        if (cache != null) {
+            TerminalUtils.printInfo("审计缓存: " + cache.getStatistics());
+            try {
+                cache.save();
+            } catch (IOException e) {
+                TerminalUtils.printWarning("保存审计缓存失败: " + e.getMessage());
+            }
+        }
+        if (taintStore != null) {
+            taintStore.retainParsed(0);
+            try {
+                taintStore.save();
+            } catch (IOException e) {
+                TerminalUtils.printWarning("保存污点模型失败: " + e.getMessage());
+            }
+        }
+        printRuleStatistics(auditManager);
+    }
+
+    /**
+     * 输出各规则的耗时统计（开启 --rule-stats 时）
+     */
+    private void printRuleStatistics(AuditManager auditManager) {
+        RuleStatistics statistics = auditManager.getRuleStatistics();
+        if (statistics == null) {
+            return;
+        }
+        TerminalUtils.printInfo("规则耗时统计:");
+        for (RuleStatistics.RuleLatency latency : statistics.summarize()) {
+            TerminalUtils.printInfo(String.format("  %s: %d 个文件, P50 %s, P99 %s, 最大 %s, 超时 %d 次",
+                    latency.getRuleName(), latency.getFiles(), millis(latency.getP50Nanos()),
+                    millis(latency.getP99Nanos()), millis(latency.getMaxNanos()), latency.getTimeouts()));
+            for (RuleStatistics.FileLatency file : latency.getWorstFiles()) {
+                TerminalUtils.printInfo("    " + millis(file.getNanos()) + "  " + file.getFilePath());
+            }
+        }
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * 读取整数配置项
+     * @param configManager 配置管理器
+     * @param key 配置项
+     * @param defaultValue 默认值
+     * @return 配置值，格式错误时输出错误信息并返回null
+     */
+    private static Long longConfig(ConfigManager configManager, String key, long defaultValue) {
+        String value = configManager.get(key, String.valueOf(defaultValue));
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            TerminalUtils.printError("配置项 " + key + " 不是有效的整数: " + value);
+            return null;
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1fms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * 将解析问题转换为审计结果，使跳过或部分审计的文件出现在报告中
+     * @param outcome 解析结果
+     * @param filePath 文件路径
+     * @return 审计结果列表
+     */
+    private List<AuditResult> toParseResults(ParseOutcome outcome, String filePath) {
+        List<AuditResult> results = new ArrayList<>();
+        List<ParseOutcome.ParseIssue> issues = outcome.getIssues();
+        ParseOutcome.ParseIssue first = issues.isEmpty() ? null : issues.get(0);
+        String detail = first != null ? first.getMessage() : "未知错误";
+        int line = first != null ? first.getLine() : 0;
+        int column = first != null ? first.getColumn() : 0;
+        switch (outcome.getStatus()) {
+            case TIMEOUT:
+                results.add(new AuditResult(PARSE_RULE_NAME, AuditRule.Severity.WARNING,
+                        "解析超过 " + outcome.getElapsedMillis() + "ms，已跳过审计", filePath, 0, 0,
+                        "确认是否为生成代码，可使用 --exclude 排除或使用 --parse-timeout 调整时限"));
+                break;
+            case FAILED:
+                results.add(new AuditResult(PARSE_RULE_NAME, AuditRule.Severity.WARNING,
+                        "文件无法解析，已跳过审计: " + detail, filePath, line, column));
+                break;
+            case PARTIAL:
+                results.add(new AuditResult(PARSE_RULE_NAME, AuditRule.Severity.INFO,
+                        "文件存在 " + issues.size() + " 处语法问题，只审计了可解析的部分: " + detail, filePath, line, column));
+                break;
+            default:
+                break;
+        }
+        return results;
+    }
+
+    /**
+     * 打开审计结果缓存
+     * @param parser 代码解析器
+     * @param auditManager 审计管理器
+     * @param configManager 配置管理器
+     * @return 审计结果缓存，未启用时返回null
+     */
+    private AuditCache openCache(CodeParser parser, AuditManager auditManager, ConfigManager configManager) {
+        if (noCache || !Boolean.parseBoolean(configManager.get("audit.cache.enabled", "true"))) {
+            return null;
+        }
+        int maxEntries = Integer.parseInt(configManager.get("audit.cache.max.entries",
+                String.valueOf(AuditCache.DEFAULT_MAX_ENTRIES)));
+        AuditCache cache = AuditCache.open(cacheDirectory(configManager), cacheFingerprint(parser, auditManager), maxEntries);
+        if (cache.isInvalidated()) {
+            TerminalUtils.printInfo("规则集、工具版本或解析设置已变化，审计缓存已失效");
+        }
+        return cache;
+    }
+
+    private File cacheDirectory(ConfigManager configManager) {
+        return new File(cacheDir != null ? cacheDir : configManager.get("audit.cache.dir", AuditCache.DEFAULT_DIR));
+    }
+
+    /**
+     * 工具版本、规则集版本与解析设置（档位、容错解析）组成的缓存指纹
+     */
+    private String cacheFingerprint(CodeParser parser, AuditManager auditManager) {
+        return Main.VERSION + "/" + auditManager.getRuleSetVersion() + "/" + parser.getProfile().name()
+                + (parser.isRecovery() ? "/recovery" : "");
+    }
+
+    /**
+     * 以指定的处理函数和输出回调运行流水线
+     */
+    private interface PipelineRunner {
+
+        PipelineStats run(Function<SourceFile, List<AuditResult>> worker, Consumer<List<AuditResult>> sink) throws IOException;
+    }
+
     private void printAuditResults(List<AuditResult> results) {
         if (results.isEmpty()) {
             TerminalUtils.printSuccess("未发现问题");
@@ -80,17 +591,21 @@ public class AuditCommand implements Callable<Integer> {
 
         TerminalUtils.printInfo("审计结果（共 " + results.size() + " 个问题）:");
         for (AuditResult result : results) {
-            switch (result.getSeverity()) {
-                case ERROR:
-                    TerminalUtils.printError(result.toString());
-                    break;
-                case WARNING:
-                    TerminalUtils.printWarning(result.toString());
-                    break;
-                case INFO:
-                    TerminalUtils.printInfo(result.toString());
-                    break;
-            }
+            printAuditResult(result);
+        }
+    }
+
+    private void printAuditResult(AuditResult result) {
+        switch (result.getSeverity()) {
+            case ERROR:
+                TerminalUtils.printError(result.toString());
+                break;
+            case WARNING:
+                TerminalUtils.printWarning(result.toString());
+                break;
+            case INFO:
+                TerminalUtils.printInfo(result.toString());
+                break;
         }
     }
 }
@@ -0,0 +1,59 @@
+package com.autojav.cli;
+
+import com.autojav.core.ConfigManager;
+import com.autojav.core.FileDiscovery;
+import picocli.CommandLine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 文件发现相关的命令行参数，供需要遍历目录的命令复用
+ */
+public class DiscoveryOptions {
+
+    @CommandLine.Option(names = {"--include"}, split = ",", description = "只处理匹配的文件（glob，相对于目标目录），可重复指定")
+    private List<String> includes = new ArrayList<>();
+
+    @CommandLine.Option(names = {"--exclude"}, split = ",", description = "跳过匹配的文件或目录（glob，相对于目标目录），可重复指定")
+    private List<String> excludes = new ArrayList<>();
+
+    @CommandLine.Option(names = {"--tests"}, description = "测试文件处理策略: exclude, include, only（默认exclude）")
+    private String tests;
+
+    @CommandLine.Option(names = {"--no-follow-links"}, description = "不跟随符号链接")
+    private boolean noFollowLinks;
+
+    /**
+     * 根据命令行参数与配置创建文件发现规则
+     * 命令行未指定时使用配置项 discovery.include、discovery.exclude、discovery.tests
+     * @param configManager 配置管理器
+     * @return 文件发现规则
+     */
+    public FileDiscovery toFileDiscovery(ConfigManager configManager) {
+        List<String> includePatterns = includes.isEmpty() ? splitConfig(configManager.get("discovery.include")) : includes;
+        List<String> excludePatterns = excludes.isEmpty() ? splitConfig(configManager.get("discovery.exclude")) : excludes;
+        String testPolicy = tests != null ? tests : configManager.get("discovery.tests", "exclude");
+
+        FileDiscovery.TestFilePolicy policy;
+        try {
+            policy = FileDiscovery.TestFilePolicy.valueOf(testPolicy.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的测试文件策略: " + testPolicy);
+        }
+
+        return new FileDiscovery()
+                .setIncludes(includePatterns)
+                .setExcludes(excludePatterns)
+                .setTestFilePolicy(policy)
+                .setFollowLinks(!noFollowLinks);
+    }
+
+    private static List<String> splitConfig(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Arrays.asList(value.split(","));
+    }
+}
@@ -1,14 +1,24 @@
 package com.autojav.cli;
 
 import com.autojav.core.CodeParser;
+import com.autojav.core.ConfigManager;
+import com.autojav.core.ParserProfile;
+import com.autojav.core.SourceFile;
 import com.autojav.core.TerminalUtils;
 import com.autojav.core.doc.DocGenerationException;
 import com.autojav.core.doc.DocGenerator;
 import com.autojav.core.doc.DocGeneratorFactory;
+import com.autojav.core.index.FileSymbols;
+import com.autojav.core.index.ProjectIndex;
+import com.autojav.core.index.ProjectIndexStore;
+import com.autojav.core.pipeline.ParsePipeline;
+import com.autojav.core.pipeline.PipelineStats;
 import com.github.javaparser.ast.CompilationUnit;
 import picocli.CommandLine;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -30,41 +40,101 @@ public class DocCommand implements Callable<Integer> {
     @CommandLine.Option(names = {"-r", "--recursive"}, description = "递归处理目录")
     private boolean recursive;
 
+    @CommandLine.Option(names = {"-t", "--threads"}, description = "解析线程数，默认为CPU核数")
+    private int threads = CodeParser.DEFAULT_THREADS;
+
+    @CommandLine.Option(names = {"--parser-profile"}, description = "解析配置档位: lean, audit, doc, full（默认doc）")
+    private String parserProfile;
+
+    @CommandLine.Option(names = {"--full-parse"}, description = "解析完整的方法体（默认只解析声明、注解和方法签名）")
+    private boolean fullParse;
+
+    @CommandLine.Option(names = {"--no-index"}, description = "不读取和保存项目索引（默认根据上次保存的索引跳过没有Controller的未变化文件）")
+    private boolean noIndex;
+
+    @CommandLine.Mixin
+    private DiscoveryOptions discoveryOptions;
+
     @Override
     public Integer call() throws Exception {
         TerminalUtils.printInfo("开始生成文档: " + path);
         TerminalUtils.printInfo("文档格式: " + format);
         TerminalUtils.printInfo("递归处理: " + recursive);
+        if (threads < 1) {
+            TerminalUtils.printError("解析线程数必须大于0: " + threads);
+            return 1;
+        }
         if (output != null) {
             TerminalUtils.printInfo("输出路径: " + output);
         }
 
         // 创建代码解析器
-        CodeParser parser = new CodeParser();
+        ConfigManager configManager = new ConfigManager();
+        ParserProfile profile;
+        try {
+            profile = ParserProfile.of(parserProfile != null
+                    ? parserProfile : configManager.get("doc.parser.profile", "doc"));
+        } catch (IllegalArgumentException e) {
+            TerminalUtils.printError(e.getMessage());
+            return 1;
+        }
+        CodeParser parser = new CodeParser(profile);
+        try {
+            parser.setFileDiscovery(discoveryOptions.toFileDiscovery(configManager));
+        } catch (IllegalArgumentException e) {
+            TerminalUtils.printError(e.getMessage());
+            return 1;
+        }
         File target = new File(path);
 
+        // 创建文档生成器
+        DocGenerator docGenerator = DocGeneratorFactory.createDocGenerator(format);
+
         // 解析Java文件或目录
         List<CompilationUnit> compilationUnits;
         if (target.isFile()) {
-            CompilationUnit cu = parser.parseFile(target);
+            CompilationUnit cu = fullParse ? parser.parseFile(target) : parser.parseSkeleton(SourceFile.read(target));
             if (cu != null) {
                 compilationUnits = List.of(cu);
+                docGenerator.setProjectIndex(ProjectIndex.build(List.of(FileSymbols.of(cu))));
                 TerminalUtils.printSuccess("文件解析成功: " + target.getName());
             } else {
                 TerminalUtils.printError("文件解析失败: " + target.getName());
                 return 1;
             }
         } else if (target.isDirectory()) {
-            compilationUnits = parser.parseDirectory(target, recursive);
-            TerminalUtils.printSuccess("目录解析完成，共解析 " + compilationUnits.size() + " 个Java文件");
+            // 流式解析：只保留需要生成文档的编译单元
+            ProjectIndexStore index = openIndex(parser, configManager);
+            List<CompilationUnit> documented = new ArrayList<>();
+            PipelineStats stats = new ParsePipeline<CompilationUnit>(parser, threads).run(target, recursive, source -> {
+                FileSymbols symbols = index.get(source.getFile(), source.getContentHash());
+                // 内容未变化且索引表明没有需要生成文档的类型时，无需解析
+                if (symbols != null && !docGenerator.accepts(symbols)) {
+                    return null;
+                }
+                // 文档只依赖声明结构，默认跳过方法体
+                CompilationUnit cu = fullParse ? parser.parse(source) : parser.parseSkeleton(source);
+                if (cu != null && symbols == null) {
+                    index.put(source.getFile(), source.getContentHash(), FileSymbols.of(cu));
+                }
+                return cu != null && docGenerator.accepts(cu) ? cu : null;
+            }, documented::add);
+            compilationUnits = documented;
+            TerminalUtils.printSuccess("目录解析完成，共处理 " + stats.getProcessed() + " 个Java文件");
+            index.prune(target, recursive);
+            // 没有保留语法树的文件（如请求参数类型）通过索引查询
+            docGenerator.setProjectIndex(index.build());
+            TerminalUtils.printInfo("项目索引: 复用 " + index.getReused() + " 个文件，更新 " + index.getIndexed() + " 个文件");
+            try {
+                index.save();
+            } catch (IOException e) {
+                TerminalUtils.printWarning("保存项目索引失败: " + e.getMessage());
+            }
         } else {
             TerminalUtils.printError("无效的路径: " + path);
             return 1;
         }
 
-        // 创建文档生成器
-        DocGenerator docGenerator = DocGeneratorFactory.createDocGenerator(format);
-
         // 输出文档
         if (output != null) {
             File outputFile = new File(output);
@@ -101,4 +171,18 @@ public class DocCommand implements Callable<Integer> {
 
         return 0;
     }
+
+    /**
+     * 打开项目索引
+     * @param parser 代码解析器
+     * @param configManager 配置管理器
+     * @return 项目索引存储，未启用持久化时只在内存中保存
+     */
+    private ProjectIndexStore openIndex(CodeParser parser, ConfigManager configManager) {
+        File file = noIndex || !Boolean.parseBoolean(configManager.get("doc.index.enabled", "true"))
+                ? null : new File(configManager.get("doc.index.file", ProjectIndexStore.DEFAULT_FILE));
+        // 只解析声明结构时没有方法体中的局部类，与完整解析得到的索引不能混用；解析档位与容错设置同理
+        return ProjectIndexStore.open(file, Main.VERSION + "/" + (fullParse ? "full" : "skeleton")
+                + "/" + parser.getProfile().name() + (parser.isRecovery() ? "/recovery" : ""));
+    }
 }
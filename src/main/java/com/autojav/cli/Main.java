@@ -1,5 +1,6 @@
 package com.autojav.cli;
 
+import com.autojav.core.CodeParser;
 import com.autojav.core.ExceptionHandler;
 
 import picocli.CommandLine;
@@ -8,7 +9,7 @@ import java.util.concurrent.Callable;
 
 @picocli.CommandLine.Command(
         name = "autojav",
-        version = "1.0.0",
+        version = Main.VERSION,
         description = "Java代码审计CLI工具",
         subcommands = {
                 AuditCommand.class,
@@ -18,6 +19,11 @@ import java.util.concurrent.Callable;
 )
 public class Main implements Callable<Integer> {
 
+    /**
+     * 工具版本
+     */
+    public static final String VERSION = "1.0.0";
+
     @CommandLine.Option(names = {"-h", "--help"}, usageHelp = true, description = "显示帮助信息")
     private boolean help;
 
@@ -31,18 +37,28 @@ public class Main implements Callable<Integer> {
     }
 
     public static void main(String[] args) {
+        // 单个文件在命令线程中直接解析，与解析线程使用相同的栈大小
+        int[] exitCode = new int[1];
+        Thread command = new Thread(null, () -> exitCode[0] = run(args), "autojav-main", CodeParser.THREAD_STACK_SIZE);
+        command.start();
+        try {
+            command.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitCode[0] = 1;
+        }
+        System.exit(exitCode[0]);
+    }
+
+    private static int run(String[] args) {
         try {
-            int exitCode = new CommandLine(new Main()).execute(args);
-            System.exit(exitCode);
+            return new CommandLine(new Main()).execute(args);
         } catch (RuntimeException e) {
-            int exitCode = ExceptionHandler.handleRuntimeException(e);
-            System.exit(exitCode);
+            return ExceptionHandler.handleRuntimeException(e);
         } catch (Exception e) {
-            int exitCode = ExceptionHandler.handleException(e);
-            System.exit(exitCode);
+            return ExceptionHandler.handleException(e);
         } catch (Error e) {
-            int exitCode = ExceptionHandler.handleError(e);
-            System.exit(exitCode);
+            return ExceptionHandler.handleError(e);
         }
     }
 }
@@ -2,27 +2,77 @@ package com.autojav.core;
 
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.Position;
+import com.github.javaparser.Problem;
+import com.github.javaparser.Provider;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Slf4j
 public class CodeParser {
 
-    private JavaParser javaParser;
+    /**
+     * 默认解析线程数（CPU核数）
+     */
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 解析与审计线程的栈大小
+     * <p>
+     * JavaParser 的语法分析按表达式嵌套深度递归，默认线程栈（通常1MB）上数千段的 {@code +} 拼接就会
+     * StackOverflowError。解析和审计线程统一以该栈大小创建，可处理约5万段的拼接；更深的嵌套仍会溢出，
+     * 该文件按解析失败处理。栈空间按需提交，线程数较多时也不会实际占用这么多内存。
+     * 栈大小对JVM只是建议，个别平台可能忽略。
+     */
+    public static final long THREAD_STACK_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * JavaParser不是线程安全的，每个线程持有独立实例
+     */
+    private final ThreadLocal<JavaParser> javaParser;
+
+    private final ParserProfile profile;
+
+    private FileDiscovery fileDiscovery = new FileDiscovery();
+
+    private boolean recovery;
+
+    private long parseTimeoutMillis;
 
     public CodeParser() {
-        this.javaParser = new JavaParser();
+        this(ParserProfile.FULL);
+    }
+
+    public CodeParser(ParserProfile profile) {
+        this.profile = profile;
+        this.javaParser = ThreadLocal.withInitial(() -> new JavaParser(profile.toConfiguration()));
+    }
+
+    /**
+     * 获取解析配置档位
+     * @return 解析配置档位
+     */
+    public ParserProfile getProfile() {
+        return profile;
     }
 
     /**
@@ -36,17 +86,113 @@ public class CodeParser {
             throw new IllegalArgumentException("无效的Java文件: " + file.getAbsolutePath());
         }
 
-        try (FileInputStream fis = new FileInputStream(file)) {
-            ParseResult<CompilationUnit> result = javaParser.parse(fis);
-            if (result.isSuccessful()) {
-                log.debug("文件解析成功: {}", file.getAbsolutePath());
-                return result.getResult().orElse(null);
-            } else {
-                log.error("文件解析失败: {}", file.getAbsolutePath());
-                result.getProblems().forEach(problem -> log.error("解析问题: {}", problem.getMessage()));
-                return null;
+        return parse(SourceFile.read(file));
+    }
+
+    /**
+     * 解析已读入内存的源文件
+     * @param source 源文件
+     * @return 编译单元，解析失败时返回null
+     */
+    public CompilationUnit parse(SourceFile source) {
+        return tryParse(source).getCompilationUnit();
+    }
+
+    /**
+     * 只解析源文件的声明结构，方法体被清空后再解析
+     * 得到的语法树包含类型、字段、注解和方法签名，方法体为空，节点位置与原文件一致
+     * @param source 源文件
+     * @return 编译单元，解析失败时返回null
+     */
+    public CompilationUnit parseSkeleton(SourceFile source) {
+        return parse(SkeletonFilter.strip(source.getContent()), source.getFile()).getCompilationUnit();
+    }
+
+    /**
+     * 解析已读入内存的源文件，返回包含解析状态和问题的详细结果
+     * @param source 源文件
+     * @return 解析结果
+     */
+    public ParseOutcome tryParse(SourceFile source) {
+        return parse(source.getContent(), source.getFile());
+    }
+
+    private ParseOutcome parse(String content, File file) {
+        long startTime = System.nanoTime();
+        ParseResult<CompilationUnit> result;
+        List<ParseOutcome.ParseIssue> issues = new ArrayList<>();
+        if (parseTimeoutMillis > 0) {
+            long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(parseTimeoutMillis);
+            try {
+                result = javaParser.get().parse(ParseStart.COMPILATION_UNIT, new DeadlineProvider(content, deadline));
+            } catch (ParseTimeoutError e) {
+                log.warn("文件解析超时（超过 {}ms），已跳过: {}", parseTimeoutMillis, file.getAbsolutePath());
+                return new ParseOutcome(ParseOutcome.Status.TIMEOUT, null, issues,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
             }
+        } else {
+            result = javaParser.get().parse(content);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        for (Problem problem : result.getProblems()) {
+            Optional<Position> begin = problem.getLocation().flatMap(location -> location.getBegin().getRange())
+                    .map(range -> range.begin);
+            issues.add(new ParseOutcome.ParseIssue(shortMessage(problem.getMessage()),
+                    begin.map(position -> position.line).orElse(0), begin.map(position -> position.column).orElse(0)));
+        }
+
+        CompilationUnit cu = result.getResult().orElse(null);
+        if (cu != null) {
+            // 记录源文件路径，审计结果依赖它定位文件
+            cu.setStorage(file.toPath());
+        }
+        if (result.isSuccessful() && cu != null) {
+            log.debug("文件解析成功: {}", file.getAbsolutePath());
+            return new ParseOutcome(ParseOutcome.Status.SUCCESS, cu, issues, elapsedMillis);
+        }
+        if (recovery && cu != null) {
+            log.warn("文件存在语法问题，使用部分语法树: {}", file.getAbsolutePath());
+            issues.forEach(issue -> log.warn("解析问题: {}", issue.getMessage()));
+            return new ParseOutcome(ParseOutcome.Status.PARTIAL, cu, issues, elapsedMillis);
+        }
+        log.error("文件解析失败: {}", file.getAbsolutePath());
+        result.getProblems().forEach(problem -> log.error("解析问题: {}", problem.getMessage()));
+        return new ParseOutcome(ParseOutcome.Status.FAILED, null, issues, elapsedMillis);
+    }
+
+    /**
+     * 去掉语法错误信息中冗长的候选词列表
+     */
+    private static String shortMessage(String message) {
+        int index = message.indexOf(", expected one of");
+        return index > 0 ? message.substring(0, index) : message;
+    }
+
+    /**
+     * 设置是否启用容错解析：存在语法问题时使用JavaParser恢复出的部分语法树，而不是放弃整个文件
+     * @param recovery 是否启用
+     */
+    public void setRecovery(boolean recovery) {
+        this.recovery = recovery;
+    }
+
+    public boolean isRecovery() {
+        return recovery;
+    }
+
+    /**
+     * 设置单个文件的解析时限
+     * 时限在解析器读取源码时检查，超时后立即放弃该文件，释放处理线程。
+     * 解析器每次读取约4K个字符，因此只有读取过程中的耗时受限：小于一次读取量的文件，
+     * 以及最后一次读取之后的解析和语法树构建，都不受时限约束
+     * @param parseTimeoutMillis 时限（毫秒），0表示不限制
+     */
+    public void setParseTimeout(long parseTimeoutMillis) {
+        if (parseTimeoutMillis < 0) {
+            throw new IllegalArgumentException("解析时限不能为负数: " + parseTimeoutMillis);
         }
+        this.parseTimeoutMillis = parseTimeoutMillis;
     }
 
     /**
@@ -57,40 +203,115 @@ public class CodeParser {
      * @throws IOException IO异常
      */
     public List<CompilationUnit> parseDirectory(File directory, boolean recursive) throws IOException {
+        return parseDirectory(directory, recursive, 1);
+    }
+
+    /**
+     * 并行解析目录中的Java文件，结果顺序与文件遍历顺序一致（与线程数无关）
+     * @param directory 目录
+     * @param recursive 是否递归
+     * @param threads 解析线程数
+     * @return 编译单元列表
+     * @throws IOException IO异常
+     */
+    public List<CompilationUnit> parseDirectory(File directory, boolean recursive, int threads) throws IOException {
         if (!directory.exists() || !directory.isDirectory()) {
             throw new IllegalArgumentException("无效的目录: " + directory.getAbsolutePath());
         }
+        if (threads < 1) {
+            throw new IllegalArgumentException("解析线程数必须大于0: " + threads);
+        }
+
+        List<File> files = new ArrayList<>();
+        walkJavaFiles(directory, recursive, files::add);
+
+        List<CompilationUnit> compilationUnits = new ArrayList<>(files.size());
+        if (threads == 1 || files.size() < 2) {
+            for (File file : files) {
+                CompilationUnit cu = parseFile(file);
+                if (cu != null) {
+                    compilationUnits.add(cu);
+                }
+            }
+            return compilationUnits;
+        }
 
-        List<CompilationUnit> compilationUnits = new ArrayList<>();
-        parseDirectoryRecursive(directory, recursive, compilationUnits);
+        ExecutorService executor = newParserPool(Math.min(threads, files.size()));
+        try {
+            List<Future<CompilationUnit>> futures = new ArrayList<>(files.size());
+            for (File file : files) {
+                futures.add(executor.submit(() -> parseFile(file)));
+            }
+            // 按提交顺序收集结果，保证输出顺序稳定
+            for (Future<CompilationUnit> future : futures) {
+                CompilationUnit cu = getParseResult(future);
+                if (cu != null) {
+                    compilationUnits.add(cu);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
         return compilationUnits;
     }
 
     /**
-     * 递归解析目录
+     * 遍历目录中待解析的Java文件，文件按路径排序
      * @param directory 目录
      * @param recursive 是否递归
-     * @param compilationUnits 编译单元列表
+     * @param consumer 文件处理回调
      * @throws IOException IO异常
      */
-    private void parseDirectoryRecursive(File directory, boolean recursive, List<CompilationUnit> compilationUnits) throws IOException {
-        File[] files = directory.listFiles();
-        if (files == null) {
-            return;
-        }
+    public void walkJavaFiles(File directory, boolean recursive, Consumer<File> consumer) throws IOException {
+        fileDiscovery.walk(directory.toPath(), recursive, path -> consumer.accept(path.toFile()));
+    }
 
-        for (File file : files) {
-            if (file.isFile() && file.getName().endsWith(".java")) {
-                // 过滤测试类
-                if (!file.getName().endsWith("Test.java") && !file.getName().endsWith("Tests.java")) {
-                    CompilationUnit cu = parseFile(file);
-                    if (cu != null) {
-                        compilationUnits.add(cu);
-                    }
-                }
-            } else if (file.isDirectory() && recursive) {
-                parseDirectoryRecursive(file, recursive, compilationUnits);
+    /**
+     * 设置文件发现规则
+     * @param fileDiscovery 文件发现
+     */
+    public void setFileDiscovery(FileDiscovery fileDiscovery) {
+        this.fileDiscovery = fileDiscovery;
+    }
+
+    /**
+     * 创建解析线程池
+     * @param threads 线程数
+     * @return 线程池
+     */
+    private ExecutorService newParserPool(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(null, runnable, "autojav-parser-" + counter.incrementAndGet(), THREAD_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 获取解析任务结果，还原任务中抛出的异常
+     * @param future 解析任务
+     * @return 编译单元
+     * @throws IOException IO异常
+     */
+    private CompilationUnit getParseResult(Future<CompilationUnit> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("目录解析被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
             }
+            throw new IOException("文件解析失败: " + cause.getMessage(), cause);
         }
     }
 
@@ -100,15 +321,7 @@ public class CodeParser {
      * @return 类声明列表
      */
     public List<ClassOrInterfaceDeclaration> extractClasses(CompilationUnit cu) {
-        List<ClassOrInterfaceDeclaration> classes = new ArrayList<>();
-        cu.accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(ClassOrInterfaceDeclaration n, Void arg) {
-                super.visit(n, arg);
-                classes.add(n);
-            }
-        }, null);
-        return classes;
+        return cu.findAll(ClassOrInterfaceDeclaration.class, Node.TreeTraversal.POSTORDER);
     }
 
     /**
@@ -117,15 +330,7 @@ public class CodeParser {
      * @return 方法声明列表
      */
     public List<MethodDeclaration> extractMethods(CompilationUnit cu) {
-        List<MethodDeclaration> methods = new ArrayList<>();
-        cu.accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(MethodDeclaration n, Void arg) {
-                super.visit(n, arg);
-                methods.add(n);
-            }
-        }, null);
-        return methods;
+        return cu.findAll(MethodDeclaration.class, Node.TreeTraversal.POSTORDER);
     }
 
     /**
@@ -134,15 +339,7 @@ public class CodeParser {
      * @return 方法调用列表
      */
     public List<MethodCallExpr> extractMethodCalls(CompilationUnit cu) {
-        List<MethodCallExpr> methodCalls = new ArrayList<>();
-        cu.accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(MethodCallExpr n, Void arg) {
-                super.visit(n, arg);
-                methodCalls.add(n);
-            }
-        }, null);
-        return methodCalls;
+        return cu.findAll(MethodCallExpr.class, Node.TreeTraversal.POSTORDER);
     }
 
     /**
@@ -161,19 +358,7 @@ public class CodeParser {
      * @throws IOException IO异常
      */
     public int getLineCount(File file) throws IOException {
-        try (FileInputStream fis = new FileInputStream(file)) {
-            byte[] buffer = new byte[8192];
-            int count = 0;
-            int n;
-            while ((n = fis.read(buffer)) > 0) {
-                for (int i = 0; i < n; i++) {
-                    if (buffer[i] == '\n') {
-                        count++;
-                    }
-                }
-            }
-            return count;
-        }
+        return SourceFile.read(file).getLineCount();
     }
 
     public static void main(String[] args) {
@@ -191,4 +376,53 @@ public class CodeParser {
             log.error("测试解析失败", e);
         }
     }
+
+    /**
+     * 带截止时间的源码读取，解析器每次取数据时检查是否超时
+     */
+    private static final class DeadlineProvider implements Provider {
+
+        private final String content;
+
+        private final long deadline;
+
+        private int position;
+
+        private DeadlineProvider(String content, long deadline) {
+            this.content = content;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int len) {
+            if (position >= content.length()) {
+                return -1;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new ParseTimeoutError();
+            }
+            int count = Math.min(len, content.length() - position);
+            content.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 解析超时
+     * JavaParser生成的词法分析器会把读取源码时抛出的Exception当作文件结束处理，
+     * 因此使用Error穿透解析器，由 {@link #parse(String, File)} 捕获
+     */
+    private static final class ParseTimeoutError extends Error {
+
+        private static final long serialVersionUID = 1L;
+
+        private ParseTimeoutError() {
+            super("解析超时", null, false, false);
+        }
+    }
 }
@@ -0,0 +1,352 @@
+package com.autojav.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Java源文件发现
+ * <p>
+ * 基于 {@link Files#walkFileTree} 遍历目录：命中排除规则的目录整棵跳过，
+ * 跟随符号链接时按文件标识去重，避免链接成环导致死循环。
+ * include/exclude 使用glob语法，匹配相对于遍历根目录的路径，在设置时编译一次。
+ */
+@Slf4j
+public class FileDiscovery {
+
+    /**
+     * 默认在任意层级按名称跳过的目录（依赖、版本控制和工具目录）
+     */
+    public static final List<String> DEFAULT_EXCLUDED_DIRS = Collections.unmodifiableList(Arrays.asList(
+            "node_modules", ".git", ".svn", ".hg", ".idea", ".gradle", ".autojav"));
+
+    /**
+     * 默认跳过的构建输出目录
+     * 这些名称也常用作包名（如 com/acme/build），因此只在遍历根目录下、或所在目录有构建文件时才跳过
+     */
+    public static final List<String> DEFAULT_BUILD_OUTPUT_DIRS = Collections.unmodifiableList(Arrays.asList(
+            "target", "build", "out"));
+
+    /**
+     * 标识项目或模块根目录的构建文件，其旁边的构建输出目录会被跳过
+     */
+    private static final List<String> BUILD_FILES = Collections.unmodifiableList(Arrays.asList(
+            "pom.xml", "build.gradle", "build.gradle.kts", "settings.gradle", "settings.gradle.kts", "build.xml"));
+
+    /**
+     * 测试文件处理策略
+     */
+    public enum TestFilePolicy {
+        /**
+         * 跳过测试文件
+         */
+        EXCLUDE,
+        /**
+         * 包含测试文件
+         */
+        INCLUDE,
+        /**
+         * 只处理测试文件
+         */
+        ONLY
+    }
+
+    private Set<String> excludedDirNames = new HashSet<>(DEFAULT_EXCLUDED_DIRS);
+
+    private Set<String> buildOutputDirNames = new HashSet<>(DEFAULT_BUILD_OUTPUT_DIRS);
+
+    private List<PathMatcher> includes = Collections.emptyList();
+
+    private List<PathMatcher> excludes = Collections.emptyList();
+
+    private List<PathMatcher> excludedTrees = Collections.emptyList();
+
+    private TestFilePolicy testFilePolicy = TestFilePolicy.EXCLUDE;
+
+    private boolean followLinks = true;
+
+    /**
+     * 设置包含规则，为空时包含所有Java文件
+     * @param patterns glob列表
+     * @return 当前实例
+     */
+    public FileDiscovery setIncludes(List<String> patterns) {
+        this.includes = compile(patterns);
+        return this;
+    }
+
+    /**
+     * 设置排除规则
+     * 以 "/**" 结尾的规则同时匹配目录本身，使整棵子树在遍历时被跳过
+     * @param patterns glob列表
+     * @return 当前实例
+     */
+    public FileDiscovery setExcludes(List<String> patterns) {
+        this.excludes = compile(patterns);
+        List<String> trees = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern.endsWith("/**") && pattern.length() > 3) {
+                trees.add(pattern.substring(0, pattern.length() - 3));
+            }
+        }
+        this.excludedTrees = compile(trees);
+        return this;
+    }
+
+    /**
+     * 设置按名称跳过的目录
+     * @param names 目录名集合
+     * @return 当前实例
+     */
+    public FileDiscovery setExcludedDirNames(Set<String> names) {
+        this.excludedDirNames = new HashSet<>(names);
+        return this;
+    }
+
+    /**
+     * 设置构建输出目录名，只在遍历根目录下或所在目录有构建文件时跳过
+     * @param names 目录名集合
+     * @return 当前实例
+     */
+    public FileDiscovery setBuildOutputDirNames(Set<String> names) {
+        this.buildOutputDirNames = new HashSet<>(names);
+        return this;
+    }
+
+    /**
+     * 设置测试文件处理策略
+     * @param testFilePolicy 测试文件处理策略
+     * @return 当前实例
+     */
+    public FileDiscovery setTestFilePolicy(TestFilePolicy testFilePolicy) {
+        this.testFilePolicy = testFilePolicy;
+        return this;
+    }
+
+    /**
+     * 设置是否跟随符号链接
+     * @param followLinks 是否跟随
+     * @return 当前实例
+     */
+    public FileDiscovery setFollowLinks(boolean followLinks) {
+        this.followLinks = followLinks;
+        return this;
+    }
+
+    /**
+     * 查找目录中的Java文件
+     * @param root 根目录
+     * @param recursive 是否递归
+     * @return 按路径排序的文件列表
+     * @throws IOException IO异常
+     */
+    public List<Path> discover(Path root, boolean recursive) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Set<Object> visitedDirs = new HashSet<>();
+        Set<FileVisitOption> options = followLinks
+                ? EnumSet.of(FileVisitOption.FOLLOW_LINKS)
+                : EnumSet.noneOf(FileVisitOption.class);
+        int maxDepth = recursive ? Integer.MAX_VALUE : 1;
+
+        Files.walkFileTree(root, options, maxDepth, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(root)) {
+                    Path fileName = dir.getFileName();
+                    if (fileName != null && excludedDirNames.contains(fileName.toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    if (isBuildOutput(root, dir)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    Path relative = root.relativize(dir);
+                    if (matchesAny(excludes, relative) || matchesAny(excludedTrees, relative)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                }
+                // 多个链接指向同一目录时只遍历一次
+                Object key = attrs.fileKey();
+                if (key != null && !visitedDirs.add(key)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && accept(root.relativize(file))) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                if (e instanceof FileSystemLoopException) {
+                    log.warn("检测到符号链接循环，已跳过: {}", file);
+                } else {
+                    log.warn("无法访问: {} ({})", file, e.getMessage());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        files.sort(FileDiscovery::comparePaths);
+        return files;
+    }
+
+    /**
+     * 遍历目录中的Java文件
+     * @param root 根目录
+     * @param recursive 是否递归
+     * @param consumer 文件处理回调
+     * @throws IOException IO异常
+     */
+    public void walk(Path root, boolean recursive, Consumer<Path> consumer) throws IOException {
+        for (Path file : discover(root, recursive)) {
+            consumer.accept(file);
+        }
+    }
+
+    /**
+     * 判断根目录下的指定文件是否符合发现规则（用于外部给定的文件列表）
+     * @param root 根目录
+     * @param file 文件
+     * @return 是否需要处理
+     */
+    public boolean matches(Path root, Path file) {
+        Path base = root.toAbsolutePath().normalize();
+        Path relative = base.relativize(file.toAbsolutePath().normalize());
+        if (relative.startsWith("..")) {
+            return false;
+        }
+        Path parent = relative.getParent();
+        if (parent != null) {
+            for (Path element : parent) {
+                if (excludedDirNames.contains(element.toString())) {
+                    return false;
+                }
+            }
+            for (Path dir = parent; dir != null; dir = dir.getParent()) {
+                if (matchesAny(excludes, dir) || matchesAny(excludedTrees, dir) || isBuildOutput(base, base.resolve(dir))) {
+                    return false;
+                }
+            }
+        }
+        return accept(relative);
+    }
+
+    /**
+     * 是否为构建输出目录：名称匹配，且位于遍历根目录下或所在目录有构建文件
+     */
+    private boolean isBuildOutput(Path root, Path dir) {
+        Path fileName = dir.getFileName();
+        if (fileName == null || !buildOutputDirNames.contains(fileName.toString())) {
+            return false;
+        }
+        Path parent = dir.getParent();
+        if (parent == null || parent.equals(root)) {
+            return true;
+        }
+        for (String buildFile : BUILD_FILES) {
+            if (Files.exists(parent.resolve(buildFile))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断文件是否需要处理
+     * @param relative 相对于根目录的路径
+     * @return 是否需要处理
+     */
+    private boolean accept(Path relative) {
+        String name = relative.getFileName().toString();
+        if (!name.endsWith(".java")) {
+            return false;
+        }
+        boolean testFile = isTestFile(name);
+        if (testFilePolicy == TestFilePolicy.EXCLUDE && testFile) {
+            return false;
+        }
+        if (testFilePolicy == TestFilePolicy.ONLY && !testFile) {
+            return false;
+        }
+        if (!includes.isEmpty() && !matchesAny(includes, relative)) {
+            return false;
+        }
+        return !matchesAny(excludes, relative);
+    }
+
+    /**
+     * 检查是否为测试文件
+     * @param name 文件名
+     * @return 是否为测试文件
+     */
+    public static boolean isTestFile(String name) {
+        return name.endsWith("Test.java") || name.endsWith("Tests.java");
+    }
+
+    private static boolean matchesAny(List<PathMatcher> matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<PathMatcher> compile(List<String> patterns) {
+        FileSystem fileSystem = FileSystems.getDefault();
+        Set<String> distinct = new LinkedHashSet<>(patterns);
+        List<PathMatcher> matchers = new ArrayList<>(distinct.size());
+        for (String pattern : distinct) {
+            String trimmed = pattern.trim();
+            if (!trimmed.isEmpty()) {
+                try {
+                    matchers.add(fileSystem.getPathMatcher("glob:" + trimmed));
+                } catch (PatternSyntaxException e) {
+                    throw new IllegalArgumentException("无效的glob模式: " + trimmed + "（" + e.getDescription() + "）", e);
+                }
+            }
+        }
+        return matchers;
+    }
+
+    /**
+     * 逐级比较路径，保证与按目录逐层排序的遍历顺序一致
+     */
+    private static int comparePaths(Path a, Path b) {
+        Iterator<Path> left = a.iterator();
+        Iterator<Path> right = b.iterator();
+        while (left.hasNext() && right.hasNext()) {
+            int result = left.next().toString().compareTo(right.next().toString());
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Boolean.compare(left.hasNext(), right.hasNext());
+    }
+}
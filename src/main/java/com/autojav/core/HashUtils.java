@@ -0,0 +1,67 @@
+package com.autojav.core;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 哈希工具
+ */
+public class HashUtils {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * MessageDigest不是线程安全的，每个线程复用一个实例
+     */
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前JVM不支持SHA-256", e);
+        }
+    });
+
+    private HashUtils() {
+    }
+
+    /**
+     * 计算SHA-256哈希
+     * @param bytes 数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 十六进制哈希
+     */
+    public static String sha256(byte[] bytes, int offset, int length) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        digest.update(bytes, offset, length);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * 计算SHA-256哈希，不改变缓冲区的读取位置
+     * @param buffer 数据
+     * @return 十六进制哈希
+     */
+    public static String sha256(ByteBuffer buffer) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        digest.update(buffer.duplicate());
+        return toHex(digest.digest());
+    }
+
+    /**
+     * 转换为十六进制字符串
+     * @param bytes 数据
+     * @return 十六进制字符串
+     */
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,107 @@
+package com.autojav.core;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 单个文件的解析结果
+ */
+public class ParseOutcome {
+
+    /**
+     * 解析状态
+     */
+    public enum Status {
+        /**
+         * 解析成功
+         */
+        SUCCESS,
+        /**
+         * 存在语法问题，得到部分语法树
+         */
+        PARTIAL,
+        /**
+         * 解析失败，没有可用的语法树
+         */
+        FAILED,
+        /**
+         * 解析超时，已放弃
+         */
+        TIMEOUT
+    }
+
+    private final Status status;
+
+    private final CompilationUnit compilationUnit;
+
+    private final List<ParseIssue> issues;
+
+    private final long elapsedMillis;
+
+    ParseOutcome(Status status, CompilationUnit compilationUnit, List<ParseIssue> issues, long elapsedMillis) {
+        this.status = status;
+        this.compilationUnit = compilationUnit;
+        this.issues = Collections.unmodifiableList(issues);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * 获取编译单元
+     * @return 编译单元，解析失败或超时时为null
+     */
+    public CompilationUnit getCompilationUnit() {
+        return compilationUnit;
+    }
+
+    /**
+     * 获取解析问题，按位置排序
+     * @return 解析问题列表
+     */
+    public List<ParseIssue> getIssues() {
+        return issues;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 解析问题
+     */
+    public static class ParseIssue {
+
+        private final String message;
+
+        private final int line;
+
+        private final int column;
+
+        ParseIssue(String message, int line, int column) {
+            this.message = message;
+            this.line = line;
+            this.column = column;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * 获取行号
+         * @return 行号，位置未知时为0
+         */
+        public int getLine() {
+            return line;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.autojav.core;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+
+/**
+ * 解析配置档位
+ * <p>
+ * 注释归属和词法单元保存会显著增加解析时间与语法树内存，按使用方实际需要的特性选择档位。
+ * 注意：JavaParser的节点位置依赖词法单元，不保存词法单元时节点没有行号列号，
+ * 需要报告位置的使用方（如代码审计）必须保存词法单元。
+ */
+public enum ParserProfile {
+
+    /**
+     * 最小配置：不归属注释、不保存词法单元（无位置信息）、不做语言级别校验
+     */
+    LEAN(false, false, LanguageLevel.RAW),
+
+    /**
+     * 代码审计：不归属注释，保存词法单元以报告问题位置，按Java 17校验语法
+     */
+    AUDIT(false, true, LanguageLevel.JAVA_17),
+
+    /**
+     * 文档生成：只需要声明、注解和签名，不归属注释、不保存词法单元，按Java 17校验语法
+     */
+    DOC(false, false, LanguageLevel.JAVA_17),
+
+    /**
+     * 完整配置：与JavaParser默认配置一致
+     */
+    FULL(true, true, null);
+
+    private final boolean attributeComments;
+
+    private final boolean storeTokens;
+
+    private final LanguageLevel languageLevel;
+
+    ParserProfile(boolean attributeComments, boolean storeTokens, LanguageLevel languageLevel) {
+        this.attributeComments = attributeComments;
+        this.storeTokens = storeTokens;
+        this.languageLevel = languageLevel;
+    }
+
+    /**
+     * 创建对应的解析配置，每次返回新实例
+     * @return 解析配置
+     */
+    public ParserConfiguration toConfiguration() {
+        ParserConfiguration configuration = new ParserConfiguration();
+        configuration.setAttributeComments(attributeComments);
+        configuration.setStoreTokens(storeTokens);
+        if (languageLevel != null) {
+            configuration.setLanguageLevel(languageLevel);
+        }
+        return configuration;
+    }
+
+    public boolean isAttributeComments() {
+        return attributeComments;
+    }
+
+    public boolean isStoreTokens() {
+        return storeTokens;
+    }
+
+    /**
+     * 按名称获取档位，忽略大小写
+     * @param name 档位名称
+     * @return 解析配置档位
+     */
+    public static ParserProfile of(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("解析配置档位不能为空");
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的解析配置档位: " + name + "（可选 lean, audit, doc, full）");
+        }
+    }
+}
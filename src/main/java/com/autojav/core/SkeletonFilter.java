@@ -0,0 +1,238 @@
+package com.autojav.core;
+
+/**
+ * 源码骨架过滤器
+ * <p>
+ * 将方法、构造器和初始化块的方法体替换为空白，只保留类型声明、字段、注解和方法签名，
+ * 用于只关心声明结构的场景（如文档生成），可以跳过方法体的语法分析和语法树构建。
+ * 替换时保留所有换行符，过滤后的源码与原文件字符位置一一对应，行号列号不变。
+ * 字段初始化表达式（包括其中的匿名类和数组初始化）原样保留。
+ */
+public final class SkeletonFilter {
+
+    private SkeletonFilter() {
+    }
+
+    /**
+     * 生成源码骨架
+     * @param content 源码
+     * @return 方法体被清空的源码，长度与原源码相同
+     */
+    public static String strip(String content) {
+        char[] chars = content.toCharArray();
+        int length = chars.length;
+        // 当前所在的类型体层数，0表示在类型声明之外
+        int typeDepth = 0;
+        // 当前声明头部的起始位置与括号深度
+        int headerStart = 0;
+        int parenDepth = 0;
+
+        int i = 0;
+        while (i < length) {
+            char ch = chars[i];
+            int skipped = skipLiteralOrComment(chars, i);
+            if (skipped > i) {
+                i = skipped;
+                continue;
+            }
+            if (ch == '(') {
+                parenDepth++;
+            } else if (ch == ')') {
+                parenDepth = Math.max(0, parenDepth - 1);
+            } else if (ch == ';') {
+                if (parenDepth == 0) {
+                    headerStart = i + 1;
+                }
+            } else if (ch == '}') {
+                typeDepth = Math.max(0, typeDepth - 1);
+                headerStart = i + 1;
+                parenDepth = 0;
+            } else if (ch == '{') {
+                if (parenDepth > 0) {
+                    // 注解参数中的数组等
+                    i = skipBlock(chars, i, false);
+                    continue;
+                }
+                if (isTypeHeader(chars, headerStart, i)) {
+                    typeDepth++;
+                    headerStart = i + 1;
+                } else if (typeDepth > 0 && !hasAssignment(chars, headerStart, i)) {
+                    // 方法体、构造器体或初始化块
+                    i = skipBlock(chars, i, true);
+                    headerStart = i;
+                    continue;
+                } else {
+                    // 字段初始化表达式
+                    i = skipBlock(chars, i, false);
+                    continue;
+                }
+            }
+            i++;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 跳过以 start 处的左花括号开始的代码块
+     * @param blank 是否清空块内的内容（保留换行）
+     * @return 右花括号之后的位置
+     */
+    private static int skipBlock(char[] chars, int start, boolean blank) {
+        int depth = 0;
+        int i = start;
+        while (i < chars.length) {
+            int skipped = skipLiteralOrComment(chars, i);
+            if (skipped > i) {
+                if (blank) {
+                    blank(chars, i, skipped);
+                }
+                i = skipped;
+                continue;
+            }
+            char ch = chars[i];
+            if (ch == '{') {
+                depth++;
+            } else if (ch == '}') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+            if (blank && i > start) {
+                blank(chars, i, i + 1);
+            }
+            i++;
+        }
+        return chars.length;
+    }
+
+    private static void blank(char[] chars, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (chars[i] != '\n' && chars[i] != '\r') {
+                chars[i] = ' ';
+            }
+        }
+    }
+
+    /**
+     * 跳过字符串、文本块、字符字面量和注释
+     * @return 字面量或注释之后的位置，不是字面量或注释时返回 start
+     */
+    private static int skipLiteralOrComment(char[] chars, int start) {
+        int length = chars.length;
+        char ch = chars[start];
+        if (ch == '/' && start + 1 < length) {
+            if (chars[start + 1] == '/') {
+                int i = start + 2;
+                while (i < length && chars[i] != '\n' && chars[i] != '\r') {
+                    i++;
+                }
+                return i;
+            }
+            if (chars[start + 1] == '*') {
+                int i = start + 2;
+                while (i + 1 < length && !(chars[i] == '*' && chars[i + 1] == '/')) {
+                    i++;
+                }
+                return Math.min(length, i + 2);
+            }
+            return start;
+        }
+        if (ch == '"') {
+            if (start + 2 < length && chars[start + 1] == '"' && chars[start + 2] == '"') {
+                int i = start + 3;
+                while (i + 2 < length && !(chars[i] == '"' && chars[i + 1] == '"' && chars[i + 2] == '"')) {
+                    i += chars[i] == '\\' ? 2 : 1;
+                }
+                return Math.min(length, i + 3);
+            }
+            return skipQuoted(chars, start, '"');
+        }
+        if (ch == '\'') {
+            return skipQuoted(chars, start, '\'');
+        }
+        return start;
+    }
+
+    private static int skipQuoted(char[] chars, int start, char quote) {
+        int i = start + 1;
+        while (i < chars.length && chars[i] != quote && chars[i] != '\n') {
+            i += chars[i] == '\\' ? 2 : 1;
+        }
+        return Math.min(chars.length, i + 1);
+    }
+
+    /**
+     * 声明头部是否为类型声明（class、interface、enum、record、@interface）
+     */
+    private static boolean isTypeHeader(char[] chars, int from, int to) {
+        int i = from;
+        while (i < to) {
+            int skipped = skipLiteralOrComment(chars, i);
+            if (skipped > i) {
+                i = skipped;
+                continue;
+            }
+            if (Character.isJavaIdentifierStart(chars[i])) {
+                int end = i;
+                while (end < to && Character.isJavaIdentifierPart(chars[end])) {
+                    end++;
+                }
+                // Foo.class 这样的类字面量、名为 record 的方法都不是类型声明
+                if (!precededByDot(chars, from, i) && isTypeKeyword(new String(chars, i, end - i))
+                        && followedByIdentifier(chars, end, to)) {
+                    return true;
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTypeKeyword(String word) {
+        return word.equals("class") || word.equals("interface") || word.equals("enum") || word.equals("record");
+    }
+
+    private static boolean followedByIdentifier(char[] chars, int index, int to) {
+        int i = index;
+        while (i < to && Character.isWhitespace(chars[i])) {
+            i++;
+        }
+        return i < to && Character.isJavaIdentifierStart(chars[i]);
+    }
+
+    private static boolean precededByDot(char[] chars, int from, int index) {
+        int i = index - 1;
+        while (i >= from && Character.isWhitespace(chars[i])) {
+            i--;
+        }
+        return i >= from && chars[i] == '.';
+    }
+
+    /**
+     * 声明头部在括号之外是否包含赋值号，包含时花括号属于字段初始化表达式
+     */
+    private static boolean hasAssignment(char[] chars, int from, int to) {
+        int depth = 0;
+        int i = from;
+        while (i < to) {
+            int skipped = skipLiteralOrComment(chars, i);
+            if (skipped > i) {
+                i = skipped;
+                continue;
+            }
+            char ch = chars[i];
+            if (ch == '(') {
+                depth++;
+            } else if (ch == ')') {
+                depth--;
+            } else if (ch == '=' && depth == 0) {
+                return true;
+            }
+            i++;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,151 @@
+package com.autojav.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 已读入内存的源文件，在读取阶段与解析阶段之间传递
+ * <p>
+ * 文件只读取一次：小文件读入线程复用的缓冲区，超过阈值的文件使用内存映射，
+ * 行数、内容哈希和解析器输入都从这一次读取的字节中得到。
+ */
+public class SourceFile {
+
+    /**
+     * 超过该大小的文件使用内存映射读取
+     */
+    public static final int MMAP_THRESHOLD = 1024 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 每个读取线程复用的缓冲区，大小不超过内存映射阈值
+     */
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_SIZE]);
+
+    private final File file;
+
+    private final String content;
+
+    private final int lineCount;
+
+    private final String contentHash;
+
+    public SourceFile(File file, String content, int lineCount, String contentHash) {
+        this.file = file;
+        this.content = content;
+        this.lineCount = lineCount;
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * 读取源文件
+     * @param file Java文件
+     * @return 源文件
+     * @throws IOException IO异常
+     */
+    public static SourceFile read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MMAP_THRESHOLD) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                return fromBuffer(file, mapped);
+            }
+
+            // 缓冲区至少比文件大一个字节，一次读取即可遇到文件结尾
+            byte[] buffer = BUFFER.get();
+            if (buffer.length <= size) {
+                buffer = new byte[Integer.highestOneBit((int) size) << 1];
+                BUFFER.set(buffer);
+            }
+            ByteBuffer target = ByteBuffer.wrap(buffer);
+            while (true) {
+                if (!target.hasRemaining()) {
+                    // 读取过程中文件变大，临时扩容，不放回复用缓冲区
+                    byte[] larger = Arrays.copyOf(buffer, buffer.length * 2);
+                    target = ByteBuffer.wrap(larger);
+                    target.position(buffer.length);
+                    buffer = larger;
+                }
+                if (channel.read(target) < 0) {
+                    break;
+                }
+            }
+            int length = target.position();
+            return fromArray(file, buffer, length);
+        }
+    }
+
+    private static SourceFile fromArray(File file, byte[] bytes, int length) {
+        int lineCount = 0;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '\n') {
+                lineCount++;
+            }
+        }
+        String contentHash = HashUtils.sha256(bytes, 0, length);
+        int offset = hasBom(bytes, length) ? 3 : 0;
+        String content = new String(bytes, offset, length - offset, StandardCharsets.UTF_8);
+        return new SourceFile(file, content, lineCount, contentHash);
+    }
+
+    private static SourceFile fromBuffer(File file, ByteBuffer buffer) {
+        int lineCount = 0;
+        int limit = buffer.limit();
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                lineCount++;
+            }
+        }
+        String contentHash = HashUtils.sha256(buffer);
+        ByteBuffer text = buffer.duplicate();
+        if (limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+            text.position(3);
+        }
+        String content = StandardCharsets.UTF_8.decode(text).toString();
+        return new SourceFile(file, content, lineCount, contentHash);
+    }
+
+    private static boolean hasBom(byte[] bytes, int length) {
+        return length >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 获取审计结果中使用的文件路径
+     * 与解析时语法树记录的路径一致（绝对路径），缓存结果和解析问题也使用该路径，同一文件只有一种写法
+     * @return 绝对路径
+     */
+    public String getPath() {
+        return file.toPath().toAbsolutePath().toString();
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    /**
+     * 获取行数（换行符个数）
+     * @return 行数
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * 获取原始字节的SHA-256哈希
+     * @return 十六进制哈希
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+}
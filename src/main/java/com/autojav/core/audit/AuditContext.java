@@ -0,0 +1,290 @@
+package com.autojav.core.audit;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 单个编译单元的审计上下文，与编译单元一起传给规则
+ * <p>
+ * 提供多个规则共用的派生事实：文件路径、各方法的参数、成员变量、字符串拼接位置、方法调用位置和顶层类型的成员。
+ * 事实在首次被查询时计算并缓存，每个文件只计算一次，无论有多少规则查询。
+ * 单次遍历审计时，结构性事实在 {@link AuditManager} 驱动的同一次遍历中顺带收集，不再单独遍历语法树。
+ * 上下文保存在编译单元上，通过 {@link #of(CompilationUnit)} 获取；可在多个线程中并发查询。
+ */
+public final class AuditContext {
+
+    private static final DataKey<AuditContext> CONTEXT_KEY = new DataKey<AuditContext>() {
+    };
+
+    private final CompilationUnit compilationUnit;
+
+    private final String filePath;
+
+    private volatile Structure structure;
+
+    private AuditContext(CompilationUnit compilationUnit) {
+        this.compilationUnit = compilationUnit;
+        this.filePath = compilationUnit.getStorage().map(s -> s.getPath().toString()).orElse("unknown");
+    }
+
+    /**
+     * 获取编译单元的审计上下文，首次获取时创建
+     * @param compilationUnit 编译单元
+     * @return 审计上下文
+     */
+    public static AuditContext of(CompilationUnit compilationUnit) {
+        synchronized (compilationUnit) {
+            if (compilationUnit.containsData(CONTEXT_KEY)) {
+                return compilationUnit.getData(CONTEXT_KEY);
+            }
+            AuditContext context = new AuditContext(compilationUnit);
+            compilationUnit.setData(CONTEXT_KEY, context);
+            return context;
+        }
+    }
+
+    public CompilationUnit getCompilationUnit() {
+        return compilationUnit;
+    }
+
+    /**
+     * 文件路径，编译单元不是从文件解析时为 unknown
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * 所有成员变量名（含内部类）
+     */
+    public Set<String> getFieldNames() {
+        return structure().fieldNames;
+    }
+
+    /**
+     * 方法或构造器的对象类型参数名，基本类型参数不可能为null，不包含在内
+     * @param callable 方法或构造器
+     * @return 参数名集合
+     */
+    public Set<String> parametersOf(CallableDeclaration<?> callable) {
+        return structure().parameters.getOrDefault(callable, Collections.emptySet());
+    }
+
+    /**
+     * 所有字符串拼接表达式，只包含最外层的拼接（{@code a + b + c} 只记录一次），按后序排列
+     */
+    public List<BinaryExpr> getStringConcatenations() {
+        return structure().concatenations;
+    }
+
+    /**
+     * 所有方法调用，按后序排列（内层调用在外层调用之前）
+     */
+    public List<MethodCallExpr> getCallSites() {
+        return structure().callSites;
+    }
+
+    /**
+     * 指定名称的方法调用，按后序排列
+     * @param methodName 方法名
+     * @return 方法调用列表
+     */
+    public List<MethodCallExpr> callSites(String methodName) {
+        return structure().callSitesByName.getOrDefault(methodName, Collections.emptyList());
+    }
+
+    /**
+     * 顶层类型的成员（方法、构造器、字段、初始化块、内部类、枚举常量等），按遍历顺序排列
+     * 是 {@link MethodLocalAuditRule} 的审计单位
+     */
+    public List<BodyDeclaration<?>> getMembers() {
+        return structure().members;
+    }
+
+    /**
+     * 顶层类型成员内的方法调用，按后序排列
+     * 所有成员的调用合起来就是 {@link #getCallSites()} 中除类型注解等成员之外代码的全部调用
+     * @param member {@link #getMembers()} 中的成员
+     * @return 方法调用列表
+     */
+    public List<MethodCallExpr> callSitesIn(BodyDeclaration<?> member) {
+        return structure().memberCallSites.getOrDefault(member, Collections.emptyList());
+    }
+
+    /**
+     * 在分发器的遍历中顺带收集结构性事实，已收集过时不做任何事
+     * 收集在编译单元根节点分发时完成（后序遍历中根节点最后分发），遍历中途查询的规则会自行遍历得到完整结果
+     * @param dispatcher 将遍历该编译单元的分发器
+     */
+    void collectDuring(NodeDispatcher dispatcher) {
+        if (structure != null) {
+            return;
+        }
+        Collector collector = new Collector();
+        dispatcher.on(Node.class, collector::visit);
+        dispatcher.on(CompilationUnit.class, root -> {
+            if (root == compilationUnit) {
+                publish(collector.build());
+            }
+        });
+    }
+
+    private Structure structure() {
+        Structure current = structure;
+        if (current == null) {
+            Collector collector = new Collector();
+            TreeWalker.postOrder(compilationUnit, collector::visit);
+            current = publish(collector.build());
+        }
+        return current;
+    }
+
+    private synchronized Structure publish(Structure built) {
+        // 并发计算时保留先完成的结果，所有规则看到同一份事实
+        if (structure == null) {
+            structure = built;
+        }
+        return structure;
+    }
+
+    /**
+     * 遍历中累积的结构性事实
+     */
+    private static final class Collector {
+
+        private final Set<String> fieldNames = new HashSet<>();
+
+        private final Map<CallableDeclaration<?>, Set<String>> parameters = new IdentityHashMap<>();
+
+        private final List<BinaryExpr> concatenations = new ArrayList<>();
+
+        private final List<MethodCallExpr> callSites = new ArrayList<>();
+
+        private final Map<String, List<MethodCallExpr>> callSitesByName = new HashMap<>();
+
+        private final List<BodyDeclaration<?>> members = new ArrayList<>();
+
+        private final Map<BodyDeclaration<?>, List<MethodCallExpr>> memberCallSites = new IdentityHashMap<>();
+
+        // 后序遍历中一个顶层类型子节点的子树是连续访问的，此前的调用都不属于下一个子节点
+        private int memberStart;
+
+        private void visit(Node node) {
+            Node parent = node.getParentNode().orElse(null);
+            if (parent instanceof CompilationUnit) {
+                memberStart = callSites.size();
+            } else if (parent instanceof TypeDeclaration && parent.getParentNode().orElse(null) instanceof CompilationUnit) {
+                if (node instanceof BodyDeclaration) {
+                    BodyDeclaration<?> member = (BodyDeclaration<?>) node;
+                    members.add(member);
+                    memberCallSites.put(member, Collections.unmodifiableList(
+                            new ArrayList<>(callSites.subList(memberStart, callSites.size()))));
+                }
+                memberStart = callSites.size();
+            }
+            if (node instanceof MethodCallExpr) {
+                MethodCallExpr call = (MethodCallExpr) node;
+                callSites.add(call);
+                callSitesByName.computeIfAbsent(call.getNameAsString(), key -> new ArrayList<>()).add(call);
+            } else if (node instanceof BinaryExpr) {
+                BinaryExpr binary = (BinaryExpr) node;
+                if (isPlus(binary) && !isPlusOperand(binary) && containsStringLiteral(binary)) {
+                    concatenations.add(binary);
+                }
+            } else if (node instanceof FieldDeclaration) {
+                ((FieldDeclaration) node).getVariables().forEach(v -> fieldNames.add(v.getNameAsString()));
+            } else if (node instanceof CallableDeclaration) {
+                CallableDeclaration<?> callable = (CallableDeclaration<?>) node;
+                Set<String> names = new HashSet<>();
+                for (Parameter param : callable.getParameters()) {
+                    if (!param.getType().isPrimitiveType()) {
+                        names.add(param.getNameAsString());
+                    }
+                }
+                parameters.put(callable, Collections.unmodifiableSet(names));
+            }
+        }
+
+        private Structure build() {
+            Map<String, List<MethodCallExpr>> byName = new HashMap<>();
+            callSitesByName.forEach((name, calls) -> byName.put(name, Collections.unmodifiableList(calls)));
+            return new Structure(Collections.unmodifiableSet(fieldNames), Collections.unmodifiableMap(parameters),
+                    Collections.unmodifiableList(concatenations), Collections.unmodifiableList(callSites),
+                    Collections.unmodifiableMap(byName), Collections.unmodifiableList(members),
+                    Collections.unmodifiableMap(memberCallSites));
+        }
+
+        private static boolean isPlus(Expression expr) {
+            return expr.isBinaryExpr() && expr.asBinaryExpr().getOperator() == BinaryExpr.Operator.PLUS;
+        }
+
+        // 是否为外层拼接的一部分（括号内的拼接也算）
+        private static boolean isPlusOperand(Expression expr) {
+            Node parent = expr.getParentNode().orElse(null);
+            while (parent instanceof Expression && ((Expression) parent).isEnclosedExpr()) {
+                parent = parent.getParentNode().orElse(null);
+            }
+            return parent instanceof Expression && isPlus((Expression) parent);
+        }
+
+        private static boolean containsStringLiteral(BinaryExpr concatenation) {
+            for (Expression operand : BinaryChain.concatenation(concatenation)) {
+                if (operand.isStringLiteralExpr() || operand.isTextBlockLiteralExpr()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 收集完成后只读的结构性事实
+     */
+    private static final class Structure {
+
+        private final Set<String> fieldNames;
+
+        private final Map<CallableDeclaration<?>, Set<String>> parameters;
+
+        private final List<BinaryExpr> concatenations;
+
+        private final List<MethodCallExpr> callSites;
+
+        private final Map<String, List<MethodCallExpr>> callSitesByName;
+
+        private final List<BodyDeclaration<?>> members;
+
+        private final Map<BodyDeclaration<?>, List<MethodCallExpr>> memberCallSites;
+
+        private Structure(Set<String> fieldNames, Map<CallableDeclaration<?>, Set<String>> parameters,
+                          List<BinaryExpr> concatenations, List<MethodCallExpr> callSites,
+                          Map<String, List<MethodCallExpr>> callSitesByName, List<BodyDeclaration<?>> members,
+                          Map<BodyDeclaration<?>, List<MethodCallExpr>> memberCallSites) {
+            this.fieldNames = fieldNames;
+            this.parameters = parameters;
+            this.concatenations = concatenations;
+            this.callSites = callSites;
+            this.callSitesByName = callSitesByName;
+            this.members = members;
+            this.memberCallSites = memberCallSites;
+        }
+    }
+}
@@ -1,29 +1,80 @@
 package com.autojav.core.audit;
 
-import com.autojav.core.audit.rules.NullPointerExceptionRule;
-import com.autojav.core.audit.rules.SqlInjectionRule;
+import com.autojav.core.CodeParser;
+import com.autojav.core.cache.AuditCache;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.BodyDeclaration;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
 
-public class AuditManager {
+public class AuditManager implements AutoCloseable {
+
+    /**
+     * 规则超时跳过时生成的审计结果的规则名称
+     */
+    public static final String TIMEOUT_RULE_NAME = "规则超时";
+
+    /**
+     * 按成员并行审计的默认行数阈值
+     */
+    public static final int DEFAULT_SPLIT_LINES = 3000;
 
     private List<AuditRule> rules;
 
+    // 通过提供者注册的规则 -> 规则ID
+    private final Map<AuditRule, String> ruleIds = new IdentityHashMap<>();
+
+    private volatile TokenPrefilter prefilter;
+
+    private boolean singlePass = true;
+
+    private long ruleTimeoutNanos;
+
+    private RuleStatistics statistics;
+
+    private int memberThreads = 1;
+
+    private int splitLines = DEFAULT_SPLIT_LINES;
+
+    private ExecutorService memberPool;
+
+    /**
+     * 启用类路径上的全部审计规则（见 {@link RuleRegistry}）
+     */
     public AuditManager() {
-        rules = new ArrayList<>();
-        // 初始化审计规则
-        initRules();
+        this(RuleRegistry.load().getProviders());
     }
 
     /**
-     * 初始化审计规则
+     * 只创建并启用指定的审计规则
+     * @param providers 规则提供者列表
      */
-    private void initRules() {
-        rules.add(new NullPointerExceptionRule());
-        rules.add(new SqlInjectionRule());
-        // 后续可以添加更多规则
+    public AuditManager(List<RuleProvider> providers) {
+        rules = new ArrayList<>();
+        for (RuleProvider provider : providers) {
+            addRule(provider);
+        }
     }
 
     /**
@@ -32,26 +83,499 @@ public class AuditManager {
      * @return 审计结果列表
      */
     public List<AuditResult> audit(CompilationUnit compilationUnit) {
+        return audit(compilationUnit, rules);
+    }
+
+    /**
+     * 使用指定规则执行审计
+     * @param compilationUnit 编译单元
+     * @param selectedRules 审计规则列表
+     * @return 按行号、列号排序的审计结果列表
+     */
+    public List<AuditResult> audit(CompilationUnit compilationUnit, List<AuditRule> selectedRules) {
+        List<AuditResult> results = isLarge(compilationUnit)
+                ? auditSplit(compilationUnit, selectedRules)
+                : auditWhole(compilationUnit, selectedRules);
+        results.sort(AuditResult.POSITION_ORDER);
+        return results;
+    }
+
+    private List<AuditResult> auditWhole(CompilationUnit compilationUnit, List<AuditRule> selectedRules) {
+        return ruleTimeoutNanos > 0 || statistics != null
+                ? auditWithBudgets(compilationUnit, selectedRules)
+                : auditUnbounded(compilationUnit, selectedRules);
+    }
+
+    private boolean isLarge(CompilationUnit compilationUnit) {
+        return memberThreads > 1 && splitLines > 0
+                && compilationUnit.getEnd().map(end -> end.line).orElse(0) >= splitLines;
+    }
+
+    /**
+     * 大文件的审计：按顶层类型成员拆分，每个成员任务依次执行全部方法局部规则，由成员线程池与当前线程一起领取，
+     * 当前线程只等待已被其他线程领取的成员，线程池繁忙时由当前线程独自完成，不会互相等待而死锁。
+     * 成员任务全部结束后其余规则再在当前线程中审计整个文件：规则会在节点上缓存数据，
+     * 而节点数据不是线程安全的，同一时刻只能有一个线程访问某个成员的节点
+     */
+    private List<AuditResult> auditSplit(CompilationUnit compilationUnit, List<AuditRule> selectedRules) {
+        List<MethodLocalAuditRule> localRules = new ArrayList<>();
+        List<AuditRule> wholeRules = new ArrayList<>();
+        for (AuditRule rule : selectedRules) {
+            if (rule instanceof MethodLocalAuditRule) {
+                localRules.add((MethodLocalAuditRule) rule);
+            } else {
+                wholeRules.add(rule);
+            }
+        }
+        // 先在当前线程中计算上下文的结构性事实，成员任务只读取
+        AuditContext context = AuditContext.of(compilationUnit);
+        List<BodyDeclaration<?>> members = context.getMembers();
+        if (localRules.isEmpty() || members.size() < 2) {
+            return auditWhole(compilationUnit, selectedRules);
+        }
+
+        MemberTasks tasks = new MemberTasks(context, localRules, members);
+        int helpers = Math.min(memberThreads - 1, tasks.size() - 1);
+        ExecutorService pool = memberPool();
+        for (int i = 0; i < helpers; i++) {
+            pool.execute(tasks::work);
+        }
+        tasks.work();
+        List<AuditResult> results = tasks.await();
+        if (!wholeRules.isEmpty()) {
+            results.addAll(auditWhole(compilationUnit, wholeRules));
+        }
+        return results;
+    }
+
+    /**
+     * 方法局部规则在各成员上的审计任务，按成员编号，由多个线程领取；一个任务在同一线程中依次执行所有规则
+     * 设置了时限时同一规则在各成员上的耗时累加，合计超出时限的规则在整个文件上跳过
+     */
+    private class MemberTasks {
+
+        private final AuditContext context;
+
+        private final List<MethodLocalAuditRule> rules;
+
+        private final List<BodyDeclaration<?>> members;
+
+        private final boolean budgeted = ruleTimeoutNanos > 0 || statistics != null;
+
+        private final AtomicReferenceArray<List<AuditResult>> parts;
+
+        private final AtomicLongArray spentNanos;
+
+        private final AtomicIntegerArray timedOut;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        private final CountDownLatch done;
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private MemberTasks(AuditContext context, List<MethodLocalAuditRule> rules, List<BodyDeclaration<?>> members) {
+            this.context = context;
+            this.rules = rules;
+            this.members = members;
+            // 按规则、成员编号保存各部分结果
+            this.parts = new AtomicReferenceArray<>(rules.size() * members.size());
+            this.spentNanos = new AtomicLongArray(rules.size());
+            this.timedOut = new AtomicIntegerArray(rules.size());
+            this.done = new CountDownLatch(size());
+        }
+
+        private int size() {
+            return members.size();
+        }
+
+        private void work() {
+            int index;
+            while ((index = next.getAndIncrement()) < size()) {
+                try {
+                    if (failure.get() == null) {
+                        run(index);
+                    }
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        }
+
+        private void run(int memberIndex) {
+            BodyDeclaration<?> member = members.get(memberIndex);
+            for (int ruleIndex = 0; ruleIndex < rules.size(); ruleIndex++) {
+                run(ruleIndex, memberIndex, member);
+            }
+        }
+
+        private void run(int ruleIndex, int memberIndex, BodyDeclaration<?> member) {
+            MethodLocalAuditRule rule = rules.get(ruleIndex);
+            int index = ruleIndex * members.size() + memberIndex;
+            if (!budgeted) {
+                parts.set(index, rule.audit(context, member));
+                return;
+            }
+            if (timedOut.get(ruleIndex) != 0) {
+                return;
+            }
+            long remaining = ruleTimeoutNanos - spentNanos.get(ruleIndex);
+            if (ruleTimeoutNanos > 0 && remaining <= 0) {
+                timedOut.set(ruleIndex, 1);
+                return;
+            }
+            RuleBudget budget = new RuleBudget(ruleTimeoutNanos > 0 ? remaining : 0);
+            List<AuditResult> part = budget.run(() -> rule.audit(context, member));
+            spentNanos.addAndGet(ruleIndex, budget.getSpentNanos());
+            if (part == null || budget.isExhausted()) {
+                timedOut.set(ruleIndex, 1);
+            } else {
+                parts.set(index, part);
+            }
+        }
+
+        private List<AuditResult> await() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("审计被中断", e);
+            }
+            Throwable cause = failure.get();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            String filePath = context.getFilePath();
+            List<AuditResult> results = new ArrayList<>();
+            for (int ruleIndex = 0; ruleIndex < rules.size(); ruleIndex++) {
+                MethodLocalAuditRule rule = rules.get(ruleIndex);
+                boolean skipped = timedOut.get(ruleIndex) != 0;
+                if (skipped) {
+                    results.add(timeoutResult(rule, filePath));
+                } else {
+                    for (int i = ruleIndex * members.size(); i < (ruleIndex + 1) * members.size(); i++) {
+                        results.addAll(parts.get(i));
+                    }
+                }
+                if (statistics != null) {
+                    statistics.record(rule.getName(), filePath, spentNanos.get(ruleIndex), skipped);
+                }
+            }
+            return results;
+        }
+    }
+
+    private List<AuditResult> auditUnbounded(CompilationUnit compilationUnit, List<AuditRule> selectedRules) {
+        AuditContext context = AuditContext.of(compilationUnit);
         List<AuditResult> results = new ArrayList<>();
-        for (AuditRule rule : rules) {
-            results.addAll(rule.audit(compilationUnit));
+        if (!singlePass) {
+            for (AuditRule rule : selectedRules) {
+                results.addAll(rule.audit(context));
+            }
+            return results;
+        }
+
+        // 所有基于分发的规则共享一次遍历，其余规则各自遍历；需要遍历时上下文的结构性事实顺带收集
+        NodeDispatcher dispatcher = new NodeDispatcher();
+        List<DispatchingAuditRule.AuditSession> sessions = new ArrayList<>(selectedRules.size());
+        for (AuditRule rule : selectedRules) {
+            sessions.add(rule instanceof DispatchingAuditRule
+                    ? ((DispatchingAuditRule) rule).begin(context, dispatcher)
+                    : null);
+        }
+        if (!dispatcher.isEmpty()) {
+            context.collectDuring(dispatcher);
+        }
+        dispatcher.walk(compilationUnit);
+
+        for (int i = 0; i < selectedRules.size(); i++) {
+            DispatchingAuditRule.AuditSession session = sessions.get(i);
+            results.addAll(session != null ? session.finish() : selectedRules.get(i).audit(context));
+        }
+        return results;
+    }
+
+    /**
+     * 每个规则在各自的时间预算内执行，超时的规则丢弃其部分结果，记为在该文件上跳过
+     */
+    private List<AuditResult> auditWithBudgets(CompilationUnit compilationUnit, List<AuditRule> selectedRules) {
+        AuditContext context = AuditContext.of(compilationUnit);
+        int size = selectedRules.size();
+        RuleBudget[] budgets = new RuleBudget[size];
+        DispatchingAuditRule.AuditSession[] sessions = new DispatchingAuditRule.AuditSession[size];
+        NodeDispatcher shared = singlePass ? new NodeDispatcher() : null;
+        for (int i = 0; i < size; i++) {
+            budgets[i] = new RuleBudget(ruleTimeoutNanos);
+            AuditRule rule = selectedRules.get(i);
+            if (rule instanceof DispatchingAuditRule) {
+                NodeDispatcher dispatcher = shared != null ? shared : new NodeDispatcher();
+                dispatcher.setBudget(budgets[i]);
+                sessions[i] = budgets[i].run(() -> ((DispatchingAuditRule) rule).begin(context, dispatcher));
+                dispatcher.setBudget(null);
+                if (shared == null) {
+                    dispatcher.walk(compilationUnit);
+                }
+            }
+        }
+        if (shared != null) {
+            if (!shared.isEmpty()) {
+                context.collectDuring(shared);
+            }
+            shared.walk(compilationUnit);
+        }
+
+        String filePath = context.getFilePath();
+        List<AuditResult> results = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            AuditRule rule = selectedRules.get(i);
+            RuleBudget budget = budgets[i];
+            DispatchingAuditRule.AuditSession session = sessions[i];
+            List<AuditResult> ruleResults = null;
+            if (!budget.isExhausted()) {
+                ruleResults = session != null ? budget.run(session::finish) : budget.run(() -> rule.audit(context));
+            }
+            if (ruleResults != null) {
+                results.addAll(ruleResults);
+            } else {
+                results.add(timeoutResult(rule, filePath));
+            }
+            if (statistics != null) {
+                statistics.record(rule.getName(), filePath, budget.getSpentNanos(), ruleResults == null);
+            }
         }
         return results;
     }
 
+    private AuditResult timeoutResult(AuditRule rule, String filePath) {
+        return new AuditResult(TIMEOUT_RULE_NAME, AuditRule.Severity.WARNING,
+                "规则 " + rule.getName() + " 执行超过 " + TimeUnit.NANOSECONDS.toMillis(ruleTimeoutNanos)
+                        + "ms，已跳过该规则对本文件的检查", filePath, 0, 0,
+                "可使用 --rule-stats 查看各规则耗时，或使用 --rule-timeout 调整时限");
+    }
+
+    /**
+     * 根据源码中出现的触发词选出可能命中的规则
+     * @param content 源码
+     * @return 审计规则列表，为空表示该文件无需解析
+     */
+    public List<AuditRule> selectRules(CharSequence content) {
+        TokenPrefilter current = prefilter;
+        if (current == null) {
+            current = new TokenPrefilter(rules);
+            prefilter = current;
+        }
+        return current.select(content);
+    }
+
     /**
      * 执行审计（多个编译单元）
      * @param compilationUnits 编译单元列表
-     * @return 审计结果列表
+     * @return 按文件、行号、列号排序的审计结果列表
      */
     public List<AuditResult> audit(List<CompilationUnit> compilationUnits) {
         List<AuditResult> results = new ArrayList<>();
         for (CompilationUnit compilationUnit : compilationUnits) {
             results.addAll(audit(compilationUnit));
         }
+        results.sort(AuditResult.POSITION_ORDER);
+        return results;
+    }
+
+    /**
+     * 并行审计多个编译单元，结果与顺序审计完全一致
+     * 规则会在语法树节点上缓存数据，而JavaParser的节点数据不是线程安全的，
+     * 因此同一个编译单元不能在列表中重复出现，也不能同时在其他线程中审计
+     * @param compilationUnits 编译单元列表
+     * @param threads 线程数
+     * @return 按文件、行号、列号排序的审计结果列表
+     */
+    public List<AuditResult> audit(List<CompilationUnit> compilationUnits, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("审计线程数必须大于0: " + threads);
+        }
+        if (threads == 1 || compilationUnits.size() < 2) {
+            return audit(compilationUnits);
+        }
+        ExecutorService executor = newAuditPool(Math.min(threads, compilationUnits.size()));
+        try {
+            return audit(compilationUnits, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 使用指定线程池并行审计多个编译单元，结果与顺序审计完全一致
+     * 每个编译单元的结果由各自的任务单独收集，按提交顺序合并后再排序，不共享可变集合。
+     * 同一个编译单元不能重复出现，也不能同时在其他线程中审计（见 {@link #audit(List, int)}）
+     * @param compilationUnits 编译单元列表
+     * @param executor 线程池，由调用方管理生命周期
+     * @return 按文件、行号、列号排序的审计结果列表
+     * @throws IllegalArgumentException 列表中有重复的编译单元
+     */
+    public List<AuditResult> audit(List<CompilationUnit> compilationUnits, ExecutorService executor) {
+        Set<CompilationUnit> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (CompilationUnit compilationUnit : compilationUnits) {
+            if (!distinct.add(compilationUnit)) {
+                throw new IllegalArgumentException("同一个编译单元不能被并行审计多次: "
+                        + compilationUnit.getStorage().map(storage -> storage.getPath().toString()).orElse("unknown"));
+            }
+        }
+        List<Future<List<AuditResult>>> futures = new ArrayList<>(compilationUnits.size());
+        for (CompilationUnit compilationUnit : compilationUnits) {
+            futures.add(executor.submit(() -> audit(compilationUnit)));
+        }
+        List<AuditResult> results = new ArrayList<>();
+        try {
+            for (Future<List<AuditResult>> future : futures) {
+                results.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("审计被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("审计失败: " + cause.getMessage(), cause);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        results.sort(AuditResult.POSITION_ORDER);
         return results;
     }
 
+    private synchronized ExecutorService memberPool() {
+        if (memberPool == null) {
+            memberPool = newAuditPool(memberThreads - 1, "autojav-member-");
+        }
+        return memberPool;
+    }
+
+    private ExecutorService newAuditPool(int threads) {
+        return newAuditPool(threads, "autojav-audit-");
+    }
+
+    private static ExecutorService newAuditPool(int threads, String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(null, runnable, namePrefix + counter.incrementAndGet(), CodeParser.THREAD_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 设置是否单次遍历：开启时所有基于分发的规则共享一次语法树遍历，关闭时每个规则各自遍历
+     * @param singlePass 是否单次遍历
+     */
+    public void setSinglePass(boolean singlePass) {
+        this.singlePass = singlePass;
+    }
+
+    public boolean isSinglePass() {
+        return singlePass;
+    }
+
+    /**
+     * 设置大文件按成员并行审计的线程数（含调用审计的线程）
+     * 行数达到阈值的文件中，方法局部规则（见 {@link MethodLocalAuditRule}）按顶层类型成员拆分给多个线程，结果与不拆分时一致。
+     * 成员线程池为守护线程，首次拆分时创建，由 {@link #close()} 关闭
+     * @param threads 线程数，1表示不拆分
+     */
+    public synchronized void setMemberThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("成员审计线程数必须大于0: " + threads);
+        }
+        if (threads != memberThreads) {
+            close();
+        }
+        this.memberThreads = threads;
+    }
+
+    /**
+     * 关闭成员线程池；之后再拆分审计大文件时重新创建
+     */
+    @Override
+    public synchronized void close() {
+        if (memberPool != null) {
+            memberPool.shutdown();
+            memberPool = null;
+        }
+    }
+
+    public int getMemberThreads() {
+        return memberThreads;
+    }
+
+    /**
+     * 设置按成员并行审计的行数阈值
+     * @param lines 行数，文件行数不小于该值时拆分，0表示不拆分
+     */
+    public void setSplitLines(int lines) {
+        if (lines < 0) {
+            throw new IllegalArgumentException("拆分行数阈值不能为负数: " + lines);
+        }
+        this.splitLines = lines;
+    }
+
+    public int getSplitLines() {
+        return splitLines;
+    }
+
+    /**
+     * 设置单个规则审计单个编译单元的时间预算
+     * 预算按规则自身的累计执行时间计算，超时的规则在该文件上跳过并生成一条 {@link #TIMEOUT_RULE_NAME} 结果。
+     * 取消是协作式的（见 {@link RuleBudget}），不会中断正在执行的规则代码。
+     * @param millis 时限（毫秒），0表示不限制
+     */
+    public void setRuleTimeout(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("规则时限不能为负数: " + millis);
+        }
+        this.ruleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    public long getRuleTimeout() {
+        return TimeUnit.NANOSECONDS.toMillis(ruleTimeoutNanos);
+    }
+
+    /**
+     * 设置规则耗时统计，设置后每个规则审计每个文件的耗时都会记录其中
+     * @param statistics 耗时统计，为null表示不统计
+     */
+    public void setRuleStatistics(RuleStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public RuleStatistics getRuleStatistics() {
+        return statistics;
+    }
+
+    /**
+     * 获取规则集版本
+     * 由已启用规则的类名与版本计算，规则增减或升级时随之变化
+     * @return 规则集版本
+     */
+    public String getRuleSetVersion() {
+        StringBuilder sb = new StringBuilder();
+        for (AuditRule rule : rules) {
+            Class<?> ruleClass = rule instanceof PerThreadRule ? ((PerThreadRule) rule).getRuleClass() : rule.getClass();
+            sb.append(ruleClass.getName()).append(':').append(rule.getVersion()).append(';');
+        }
+        return AuditCache.hash(sb.toString());
+    }
+
     /**
      * 获取所有审计规则
      * @return 审计规则列表
@@ -62,10 +586,103 @@ public class AuditManager {
 
     /**
      * 添加审计规则
+     * 规则实例会被多个线程同时使用，必须是无状态的（见 {@link AuditRule}）
      * @param rule 审计规则
      */
     public void addRule(AuditRule rule) {
+        checkStateless(rule);
+        rules.add(rule);
+        prefilter = null;
+    }
+
+    /**
+     * 通过提供者添加审计规则，有状态的规则自动改为每个线程使用独立实例
+     * @param provider 规则提供者
+     */
+    public void addRule(RuleProvider provider) {
+        AuditRule rule = provider.create();
+        try {
+            checkStateless(rule);
+        } catch (IllegalArgumentException e) {
+            rule = new PerThreadRule(provider::create);
+        }
         rules.add(rule);
+        ruleIds.put(rule, provider.getId());
+        prefilter = null;
+    }
+
+    /**
+     * 获取通过提供者注册的规则的ID
+     * @return 规则ID列表，按注册顺序排列
+     */
+    public List<String> getRuleIds() {
+        List<String> ids = new ArrayList<>();
+        for (AuditRule rule : rules) {
+            String id = ruleIds.get(rule);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 添加有状态的审计规则，每个线程使用工厂创建的独立实例
+     * @param factory 规则工厂
+     */
+    public void addRule(Supplier<? extends AuditRule> factory) {
+        rules.add(new PerThreadRule(factory));
+        prefilter = null;
+    }
+
+    /**
+     * 检查规则是否无状态：实例字段必须是final，且不能持有数组或可修改的集合
+     * @param rule 审计规则
+     */
+    static void checkStateless(AuditRule rule) {
+        for (Class<?> type = rule.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                String fieldName = type.getName() + "." + field.getName();
+                if (!Modifier.isFinal(modifiers)) {
+                    throw new IllegalArgumentException("审计规则必须是无状态的，字段 " + fieldName
+                            + " 不是final字段；有状态的规则请通过 addRule(Supplier) 注册");
+                }
+                if (isMutableValue(rule, field)) {
+                    throw new IllegalArgumentException("审计规则必须是无状态的，字段 " + fieldName
+                            + " 持有可修改的数组或集合；有状态的规则请通过 addRule(Supplier) 注册");
+                }
+            }
+        }
+    }
+
+    private static boolean isMutableValue(AuditRule rule, Field field) {
+        Class<?> fieldType = field.getType();
+        if (!fieldType.isArray() && !Collection.class.isAssignableFrom(fieldType) && !Map.class.isAssignableFrom(fieldType)) {
+            return false;
+        }
+        Object value;
+        try {
+            field.setAccessible(true);
+            value = field.get(rule);
+        } catch (RuntimeException | IllegalAccessException e) {
+            // 无法读取时按声明类型判断
+            return true;
+        }
+        if (value == null) {
+            return false;
+        }
+        if (value.getClass().isArray()) {
+            return Array.getLength(value) > 0;
+        }
+        String className = value.getClass().getName();
+        return !className.startsWith("java.util.ImmutableCollections$")
+                && !className.startsWith("java.util.Collections$Unmodifiable")
+                && !className.startsWith("java.util.Collections$Empty")
+                && !className.startsWith("java.util.Collections$Singleton");
     }
 
     /**
@@ -74,5 +691,7 @@ public class AuditManager {
      */
     public void removeRule(AuditRule rule) {
         rules.remove(rule);
+        ruleIds.remove(rule);
+        prefilter = null;
     }
 }
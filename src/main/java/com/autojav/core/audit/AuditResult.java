@@ -2,9 +2,19 @@ package com.autojav.core.audit;
 
 import lombok.Data;
 
+import java.util.Comparator;
+
 @Data
 public class AuditResult {
 
+    /**
+     * 按文件、行号、列号排序，位置相同的结果保持原有顺序（配合稳定排序使用）
+     */
+    public static final Comparator<AuditResult> POSITION_ORDER = Comparator
+            .comparing(AuditResult::getFilePath, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingInt(AuditResult::getLine)
+            .thenComparingInt(AuditResult::getColumn);
+
     /**
      * 规则名称
      */
@@ -2,8 +2,18 @@ package com.autojav.core.audit;
 
 import com.github.javaparser.ast.CompilationUnit;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * 审计规则
+ * <p>
+ * 同一个规则实例会被多个审计线程同时使用，因此规则必须是无状态的：
+ * 实例字段只能是final，且不能持有数组或可修改的集合，{@link AuditManager#addRule(AuditRule)} 注册时会检查。
+ * 单个编译单元的中间状态应放在局部变量或 {@link DispatchingAuditRule.AuditSession} 中；
+ * 确实需要实例状态的规则通过 {@link AuditManager#addRule(java.util.function.Supplier)} 注册，每个线程使用独立实例。
+ */
 public interface AuditRule {
 
     /**
@@ -25,6 +35,34 @@ public interface AuditRule {
      */
     List<AuditResult> audit(CompilationUnit compilationUnit);
 
+    /**
+     * 使用审计上下文执行审计，需要共用事实（如方法参数、方法调用位置）的规则可覆盖此方法
+     * @param context 审计上下文
+     * @return 审计结果列表
+     */
+    default List<AuditResult> audit(AuditContext context) {
+        return audit(context.getCompilationUnit());
+    }
+
+    /**
+     * 获取规则版本
+     * 规则的检查逻辑变化时应修改版本号，使已缓存的审计结果失效
+     * @return 规则版本
+     */
+    default String getVersion() {
+        return "1";
+    }
+
+    /**
+     * 获取触发词
+     * 源码中不包含任何触发词时该规则不可能命中，审计时直接跳过；
+     * 返回空集合表示规则总是需要基于语法树执行
+     * @return 触发词集合（仅支持ASCII字符）
+     */
+    default Set<String> getTriggerTokens() {
+        return Collections.emptySet();
+    }
+
     /**
      * 获取规则严重程度
      * @return 严重程度
@@ -0,0 +1,75 @@
+package com.autojav.core.audit;
+
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 二元运算链的展开视图
+ * <p>
+ * {@code a + b + c} 在语法树中是左深的嵌套 {@link BinaryExpr}，生成代码中可能有上千层。
+ * 这里不递归地把同一运算符的嵌套展开为从左到右的操作数列表，括号内的同一运算符也一并展开，
+ * 规则按列表逐个检查操作数即可，耗时与操作数个数成正比。
+ */
+public final class BinaryChain {
+
+    private static final DataKey<List<Expression>> CONCATENATION_KEY = new DataKey<List<Expression>>() {
+    };
+
+    private BinaryChain() {
+    }
+
+    /**
+     * 展开运算链
+     * @param expression 表达式
+     * @param operator 运算符
+     * @return 从左到右的操作数（已去掉括号）；表达式不是该运算时为只含表达式本身的列表
+     */
+    public static List<Expression> operands(Expression expression, BinaryExpr.Operator operator) {
+        List<Expression> operands = new ArrayList<>();
+        Deque<Expression> pending = new ArrayDeque<>();
+        pending.push(expression);
+        while (!pending.isEmpty()) {
+            Expression current = unwrap(pending.pop());
+            if (current.isBinaryExpr() && current.asBinaryExpr().getOperator() == operator) {
+                pending.push(current.asBinaryExpr().getRight());
+                pending.push(current.asBinaryExpr().getLeft());
+            } else {
+                operands.add(current);
+            }
+        }
+        return operands;
+    }
+
+    /**
+     * 展开拼接链（{@code +}），结果缓存在链的根节点上，同一链被多次检查时只展开一次
+     * @param expression 表达式
+     * @return 从左到右的操作数
+     */
+    public static List<Expression> concatenation(Expression expression) {
+        Expression root = unwrap(expression);
+        if (!root.isBinaryExpr() || root.asBinaryExpr().getOperator() != BinaryExpr.Operator.PLUS) {
+            return Collections.singletonList(root);
+        }
+        if (root.containsData(CONCATENATION_KEY)) {
+            return root.getData(CONCATENATION_KEY);
+        }
+        List<Expression> operands = Collections.unmodifiableList(operands(root, BinaryExpr.Operator.PLUS));
+        root.setData(CONCATENATION_KEY, operands);
+        return operands;
+    }
+
+    private static Expression unwrap(Expression expression) {
+        Expression current = expression;
+        while (current.isEnclosedExpr()) {
+            current = current.asEnclosedExpr().getInner();
+        }
+        return current;
+    }
+}
@@ -0,0 +1,59 @@
+package com.autojav.core.audit;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.util.List;
+
+/**
+ * 基于节点分发的审计规则
+ * <p>
+ * 规则不自行遍历语法树，而是在 {@link #begin} 中向分发器注册关心的节点类型，
+ * 由 {@link AuditManager} 对每个编译单元只遍历一次，同时驱动所有规则。
+ * 多个规则共用的事实（如方法参数、方法调用位置）从 {@link AuditContext} 获取，不必各自收集。
+ * 遍历结束后调用会话的 {@link AuditSession#finish()} 得到审计结果。
+ */
+public interface DispatchingAuditRule extends AuditRule {
+
+    /**
+     * 开始审计一个编译单元
+     * @param context 编译单元的审计上下文
+     * @param dispatcher 节点分发器
+     * @return 本次审计的会话，保存该编译单元的中间状态
+     */
+    AuditSession begin(AuditContext context, NodeDispatcher dispatcher);
+
+    /**
+     * 单独执行该规则
+     * @param compilationUnit 编译单元
+     * @return 审计结果列表
+     */
+    @Override
+    default List<AuditResult> audit(CompilationUnit compilationUnit) {
+        return audit(AuditContext.of(compilationUnit));
+    }
+
+    /**
+     * 单独执行该规则（独立遍历一次语法树，没有注册处理函数时不遍历）
+     * @param context 审计上下文
+     * @return 审计结果列表
+     */
+    @Override
+    default List<AuditResult> audit(AuditContext context) {
+        NodeDispatcher dispatcher = new NodeDispatcher();
+        AuditSession session = begin(context, dispatcher);
+        dispatcher.walk(context.getCompilationUnit());
+        return session.finish();
+    }
+
+    /**
+     * 单个编译单元的审计会话
+     */
+    interface AuditSession {
+
+        /**
+         * 遍历结束后生成审计结果
+         * @return 审计结果列表
+         */
+        List<AuditResult> finish();
+    }
+}
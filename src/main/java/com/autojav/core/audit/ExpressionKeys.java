@@ -0,0 +1,71 @@
+package com.autojav.core.audit;
+
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.SuperExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 表达式的结构键，供规则和分析比较表达式
+ * <p>
+ * 比较表达式不使用 {@code toString()}：它每次都运行完整的美化打印器，是审计中最大的CPU开销。
+ * 名称与字段访问链（{@code a}、{@code a.b.c}、{@code this.x}）的键由各段标识符直接拼接，与源码文本一致但不含注释；
+ * 其他表达式（如方法调用）退回到打印文本。除单个名称外，键缓存在节点上，每个节点只计算一次。
+ */
+public final class ExpressionKeys {
+
+    private static final DataKey<String> EXPRESSION_KEY = new DataKey<String>() {
+    };
+
+    private ExpressionKeys() {
+    }
+
+    /**
+     * 获取表达式的键
+     * @param expression 表达式
+     * @return 键，源码文本相同（忽略注释）的表达式键相同
+     */
+    public static String of(Expression expression) {
+        // 字段访问链从最内层开始逐段拼接并缓存，长链不递归
+        List<FieldAccessExpr> chain = new ArrayList<>();
+        Expression current = expression;
+        while (current instanceof FieldAccessExpr && ((FieldAccessExpr) current).getTypeArguments().isEmpty()
+                && !current.containsData(EXPRESSION_KEY)) {
+            chain.add((FieldAccessExpr) current);
+            current = ((FieldAccessExpr) current).getScope();
+        }
+        String key = base(current);
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            key = key + "." + chain.get(i).getName().getIdentifier();
+            chain.get(i).setData(EXPRESSION_KEY, key);
+        }
+        return key;
+    }
+
+    private static String base(Expression expression) {
+        if (expression instanceof NameExpr) {
+            return ((NameExpr) expression).getName().getIdentifier();
+        }
+        if (expression.containsData(EXPRESSION_KEY)) {
+            return expression.getData(EXPRESSION_KEY);
+        }
+        String key = compute(expression);
+        expression.setData(EXPRESSION_KEY, key);
+        return key;
+    }
+
+    private static String compute(Expression expression) {
+        if (expression instanceof ThisExpr && ((ThisExpr) expression).getTypeName().isEmpty()) {
+            return "this";
+        }
+        if (expression instanceof SuperExpr && ((SuperExpr) expression).getTypeName().isEmpty()) {
+            return "super";
+        }
+        return expression.toString();
+    }
+}
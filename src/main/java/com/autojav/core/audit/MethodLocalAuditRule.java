@@ -0,0 +1,24 @@
+package com.autojav.core.audit;
+
+import com.github.javaparser.ast.body.BodyDeclaration;
+
+import java.util.List;
+
+/**
+ * 方法局部的审计规则
+ * <p>
+ * 规则的每条结果只取决于某个顶层类型成员（见 {@link AuditContext#getMembers()}）内部的代码，
+ * 以及审计上下文中的只读事实（如成员变量名）。对整个编译单元审计的结果等于对各成员分别审计的结果之和。
+ * 行数较多的编译单元由 {@link AuditManager} 把各成员分给多个线程同时审计，再按位置合并结果，
+ * 因此审计单个成员时不能修改其他成员的节点，也不能依赖成员的审计顺序。
+ */
+public interface MethodLocalAuditRule extends AuditRule {
+
+    /**
+     * 审计单个顶层类型成员
+     * @param context 编译单元的审计上下文
+     * @param member 顶层类型成员
+     * @return 审计结果列表
+     */
+    List<AuditResult> audit(AuditContext context, BodyDeclaration<?> member);
+}
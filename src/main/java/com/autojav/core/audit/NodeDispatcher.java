@@ -0,0 +1,151 @@
+package com.autojav.core.audit;
+
+import com.github.javaparser.ast.Node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 语法树节点分发器
+ * <p>
+ * 各规则按节点类型注册处理函数，分发器对语法树只遍历一次，把每个节点交给所有关心它的处理函数。
+ * 为某个类型注册的处理函数同样接收其子类节点（如为Expression注册可收到所有表达式）。
+ * 节点在其所有子节点之后分发（后序），与规则中先调用 super.visit 的访问器顺序一致。
+ * 注册时若设置了规则的时间预算（由 {@link AuditManager} 设置），处理函数在预算内执行，规则超时后不再收到节点。
+ * 分发器不是线程安全的，每个编译单元使用独立实例。
+ */
+public class NodeDispatcher {
+
+    private static final Handler[] NO_HANDLERS = new Handler[0];
+
+    private final Map<Class<?>, List<Handler>> handlers = new HashMap<>();
+
+    /**
+     * 按节点实际类型缓存合并后的处理函数
+     */
+    private final Map<Class<?>, Handler[]> resolved = new HashMap<>();
+
+    /**
+     * 本次遍历中多个规则共用的对象
+     */
+    private final Map<Object, Object> shared = new HashMap<>();
+
+    /**
+     * 之后注册的处理函数所属规则的时间预算
+     */
+    private RuleBudget budget;
+
+    /**
+     * 注册节点处理函数
+     * @param type 节点类型
+     * @param handler 处理函数
+     * @param <N> 节点类型
+     */
+    @SuppressWarnings("unchecked")
+    public <N extends Node> void on(Class<N> type, Consumer<? super N> handler) {
+        Consumer<Node> consumer = node -> handler.accept((N) node);
+        handlers.computeIfAbsent(type, key -> new ArrayList<>()).add(new Handler(consumer, budget));
+        resolved.clear();
+    }
+
+    /**
+     * 获取本次遍历中多个规则共用的对象，首次获取时创建
+     * 用于把多个规则的匹配合并为一组处理函数（如 {@link com.autojav.core.audit.query.QueryRule}），
+     * 创建时注册的处理函数由多个规则共用，不计入任何规则的时间预算
+     * @param key 键
+     * @param factory 创建函数
+     * @param <T> 对象类型
+     * @return 共用对象
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T shared(Object key, Supplier<T> factory) {
+        Object value = shared.get(key);
+        if (value == null) {
+            RuleBudget ruleBudget = budget;
+            budget = null;
+            try {
+                value = factory.get();
+            } finally {
+                budget = ruleBudget;
+            }
+            shared.put(key, value);
+        }
+        return (T) value;
+    }
+
+    /**
+     * 设置之后注册的处理函数所属规则的时间预算
+     * @param budget 时间预算，为null表示不限制
+     */
+    void setBudget(RuleBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * 是否没有注册任何处理函数
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return handlers.isEmpty();
+    }
+
+    /**
+     * 遍历语法树并分发节点
+     * @param root 根节点
+     */
+    public void walk(Node root) {
+        if (handlers.isEmpty()) {
+            return;
+        }
+        TreeWalker.postOrder(root, this::dispatch);
+    }
+
+    private void dispatch(Node node) {
+        for (Handler handler : handlersFor(node.getClass())) {
+            RuleBudget handlerBudget = handler.budget;
+            if (handlerBudget == null) {
+                handler.consumer.accept(node);
+            } else if (!handlerBudget.isExhausted()) {
+                handlerBudget.enter();
+                try {
+                    handler.consumer.accept(node);
+                } catch (RuleTimeoutException e) {
+                    // 预算已标记为耗尽，该规则之后不再收到节点
+                } finally {
+                    handlerBudget.exit();
+                }
+            }
+        }
+    }
+
+    private Handler[] handlersFor(Class<?> nodeClass) {
+        Handler[] result = resolved.get(nodeClass);
+        if (result == null) {
+            List<Handler> matched = new ArrayList<>();
+            for (Map.Entry<Class<?>, List<Handler>> entry : handlers.entrySet()) {
+                if (entry.getKey().isAssignableFrom(nodeClass)) {
+                    matched.addAll(entry.getValue());
+                }
+            }
+            result = matched.isEmpty() ? NO_HANDLERS : matched.toArray(NO_HANDLERS);
+            resolved.put(nodeClass, result);
+        }
+        return result;
+    }
+
+    private static final class Handler {
+
+        private final Consumer<Node> consumer;
+
+        private final RuleBudget budget;
+
+        private Handler(Consumer<Node> consumer, RuleBudget budget) {
+            this.consumer = consumer;
+            this.budget = budget;
+        }
+    }
+}
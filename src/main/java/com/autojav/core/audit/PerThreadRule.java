@@ -0,0 +1,76 @@
+package com.autojav.core.audit;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 有状态规则的线程隔离包装
+ * 每个线程通过工厂创建独立的规则实例，规则的名称、版本等元数据取自首个实例
+ */
+class PerThreadRule implements DispatchingAuditRule {
+
+    private final AuditRule prototype;
+
+    private final ThreadLocal<AuditRule> instances;
+
+    PerThreadRule(Supplier<? extends AuditRule> factory) {
+        this.prototype = factory.get();
+        this.instances = ThreadLocal.withInitial(factory);
+    }
+
+    @Override
+    public AuditSession begin(AuditContext context, NodeDispatcher dispatcher) {
+        AuditRule rule = instances.get();
+        if (rule instanceof DispatchingAuditRule) {
+            return ((DispatchingAuditRule) rule).begin(context, dispatcher);
+        }
+        List<AuditResult> results = rule.audit(context);
+        return () -> results;
+    }
+
+    @Override
+    public List<AuditResult> audit(CompilationUnit compilationUnit) {
+        return instances.get().audit(compilationUnit);
+    }
+
+    @Override
+    public List<AuditResult> audit(AuditContext context) {
+        return instances.get().audit(context);
+    }
+
+    @Override
+    public String getName() {
+        return prototype.getName();
+    }
+
+    @Override
+    public String getDescription() {
+        return prototype.getDescription();
+    }
+
+    @Override
+    public String getVersion() {
+        return prototype.getVersion();
+    }
+
+    @Override
+    public Set<String> getTriggerTokens() {
+        return prototype.getTriggerTokens();
+    }
+
+    @Override
+    public Severity getSeverity() {
+        return prototype.getSeverity();
+    }
+
+    /**
+     * 获取被包装规则的类型，用于计算规则集版本
+     * @return 规则类型
+     */
+    Class<?> getRuleClass() {
+        return prototype.getClass();
+    }
+}
@@ -0,0 +1,101 @@
+package com.autojav.core.audit;
+
+import java.util.function.Supplier;
+
+/**
+ * 单个规则审计单个编译单元的时间预算
+ * <p>
+ * 单次遍历中各规则的处理函数交替执行，因此预算按规则自身的累计执行时间（处理函数与 finish）计算，而不是墙钟时间。
+ * 取消是协作式的：分发器在每次调用处理函数前检查，已超时的规则不再收到节点；
+ * 规则中可能长时间运行的循环（如数据流迭代）调用 {@link #checkpoint()}，超出预算时在该处中止。
+ * 实例只在创建它的线程中使用。
+ */
+public final class RuleBudget {
+
+    // 每个线程当前正在执行的规则的预算
+    private static final ThreadLocal<RuleBudget[]> CURRENT = ThreadLocal.withInitial(() -> new RuleBudget[1]);
+
+    private final long limitNanos;
+
+    private final RuleBudget[] current = CURRENT.get();
+
+    private RuleBudget outer;
+
+    private long enteredAt;
+
+    private long spentNanos;
+
+    private boolean exhausted;
+
+    /**
+     * @param limitNanos 时间预算（纳秒），0表示不限制，只统计耗时
+     */
+    RuleBudget(long limitNanos) {
+        this.limitNanos = limitNanos;
+    }
+
+    /**
+     * 检查当前线程正在执行的规则是否超出预算，供规则在耗时的循环中调用
+     * 没有正在执行的规则或不限制时间时不做任何事
+     * @throws RuleTimeoutException 已超出预算
+     */
+    public static void checkpoint() {
+        RuleBudget budget = CURRENT.get()[0];
+        if (budget != null) {
+            budget.check();
+        }
+    }
+
+    /**
+     * 在预算内执行规则的一段代码
+     * @param task 规则代码
+     * @param <T> 返回值类型
+     * @return 执行结果，在执行中超时时返回null
+     */
+    <T> T run(Supplier<T> task) {
+        enter();
+        try {
+            return task.get();
+        } catch (RuleTimeoutException e) {
+            return null;
+        } finally {
+            exit();
+        }
+    }
+
+    void enter() {
+        outer = current[0];
+        current[0] = this;
+        enteredAt = System.nanoTime();
+    }
+
+    void exit() {
+        spentNanos += System.nanoTime() - enteredAt;
+        current[0] = outer;
+        outer = null;
+        if (limitNanos > 0 && spentNanos > limitNanos) {
+            exhausted = true;
+        }
+    }
+
+    /**
+     * 是否已超出预算
+     */
+    boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * 累计执行时间（纳秒）
+     */
+    long getSpentNanos() {
+        return spentNanos;
+    }
+
+    private void check() {
+        if (limitNanos > 0 && spentNanos + System.nanoTime() - enteredAt > limitNanos) {
+            exhausted = true;
+            throw new RuleTimeoutException();
+        }
+    }
+}
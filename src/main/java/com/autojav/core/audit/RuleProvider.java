@@ -0,0 +1,57 @@
+package com.autojav.core.audit;
+
+import java.util.Set;
+
+/**
+ * 审计规则的服务提供者
+ * <p>
+ * 规则通过 {@link java.util.ServiceLoader} 发现：实现类在
+ * {@code META-INF/services/com.autojav.core.audit.RuleProvider} 中登记，放在类路径上的第三方规则包同样会被发现。
+ * 提供者只携带元数据，规则实例在被选中后才由 {@link #create()} 创建，未选中的规则没有启动和遍历开销。
+ * 实现类必须有公共无参构造方法。
+ */
+public interface RuleProvider {
+
+    /**
+     * 规则执行开销等级
+     */
+    enum Cost {
+        /**
+         * 只检查单个节点
+         */
+        CHEAP,
+        /**
+         * 需要方法级的分析
+         */
+        MODERATE,
+        /**
+         * 需要控制流、数据流或跨方法分析
+         */
+        EXPENSIVE
+    }
+
+    /**
+     * 获取规则ID，用于 --rules / --skip-rules 选择，在所有提供者中唯一
+     * @return 规则ID，如 {@code sql-injection}
+     */
+    String getId();
+
+    /**
+     * 获取规则标签，可按标签整组选择规则
+     * @return 标签集合，如 {@code security}
+     */
+    Set<String> getTags();
+
+    /**
+     * 获取规则执行开销等级
+     * @return 开销等级
+     */
+    Cost getCost();
+
+    /**
+     * 创建规则实例
+     * 有状态的规则每次调用须返回新实例，注册时会为每个线程单独创建
+     * @return 审计规则
+     */
+    AuditRule create();
+}
@@ -0,0 +1,135 @@
+package com.autojav.core.audit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * 审计规则注册表
+ * <p>
+ * 通过 {@link ServiceLoader} 加载类路径上所有的 {@link RuleProvider}，按规则ID或标签选择要启用的规则。
+ * 加载时只实例化提供者，不创建规则。
+ */
+@Slf4j
+public final class RuleRegistry {
+
+    private final Map<String, RuleProvider> providers;
+
+    private RuleRegistry(Map<String, RuleProvider> providers) {
+        this.providers = providers;
+    }
+
+    /**
+     * 从当前线程的类加载器加载规则提供者
+     * @return 规则注册表
+     */
+    public static RuleRegistry load() {
+        return load(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * 从指定类加载器加载规则提供者，无法加载的提供者记录警告后跳过
+     * @param classLoader 类加载器
+     * @return 规则注册表
+     */
+    public static RuleRegistry load(ClassLoader classLoader) {
+        Map<String, RuleProvider> providers = new LinkedHashMap<>();
+        Iterator<RuleProvider> iterator = ServiceLoader.load(RuleProvider.class, classLoader).iterator();
+        while (true) {
+            RuleProvider provider;
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                provider = iterator.next();
+            } catch (ServiceConfigurationError e) {
+                log.warn("审计规则加载失败，已跳过: {}", e.getMessage());
+                continue;
+            }
+            RuleProvider existing = providers.putIfAbsent(provider.getId(), provider);
+            if (existing != null) {
+                throw new IllegalStateException("审计规则ID重复: " + provider.getId() + "（"
+                        + existing.getClass().getName() + " 与 " + provider.getClass().getName() + "）");
+            }
+        }
+        return new RuleRegistry(providers);
+    }
+
+    /**
+     * 加入其他来源的规则提供者（如查询规则文件），返回新的注册表
+     * @param extra 规则提供者列表，排在已加载的提供者之后
+     * @return 规则注册表
+     * @throws IllegalStateException 规则ID与已有规则重复
+     */
+    public RuleRegistry with(List<RuleProvider> extra) {
+        Map<String, RuleProvider> merged = new LinkedHashMap<>(providers);
+        for (RuleProvider provider : extra) {
+            RuleProvider existing = merged.putIfAbsent(provider.getId(), provider);
+            if (existing != null) {
+                throw new IllegalStateException("审计规则ID重复: " + provider.getId() + "（"
+                        + existing.getClass().getName() + " 与 " + provider.getClass().getName() + "）");
+            }
+        }
+        return new RuleRegistry(merged);
+    }
+
+    /**
+     * 获取所有规则提供者，按加载顺序排列
+     * @return 规则提供者列表
+     */
+    public List<RuleProvider> getProviders() {
+        return Collections.unmodifiableList(new ArrayList<>(providers.values()));
+    }
+
+    /**
+     * 按规则ID或标签选择规则
+     * @param included 启用的规则ID或标签，为空表示全部规则
+     * @param skipped 排除的规则ID或标签，优先于启用
+     * @return 选中的规则提供者，按加载顺序排列
+     */
+    public List<RuleProvider> select(Collection<String> included, Collection<String> skipped) {
+        checkKnown(included);
+        checkKnown(skipped);
+        List<RuleProvider> selected = new ArrayList<>();
+        for (RuleProvider provider : providers.values()) {
+            if ((included.isEmpty() || matchesAny(provider, included)) && !matchesAny(provider, skipped)) {
+                selected.add(provider);
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("没有选中任何审计规则，可用规则: " + String.join(", ", providers.keySet()));
+        }
+        return selected;
+    }
+
+    private void checkKnown(Collection<String> names) {
+        for (String name : names) {
+            boolean known = providers.values().stream().anyMatch(provider -> matches(provider, name));
+            if (!known) {
+                throw new IllegalArgumentException("未知的审计规则或标签: " + name
+                        + "，可用规则: " + String.join(", ", providers.keySet()));
+            }
+        }
+    }
+
+    private static boolean matchesAny(RuleProvider provider, Collection<String> names) {
+        for (String name : names) {
+            if (matches(provider, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(RuleProvider provider, String name) {
+        return provider.getId().equals(name) || provider.getTags().contains(name);
+    }
+}
@@ -0,0 +1,184 @@
+package com.autojav.core.audit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 各规则的耗时统计
+ * <p>
+ * {@link AuditManager} 每审计完一个编译单元，为每个规则记录一次耗时与是否超时，
+ * 汇总时给出每个规则的中位数、P99、最大耗时以及最慢的几个文件，用于找出拖慢审计的规则。
+ * 方法可在多个线程中并发调用。
+ */
+public class RuleStatistics {
+
+    private static final int WORST_FILES = 5;
+
+    private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+
+    /**
+     * 记录规则审计一个文件的耗时
+     * @param ruleName 规则名称
+     * @param filePath 文件路径
+     * @param nanos 耗时（纳秒）
+     * @param timedOut 是否超时跳过
+     */
+    public synchronized void record(String ruleName, String filePath, long nanos, boolean timedOut) {
+        recorders.computeIfAbsent(ruleName, key -> new Recorder()).record(filePath, nanos, timedOut);
+    }
+
+    /**
+     * 汇总各规则的耗时，按最大耗时从高到低排列
+     * @return 各规则的耗时汇总
+     */
+    public synchronized List<RuleLatency> summarize() {
+        List<RuleLatency> latencies = new ArrayList<>(recorders.size());
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            latencies.add(entry.getValue().summarize(entry.getKey()));
+        }
+        latencies.sort(Comparator.comparingLong(RuleLatency::getMaxNanos).reversed());
+        return latencies;
+    }
+
+    /**
+     * 单个规则的耗时汇总
+     */
+    public static class RuleLatency {
+
+        private final String ruleName;
+
+        private final int files;
+
+        private final int timeouts;
+
+        private final long p50Nanos;
+
+        private final long p99Nanos;
+
+        private final long maxNanos;
+
+        private final List<FileLatency> worstFiles;
+
+        RuleLatency(String ruleName, int files, int timeouts, long p50Nanos, long p99Nanos, long maxNanos,
+                    List<FileLatency> worstFiles) {
+            this.ruleName = ruleName;
+            this.files = files;
+            this.timeouts = timeouts;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+            this.worstFiles = worstFiles;
+        }
+
+        public String getRuleName() {
+            return ruleName;
+        }
+
+        /**
+         * 审计的文件数
+         */
+        public int getFiles() {
+            return files;
+        }
+
+        /**
+         * 超时跳过的文件数
+         */
+        public int getTimeouts() {
+            return timeouts;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * 耗时最长的文件，从慢到快排列
+         */
+        public List<FileLatency> getWorstFiles() {
+            return worstFiles;
+        }
+    }
+
+    /**
+     * 规则审计单个文件的耗时
+     */
+    public static class FileLatency {
+
+        private final String filePath;
+
+        private final long nanos;
+
+        FileLatency(String filePath, long nanos) {
+            this.filePath = filePath;
+            this.nanos = nanos;
+        }
+
+        public String getFilePath() {
+            return filePath;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    private static final class Recorder {
+
+        private long[] samples = new long[64];
+
+        private int size;
+
+        private int timeouts;
+
+        // 小顶堆，保留耗时最长的几个文件
+        private final PriorityQueue<FileLatency> worst = new PriorityQueue<>(Comparator.comparingLong(FileLatency::getNanos));
+
+        private void record(String filePath, long nanos, boolean timedOut) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+            if (timedOut) {
+                timeouts++;
+            }
+            if (worst.size() < WORST_FILES) {
+                worst.add(new FileLatency(filePath, nanos));
+            } else if (nanos > worst.peek().getNanos()) {
+                worst.poll();
+                worst.add(new FileLatency(filePath, nanos));
+            }
+        }
+
+        private RuleLatency summarize(String ruleName) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            List<FileLatency> worstFiles = new ArrayList<>(worst);
+            worstFiles.sort(Comparator.comparingLong(FileLatency::getNanos).reversed());
+            return new RuleLatency(ruleName, size, timeouts, percentile(sorted, 50), percentile(sorted, 99),
+                    size == 0 ? 0 : sorted[size - 1], worstFiles);
+        }
+
+        // 最近秩法：不小于 p% 样本的最小值
+        private static long percentile(long[] sorted, int p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+    }
+}
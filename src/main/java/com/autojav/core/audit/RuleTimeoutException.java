@@ -0,0 +1,16 @@
+package com.autojav.core.audit;
+
+/**
+ * 规则超出时间预算时由 {@link RuleBudget#checkpoint()} 抛出，中止该规则对当前编译单元的审计
+ * <p>
+ * 由 {@link AuditManager} 捕获并记为该规则在此文件上超时跳过，规则自身不应捕获。
+ */
+public final class RuleTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    RuleTimeoutException() {
+        // 只用于控制流程，不需要堆栈
+        super("规则执行超时", null, false, false);
+    }
+}
@@ -0,0 +1,154 @@
+package com.autojav.core.audit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 审计规则预过滤器
+ * <p>
+ * 将所有规则声明的触发词编译为一个Aho-Corasick自动机，对源码做一次线性扫描，
+ * 得到可能命中的规则。没有任何规则可能命中的文件无需构建语法树。
+ * 未声明触发词的规则视为总是需要执行。
+ */
+public class TokenPrefilter {
+
+    private static final int ALPHABET = 128;
+
+    private final List<AuditRule> rules;
+
+    /**
+     * 无条件执行的规则下标
+     */
+    private final int[] unconditional;
+
+    /**
+     * 状态转移表，next[state * ALPHABET + ch]
+     */
+    private final int[] next;
+
+    /**
+     * 到达该状态时命中的规则下标（已沿失配链合并）
+     */
+    private final int[][] outputs;
+
+    public TokenPrefilter(List<AuditRule> rules) {
+        this.rules = new ArrayList<>(rules);
+
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> ruleOutputs = new ArrayList<>();
+        trie.add(newState());
+        ruleOutputs.add(new ArrayList<>());
+        List<Integer> always = new ArrayList<>();
+
+        for (int r = 0; r < this.rules.size(); r++) {
+            Set<String> tokens = this.rules.get(r).getTriggerTokens();
+            if (tokens == null || tokens.isEmpty()) {
+                always.add(r);
+                continue;
+            }
+            for (String token : tokens) {
+                int state = 0;
+                for (int i = 0; i < token.length(); i++) {
+                    char ch = token.charAt(i);
+                    if (ch >= ALPHABET) {
+                        throw new IllegalArgumentException("触发词只支持ASCII字符: " + token);
+                    }
+                    if (trie.get(state)[ch] < 0) {
+                        trie.get(state)[ch] = trie.size();
+                        trie.add(newState());
+                        ruleOutputs.add(new ArrayList<>());
+                    }
+                    state = trie.get(state)[ch];
+                }
+                if (!ruleOutputs.get(state).contains(r)) {
+                    ruleOutputs.get(state).add(r);
+                }
+            }
+        }
+
+        // 广度优先计算失配链，并把goto函数补全为确定性自动机
+        int states = trie.size();
+        int[] fail = new int[states];
+        this.next = new int[states * ALPHABET];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int ch = 0; ch < ALPHABET; ch++) {
+            int child = trie.get(0)[ch];
+            if (child < 0) {
+                next[ch] = 0;
+            } else {
+                next[ch] = child;
+                fail[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int out : ruleOutputs.get(fail[state])) {
+                if (!ruleOutputs.get(state).contains(out)) {
+                    ruleOutputs.get(state).add(out);
+                }
+            }
+            for (int ch = 0; ch < ALPHABET; ch++) {
+                int child = trie.get(state)[ch];
+                if (child < 0) {
+                    next[state * ALPHABET + ch] = next[fail[state] * ALPHABET + ch];
+                } else {
+                    next[state * ALPHABET + ch] = child;
+                    fail[child] = next[fail[state] * ALPHABET + ch];
+                    queue.add(child);
+                }
+            }
+        }
+
+        this.outputs = new int[states][];
+        for (int s = 0; s < states; s++) {
+            this.outputs[s] = ruleOutputs.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.unconditional = always.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 选出可能在该源码上命中的规则，保持规则的原有顺序
+     * @param content 源码
+     * @return 规则列表，为空表示无需构建语法树
+     */
+    public List<AuditRule> select(CharSequence content) {
+        boolean[] matched = new boolean[rules.size()];
+        int remaining = rules.size();
+        for (int r : unconditional) {
+            matched[r] = true;
+            remaining--;
+        }
+
+        int state = 0;
+        int length = content.length();
+        for (int i = 0; i < length && remaining > 0; i++) {
+            char ch = content.charAt(i);
+            state = ch < ALPHABET ? next[state * ALPHABET + ch] : 0;
+            for (int r : outputs[state]) {
+                if (!matched[r]) {
+                    matched[r] = true;
+                    remaining--;
+                }
+            }
+        }
+
+        List<AuditRule> selected = new ArrayList<>();
+        for (int r = 0; r < matched.length; r++) {
+            if (matched[r]) {
+                selected.add(rules.get(r));
+            }
+        }
+        return selected;
+    }
+
+    private static int[] newState() {
+        int[] transitions = new int[ALPHABET];
+        Arrays.fill(transitions, -1);
+        return transitions;
+    }
+}
@@ -0,0 +1,74 @@
+package com.autojav.core.audit;
+
+import com.github.javaparser.ast.Node;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * 显式栈的语法树遍历
+ * <p>
+ * 由生成代码产生的上千层嵌套（长的 {@code +} 拼接链、构建器链式调用）在递归遍历中会耗尽线程栈。
+ * 这里用数组保存每层的节点与下一个子节点下标，遍历耗时与节点数成正比，占用的线程栈与树深无关。
+ * 后序遍历的顺序与 {@link Node.TreeTraversal#POSTORDER} 一致。
+ */
+public final class TreeWalker {
+
+    private static final int INITIAL_DEPTH = 64;
+
+    private TreeWalker() {
+    }
+
+    /**
+     * 后序遍历：每个节点在其所有子节点之后访问
+     * @param root 根节点
+     * @param visitor 访问函数
+     */
+    public static void postOrder(Node root, Consumer<Node> visitor) {
+        postOrder(root, null, visitor);
+    }
+
+    /**
+     * 后序遍历，可跳过部分子树
+     * @param root 根节点
+     * @param descend 是否进入子节点（参数为父节点、子节点），为null表示全部进入；被跳过的子节点及其子树都不访问
+     * @param visitor 访问函数
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static void postOrder(Node root, BiPredicate<Node, Node> descend, Consumer<Node> visitor) {
+        Node[] nodes = new Node[INITIAL_DEPTH];
+        List<Node>[] children = new List[INITIAL_DEPTH];
+        int[] next = new int[INITIAL_DEPTH];
+        int depth = 0;
+        nodes[0] = root;
+        children[0] = root.getChildNodes();
+        while (depth >= 0) {
+            List<Node> siblings = children[depth];
+            int index = next[depth];
+            if (index < siblings.size()) {
+                next[depth] = index + 1;
+                Node child = siblings.get(index);
+                if (descend != null && !descend.test(nodes[depth], child)) {
+                    continue;
+                }
+                depth++;
+                if (depth == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, depth * 2);
+                    children = Arrays.copyOf(children, depth * 2);
+                    next = Arrays.copyOf(next, depth * 2);
+                }
+                nodes[depth] = child;
+                children[depth] = child.getChildNodes();
+                next[depth] = 0;
+            } else {
+                Node node = nodes[depth];
+                nodes[depth] = null;
+                children[depth] = null;
+                depth--;
+                visitor.accept(node);
+            }
+        }
+    }
+}
@@ -0,0 +1,525 @@
+package com.autojav.core.audit.flow;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.BreakStmt;
+import com.github.javaparser.ast.stmt.CatchClause;
+import com.github.javaparser.ast.stmt.ContinueStmt;
+import com.github.javaparser.ast.stmt.DoStmt;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.LabeledStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.stmt.SwitchEntry;
+import com.github.javaparser.ast.stmt.SwitchStmt;
+import com.github.javaparser.ast.stmt.SynchronizedStmt;
+import com.github.javaparser.ast.stmt.ThrowStmt;
+import com.github.javaparser.ast.stmt.TryStmt;
+import com.github.javaparser.ast.stmt.WhileStmt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 控制流图构建器
+ * <p>
+ * 每个构建方法接收流入该语句的悬空出口，返回语句执行完后的悬空出口，
+ * 由下一条语句把它们连到自己的第一个节点上。
+ * return、break、continue、throw 统一经 {@link #jump} 处理：途经带finally的try时先转入finally，
+ * finally执行完后再继续原来的跳转。finally块按去向各构建一份副本（与编译器内联finally的做法相同）。
+ */
+class CfgBuilder {
+
+    private final ControlFlowGraph graph;
+
+    /**
+     * 当前可作为break/continue目标的语句，内层在栈顶
+     */
+    private final Deque<JumpTarget> jumpTargets = new ArrayDeque<>();
+
+    /**
+     * 当前所在的带catch的try块，内层在栈顶
+     */
+    private final Deque<List<CfgNode>> tryScopes = new ArrayDeque<>();
+
+    /**
+     * 当前所在的带finally的try块，内层在栈顶
+     */
+    private final Deque<FinallyScope> finallyScopes = new ArrayDeque<>();
+
+    /**
+     * 紧接着要构建的循环语句的标签
+     */
+    private String pendingLabel;
+
+    CfgBuilder(Node owner) {
+        this.graph = new ControlFlowGraph(owner);
+    }
+
+    ControlFlowGraph build() {
+        Node owner = graph.getOwner();
+        Statement body = null;
+        if (owner instanceof MethodDeclaration) {
+            body = ((MethodDeclaration) owner).getBody().orElse(null);
+        } else if (owner instanceof ConstructorDeclaration) {
+            body = ((ConstructorDeclaration) owner).getBody();
+        } else if (owner instanceof InitializerDeclaration) {
+            body = ((InitializerDeclaration) owner).getBody();
+        } else if (owner instanceof LambdaExpr) {
+            body = ((LambdaExpr) owner).getBody();
+        }
+        List<Exit> exits = Collections.singletonList(new Exit(graph.getEntry(), CfgEdge.Kind.NORMAL));
+        if (body != null) {
+            exits = statement(body, exits);
+        }
+        connect(exits, graph.getExit());
+        return graph;
+    }
+
+    private List<Exit> statement(Statement statement, List<Exit> in) {
+        if (statement instanceof BlockStmt) {
+            List<Exit> exits = in;
+            for (Statement child : ((BlockStmt) statement).getStatements()) {
+                exits = statement(child, exits);
+            }
+            return exits;
+        }
+        if (statement instanceof IfStmt) {
+            return ifStmt((IfStmt) statement, in);
+        }
+        if (statement instanceof WhileStmt) {
+            return whileStmt((WhileStmt) statement, in);
+        }
+        if (statement instanceof DoStmt) {
+            return doStmt((DoStmt) statement, in);
+        }
+        if (statement instanceof ForStmt) {
+            return forStmt((ForStmt) statement, in);
+        }
+        if (statement instanceof ForEachStmt) {
+            return forEachStmt((ForEachStmt) statement, in);
+        }
+        if (statement instanceof SwitchStmt) {
+            return switchStmt((SwitchStmt) statement, in);
+        }
+        if (statement instanceof TryStmt) {
+            return tryStmt((TryStmt) statement, in);
+        }
+        if (statement instanceof LabeledStmt) {
+            return labeledStmt((LabeledStmt) statement, in);
+        }
+        if (statement instanceof SynchronizedStmt) {
+            SynchronizedStmt synchronizedStmt = (SynchronizedStmt) statement;
+            CfgNode lock = node(CfgNode.Kind.STATEMENT, synchronizedStmt.getExpression(), in);
+            return statement(synchronizedStmt.getBody(), exits(lock, CfgEdge.Kind.NORMAL));
+        }
+        if (statement instanceof BreakStmt) {
+            CfgNode node = node(CfgNode.Kind.STATEMENT, statement, in);
+            String label = ((BreakStmt) statement).getLabel().map(Node::toString).orElse(null);
+            JumpTarget target = findTarget(label, false);
+            if (target != null) {
+                jump(exits(node, CfgEdge.Kind.NORMAL), JumpKind.BREAK, target);
+            }
+            return Collections.emptyList();
+        }
+        if (statement instanceof ContinueStmt) {
+            CfgNode node = node(CfgNode.Kind.STATEMENT, statement, in);
+            String label = ((ContinueStmt) statement).getLabel().map(Node::toString).orElse(null);
+            JumpTarget target = findTarget(label, true);
+            if (target != null) {
+                jump(exits(node, CfgEdge.Kind.NORMAL), JumpKind.CONTINUE, target);
+            }
+            return Collections.emptyList();
+        }
+        if (statement instanceof ReturnStmt) {
+            CfgNode node = node(CfgNode.Kind.STATEMENT, statement, in);
+            jump(exits(node, CfgEdge.Kind.NORMAL), JumpKind.RETURN, null);
+            return Collections.emptyList();
+        }
+        if (statement instanceof ThrowStmt) {
+            CfgNode node = node(CfgNode.Kind.STATEMENT, statement, in);
+            jump(exits(node, CfgEdge.Kind.EXCEPTION), JumpKind.THROW, null);
+            return Collections.emptyList();
+        }
+        // 表达式语句、局部变量声明、断言、局部类声明等按单个节点处理
+        CfgNode node = node(CfgNode.Kind.STATEMENT, statement, in);
+        return exits(node, CfgEdge.Kind.NORMAL);
+    }
+
+    private List<Exit> ifStmt(IfStmt ifStmt, List<Exit> in) {
+        CfgNode condition = node(CfgNode.Kind.CONDITION, ifStmt.getCondition(), in);
+        List<Exit> exits = new ArrayList<>(statement(ifStmt.getThenStmt(), exits(condition, CfgEdge.Kind.TRUE)));
+        if (ifStmt.getElseStmt().isPresent()) {
+            exits.addAll(statement(ifStmt.getElseStmt().get(), exits(condition, CfgEdge.Kind.FALSE)));
+        } else {
+            exits.add(new Exit(condition, CfgEdge.Kind.FALSE));
+        }
+        return exits;
+    }
+
+    private List<Exit> whileStmt(WhileStmt whileStmt, List<Exit> in) {
+        JumpTarget target = pushLoop();
+        CfgNode condition = node(CfgNode.Kind.CONDITION, whileStmt.getCondition(), in);
+        connect(statement(whileStmt.getBody(), exits(condition, CfgEdge.Kind.TRUE)), condition);
+        return finishLoop(target, condition, isTrueLiteral(whileStmt.getCondition()) ? null : condition);
+    }
+
+    private List<Exit> doStmt(DoStmt doStmt, List<Exit> in) {
+        JumpTarget target = pushLoop();
+        CfgNode head = node(CfgNode.Kind.JOIN, null, in);
+        List<Exit> bodyExits = new ArrayList<>(statement(doStmt.getBody(), exits(head, CfgEdge.Kind.NORMAL)));
+        bodyExits.addAll(target.continues);
+        target.continues.clear();
+        CfgNode condition = node(CfgNode.Kind.CONDITION, doStmt.getCondition(), bodyExits);
+        graph.addEdge(condition, head, CfgEdge.Kind.TRUE);
+        return finishLoop(target, condition, isTrueLiteral(doStmt.getCondition()) ? null : condition);
+    }
+
+    private List<Exit> forStmt(ForStmt forStmt, List<Exit> in) {
+        List<Exit> exits = in;
+        for (Expression initialization : forStmt.getInitialization()) {
+            exits = exits(node(CfgNode.Kind.STATEMENT, initialization, exits), CfgEdge.Kind.NORMAL);
+        }
+        JumpTarget target = pushLoop();
+        Expression compare = forStmt.getCompare().orElse(null);
+        CfgNode head = compare != null
+                ? node(CfgNode.Kind.CONDITION, compare, exits)
+                : node(CfgNode.Kind.JOIN, null, exits);
+        List<Exit> bodyExits = new ArrayList<>(statement(forStmt.getBody(),
+                exits(head, compare != null ? CfgEdge.Kind.TRUE : CfgEdge.Kind.NORMAL)));
+        bodyExits.addAll(target.continues);
+        target.continues.clear();
+        for (Expression update : forStmt.getUpdate()) {
+            bodyExits = exits(node(CfgNode.Kind.STATEMENT, update, bodyExits), CfgEdge.Kind.NORMAL);
+        }
+        connect(bodyExits, head);
+        return finishLoop(target, head, compare == null || isTrueLiteral(compare) ? null : head);
+    }
+
+    private List<Exit> forEachStmt(ForEachStmt forEachStmt, List<Exit> in) {
+        CfgNode iterable = node(CfgNode.Kind.STATEMENT, forEachStmt.getIterable(), in);
+        JumpTarget target = pushLoop();
+        // 循环头对应循环变量的声明：为真表示取到下一个元素
+        CfgNode head = node(CfgNode.Kind.CONDITION, forEachStmt.getVariable(), exits(iterable, CfgEdge.Kind.NORMAL));
+        connect(statement(forEachStmt.getBody(), exits(head, CfgEdge.Kind.TRUE)), head);
+        return finishLoop(target, head, head);
+    }
+
+    private List<Exit> switchStmt(SwitchStmt switchStmt, List<Exit> in) {
+        CfgNode selector = node(CfgNode.Kind.STATEMENT, switchStmt.getSelector(), in);
+        JumpTarget target = newTarget(takePendingLabel(), false);
+        jumpTargets.push(target);
+        List<Exit> exits = new ArrayList<>();
+        List<Exit> fallThrough = Collections.emptyList();
+        boolean hasDefault = false;
+        for (SwitchEntry entry : switchStmt.getEntries()) {
+            hasDefault |= entry.getLabels().isEmpty();
+            List<Exit> entryIn = new ArrayList<>(fallThrough);
+            entryIn.add(new Exit(selector, CfgEdge.Kind.NORMAL));
+            List<Exit> entryExits = entryIn;
+            for (Statement statement : entry.getStatements()) {
+                entryExits = statement(statement, entryExits);
+            }
+            if (entry.getType() == SwitchEntry.Type.STATEMENT_GROUP) {
+                fallThrough = entryExits;
+            } else {
+                // 箭头形式的分支不会贯穿到下一个分支
+                exits.addAll(entryExits);
+                fallThrough = Collections.emptyList();
+            }
+        }
+        jumpTargets.pop();
+        exits.addAll(fallThrough);
+        if (!hasDefault) {
+            exits.add(new Exit(selector, CfgEdge.Kind.NORMAL));
+        }
+        exits.addAll(target.breaks);
+        return exits;
+    }
+
+    private List<Exit> tryStmt(TryStmt tryStmt, List<Exit> in) {
+        boolean hasCatch = !tryStmt.getCatchClauses().isEmpty();
+        FinallyScope finallyScope = null;
+        if (tryStmt.getFinallyBlock().isPresent()) {
+            // try块和catch块中的节点都可能抛出异常转入finally
+            finallyScope = new FinallyScope();
+            finallyScopes.push(finallyScope);
+            tryScopes.push(finallyScope.nodes);
+        }
+        List<CfgNode> tryNodes = new ArrayList<>();
+        if (hasCatch) {
+            tryScopes.push(tryNodes);
+        }
+        List<Exit> exits = in;
+        for (Expression resource : tryStmt.getResources()) {
+            exits = exits(node(CfgNode.Kind.STATEMENT, resource, exits), CfgEdge.Kind.NORMAL);
+        }
+        exits = new ArrayList<>(statement(tryStmt.getTryBlock(), exits));
+        if (hasCatch) {
+            tryScopes.pop();
+        }
+
+        for (CatchClause catchClause : tryStmt.getCatchClauses()) {
+            // 进入try之前以及try块中任意节点执行后都可能转入catch
+            CfgNode handler = node(CfgNode.Kind.STATEMENT, catchClause.getParameter(), Collections.emptyList());
+            for (Exit exit : in) {
+                graph.addEdge(exit.node, handler, CfgEdge.Kind.EXCEPTION);
+            }
+            for (CfgNode tryNode : tryNodes) {
+                graph.addEdge(tryNode, handler, CfgEdge.Kind.EXCEPTION);
+            }
+            exits.addAll(statement(catchClause.getBody(), exits(handler, CfgEdge.Kind.NORMAL)));
+        }
+
+        if (finallyScope != null) {
+            tryScopes.pop();
+            finallyScopes.pop();
+            return finallyBlock(tryStmt.getFinallyBlock().get(), finallyScope, in, exits);
+        }
+        return exits;
+    }
+
+    /**
+     * 构建finally块：正常完成、每种跳转去向和未捕获的异常各使用一份finally的副本，
+     * 副本执行完后再继续各自原来的去向，不同路径的事实不会在finally中混在一起。
+     * 同一语法节点的多个副本见 {@link ControlFlowGraph#nodesOf}
+     */
+    private List<Exit> finallyBlock(BlockStmt block, FinallyScope scope, List<Exit> in, List<Exit> normalExits) {
+        // 先构建正常完成的副本，使它成为语法节点的主节点
+        List<Exit> exits = normalExits.isEmpty() ? Collections.emptyList() : statement(block, normalExits);
+
+        // 去向相同的跳转共用一份副本
+        List<PendingJump> merged = new ArrayList<>();
+        for (PendingJump pending : scope.jumps) {
+            PendingJump same = null;
+            for (PendingJump other : merged) {
+                if (other.kind == pending.kind && other.target == pending.target) {
+                    same = other;
+                    break;
+                }
+            }
+            if (same != null) {
+                same.exits.addAll(pending.exits);
+            } else {
+                merged.add(new PendingJump(new ArrayList<>(pending.exits), pending.kind, pending.target));
+            }
+        }
+        for (PendingJump pending : merged) {
+            jump(statement(block, pending.exits), pending.kind, pending.target);
+        }
+
+        if (!scope.nodes.isEmpty()) {
+            // 未被catch捕获的异常：与catch一样，进入try之前以及try/catch中任意节点执行后都可能发生
+            List<Exit> thrown = new ArrayList<>(in);
+            for (CfgNode node : scope.nodes) {
+                thrown.add(new Exit(node, CfgEdge.Kind.EXCEPTION));
+            }
+            jump(statement(block, thrown), JumpKind.THROW, null);
+        }
+        return exits;
+    }
+
+    /**
+     * 把跳转连到目标；途经带finally的try块时先记到最内层的finally上，由它执行完后继续跳转
+     * @param from 跳转出口
+     * @param kind 跳转类型
+     * @param target break/continue的目标，return和throw为null
+     */
+    private void jump(List<Exit> from, JumpKind kind, JumpTarget target) {
+        FinallyScope innermost = finallyScopes.peek();
+        if (innermost != null && (target == null || finallyScopes.size() > target.finallyDepth)) {
+            innermost.jumps.add(new PendingJump(from, kind, target));
+            return;
+        }
+        switch (kind) {
+            case BREAK:
+                target.breaks.addAll(from);
+                break;
+            case CONTINUE:
+                target.continues.addAll(from);
+                break;
+            default:
+                connect(from, graph.getExit());
+        }
+    }
+
+    private List<Exit> labeledStmt(LabeledStmt labeledStmt, List<Exit> in) {
+        String label = labeledStmt.getLabel().asString();
+        Statement inner = labeledStmt.getStatement();
+        if (inner instanceof WhileStmt || inner instanceof DoStmt || inner instanceof ForStmt
+                || inner instanceof ForEachStmt || inner instanceof SwitchStmt) {
+            pendingLabel = label;
+            return statement(inner, in);
+        }
+        // 带标签的普通语句块只能作为break目标
+        JumpTarget target = newTarget(label, false);
+        target.blockOnly = true;
+        jumpTargets.push(target);
+        List<Exit> exits = new ArrayList<>(statement(inner, in));
+        jumpTargets.pop();
+        exits.addAll(target.breaks);
+        return exits;
+    }
+
+    private JumpTarget pushLoop() {
+        JumpTarget target = newTarget(takePendingLabel(), true);
+        jumpTargets.push(target);
+        return target;
+    }
+
+    private JumpTarget newTarget(String label, boolean loop) {
+        JumpTarget target = new JumpTarget(label, loop);
+        target.finallyDepth = finallyScopes.size();
+        return target;
+    }
+
+    /**
+     * 结束循环：continue连到循环头，出口为条件为假的分支加上各break
+     */
+    private List<Exit> finishLoop(JumpTarget target, CfgNode continueTarget, CfgNode falseExit) {
+        jumpTargets.pop();
+        connect(target.continues, continueTarget);
+        List<Exit> exits = new ArrayList<>();
+        if (falseExit != null) {
+            exits.add(new Exit(falseExit, CfgEdge.Kind.FALSE));
+        }
+        exits.addAll(target.breaks);
+        return exits;
+    }
+
+    private JumpTarget findTarget(String label, boolean isContinue) {
+        for (JumpTarget target : jumpTargets) {
+            if (label != null) {
+                if (label.equals(target.label)) {
+                    return target;
+                }
+            } else if (!target.blockOnly && (target.loop || !isContinue)) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    private String takePendingLabel() {
+        String label = pendingLabel;
+        pendingLabel = null;
+        return label;
+    }
+
+    private CfgNode node(CfgNode.Kind kind, Node ast, List<Exit> in) {
+        CfgNode node = graph.newNode(kind, ast);
+        connect(in, node);
+        for (List<CfgNode> scope : tryScopes) {
+            scope.add(node);
+        }
+        return node;
+    }
+
+    private void connect(List<Exit> exits, CfgNode target) {
+        for (Exit exit : exits) {
+            graph.addEdge(exit.node, target, exit.kind);
+        }
+    }
+
+    private static List<Exit> exits(CfgNode node, CfgEdge.Kind kind) {
+        List<Exit> exits = new ArrayList<>(1);
+        exits.add(new Exit(node, kind));
+        return exits;
+    }
+
+    private static boolean isTrueLiteral(Expression expression) {
+        return expression.isBooleanLiteralExpr() && expression.asBooleanLiteralExpr().getValue();
+    }
+
+    /**
+     * 尚未连接到后继节点的出口
+     */
+    private static class Exit {
+
+        private final CfgNode node;
+
+        private final CfgEdge.Kind kind;
+
+        private Exit(CfgNode node, CfgEdge.Kind kind) {
+            this.node = node;
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * break/continue的目标语句
+     */
+    private static class JumpTarget {
+
+        private final String label;
+
+        private final boolean loop;
+
+        private boolean blockOnly;
+
+        /**
+         * 创建时所在的finally层数，跳转到该目标时途经更内层的finally
+         */
+        private int finallyDepth;
+
+        private final List<Exit> breaks = new ArrayList<>();
+
+        private final List<Exit> continues = new ArrayList<>();
+
+        private JumpTarget(String label, boolean loop) {
+            this.label = label;
+            this.loop = loop;
+        }
+    }
+
+    /**
+     * 跳转类型
+     */
+    private enum JumpKind {
+        RETURN, THROW, BREAK, CONTINUE
+    }
+
+    /**
+     * 等待经过finally的跳转
+     */
+    private static class PendingJump {
+
+        private final List<Exit> exits;
+
+        private final JumpKind kind;
+
+        private final JumpTarget target;
+
+        private PendingJump(List<Exit> exits, JumpKind kind, JumpTarget target) {
+            this.exits = exits;
+            this.kind = kind;
+            this.target = target;
+        }
+    }
+
+    /**
+     * 带finally的try块
+     */
+    private static class FinallyScope {
+
+        /**
+         * try块和catch块中的节点
+         */
+        private final List<CfgNode> nodes = new ArrayList<>();
+
+        /**
+         * 从try块和catch块中跳出的return、break、continue、throw
+         */
+        private final List<PendingJump> jumps = new ArrayList<>();
+    }
+}
@@ -0,0 +1,58 @@
+package com.autojav.core.audit.flow;
+
+/**
+ * 控制流图的有向边
+ */
+public class CfgEdge {
+
+    /**
+     * 边类型
+     */
+    public enum Kind {
+        /**
+         * 顺序执行
+         */
+        NORMAL,
+        /**
+         * 条件为真
+         */
+        TRUE,
+        /**
+         * 条件为假
+         */
+        FALSE,
+        /**
+         * 抛出异常，转入catch块或出口
+         */
+        EXCEPTION
+    }
+
+    private final CfgNode source;
+
+    private final CfgNode target;
+
+    private final Kind kind;
+
+    CfgEdge(CfgNode source, CfgNode target, Kind kind) {
+        this.source = source;
+        this.target = target;
+        this.kind = kind;
+    }
+
+    public CfgNode getSource() {
+        return source;
+    }
+
+    public CfgNode getTarget() {
+        return target;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    @Override
+    public String toString() {
+        return source.getId() + " -" + kind + "-> " + target.getId();
+    }
+}
@@ -0,0 +1,99 @@
+package com.autojav.core.audit.flow;
+
+import com.github.javaparser.ast.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 控制流图节点
+ * <p>
+ * 语句级粒度：每条简单语句、每个分支或循环条件、for循环的初始化与更新表达式各对应一个节点。
+ * 条件节点的出边区分真假分支，便于数据流分析按分支细化事实。
+ */
+public class CfgNode {
+
+    /**
+     * 节点类型
+     */
+    public enum Kind {
+        /**
+         * 入口
+         */
+        ENTRY,
+        /**
+         * 出口，正常返回与未捕获的异常都汇入此节点
+         */
+        EXIT,
+        /**
+         * 语句或表达式
+         */
+        STATEMENT,
+        /**
+         * 分支或循环条件
+         */
+        CONDITION,
+        /**
+         * 没有对应语法节点的汇合点，如do-while循环头
+         */
+        JOIN
+    }
+
+    private final int id;
+
+    private final Kind kind;
+
+    private final Node ast;
+
+    private final List<CfgEdge> successors = new ArrayList<>(2);
+
+    private final List<CfgEdge> predecessors = new ArrayList<>(2);
+
+    CfgNode(int id, Kind kind, Node ast) {
+        this.id = id;
+        this.kind = kind;
+        this.ast = ast;
+    }
+
+    /**
+     * 节点编号，从0开始连续分配，可直接作为数组下标
+     * @return 编号
+     */
+    public int getId() {
+        return id;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * 获取对应的语法节点
+     * @return 语句、条件表达式或声明，入口、出口和汇合点为null
+     */
+    public Node getAst() {
+        return ast;
+    }
+
+    public List<CfgEdge> getSuccessors() {
+        return Collections.unmodifiableList(successors);
+    }
+
+    public List<CfgEdge> getPredecessors() {
+        return Collections.unmodifiableList(predecessors);
+    }
+
+    void addSuccessor(CfgEdge edge) {
+        successors.add(edge);
+    }
+
+    void addPredecessor(CfgEdge edge) {
+        predecessors.add(edge);
+    }
+
+    @Override
+    public String toString() {
+        return id + ":" + kind + (ast != null ? "[" + ast.getClass().getSimpleName() + "]" : "");
+    }
+}
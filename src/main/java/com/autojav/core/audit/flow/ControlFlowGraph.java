@@ -0,0 +1,194 @@
+package com.autojav.core.audit.flow;
+
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.expr.LambdaExpr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个方法体的过程内控制流图
+ * <p>
+ * 方法、构造器、初始化块和lambda各自构成一张图，嵌套的lambda和匿名类不展开到外层图中。
+ * 图在首次使用时构建，并挂在对应的语法节点上，同一编译单元内的各规则共享同一张图。
+ * finally块对正常完成、每种跳转去向（return、break、continue、throw）和未捕获的异常各构建一份副本，
+ * 副本执行完后继续各自的去向，因此同一语法节点可能对应多个图节点（见 {@link #nodesOf}）。
+ * 以下情况做了近似处理：try块中的每个节点都有一条异常边指向各catch块和finally。
+ */
+public class ControlFlowGraph {
+
+    private static final DataKey<ControlFlowGraph> CFG_KEY = new DataKey<ControlFlowGraph>() {
+    };
+
+    private final Node owner;
+
+    private final List<CfgNode> nodes = new ArrayList<>();
+
+    /**
+     * 语法节点 -> 控制流图节点（有多个副本时为最先构建的一个）
+     */
+    private final Map<Node, CfgNode> index = new IdentityHashMap<>();
+
+    /**
+     * finally块中的语法节点 -> 全部副本
+     */
+    private final Map<Node, List<CfgNode>> copies = new IdentityHashMap<>();
+
+    private final CfgNode entry;
+
+    private final CfgNode exit;
+
+    private int[] reversePostorder;
+
+    ControlFlowGraph(Node owner) {
+        this.owner = owner;
+        this.entry = newNode(CfgNode.Kind.ENTRY, null);
+        this.exit = newNode(CfgNode.Kind.EXIT, null);
+    }
+
+    /**
+     * 获取方法体的控制流图，首次调用时构建
+     * @param owner 方法、构造器、初始化块或lambda
+     * @return 控制流图
+     */
+    public static ControlFlowGraph of(Node owner) {
+        if (!isOwner(owner)) {
+            throw new IllegalArgumentException("不支持构建控制流图的节点类型: " + owner.getClass().getSimpleName());
+        }
+        if (owner.containsData(CFG_KEY)) {
+            return owner.getData(CFG_KEY);
+        }
+        ControlFlowGraph graph = new CfgBuilder(owner).build();
+        owner.setData(CFG_KEY, graph);
+        return graph;
+    }
+
+    /**
+     * 获取节点所在的最内层方法、构造器、初始化块或lambda
+     * @param node 语法节点
+     * @return 所在方法体，不在任何方法体中（如字段初始化表达式）时返回null
+     */
+    public static Node ownerOf(Node node) {
+        for (Node current = node.getParentNode().orElse(null); current != null; current = current.getParentNode().orElse(null)) {
+            if (isOwner(current)) {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    static boolean isOwner(Node node) {
+        return node instanceof CallableDeclaration || node instanceof InitializerDeclaration || node instanceof LambdaExpr;
+    }
+
+    public Node getOwner() {
+        return owner;
+    }
+
+    public CfgNode getEntry() {
+        return entry;
+    }
+
+    public CfgNode getExit() {
+        return exit;
+    }
+
+    public List<CfgNode> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 查找语法节点所在的控制流图节点
+     * @param node 方法体内的任意语法节点
+     * @return 包含该节点的最内层语句或条件对应的图节点，不属于本图时返回null
+     */
+    public CfgNode nodeOf(Node node) {
+        for (Node current = node; current != null && current != owner; current = current.getParentNode().orElse(null)) {
+            CfgNode cfgNode = index.get(current);
+            if (cfgNode != null) {
+                return cfgNode;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 查找语法节点对应的全部图节点
+     * finally块中的节点按去向有多个副本，“一定成立”的事实须在每个副本上都成立
+     * @param node 方法体内的任意语法节点
+     * @return 图节点列表，不属于本图时为空
+     */
+    public List<CfgNode> nodesOf(Node node) {
+        CfgNode cfgNode = nodeOf(node);
+        if (cfgNode == null) {
+            return Collections.emptyList();
+        }
+        List<CfgNode> all = copies.get(cfgNode.getAst());
+        return all != null ? Collections.unmodifiableList(all) : Collections.singletonList(cfgNode);
+    }
+
+    /**
+     * 从入口可达节点的逆后序，前向分析按此顺序处理收敛最快
+     * @return 节点编号数组
+     */
+    public int[] reversePostorder() {
+        if (reversePostorder == null) {
+            boolean[] visited = new boolean[nodes.size()];
+            int[] order = new int[nodes.size()];
+            int count = 0;
+            // 显式栈的深度优先遍历，避免深层嵌套时栈溢出
+            int[] stack = new int[nodes.size()];
+            int[] nextEdge = new int[nodes.size()];
+            int top = 0;
+            stack[top++] = entry.getId();
+            visited[entry.getId()] = true;
+            while (top > 0) {
+                CfgNode node = nodes.get(stack[top - 1]);
+                List<CfgEdge> successors = node.getSuccessors();
+                if (nextEdge[node.getId()] < successors.size()) {
+                    CfgNode target = successors.get(nextEdge[node.getId()]++).getTarget();
+                    if (!visited[target.getId()]) {
+                        visited[target.getId()] = true;
+                        stack[top++] = target.getId();
+                    }
+                } else {
+                    top--;
+                    order[count++] = node.getId();
+                }
+            }
+            reversePostorder = new int[count];
+            for (int i = 0; i < count; i++) {
+                reversePostorder[i] = order[count - 1 - i];
+            }
+        }
+        return reversePostorder;
+    }
+
+    CfgNode newNode(CfgNode.Kind kind, Node ast) {
+        CfgNode node = new CfgNode(nodes.size(), kind, ast);
+        nodes.add(node);
+        if (ast != null) {
+            CfgNode primary = index.putIfAbsent(ast, node);
+            if (primary != null) {
+                copies.computeIfAbsent(ast, key -> new ArrayList<>(List.of(primary))).add(node);
+            }
+        }
+        return node;
+    }
+
+    void addEdge(CfgNode source, CfgNode target, CfgEdge.Kind kind) {
+        CfgEdge edge = new CfgEdge(source, target, kind);
+        source.addSuccessor(edge);
+        target.addPredecessor(edge);
+    }
+}
@@ -0,0 +1,74 @@
+package com.autojav.core.audit.flow;
+
+import java.util.BitSet;
+
+/**
+ * 位向量数据流问题
+ * <p>
+ * 每个事实对应位向量中的一位（见 {@link FactIndex}），由 {@link DataflowSolver} 以工作表算法求不动点。
+ * 空值分析、污点分析、资源泄漏分析等只需给出方向、交汇方式和传递函数。
+ */
+public interface DataflowProblem {
+
+    /**
+     * 分析方向
+     */
+    enum Direction {
+        /**
+         * 前向：事实从入口沿控制流传播
+         */
+        FORWARD,
+        /**
+         * 后向：事实从出口逆控制流传播
+         */
+        BACKWARD
+    }
+
+    /**
+     * 交汇方式
+     */
+    enum Meet {
+        /**
+         * 并集：某条路径上成立即成立（may分析），节点初值为空集
+         */
+        UNION,
+        /**
+         * 交集：所有路径上都成立才成立（must分析），节点初值为全集
+         */
+        INTERSECTION
+    }
+
+    Direction getDirection();
+
+    Meet getMeet();
+
+    /**
+     * 位向量宽度，即事实总数
+     * @return 宽度
+     */
+    int getWidth();
+
+    /**
+     * 边界值：前向分析为入口处的事实，后向分析为出口处的事实
+     * @return 边界事实，求解器不会修改它
+     */
+    BitSet boundary();
+
+    /**
+     * 节点的传递函数
+     * @param node 控制流图节点
+     * @param facts 流入节点的事实，可直接修改后返回
+     * @return 流出节点的事实
+     */
+    BitSet transfer(CfgNode node, BitSet facts);
+
+    /**
+     * 边的传递函数，用于按分支条件细化事实，默认不做处理
+     * @param edge 控制流图的边
+     * @param facts 沿边传播的事实，可直接修改后返回
+     * @return 到达边另一端的事实
+     */
+    default BitSet transferEdge(CfgEdge edge, BitSet facts) {
+        return facts;
+    }
+}
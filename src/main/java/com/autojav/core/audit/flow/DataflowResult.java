@@ -0,0 +1,39 @@
+package com.autojav.core.audit.flow;
+
+import java.util.BitSet;
+
+/**
+ * 数据流分析的不动点结果
+ * <p>
+ * 按执行顺序给出每个节点执行前后的事实，与分析方向无关。
+ * 返回的位向量是副本，调用方可以自由修改。
+ */
+public class DataflowResult {
+
+    private final BitSet[] before;
+
+    private final BitSet[] after;
+
+    DataflowResult(BitSet[] before, BitSet[] after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    /**
+     * 节点执行前成立的事实
+     * @param node 控制流图节点
+     * @return 事实位向量
+     */
+    public BitSet before(CfgNode node) {
+        return (BitSet) before[node.getId()].clone();
+    }
+
+    /**
+     * 节点执行后成立的事实
+     * @param node 控制流图节点
+     * @return 事实位向量
+     */
+    public BitSet after(CfgNode node) {
+        return (BitSet) after[node.getId()].clone();
+    }
+}
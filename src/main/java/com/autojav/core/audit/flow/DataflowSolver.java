@@ -0,0 +1,101 @@
+package com.autojav.core.audit.flow;
+
+import com.autojav.core.audit.RuleBudget;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 工作表式数据流求解器
+ * <p>
+ * 前向分析按逆后序、后向分析按后序初始化工作表，节点的输出变化时只把受影响的相邻节点重新加入。
+ * 传递函数单调时，每个节点的事实只会单向变化，迭代次数受位向量宽度限制。
+ */
+public final class DataflowSolver {
+
+    private DataflowSolver() {
+    }
+
+    /**
+     * 求解数据流问题
+     * @param graph 控制流图
+     * @param problem 数据流问题
+     * @return 各节点执行前后的事实
+     */
+    public static DataflowResult solve(ControlFlowGraph graph, DataflowProblem problem) {
+        boolean forward = problem.getDirection() == DataflowProblem.Direction.FORWARD;
+        boolean intersection = problem.getMeet() == DataflowProblem.Meet.INTERSECTION;
+        int size = graph.size();
+        int width = problem.getWidth();
+
+        // in/out 按分析方向：前向时in为节点执行前，后向时in为节点执行后
+        BitSet[] in = new BitSet[size];
+        BitSet[] out = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            in[i] = initial(width, intersection);
+            out[i] = initial(width, intersection);
+        }
+        CfgNode start = forward ? graph.getEntry() : graph.getExit();
+        in[start.getId()] = (BitSet) problem.boundary().clone();
+
+        int[] order = graph.reversePostorder();
+        Deque<CfgNode> worklist = new ArrayDeque<>(order.length);
+        boolean[] queued = new boolean[size];
+        for (int i = 0; i < order.length; i++) {
+            int id = forward ? order[i] : order[order.length - 1 - i];
+            worklist.add(graph.getNodes().get(id));
+            queued[id] = true;
+        }
+
+        while (!worklist.isEmpty()) {
+            // 大方法的迭代可能很长，在此响应规则的时间预算
+            RuleBudget.checkpoint();
+            CfgNode node = worklist.poll();
+            int id = node.getId();
+            queued[id] = false;
+
+            if (node != start) {
+                in[id] = meet(forward ? node.getPredecessors() : node.getSuccessors(), out, problem, forward, width, intersection);
+            }
+            BitSet result = problem.transfer(node, (BitSet) in[id].clone());
+            if (!result.equals(out[id])) {
+                out[id] = result;
+                for (CfgEdge edge : forward ? node.getSuccessors() : node.getPredecessors()) {
+                    CfgNode next = forward ? edge.getTarget() : edge.getSource();
+                    if (!queued[next.getId()]) {
+                        queued[next.getId()] = true;
+                        worklist.add(next);
+                    }
+                }
+            }
+        }
+        return forward ? new DataflowResult(in, out) : new DataflowResult(out, in);
+    }
+
+    private static BitSet meet(List<CfgEdge> edges, BitSet[] out, DataflowProblem problem, boolean forward,
+                               int width, boolean intersection) {
+        BitSet result = null;
+        for (CfgEdge edge : edges) {
+            CfgNode neighbour = forward ? edge.getSource() : edge.getTarget();
+            BitSet facts = problem.transferEdge(edge, (BitSet) out[neighbour.getId()].clone());
+            if (result == null) {
+                result = facts;
+            } else if (intersection) {
+                result.and(facts);
+            } else {
+                result.or(facts);
+            }
+        }
+        return result != null ? result : initial(width, intersection);
+    }
+
+    private static BitSet initial(int width, boolean intersection) {
+        BitSet facts = new BitSet(width);
+        if (intersection) {
+            facts.set(0, width);
+        }
+        return facts;
+    }
+}
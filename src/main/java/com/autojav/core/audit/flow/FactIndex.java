@@ -0,0 +1,56 @@
+package com.autojav.core.audit.flow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据流事实编号表，把事实映射为位向量中的位置
+ *
+ * @param <T> 事实类型，如变量名
+ */
+public class FactIndex<T> {
+
+    private final Map<T, Integer> indexes = new HashMap<>();
+
+    private final List<T> facts = new ArrayList<>();
+
+    /**
+     * 登记事实，已登记时返回原编号
+     * @param fact 事实
+     * @return 编号
+     */
+    public int add(T fact) {
+        Integer index = indexes.get(fact);
+        if (index == null) {
+            index = facts.size();
+            indexes.put(fact, index);
+            facts.add(fact);
+        }
+        return index;
+    }
+
+    /**
+     * 查询事实编号
+     * @param fact 事实
+     * @return 编号，未登记时返回-1
+     */
+    public int indexOf(T fact) {
+        Integer index = indexes.get(fact);
+        return index != null ? index : -1;
+    }
+
+    public T get(int index) {
+        return facts.get(index);
+    }
+
+    public List<T> getFacts() {
+        return Collections.unmodifiableList(facts);
+    }
+
+    public int size() {
+        return facts.size();
+    }
+}
@@ -0,0 +1,369 @@
+package com.autojav.core.audit.flow;
+
+import com.autojav.core.audit.ExpressionKeys;
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.InstanceOfExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 过程内非空分析（must分析）
+ * <p>
+ * 事实为“某个表达式此处一定不为null”，表达式以 {@link ExpressionKeys} 的键标识，如 {@code name}、{@code user.address}。
+ * 以下情况产生事实：
+ * <ul>
+ *     <li>条件 {@code x != null}、{@code x instanceof T} 为真的分支，{@code x == null} 为假的分支</li>
+ *     <li>{@code Objects.requireNonNull(x)} 之后</li>
+ *     <li>赋值为 new 表达式、字符串字面量或 this 之后</li>
+ * </ul>
+ * 对变量的其他赋值会使该变量及以它开头的表达式的事实失效。
+ * 同一表达式内 {@code &&}、{@code ||} 和三目运算的短路求值也会被考虑，
+ * lambda和匿名类中的代码还会继承外层方法在其所在位置的事实。
+ */
+public class NullnessAnalysis {
+
+    private static final DataKey<NullnessAnalysis> NULLNESS_KEY = new DataKey<NullnessAnalysis>() {
+    };
+
+    private final ControlFlowGraph graph;
+
+    private final FactIndex<String> facts = new FactIndex<>();
+
+    private final DataflowResult result;
+
+    private NullnessAnalysis(ControlFlowGraph graph) {
+        this.graph = graph;
+        collectFacts(graph.getOwner());
+        this.result = DataflowSolver.solve(graph, new Problem());
+    }
+
+    /**
+     * 获取方法体的非空分析结果，首次调用时求解并缓存在语法节点上
+     * @param owner 方法、构造器、初始化块或lambda
+     * @return 分析结果
+     */
+    public static NullnessAnalysis of(Node owner) {
+        if (owner.containsData(NULLNESS_KEY)) {
+            return owner.getData(NULLNESS_KEY);
+        }
+        NullnessAnalysis analysis = new NullnessAnalysis(ControlFlowGraph.of(owner));
+        owner.setData(NULLNESS_KEY, analysis);
+        return analysis;
+    }
+
+    /**
+     * 判断表达式在某个位置是否一定不为null
+     * @param at 位置，通常是使用该表达式的节点
+     * @param expression 表达式的源码文本
+     * @return 是否一定不为null；不在任何方法体中时返回false
+     */
+    public static boolean isNonNull(Node at, String expression) {
+        Node owner = ControlFlowGraph.ownerOf(at);
+        if (owner == null) {
+            return false;
+        }
+        if (of(owner).holds(at, normalize(expression))) {
+            return true;
+        }
+        // lambda和匿名类捕获的变量在外层方法中的状态
+        Node outerPosition = outerPosition(owner);
+        return outerPosition != null && isNonNull(outerPosition, expression);
+    }
+
+    public ControlFlowGraph getGraph() {
+        return graph;
+    }
+
+    private boolean holds(Node at, String key) {
+        CfgNode node = graph.nodeOf(at);
+        if (node == null) {
+            return false;
+        }
+        int index = facts.indexOf(key);
+        if (index >= 0 && holdsInAllCopies(at, index)) {
+            return true;
+        }
+        // 同一语句中短路求值已确定的事实
+        Set<String> local = new HashSet<>();
+        for (Node child = at; child != node.getAst(); child = child.getParentNode().orElse(null)) {
+            Node parent = child.getParentNode().orElse(null);
+            if (parent instanceof BinaryExpr) {
+                BinaryExpr binary = (BinaryExpr) parent;
+                if (binary.getRight() == child && binary.getOperator() == BinaryExpr.Operator.AND) {
+                    implied(binary.getLeft(), true, local::add);
+                } else if (binary.getRight() == child && binary.getOperator() == BinaryExpr.Operator.OR) {
+                    implied(binary.getLeft(), false, local::add);
+                }
+            } else if (parent instanceof ConditionalExpr) {
+                ConditionalExpr conditional = (ConditionalExpr) parent;
+                if (conditional.getThenExpr() == child) {
+                    implied(conditional.getCondition(), true, local::add);
+                } else if (conditional.getElseExpr() == child) {
+                    implied(conditional.getCondition(), false, local::add);
+                }
+            }
+        }
+        return local.contains(key);
+    }
+
+    /**
+     * finally块中的节点按去向有多个副本，事实须在每个副本执行前都成立
+     */
+    private boolean holdsInAllCopies(Node at, int index) {
+        for (CfgNode copy : graph.nodesOf(at)) {
+            if (!result.before(copy).get(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 登记方法体中可能成立的全部事实，确定位向量宽度
+     */
+    private void collectFacts(Node owner) {
+        forEachOwnNode(owner, node -> {
+            if (node instanceof BinaryExpr) {
+                Expression compared = nullCompared((BinaryExpr) node);
+                if (compared != null) {
+                    facts.add(key(compared));
+                }
+            } else if (node instanceof InstanceOfExpr) {
+                facts.add(key(((InstanceOfExpr) node).getExpression()));
+            } else if (node instanceof MethodCallExpr && isRequireNonNull((MethodCallExpr) node)) {
+                facts.add(key(((MethodCallExpr) node).getArgument(0)));
+            } else if (node instanceof AssignExpr && isNonNullValue(((AssignExpr) node).getValue())) {
+                facts.add(key(((AssignExpr) node).getTarget()));
+            } else if (node instanceof VariableDeclarator
+                    && ((VariableDeclarator) node).getInitializer().map(NullnessAnalysis::isNonNullValue).orElse(false)) {
+                facts.add(((VariableDeclarator) node).getNameAsString());
+            }
+        });
+    }
+
+    /**
+     * 条件取某个值时可推出的非空事实
+     */
+    private static void implied(Expression condition, boolean outcome, Consumer<String> sink) {
+        // 用显式栈展开取反与 && / || 链，生成代码中上千个条件的链不会耗尽线程栈
+        Deque<Expression> pending = new ArrayDeque<>();
+        Deque<Boolean> outcomes = new ArrayDeque<>();
+        pending.push(condition);
+        outcomes.push(outcome);
+        while (!pending.isEmpty()) {
+            Expression expression = unwrap(pending.pop());
+            boolean value = outcomes.pop();
+            if (expression instanceof UnaryExpr && ((UnaryExpr) expression).getOperator() == UnaryExpr.Operator.LOGICAL_COMPLEMENT) {
+                pending.push(((UnaryExpr) expression).getExpression());
+                outcomes.push(!value);
+            } else if (expression instanceof InstanceOfExpr) {
+                if (value) {
+                    sink.accept(key(((InstanceOfExpr) expression).getExpression()));
+                }
+            } else if (expression instanceof BinaryExpr) {
+                BinaryExpr binary = (BinaryExpr) expression;
+                if (binary.getOperator() == BinaryExpr.Operator.AND && value
+                        || binary.getOperator() == BinaryExpr.Operator.OR && !value) {
+                    pending.push(binary.getRight());
+                    outcomes.push(value);
+                    pending.push(binary.getLeft());
+                    outcomes.push(value);
+                    continue;
+                }
+                Expression compared = nullCompared(binary);
+                if (compared != null && (binary.getOperator() == BinaryExpr.Operator.NOT_EQUALS) == value) {
+                    sink.accept(key(compared));
+                }
+            }
+        }
+    }
+
+    private static Expression nullCompared(BinaryExpr comparison) {
+        if (comparison.getOperator() != BinaryExpr.Operator.EQUALS
+                && comparison.getOperator() != BinaryExpr.Operator.NOT_EQUALS) {
+            return null;
+        }
+        if (comparison.getRight().isNullLiteralExpr()) {
+            return unwrap(comparison.getLeft());
+        }
+        if (comparison.getLeft().isNullLiteralExpr()) {
+            return unwrap(comparison.getRight());
+        }
+        return null;
+    }
+
+    private static boolean isRequireNonNull(MethodCallExpr call) {
+        if (!call.getNameAsString().equals("requireNonNull") || call.getArguments().isEmpty()) {
+            return false;
+        }
+        String scope = call.getScope().map(ExpressionKeys::of).orElse("");
+        return scope.equals("Objects") || scope.equals("java.util.Objects");
+    }
+
+    private static boolean isNonNullValue(Expression value) {
+        Expression expression = unwrap(value);
+        return expression.isObjectCreationExpr() || expression.isArrayCreationExpr() || expression.isStringLiteralExpr()
+                || expression.isTextBlockLiteralExpr() || expression.isThisExpr() || expression.isLambdaExpr();
+    }
+
+    private static Expression unwrap(Expression expression) {
+        Expression current = expression;
+        while (current.isEnclosedExpr()) {
+            current = current.asEnclosedExpr().getInner();
+        }
+        return current;
+    }
+
+    private static String key(Expression expression) {
+        return normalize(ExpressionKeys.of(unwrap(expression)));
+    }
+
+    private static String normalize(String expression) {
+        return expression.startsWith("this.") ? expression.substring("this.".length()) : expression;
+    }
+
+    /**
+     * lambda或匿名类方法在外层方法中的位置
+     */
+    private static Node outerPosition(Node owner) {
+        if (owner instanceof LambdaExpr) {
+            return owner;
+        }
+        for (Node current = owner.getParentNode().orElse(null); current != null; current = current.getParentNode().orElse(null)) {
+            if (current instanceof ObjectCreationExpr) {
+                return current;
+            }
+            if (ControlFlowGraph.isOwner(current) || !(current instanceof BodyDeclaration)) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按后序遍历节点，不进入嵌套的lambda和类声明（它们有各自的控制流图）
+     */
+    private static void forEachOwnNode(Node root, Consumer<Node> consumer) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        stack.push(root);
+        expanded.push(false);
+        while (!stack.isEmpty()) {
+            Node node = stack.peek();
+            if (expanded.peek()) {
+                stack.pop();
+                expanded.pop();
+                consumer.accept(node);
+                continue;
+            }
+            expanded.pop();
+            expanded.push(true);
+            List<Node> children = node.getChildNodes();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                Node child = children.get(i);
+                if (child instanceof LambdaExpr || child instanceof TypeDeclaration
+                        || child instanceof BodyDeclaration && node instanceof ObjectCreationExpr) {
+                    continue;
+                }
+                stack.push(child);
+                expanded.push(false);
+            }
+        }
+    }
+
+    /**
+     * 非空分析的数据流问题：前向、交集
+     */
+    private class Problem implements DataflowProblem {
+
+        @Override
+        public Direction getDirection() {
+            return Direction.FORWARD;
+        }
+
+        @Override
+        public Meet getMeet() {
+            return Meet.INTERSECTION;
+        }
+
+        @Override
+        public int getWidth() {
+            return facts.size();
+        }
+
+        @Override
+        public BitSet boundary() {
+            return new BitSet(facts.size());
+        }
+
+        @Override
+        public BitSet transfer(CfgNode node, BitSet in) {
+            if (node.getAst() == null) {
+                return in;
+            }
+            forEachOwnNode(node.getAst(), child -> {
+                if (child instanceof AssignExpr) {
+                    AssignExpr assign = (AssignExpr) child;
+                    assign(in, key(assign.getTarget()),
+                            assign.getOperator() == AssignExpr.Operator.ASSIGN && isNonNullValue(assign.getValue()));
+                } else if (child instanceof VariableDeclarator) {
+                    VariableDeclarator variable = (VariableDeclarator) child;
+                    assign(in, variable.getNameAsString(),
+                            variable.getInitializer().map(NullnessAnalysis::isNonNullValue).orElse(false));
+                } else if (child instanceof MethodCallExpr && isRequireNonNull((MethodCallExpr) child)) {
+                    set(in, key(((MethodCallExpr) child).getArgument(0)));
+                }
+            });
+            return in;
+        }
+
+        @Override
+        public BitSet transferEdge(CfgEdge edge, BitSet in) {
+            Node ast = edge.getSource().getAst();
+            if ((edge.getKind() == CfgEdge.Kind.TRUE || edge.getKind() == CfgEdge.Kind.FALSE) && ast instanceof Expression) {
+                implied((Expression) ast, edge.getKind() == CfgEdge.Kind.TRUE, fact -> set(in, fact));
+            }
+            return in;
+        }
+
+        private void assign(BitSet in, String target, boolean nonNull) {
+            // 变量重新赋值后，以它开头的表达式的事实一并失效
+            String prefix = target + ".";
+            List<String> all = facts.getFacts();
+            for (int i = in.nextSetBit(0); i >= 0; i = in.nextSetBit(i + 1)) {
+                String fact = all.get(i);
+                if (fact.equals(target) || fact.startsWith(prefix)) {
+                    in.clear(i);
+                }
+            }
+            if (nonNull) {
+                set(in, target);
+            }
+        }
+
+        private void set(BitSet in, String fact) {
+            int index = facts.indexOf(fact);
+            if (index >= 0) {
+                in.set(index);
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.autojav.core.audit.query;
+
+import com.autojav.core.audit.BinaryChain;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.github.javaparser.ast.expr.TextBlockLiteralExpr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * 结构化查询：用简短的模式描述要查找的语法结构，编译为节点匹配器
+ * <p>
+ * 语法：
+ * <pre>
+ * 查询 := 元素 ('|' 元素)*
+ * 模式 := 项 ('|' 项)*
+ * 项   := '!' 项 | '(' 模式 ')' | 元素 | 特征
+ * 元素 := 类型 ('[' 属性 (',' 属性)* ']')? ('(' 条件 (',' 条件)* ')')?
+ * 属性 := 属性名 ('=' | '~') 值        = 为精确匹配，~ 为通配符匹配（* 任意个字符，? 单个字符）
+ * 条件 := 角色 ':' 模式 | 模式          带角色时约束子节点，否则约束节点本身
+ * </pre>
+ * 类型：call（方法调用）、new（对象创建）、concat（含字符串字面量的最外层拼接）、string（字符串字面量）、
+ * name（变量名）、field（字段访问）、any（任意表达式）。
+ * 属性：name（方法名、类名、变量名或字段名）、value（字符串内容）、args（实参个数）。
+ * 角色：scope（调用者对象）、arg（任一实参）、arg0、arg1…（指定实参）、operand（任一拼接部分），子节点外的括号会被去掉。
+ * 特征：contains-sql（含SQL关键字）、has-var（含变量引用）、dynamic-sql（拼接了变量的动态SQL）、literal（字面量）。
+ * <p>
+ * 例如 {@code call[name~execute*](arg:concat(contains-sql, has-var))} 查找实参为拼接了变量的SQL语句的 execute* 调用。
+ * 查询的最外层必须是元素（可用 | 组合多个），{@link QueryIndex} 据此按节点类型和方法名建立索引。
+ * 编译后的查询不可变，可在多个线程中同时使用。
+ */
+public final class Query {
+
+    private final String text;
+
+    private final List<Element> roots;
+
+    Query(String text, List<Element> roots) {
+        this.text = text;
+        this.roots = Collections.unmodifiableList(roots);
+    }
+
+    /**
+     * 编译查询
+     * @param text 查询文本
+     * @return 查询
+     * @throws IllegalArgumentException 查询有语法错误
+     */
+    public static Query compile(String text) {
+        return new QueryParser(text).parse();
+    }
+
+    /**
+     * 节点是否匹配查询
+     * @param node 节点
+     * @return 是否匹配
+     */
+    public boolean matches(Node node) {
+        for (Element root : roots) {
+            if (root.test(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * 最外层的各个元素
+     */
+    List<Element> getRoots() {
+        return roots;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * 节点类型
+     */
+    enum Kind {
+        CALL("call", MethodCallExpr.class),
+        NEW("new", ObjectCreationExpr.class),
+        CONCAT("concat", BinaryExpr.class),
+        STRING("string", StringLiteralExpr.class, TextBlockLiteralExpr.class),
+        NAME("name", NameExpr.class),
+        FIELD("field", FieldAccessExpr.class),
+        ANY("any", Expression.class);
+
+        private final String keyword;
+
+        private final List<Class<? extends Node>> types;
+
+        @SafeVarargs
+        Kind(String keyword, Class<? extends Node>... types) {
+            this.keyword = keyword;
+            // 逐个复制而不把可变参数数组交给其他方法，@SafeVarargs 才成立
+            List<Class<? extends Node>> copy = new ArrayList<>(types.length);
+            for (Class<? extends Node> type : types) {
+                copy.add(type);
+            }
+            this.types = Collections.unmodifiableList(copy);
+        }
+
+        static Kind of(String keyword) {
+            for (Kind kind : values()) {
+                if (kind.keyword.equals(keyword)) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+
+        String getKeyword() {
+            return keyword;
+        }
+
+        /**
+         * 该类型对应的语法树节点类，为其中任一类（含子类）的实例才可能匹配
+         */
+        List<Class<? extends Node>> getTypes() {
+            return types;
+        }
+
+        boolean accepts(Node node) {
+            for (Class<? extends Node> type : types) {
+                if (type.isInstance(node)) {
+                    return this != CONCAT || isStringConcatenation((BinaryExpr) node);
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 是否支持 name 属性
+         */
+        boolean hasName() {
+            return this == CALL || this == NEW || this == NAME || this == FIELD;
+        }
+
+        /**
+         * 节点的名称，用于 name 属性；没有名称时返回null
+         */
+        String nameOf(Node node) {
+            switch (this) {
+                case CALL:
+                    return ((MethodCallExpr) node).getNameAsString();
+                case NEW:
+                    return ((ObjectCreationExpr) node).getType().getNameAsString();
+                case NAME:
+                    return ((NameExpr) node).getNameAsString();
+                case FIELD:
+                    return ((FieldAccessExpr) node).getNameAsString();
+                default:
+                    return null;
+            }
+        }
+
+        // 最外层的 + 链且含字符串字面量，与审计上下文中的字符串拼接一致
+        private static boolean isStringConcatenation(BinaryExpr binary) {
+            if (binary.getOperator() != BinaryExpr.Operator.PLUS) {
+                return false;
+            }
+            Node parent = binary.getParentNode().orElse(null);
+            while (parent instanceof Expression && ((Expression) parent).isEnclosedExpr()) {
+                parent = parent.getParentNode().orElse(null);
+            }
+            if (parent instanceof BinaryExpr && ((BinaryExpr) parent).getOperator() == BinaryExpr.Operator.PLUS) {
+                return false;
+            }
+            for (Expression operand : BinaryChain.concatenation(binary)) {
+                if (operand.isStringLiteralExpr() || operand.isTextBlockLiteralExpr()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 带类型的查询元素：类型、名称条件与其余条件
+     * 名称条件单独保存，供索引按方法名查找
+     */
+    static final class Element implements Predicate<Node> {
+
+        private final Kind kind;
+
+        // 精确名称，没有名称条件或为通配符时为null
+        private final String exactName;
+
+        // 形如 abc* 的通配符的前缀，其他通配符为null
+        private final String namePrefix;
+
+        private final Pattern nameGlob;
+
+        private final Predicate<Node> constraint;
+
+        Element(Kind kind, String exactName, String nameGlob, Predicate<Node> constraint) {
+            this.kind = kind;
+            this.exactName = exactName;
+            this.namePrefix = nameGlob != null && isPrefixGlob(nameGlob) ? nameGlob.substring(0, nameGlob.length() - 1) : null;
+            this.nameGlob = nameGlob != null ? glob(nameGlob) : null;
+            this.constraint = constraint;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        String getExactName() {
+            return exactName;
+        }
+
+        String getNamePrefix() {
+            return namePrefix;
+        }
+
+        @Override
+        public boolean test(Node node) {
+            if (!kind.accepts(node)) {
+                return false;
+            }
+            if (exactName != null || nameGlob != null) {
+                String name = kind.nameOf(node);
+                if (exactName != null ? !exactName.equals(name) : !nameGlob.matcher(name).matches()) {
+                    return false;
+                }
+            }
+            return constraint.test(node);
+        }
+
+        private static boolean isPrefixGlob(String glob) {
+            int star = glob.indexOf('*');
+            return star == glob.length() - 1 && glob.indexOf('?') < 0;
+        }
+    }
+
+    /**
+     * 把通配符转换为正则表达式：* 匹配任意个字符，? 匹配单个字符
+     */
+    static Pattern glob(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int literalStart = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > literalStart) {
+                    regex.append(Pattern.quote(glob.substring(literalStart, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                literalStart = i + 1;
+            }
+        }
+        if (literalStart < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(literalStart)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
@@ -0,0 +1,152 @@
+package com.autojav.core.audit.query;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * 多个查询规则合并后的匹配索引
+ * <p>
+ * 所有规则最外层的元素按节点类型归类，方法调用再按方法名归类：精确名称查哈希表，
+ * 形如 {@code execute*} 的前缀按调用名的各个前缀长度查哈希表，其他通配符才逐个匹配。
+ * 每个节点只需检查名称与类型都可能匹配的元素，规则再多单个节点的开销也基本不变。
+ * 索引不可变，按规则组合缓存，可在多个线程中同时使用。
+ */
+final class QueryIndex {
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    // 按预筛选得到的规则组合缓存，组合过多时清空
+    private static final int MAX_CACHED = 256;
+
+    private static final Map<List<QueryRule>, QueryIndex> CACHE = new ConcurrentHashMap<>();
+
+    private final Map<String, Entry[]> callsByName;
+
+    private final Map<String, Entry[]> callsByPrefix;
+
+    // 出现过的前缀长度，从小到大
+    private final int[] prefixLengths;
+
+    private final Entry[] otherCalls;
+
+    private final Map<Class<?>, Entry[]> byType;
+
+    // 按节点实际类型缓存合并后的非方法调用元素
+    private final Map<Class<?>, Entry[]> resolved = new ConcurrentHashMap<>();
+
+    private QueryIndex(List<QueryRule> rules) {
+        Map<String, List<Entry>> names = new HashMap<>();
+        Map<String, List<Entry>> prefixes = new HashMap<>();
+        List<Entry> others = new ArrayList<>();
+        Map<Class<?>, List<Entry>> types = new HashMap<>();
+        for (int i = 0; i < rules.size(); i++) {
+            for (Query.Element root : rules.get(i).getQuery().getRoots()) {
+                Entry entry = new Entry(i, root);
+                if (root.getKind() != Query.Kind.CALL) {
+                    for (Class<?> type : root.getKind().getTypes()) {
+                        types.computeIfAbsent(type, key -> new ArrayList<>()).add(entry);
+                    }
+                } else if (root.getExactName() != null) {
+                    names.computeIfAbsent(root.getExactName(), key -> new ArrayList<>()).add(entry);
+                } else if (root.getNamePrefix() != null) {
+                    prefixes.computeIfAbsent(root.getNamePrefix(), key -> new ArrayList<>()).add(entry);
+                } else {
+                    others.add(entry);
+                }
+            }
+        }
+        this.callsByName = toArrays(names);
+        this.callsByPrefix = toArrays(prefixes);
+        this.prefixLengths = prefixes.keySet().stream().mapToInt(String::length).distinct().sorted().toArray();
+        this.otherCalls = others.toArray(NO_ENTRIES);
+        this.byType = toArrays(types);
+    }
+
+    /**
+     * 获取规则组合的索引，同一组合只建立一次
+     * @param rules 查询规则列表
+     * @return 匹配索引
+     */
+    static QueryIndex of(List<QueryRule> rules) {
+        List<QueryRule> key = List.copyOf(rules);
+        QueryIndex index = CACHE.get(key);
+        if (index == null) {
+            if (CACHE.size() >= MAX_CACHED) {
+                CACHE.clear();
+            }
+            index = CACHE.computeIfAbsent(key, QueryIndex::new);
+        }
+        return index;
+    }
+
+    /**
+     * 匹配节点，对每个匹配的元素调用一次 sink
+     * @param node 节点
+     * @param sink 接收匹配的规则下标（同一规则的多个元素都匹配时会收到多次）
+     */
+    void match(Node node, IntConsumer sink) {
+        if (node instanceof MethodCallExpr) {
+            String name = ((MethodCallExpr) node).getNameAsString();
+            test(callsByName.get(name), node, sink);
+            for (int length : prefixLengths) {
+                if (length > name.length()) {
+                    break;
+                }
+                test(callsByPrefix.get(name.substring(0, length)), node, sink);
+            }
+            test(otherCalls, node, sink);
+        }
+        test(resolve(node.getClass()), node, sink);
+    }
+
+    private Entry[] resolve(Class<?> nodeClass) {
+        Entry[] result = resolved.get(nodeClass);
+        if (result == null) {
+            List<Entry> matched = new ArrayList<>();
+            for (Map.Entry<Class<?>, Entry[]> entry : byType.entrySet()) {
+                if (entry.getKey().isAssignableFrom(nodeClass)) {
+                    matched.addAll(List.of(entry.getValue()));
+                }
+            }
+            result = matched.isEmpty() ? NO_ENTRIES : matched.toArray(NO_ENTRIES);
+            resolved.put(nodeClass, result);
+        }
+        return result;
+    }
+
+    private static void test(Entry[] entries, Node node, IntConsumer sink) {
+        if (entries == null) {
+            return;
+        }
+        for (Entry entry : entries) {
+            if (entry.element.test(node)) {
+                sink.accept(entry.ruleIndex);
+            }
+        }
+    }
+
+    private static <K> Map<K, Entry[]> toArrays(Map<K, List<Entry>> lists) {
+        Map<K, Entry[]> arrays = new HashMap<>();
+        lists.forEach((key, entries) -> arrays.put(key, entries.toArray(NO_ENTRIES)));
+        return arrays;
+    }
+
+    private static final class Entry {
+
+        private final int ruleIndex;
+
+        private final Query.Element element;
+
+        private Entry(int ruleIndex, Query.Element element) {
+            this.ruleIndex = ruleIndex;
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.autojav.core.audit.query;
+
+import com.autojav.core.audit.BinaryChain;
+import com.autojav.core.audit.taint.SqlPatterns;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.github.javaparser.ast.expr.TextBlockLiteralExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithArguments;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * 查询的递归下降解析器，语法见 {@link Query}
+ * 解析时即完成编译：每个元素、特征和角色都转换为节点谓词
+ */
+final class QueryParser {
+
+    private final String text;
+
+    private int pos;
+
+    QueryParser(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            throw new IllegalArgumentException("查询不能为空");
+        }
+        this.text = text;
+    }
+
+    Query parse() {
+        List<Query.Element> roots = new ArrayList<>();
+        do {
+            int start = skipSpaces();
+            String keyword = identifier();
+            Query.Kind kind = Query.Kind.of(keyword);
+            if (kind == null) {
+                pos = start;
+                throw error("查询必须以节点类型开头（" + keywords() + "），不能是 " + keyword);
+            }
+            roots.add(element(kind));
+        } while (accept('|'));
+        skipSpaces();
+        if (pos < text.length()) {
+            throw error("多余的内容");
+        }
+        return new Query(text, roots);
+    }
+
+    // 模式 := 项 ('|' 项)*
+    private Predicate<Node> pattern() {
+        Predicate<Node> result = term();
+        while (accept('|')) {
+            result = result.or(term());
+        }
+        return result;
+    }
+
+    // 项 := '!' 项 | '(' 模式 ')' | 元素 | 特征
+    private Predicate<Node> term() {
+        if (accept('!')) {
+            return term().negate();
+        }
+        if (accept('(')) {
+            Predicate<Node> inner = pattern();
+            expect(')');
+            return inner;
+        }
+        int start = skipSpaces();
+        String name = identifier();
+        Query.Kind kind = Query.Kind.of(name);
+        if (kind != null) {
+            return element(kind);
+        }
+        Predicate<Node> feature = feature(name);
+        if (feature == null) {
+            pos = start;
+            throw error("未知的节点类型或特征: " + name);
+        }
+        return feature;
+    }
+
+    // 元素 := 类型 ('[' 属性 (',' 属性)* ']')? ('(' 条件 (',' 条件)* ')')?
+    private Query.Element element(Query.Kind kind) {
+        String exactName = null;
+        String nameGlob = null;
+        List<Predicate<Node>> constraints = new ArrayList<>();
+        if (accept('[')) {
+            do {
+                int start = skipSpaces();
+                String attribute = identifier();
+                boolean glob = accept('~');
+                if (!glob) {
+                    expect('=');
+                }
+                String value = value();
+                if (attribute.equals("name") && kind.hasName()) {
+                    if (glob && (value.indexOf('*') >= 0 || value.indexOf('?') >= 0)) {
+                        nameGlob = value;
+                    } else {
+                        exactName = value;
+                    }
+                } else if (attribute.equals("value") && kind == Query.Kind.STRING) {
+                    constraints.add(stringValue(value, glob));
+                } else if (attribute.equals("args") && (kind == Query.Kind.CALL || kind == Query.Kind.NEW)) {
+                    constraints.add(argumentCount(start, value));
+                } else {
+                    pos = start;
+                    throw error(kind.getKeyword() + " 不支持属性 " + attribute);
+                }
+            } while (accept(','));
+            expect(']');
+        }
+        if (accept('(')) {
+            do {
+                constraints.add(condition(kind));
+            } while (accept(','));
+            expect(')');
+        }
+        Predicate<Node> constraint = node -> true;
+        for (Predicate<Node> each : constraints) {
+            constraint = constraint.and(each);
+        }
+        return new Query.Element(kind, exactName, nameGlob, constraint);
+    }
+
+    // 条件 := 角色 ':' 模式 | 模式
+    private Predicate<Node> condition(Query.Kind kind) {
+        int start = skipSpaces();
+        if (pos < text.length() && isIdentifierStart(text.charAt(pos))) {
+            String role = identifier();
+            if (accept(':')) {
+                Function<Node, List<Expression>> children = children(kind, role);
+                if (children == null) {
+                    pos = start;
+                    throw error(kind.getKeyword() + " 没有子节点角色 " + role);
+                }
+                Predicate<Node> child = pattern();
+                return node -> {
+                    for (Expression expression : children.apply(node)) {
+                        if (child.test(unwrap(expression))) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+            }
+        }
+        pos = start;
+        return pattern();
+    }
+
+    private static Predicate<Node> feature(String name) {
+        switch (name) {
+            case "contains-sql":
+                return node -> node instanceof Expression && SqlPatterns.containsSqlKeywords((Expression) node);
+            case "has-var":
+                return node -> node instanceof Expression && SqlPatterns.containsVariableReference((Expression) node);
+            case "dynamic-sql":
+                return node -> node instanceof Expression && SqlPatterns.isDynamicSql((Expression) node);
+            case "literal":
+                return node -> node instanceof Expression && ((Expression) node).isLiteralExpr();
+            default:
+                return null;
+        }
+    }
+
+    private static Function<Node, List<Expression>> children(Query.Kind kind, String role) {
+        if (role.equals("scope") && kind == Query.Kind.CALL) {
+            return node -> optional(((MethodCallExpr) node).getScope());
+        }
+        if (role.equals("scope") && kind == Query.Kind.FIELD) {
+            return node -> List.of(((FieldAccessExpr) node).getScope());
+        }
+        if (role.equals("operand") && kind == Query.Kind.CONCAT) {
+            return node -> BinaryChain.concatenation((Expression) node);
+        }
+        if (kind != Query.Kind.CALL && kind != Query.Kind.NEW) {
+            return null;
+        }
+        if (role.equals("arg")) {
+            return node -> arguments(node);
+        }
+        if (role.startsWith("arg") && role.length() > 3 && role.substring(3).chars().allMatch(Character::isDigit)) {
+            int index = Integer.parseInt(role.substring(3));
+            return node -> {
+                List<Expression> args = arguments(node);
+                return index < args.size() ? List.of(args.get(index)) : List.of();
+            };
+        }
+        return null;
+    }
+
+    private static List<Expression> arguments(Node node) {
+        return node instanceof MethodCallExpr ? ((MethodCallExpr) node).getArguments()
+                : ((ObjectCreationExpr) node).getArguments();
+    }
+
+    private static List<Expression> optional(Optional<Expression> expression) {
+        return expression.map(List::of).orElse(List.of());
+    }
+
+    private static Predicate<Node> stringValue(String value, boolean glob) {
+        Pattern pattern = glob ? Query.glob(value) : null;
+        return node -> {
+            String literal = node instanceof StringLiteralExpr ? ((StringLiteralExpr) node).getValue()
+                    : ((TextBlockLiteralExpr) node).getValue();
+            return pattern != null ? pattern.matcher(literal).matches() : literal.equals(value);
+        };
+    }
+
+    private Predicate<Node> argumentCount(int start, String value) {
+        int count;
+        try {
+            count = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw error("args 必须是整数: " + value);
+        }
+        return node -> ((NodeWithArguments<?>) node).getArguments().size() == count;
+    }
+
+    private static Expression unwrap(Expression expression) {
+        Expression current = expression;
+        while (current.isEnclosedExpr()) {
+            current = current.asEnclosedExpr().getInner();
+        }
+        return current;
+    }
+
+    private String identifier() {
+        skipSpaces();
+        int start = pos;
+        if (pos < text.length() && isIdentifierStart(text.charAt(pos))) {
+            pos++;
+            while (pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos))
+                    || text.charAt(pos) == '_' || text.charAt(pos) == '-')) {
+                pos++;
+            }
+        }
+        if (start == pos) {
+            throw error("期望名称");
+        }
+        return text.substring(start, pos);
+    }
+
+    // 属性值：到 , 或 ] 为止，去掉首尾空白
+    private String value() {
+        int start = skipSpaces();
+        while (pos < text.length() && text.charAt(pos) != ',' && text.charAt(pos) != ']') {
+            pos++;
+        }
+        String value = text.substring(start, pos).trim();
+        if (value.isEmpty()) {
+            pos = start;
+            throw error("期望属性值");
+        }
+        return value;
+    }
+
+    private boolean accept(char c) {
+        skipSpaces();
+        if (pos < text.length() && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!accept(c)) {
+            throw error("期望 " + c);
+        }
+    }
+
+    private int skipSpaces() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static String keywords() {
+        List<String> keywords = new ArrayList<>();
+        for (Query.Kind kind : Query.Kind.values()) {
+            keywords.add(kind.getKeyword());
+        }
+        return String.join("、", keywords);
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("查询语法错误（第 " + (pos + 1) + " 个字符）: " + message + ": " + text);
+    }
+}
@@ -0,0 +1,121 @@
+package com.autojav.core.audit.query;
+
+import com.autojav.core.audit.AuditContext;
+import com.autojav.core.audit.DispatchingAuditRule;
+import com.autojav.core.audit.AuditResult;
+import com.autojav.core.audit.NodeDispatcher;
+import com.autojav.core.cache.AuditCache;
+import com.github.javaparser.ast.Node;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 由查询定义的审计规则
+ * <p>
+ * 规则不编写访问器，只给出查询（语法见 {@link Query}）和命中时的提示，每个匹配的节点生成一条审计结果。
+ * 同一次遍历中的所有查询规则合并为一个索引（见 {@link QueryIndex}），只注册一个处理函数，
+ * 因此启用大量查询规则时每个节点的开销基本不变。合并匹配的耗时不计入单个规则的时间预算。
+ */
+public class QueryRule implements DispatchingAuditRule {
+
+    private final String name;
+
+    private final String description;
+
+    private final Severity severity;
+
+    private final Query query;
+
+    private final String message;
+
+    private final String fixSuggestion;
+
+    /**
+     * @param name 规则名称
+     * @param description 规则描述
+     * @param severity 严重程度
+     * @param query 查询
+     * @param message 命中时的提示
+     * @param fixSuggestion 修复建议，可以为null
+     */
+    public QueryRule(String name, String description, Severity severity, Query query, String message, String fixSuggestion) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.description = description;
+        this.severity = Objects.requireNonNull(severity, "severity");
+        this.query = Objects.requireNonNull(query, "query");
+        this.message = Objects.requireNonNull(message, "message");
+        this.fixSuggestion = fixSuggestion;
+    }
+
+    @Override
+    public AuditSession begin(AuditContext context, NodeDispatcher dispatcher) {
+        QuerySession session = QuerySession.on(context, dispatcher);
+        session.add(this);
+        return () -> session.resultsFor(this);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDescription() {
+        return description != null ? description : query.getText();
+    }
+
+    /**
+     * 版本由查询、提示和级别计算，修改规则定义后已缓存的结果随之失效；
+     * 使用内容摘要而非 hashCode，不同进程中计算结果一致
+     */
+    @Override
+    public String getVersion() {
+        String definition = String.join("\u0000", query.getText(), message,
+                String.valueOf(fixSuggestion), severity.name());
+        return AuditCache.hash(definition).substring(0, 16);
+    }
+
+    /**
+     * 每个最外层元素都是带精确名称或前缀的方法调用时，以这些名称为触发词；否则总是执行
+     */
+    @Override
+    public Set<String> getTriggerTokens() {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (Query.Element root : query.getRoots()) {
+            String token = root.getKind() != Query.Kind.CALL ? null
+                    : root.getExactName() != null ? root.getExactName() : root.getNamePrefix();
+            if (token == null || token.isEmpty() || !isAscii(token)) {
+                return Collections.emptySet();
+            }
+            tokens.add(token);
+        }
+        return Collections.unmodifiableSet(tokens);
+    }
+
+    @Override
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    AuditResult toResult(Node node, String filePath) {
+        int line = node.getBegin().map(b -> b.line).orElse(0);
+        int column = node.getBegin().map(b -> b.column).orElse(0);
+        return new AuditResult(name, severity, message, filePath, line, column, fixSuggestion);
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
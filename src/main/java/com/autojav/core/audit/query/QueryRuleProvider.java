@@ -0,0 +1,138 @@
+package com.autojav.core.audit.query;
+
+import com.autojav.core.audit.AuditRule;
+import com.autojav.core.audit.RuleProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 查询规则的提供者
+ * <p>
+ * 查询规则不通过 {@link java.util.ServiceLoader} 发现，而是从规则文件加载（见 {@link #load(File)}），
+ * 再经 {@link com.autojav.core.audit.RuleRegistry#with(List)} 加入注册表，和内置规则一样可用 --rules / --skip-rules 选择。
+ */
+public class QueryRuleProvider implements RuleProvider {
+
+    private static final String DEFAULT_TAG = "query";
+
+    private final String id;
+
+    private final Set<String> tags;
+
+    private final QueryRule rule;
+
+    public QueryRuleProvider(String id, Set<String> tags, QueryRule rule) {
+        this.id = id;
+        this.tags = Collections.unmodifiableSet(new LinkedHashSet<>(tags));
+        this.rule = rule;
+    }
+
+    /**
+     * 从规则文件加载查询规则
+     * <p>
+     * 文件为UTF-8编码的properties格式，每个规则以规则ID为前缀：
+     * <pre>
+     * print-stack-trace.query=call[name=printStackTrace, args=0]
+     * print-stack-trace.message=不要直接打印异常堆栈
+     * print-stack-trace.name=异常堆栈打印检查
+     * print-stack-trace.severity=INFO
+     * print-stack-trace.suggestion=使用日志框架记录异常
+     * print-stack-trace.tags=logging
+     * </pre>
+     * query 和 message 必填；name 默认为规则ID，severity 默认为 WARNING，tags 默认为 query。
+     * @param file 规则文件
+     * @return 规则提供者列表，按规则ID排序
+     * @throws IOException 读取文件失败
+     * @throws IllegalArgumentException 规则定义有误
+     */
+    public static List<RuleProvider> load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Set<String> ids = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            int dot = key.lastIndexOf('.');
+            if (dot <= 0) {
+                throw new IllegalArgumentException("查询规则文件 " + file + " 中的键格式应为 <规则ID>.<属性>: " + key);
+            }
+            ids.add(key.substring(0, dot));
+        }
+        List<RuleProvider> providers = new ArrayList<>();
+        for (String id : ids) {
+            providers.add(create(file, id, properties));
+        }
+        return providers;
+    }
+
+    private static QueryRuleProvider create(File file, String id, Properties properties) {
+        String text = required(file, id, properties, "query");
+        String message = required(file, id, properties, "message");
+        Query query;
+        try {
+            query = Query.compile(text);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("查询规则文件 " + file + " 中规则 " + id + " 的" + e.getMessage(), e);
+        }
+        AuditRule.Severity severity;
+        String severityName = properties.getProperty(id + ".severity", AuditRule.Severity.WARNING.name()).trim();
+        try {
+            severity = AuditRule.Severity.valueOf(severityName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("查询规则文件 " + file + " 中规则 " + id + " 的严重程度无效: " + severityName, e);
+        }
+        Set<String> tags = new LinkedHashSet<>();
+        for (String tag : properties.getProperty(id + ".tags", DEFAULT_TAG).split(",")) {
+            if (!tag.trim().isEmpty()) {
+                tags.add(tag.trim());
+            }
+        }
+        QueryRule rule = new QueryRule(properties.getProperty(id + ".name", id).trim(),
+                properties.getProperty(id + ".description"), severity, query, message,
+                properties.getProperty(id + ".suggestion"));
+        return new QueryRuleProvider(id, tags, rule);
+    }
+
+    private static String required(File file, String id, Properties properties, String attribute) {
+        String value = properties.getProperty(id + "." + attribute);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("查询规则文件 " + file + " 中规则 " + id + " 缺少 " + attribute);
+        }
+        return value.trim();
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    @Override
+    public Cost getCost() {
+        // 所有查询规则合并为一个索引，逐节点查表
+        return Cost.CHEAP;
+    }
+
+    @Override
+    public AuditRule create() {
+        // 规则无状态，中间状态保存在每次遍历的匹配会话中
+        return rule;
+    }
+}
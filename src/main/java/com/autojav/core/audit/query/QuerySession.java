@@ -0,0 +1,87 @@
+package com.autojav.core.audit.query;
+
+import com.autojav.core.audit.AuditContext;
+import com.autojav.core.audit.AuditResult;
+import com.autojav.core.audit.NodeDispatcher;
+import com.github.javaparser.ast.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次遍历中所有查询规则共用的匹配会话
+ * <p>
+ * 第一个查询规则开始审计时创建并向分发器注册唯一的处理函数，之后的查询规则只加入会话。
+ * 遍历到第一个节点时所有规则都已加入，此时取得合并索引，每个节点只查一次索引。
+ */
+final class QuerySession {
+
+    private final AuditContext context;
+
+    private final List<QueryRule> rules = new ArrayList<>();
+
+    private QueryIndex index;
+
+    private List<List<AuditResult>> results;
+
+    // 各规则最近一次匹配的节点，同一节点被同一规则的多个元素匹配时只报告一次
+    private Node[] lastMatched;
+
+    private QuerySession(AuditContext context) {
+        this.context = context;
+    }
+
+    /**
+     * 获取分发器上的匹配会话，不存在时创建
+     * @param context 审计上下文
+     * @param dispatcher 节点分发器
+     * @return 匹配会话
+     */
+    static QuerySession on(AuditContext context, NodeDispatcher dispatcher) {
+        return dispatcher.shared(QuerySession.class, () -> {
+            QuerySession session = new QuerySession(context);
+            dispatcher.on(Node.class, session::visit);
+            return session;
+        });
+    }
+
+    void add(QueryRule rule) {
+        if (index != null) {
+            throw new IllegalStateException("遍历开始后不能再加入查询规则: " + rule.getName());
+        }
+        rules.add(rule);
+    }
+
+    /**
+     * 规则在本次遍历中的审计结果
+     */
+    List<AuditResult> resultsFor(QueryRule rule) {
+        if (results == null) {
+            return Collections.emptyList();
+        }
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i) == rule) {
+                return results.get(i);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private void visit(Node node) {
+        if (index == null) {
+            index = QueryIndex.of(rules);
+            results = new ArrayList<>(rules.size());
+            for (int i = 0; i < rules.size(); i++) {
+                results.add(new ArrayList<>());
+            }
+            lastMatched = new Node[rules.size()];
+        }
+        index.match(node, ruleIndex -> {
+            if (lastMatched[ruleIndex] != node) {
+                lastMatched[ruleIndex] = node;
+                results.get(ruleIndex).add(rules.get(ruleIndex).toResult(node, context.getFilePath()));
+            }
+        });
+    }
+}
@@ -1,23 +1,24 @@
 package com.autojav.core.audit.rules;
 
+import com.autojav.core.audit.AuditContext;
 import com.autojav.core.audit.AuditResult;
-import com.autojav.core.audit.AuditRule;
-import com.github.javaparser.ast.CompilationUnit;
+import com.autojav.core.audit.DispatchingAuditRule;
+import com.autojav.core.audit.ExpressionKeys;
+import com.autojav.core.audit.MethodLocalAuditRule;
+import com.autojav.core.audit.NodeDispatcher;
+import com.autojav.core.audit.flow.NullnessAnalysis;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
-import com.github.javaparser.ast.expr.FieldAccessExpr;
-import com.github.javaparser.ast.expr.AssignExpr;
-import com.github.javaparser.ast.stmt.IfStmt;
-import com.github.javaparser.ast.body.Parameter;
-import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
-public class NullPointerExceptionRule implements AuditRule {
+public class NullPointerExceptionRule implements DispatchingAuditRule, MethodLocalAuditRule {
 
     @Override
     public String getName() {
@@ -30,112 +31,136 @@ public class NullPointerExceptionRule implements AuditRule {
     }
 
     @Override
-    public List<AuditResult> audit(CompilationUnit compilationUnit) {
-        List<AuditResult> results = new ArrayList<>();
-        String filePath = compilationUnit.getStorage().map(s -> s.getPath().toString()).orElse("unknown");
+    public String getVersion() {
+        return "4";
+    }
 
-        // 收集方法参数（这些是高风险变量）
-        Set<String> methodParams = new HashSet<>();
-        compilationUnit.accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(MethodDeclaration method, Void arg) {
-                super.visit(method, arg);
-                for (Parameter param : method.getParameters()) {
-                    // 只关注对象类型参数（非基本类型）
-                    String type = param.getType().asString();
-                    if (!isPrimitiveType(type)) {
-                        methodParams.add(param.getNameAsString());
-                    }
-                }
-            }
-        }, null);
+    @Override
+    public AuditSession begin(AuditContext context, NodeDispatcher dispatcher) {
+        // 成员变量、方法参数和方法调用都取自审计上下文，不需要注册处理函数
+        return new Session(context);
+    }
 
-        // 检查方法调用中的NPE风险
-        compilationUnit.accept(new VoidVisitorAdapter<Set<String>>() {
-            @Override
-            public void visit(MethodCallExpr methodCallExpr, Set<String> checkedVars) {
-                super.visit(methodCallExpr, checkedVars);
+    @Override
+    public List<AuditResult> audit(AuditContext context, BodyDeclaration<?> member) {
+        return new Session(context).check(context.callSitesIn(member));
+    }
 
-                if (methodCallExpr.getScope().isPresent()) {
-                    String scopeStr = methodCallExpr.getScope().get().toString();
-                    
-                    // 跳过常见的安全调用（如静态方法、this、super等）
-                    if (isSafeScope(scopeStr)) {
-                        return;
-                    }
+    /**
+     * 单个编译单元的审计状态
+     * 逐个检查带作用域的方法调用：作用域是所在方法的对象类型参数或成员变量时为高风险。
+     * 调用处的变量是否已判空由所在方法的非空数据流分析给出，每个方法只分析一次。
+     * 逐个成员检查，与按成员并行审计的结果一致
+     */
+    private class Session implements AuditSession {
 
-                    // 检查是否已经对该变量进行了空检查
-                    if (checkedVars != null && checkedVars.contains(scopeStr)) {
-                        return;
-                    }
+        private final AuditContext context;
 
-                    // 检查作用域是否为变量（NameExpr）或字段访问（FieldAccessExpr）
-                    boolean isRisky = false;
-                    String variableName = scopeStr;
+        private final String filePath;
 
-                    if (methodCallExpr.getScope().get() instanceof NameExpr) {
-                        // 如：obj.method()
-                        NameExpr nameExpr = (NameExpr) methodCallExpr.getScope().get();
-                        String varName = nameExpr.getNameAsString();
-                        
-                        // 如果是方法参数，标记为高风险
-                        if (methodParams.contains(varName)) {
-                            isRisky = true;
-                        }
-                        // 如果是方法参数且是成员变量调用，需要检查
-                        // 但跳过常见的已初始化成员变量（如数据库连接）
-                        if (isMemberVariable(compilationUnit, varName) && methodParams.contains(varName)) {
-                            isRisky = true;
-                        }
-                    } else if (methodCallExpr.getScope().get() instanceof FieldAccessExpr) {
-                        // 如：obj.field.method()
-                        FieldAccessExpr fieldAccess = (FieldAccessExpr) methodCallExpr.getScope().get();
-                        String fieldOwner = fieldAccess.getScope().toString();
-                        
-                        // 如果字段的所有者是方法参数，标记为高风险
-                        if (methodParams.contains(fieldOwner) || isMemberVariable(compilationUnit, fieldOwner)) {
-                            isRisky = true;
-                            variableName = fieldOwner + "." + fieldAccess.getNameAsString();
-                        }
-                    } else if (methodCallExpr.getScope().get() instanceof MethodCallExpr) {
-                        // 链式调用：method1().method2()
-                        // 这种通常有风险，因为method1可能返回null
-                        MethodCallExpr chainCall = (MethodCallExpr) methodCallExpr.getScope().get();
-                        if (chainCall.getScope().isPresent()) {
-                            String chainScope = chainCall.getScope().get().toString();
-                            if (methodParams.contains(chainScope) || isMemberVariable(compilationUnit, chainScope)) {
-                                isRisky = true;
-                                variableName = chainScope;
-                            }
-                        }
-                    }
+        private Session(AuditContext context) {
+            this.context = context;
+            this.filePath = context.getFilePath();
+        }
+
+        @Override
+        public List<AuditResult> finish() {
+            List<AuditResult> results = new ArrayList<>();
+            for (BodyDeclaration<?> member : context.getMembers()) {
+                results.addAll(check(context.callSitesIn(member)));
+            }
+            return results;
+        }
 
-                    if (isRisky) {
-                        int line = methodCallExpr.getBegin().map(b -> b.line).orElse(0);
-                        int column = methodCallExpr.getBegin().map(b -> b.column).orElse(0);
-                        
-                        // 检查是否有对该变量的null检查
-                        boolean hasNullCheck = hasNullCheck(variableName, scopeStr, compilationUnit, methodCallExpr);
-                        // 检查是否有Objects.requireNonNull校验
-                        boolean hasRequireNonNull = hasRequireNonNullCheck(variableName, compilationUnit, methodCallExpr);
-                        
-                        if (!hasNullCheck && !hasRequireNonNull) {
-                            results.add(new AuditResult(
-                                    getName(),
-                                    Severity.WARNING,
-                                    "可能存在空指针异常风险：直接调用" + scopeStr + "的方法",
-                                    filePath,
-                                    line,
-                                    column,
-                                    "建议在调用方法前添加空指针检查：if (" + variableName + " != null)"
-                            ));
-                        }
-                    }
+        private List<AuditResult> check(List<MethodCallExpr> callSites) {
+            List<AuditResult> results = new ArrayList<>();
+            for (MethodCallExpr methodCallExpr : callSites) {
+                if (methodCallExpr.getScope().isPresent()) {
+                    checkMethodCall(methodCallExpr, results);
+                }
+            }
+            return results;
+        }
+
+        /**
+         * 变量是否为调用所在方法的参数（方法参数是高风险变量）
+         * 匿名类、局部类中的方法还能访问外层方法的参数，逐层向外查找
+         */
+        private boolean isParameter(Node node, String name) {
+            for (Node current = node.getParentNode().orElse(null); current != null; current = current.getParentNode().orElse(null)) {
+                if (current instanceof MethodDeclaration && context.parametersOf((MethodDeclaration) current).contains(name)) {
+                    return true;
                 }
             }
-        }, new HashSet<>());
+            return false;
+        }
+
+        private boolean isParameterOrField(Node node, String name) {
+            return isParameter(node, name) || context.getFieldNames().contains(name);
+        }
+
+        /**
+         * 检查方法调用中的NPE风险
+         * 先按结构判断作用域是否涉及方法参数或成员变量，只有高风险的调用才取作用域的键
+         */
+        private void checkMethodCall(MethodCallExpr methodCallExpr, List<AuditResult> results) {
+            Expression scope = methodCallExpr.getScope().get();
+
+            // 检查作用域是否为变量（NameExpr）或字段访问（FieldAccessExpr）
+            boolean isRisky = false;
+            String variableName = null;
+
+            if (scope instanceof NameExpr) {
+                // 如：obj.method()，方法参数为高风险
+                isRisky = isParameter(methodCallExpr, ((NameExpr) scope).getNameAsString());
+            } else if (scope instanceof FieldAccessExpr) {
+                // 如：obj.field.method()
+                // 如果字段的所有者是方法参数或成员变量，标记为高风险
+                String fieldOwner = nameOf(((FieldAccessExpr) scope).getScope());
+                if (fieldOwner != null && isParameterOrField(methodCallExpr, fieldOwner)) {
+                    isRisky = true;
+                    variableName = ExpressionKeys.of(scope);
+                }
+            } else if (scope instanceof MethodCallExpr) {
+                // 链式调用：method1().method2()
+                // 这种通常有风险，因为method1可能返回null
+                MethodCallExpr chainCall = (MethodCallExpr) scope;
+                String chainScope = chainCall.getScope().map(NullPointerExceptionRule::nameOf).orElse(null);
+                if (chainScope != null && isParameterOrField(methodCallExpr, chainScope)) {
+                    isRisky = true;
+                    variableName = chainScope;
+                }
+            }
+
+            if (!isRisky) {
+                return;
+            }
+            String scopeStr = ExpressionKeys.of(scope);
+            // 跳过常见的安全调用（如静态方法、this、super等）
+            if (isSafeScope(scopeStr)) {
+                return;
+            }
+            if (variableName == null) {
+                variableName = scopeStr;
+            }
+            int line = methodCallExpr.getBegin().map(b -> b.line).orElse(0);
+            int column = methodCallExpr.getBegin().map(b -> b.column).orElse(0);
 
-        return results;
+            // 检查所有到达该调用的路径上是否都已判空（null检查或Objects.requireNonNull校验）
+            if (NullnessAnalysis.isNonNull(methodCallExpr, variableName)
+                    || NullnessAnalysis.isNonNull(methodCallExpr, scopeStr)) {
+                return;
+            }
+            results.add(new AuditResult(
+                    getName(),
+                    Severity.WARNING,
+                    "可能存在空指针异常风险：直接调用" + scopeStr + "的方法",
+                    filePath,
+                    line,
+                    column,
+                    "建议在调用方法前添加空指针检查：if (" + variableName + " != null)"
+            ));
+        }
     }
 
     @Override
@@ -144,12 +169,10 @@ public class NullPointerExceptionRule implements AuditRule {
     }
 
     /**
-     * 检查是否为基本类型
+     * 单个名称表达式的名称，其他表达式返回null（参数和成员变量都只可能以单个名称出现）
      */
-    private boolean isPrimitiveType(String type) {
-        return type.equals("int") || type.equals("long") || type.equals("short") || 
-               type.equals("byte") || type.equals("float") || type.equals("double") ||
-               type.equals("boolean") || type.equals("char");
+    private static String nameOf(Expression expression) {
+        return expression instanceof NameExpr ? ((NameExpr) expression).getNameAsString() : null;
     }
 
     /**
@@ -161,7 +184,7 @@ public class NullPointerExceptionRule implements AuditRule {
             return true;
         }
         // 跳过大写的静态常量
-        if (scope.toUpperCase().equals(scope) && scope.length() > 1) {
+        if (scope.length() > 1 && !hasLowerCase(scope)) {
             return true;
         }
         // 跳过已知的类名（大写开头）
@@ -171,152 +194,12 @@ public class NullPointerExceptionRule implements AuditRule {
         return false;
     }
 
-    /**
-     * 检查是否为成员变量
-     */
-    private boolean isMemberVariable(CompilationUnit cu, String varName) {
-        final boolean[] isMember = {false};
-        cu.accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(com.github.javaparser.ast.body.FieldDeclaration field, Void arg) {
-                super.visit(field, arg);
-                field.getVariables().forEach(v -> {
-                    if (v.getNameAsString().equals(varName)) {
-                        isMember[0] = true;
-                    }
-                });
-            }
-        }, null);
-        return isMember[0];
-    }
-
-    /**
-     * 检查是否有Objects.requireNonNull校验
-     */
-    private boolean hasRequireNonNullCheck(String varName, CompilationUnit compilationUnit, MethodCallExpr currentExpr) {
-        final boolean[] hasCheck = {false};
-        
-        // 获取当前方法
-        final com.github.javaparser.ast.body.MethodDeclaration[] currentMethod = {null};
-        compilationUnit.accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(MethodDeclaration method, Void arg) {
-                super.visit(method, arg);
-                if (method.getBegin().isPresent() && currentExpr.getBegin().isPresent()) {
-                    int methodStart = method.getBegin().get().line;
-                    int methodEnd = method.getEnd().get().line;
-                    int exprLine = currentExpr.getBegin().get().line;
-                    if (exprLine >= methodStart && exprLine <= methodEnd) {
-                        currentMethod[0] = method;
-                    }
-                }
-            }
-        }, null);
-
-        if (currentMethod[0] == null) {
-            return false;
-        }
-
-        // 检查是否有Objects.requireNonNull(var, ...)
-        currentMethod[0].accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(MethodCallExpr call, Void arg) {
-                super.visit(call, arg);
-                if (call.getNameAsString().equals("requireNonNull")) {
-                    call.getScope().ifPresent(scope -> {
-                        if (scope.toString().equals("Objects") || scope.toString().equals("java.util.Objects")) {
-                            // 检查参数是否包含目标变量
-                            if (!call.getArguments().isEmpty()) {
-                                String firstArg = call.getArguments().get(0).toString();
-                                if (firstArg.equals(varName)) {
-                                    hasCheck[0] = true;
-                                }
-                            }
-                        }
-                    });
-                }
-            }
-        }, null);
-
-        return hasCheck[0];
-    }
-
-    /**
-     * 检查是否存在空指针检查
-     * 现在同时检查变量名和完整作用域
-     */
-    private boolean hasNullCheck(String variableName, String fullScope, CompilationUnit compilationUnit, MethodCallExpr currentExpr) {
-        // 获取当前方法
-        final com.github.javaparser.ast.body.MethodDeclaration[] currentMethod = {null};
-        compilationUnit.accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(MethodDeclaration method, Void arg) {
-                super.visit(method, arg);
-                if (method.getBegin().isPresent() && currentExpr.getBegin().isPresent()) {
-                    int methodStart = method.getBegin().get().line;
-                    int methodEnd = method.getEnd().get().line;
-                    int exprLine = currentExpr.getBegin().get().line;
-                    if (exprLine >= methodStart && exprLine <= methodEnd) {
-                        currentMethod[0] = method;
-                    }
-                }
+    private static boolean hasLowerCase(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isLowerCase(text.charAt(i))) {
+                return true;
             }
-        }, null);
-
-        if (currentMethod[0] == null) {
-            return false;
         }
-
-        // 收集该方法中所有已检查非null的变量
-        Set<String> checkedVars = new HashSet<>();
-        
-        currentMethod[0].accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(IfStmt ifStmt, Void arg) {
-                super.visit(ifStmt, arg);
-                String condition = ifStmt.getCondition().toString();
-                
-                // 检查 if (var != null) 模式
-                if (condition.contains("!=") && condition.contains("null")) {
-                    // 提取变量名
-                    String checked = condition.replace(" ", "").replace("!=null", "").replace("!=null", "");
-                    if (checked.equals(variableName) || fullScope.contains(checked)) {
-                        checkedVars.add(checked);
-                    }
-                }
-                // 检查 if (var == null) return; 模式
-                if (condition.contains("==") && condition.contains("null")) {
-                    String checked = condition.replace(" ", "").replace("==null", "");
-                    if (checked.equals(variableName) || fullScope.contains(checked)) {
-                        // 检查是否紧跟return或抛出异常
-                        if (ifStmt.getThenStmt().toString().contains("return") ||
-                            ifStmt.getThenStmt().toString().contains("throw")) {
-                            checkedVars.add(checked);
-                        }
-                    }
-                }
-            }
-        }, null);
-
-        // 检查当前表达式之前是否有null检查
-        int currentLine = currentExpr.getBegin().map(b -> b.line).orElse(0);
-        final boolean[] hasPriorCheck = {false};
-        
-        currentMethod[0].accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(IfStmt ifStmt, Void arg) {
-                super.visit(ifStmt, arg);
-                int ifLine = ifStmt.getEnd().map(e -> e.line).orElse(0);
-                if (ifLine < currentLine) {
-                    String condition = ifStmt.getCondition().toString();
-                    if ((condition.contains(variableName) || condition.contains(fullScope)) &&
-                        condition.contains("null")) {
-                        hasPriorCheck[0] = true;
-                    }
-                }
-            }
-        }, null);
-
-        return hasPriorCheck[0] || checkedVars.contains(variableName);
+        return false;
     }
 }
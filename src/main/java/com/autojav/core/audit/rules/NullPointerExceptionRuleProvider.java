@@ -0,0 +1,38 @@
+package com.autojav.core.audit.rules;
+
+import com.autojav.core.audit.AuditRule;
+import com.autojav.core.audit.RuleProvider;
+
+import java.util.Set;
+
+/**
+ * 空指针检查规则的提供者
+ */
+public class NullPointerExceptionRuleProvider implements RuleProvider {
+
+    /**
+     * 规则ID
+     */
+    public static final String ID = "null-pointer";
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public Set<String> getTags() {
+        return Set.of("correctness");
+    }
+
+    @Override
+    public Cost getCost() {
+        // 基于控制流图的数据流分析
+        return Cost.EXPENSIVE;
+    }
+
+    @Override
+    public AuditRule create() {
+        return new NullPointerExceptionRule();
+    }
+}
@@ -1,24 +1,33 @@
 package com.autojav.core.audit.rules;
 
+import com.autojav.core.audit.AuditContext;
 import com.autojav.core.audit.AuditResult;
-import com.autojav.core.audit.AuditRule;
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.expr.BinaryExpr;
+import com.autojav.core.audit.DispatchingAuditRule;
+import com.autojav.core.audit.ExpressionKeys;
+import com.autojav.core.audit.NodeDispatcher;
+import com.autojav.core.audit.taint.MethodTaint;
+import com.autojav.core.audit.taint.SqlFragments;
+import com.autojav.core.audit.taint.SqlPatterns;
+import com.autojav.core.audit.taint.TaintSummaries;
+import com.autojav.core.audit.taint.TaintValue;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.expr.NameExpr;
-import com.github.javaparser.ast.expr.StringLiteralExpr;
 import com.github.javaparser.ast.expr.VariableDeclarationExpr;
-import com.github.javaparser.ast.stmt.ExpressionStmt;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
-public class SqlInjectionRule implements AuditRule {
+public class SqlInjectionRule implements DispatchingAuditRule {
 
     @Override
     public String getName() {
@@ -31,185 +40,288 @@ public class SqlInjectionRule implements AuditRule {
     }
 
     @Override
-    public List<AuditResult> audit(CompilationUnit compilationUnit) {
-        List<AuditResult> results = new ArrayList<>();
-        String filePath = compilationUnit.getStorage().map(s -> s.getPath().toString()).orElse("unknown");
-
-        // 第一轮：收集所有可疑的SQL变量（包含SQL关键字且有字符串拼接）
-        Map<String, Integer> suspiciousSqlVars = new HashMap<>();
-        Set<String> safeSqlVars = new HashSet<>();
-
-        compilationUnit.accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(VariableDeclarationExpr varDecl, Void arg) {
-                super.visit(varDecl, arg);
-                
-                varDecl.getVariables().forEach(var -> {
-                    if (var.getInitializer().isPresent()) {
-                        String varName = var.getNameAsString();
-                        var initializer = var.getInitializer().get();
-                        
-                        // 检查是否是字符串拼接
-                        if (isStringConcatenation(initializer)) {
-                            String initStr = initializer.toString();
-                            if (containsSqlKeywords(initStr)) {
-                                // 检查是否使用了变量（用户输入）
-                                if (containsVariableReference(initializer)) {
-                                    int line = varDecl.getBegin().map(b -> b.line).orElse(0);
-                                    suspiciousSqlVars.put(varName, line);
-                                }
+    public String getVersion() {
+        return "4";
+    }
+
+    @Override
+    public AuditSession begin(AuditContext context, NodeDispatcher dispatcher) {
+        Session session = new Session(context);
+        dispatcher.on(VariableDeclarationExpr.class, session::collectVariables);
+        return session;
+    }
+
+    /**
+     * 单个编译单元的审计状态
+     * 遍历时按所在方法收集SQL变量，遍历结束后再检查审计上下文中的方法调用，
+     * 使调用之后才声明的同名变量也参与判断
+     */
+    private class Session implements AuditSession {
+
+        private final AuditContext context;
+
+        private final String filePath;
+
+        // 方法（构造器、初始化块）-> 其中声明的SQL变量，不在任何方法中的变量归入null键
+        private final Map<Node, VariableFacts> variableFacts = new IdentityHashMap<>();
+
+        // 已报告的问题，同一位置只保留一条，错误优先于警告
+        private final Map<FindingKey, AuditResult> findings = new LinkedHashMap<>();
+
+        private Session(AuditContext context) {
+            this.context = context;
+            this.filePath = context.getFilePath();
+        }
+
+        private void collectVariables(VariableDeclarationExpr varDecl) {
+            VariableFacts facts = variableFacts.computeIfAbsent(enclosingCallable(varDecl), key -> new VariableFacts());
+            varDecl.getVariables().forEach(var -> {
+                String varName = var.getNameAsString();
+                facts.declared.add(varName);
+                if (var.getInitializer().isPresent()) {
+                    var initializer = var.getInitializer().get();
+
+                    // 检查是否是字符串拼接
+                    if (SqlPatterns.isStringConcatenation(initializer)) {
+                        if (SqlPatterns.containsSqlKeywords(initializer)) {
+                            // 检查是否使用了变量（用户输入）
+                            if (SqlPatterns.containsVariableReference(initializer)) {
+                                int line = varDecl.getBegin().map(b -> b.line).orElse(0);
+                                facts.suspicious.put(varName, line);
                             }
                         }
-                        
-                        // 检查是否是安全的预编译SQL（使用 ? 占位符）
-                        if (initializer.isStringLiteralExpr()) {
-                            String sql = initializer.asStringLiteralExpr().getValue();
-                            if (containsSqlKeywords(sql) && sql.contains("?")) {
-                                safeSqlVars.add(varName);
-                            }
+                    }
+
+                    // 检查是否是安全的预编译SQL（使用 ? 占位符）
+                    if (initializer.isStringLiteralExpr()) {
+                        String sql = initializer.asStringLiteralExpr().getValue();
+                        if (SqlPatterns.containsSqlKeywords(sql) && sql.contains("?")) {
+                            facts.safe.add(varName);
                         }
                     }
-                });
+                }
+            });
+        }
+
+        @Override
+        public List<AuditResult> finish() {
+            TaintSummaries summaries = TaintSummaries.of(context.getCompilationUnit());
+            List<MethodCallExpr> callSites = context.getCallSites();
+            for (MethodCallExpr methodCallExpr : callSites) {
+                if (SqlPatterns.isSqlExecutionMethod(methodCallExpr.getNameAsString())) {
+                    checkSqlCall(methodCallExpr, summaries);
+                }
             }
-        }, null);
-
-        // 第二轮：检查SQL执行方法调用
-        compilationUnit.accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(MethodCallExpr methodCallExpr, Void arg) {
-                super.visit(methodCallExpr, arg);
-
-                String methodName = methodCallExpr.getNameAsString();
-                if (isSqlExecutionMethod(methodName)) {
-                    int line = methodCallExpr.getBegin().map(b -> b.line).orElse(0);
-                    int column = methodCallExpr.getBegin().map(b -> b.column).orElse(0);
-
-                    // 检查每个参数
-                    methodCallExpr.getArguments().forEach(argExpr -> {
-                        // 情况1：直接使用字符串拼接
-                        if (isStringConcatenation(argExpr) && containsSqlKeywords(argExpr.toString())) {
-                            if (containsVariableReference(argExpr)) {
-                                results.add(new AuditResult(
-                                        getName(),
-                                        Severity.ERROR,
-                                        "SQL注入风险：直接拼接用户输入到SQL语句",
-                                        filePath,
-                                        line,
-                                        column,
-                                        "使用PreparedStatement参数化查询替代字符串拼接"
-                                ));
-                            }
-                        }
-                        
-                        // 情况2：使用变量传递SQL（可能是前面拼接好的）
-                        if (argExpr.isNameExpr()) {
-                            String varName = argExpr.asNameExpr().getNameAsString();
-                            if (suspiciousSqlVars.containsKey(varName) && !safeSqlVars.contains(varName)) {
-                                results.add(new AuditResult(
-                                        getName(),
-                                        Severity.ERROR,
-                                        "SQL注入风险：SQL语句通过变量拼接了用户输入",
-                                        filePath,
-                                        line,
-                                        column,
-                                        "变量 '" + varName + "' 在 line " + suspiciousSqlVars.get(varName) + " 处拼接了用户输入，建议使用PreparedStatement参数化查询"
-                                ));
-                            }
-                        }
-                        
-                        // 情况3：使用Statement.execute*方法（而非PreparedStatement）
-                        methodCallExpr.getScope().ifPresent(scope -> {
-                            if (scope.toString().equals("stmt") || scope.toString().endsWith("Statement")) {
-                                // 如果是Statement而不是PreparedStatement，且参数不是纯字符串字面量
-                                if (!argExpr.isStringLiteralExpr() || isStringConcatenation(argExpr)) {
-                                    boolean alreadyReported = results.stream()
-                                            .anyMatch(r -> r.getLine() == line && r.getMessage().contains("SQL注入"));
-                                    if (!alreadyReported) {
-                                        results.add(new AuditResult(
-                                                getName(),
-                                                Severity.WARNING,
-                                                "潜在SQL注入风险：使用Statement执行动态SQL",
-                                                filePath,
-                                                line,
-                                                column,
-                                                "建议使用PreparedStatement替代Statement，并使用参数化查询"
-                                        ));
-                                    }
-                                }
-                            }
-                        });
-                    });
+            // 带参数的其他方法调用，可能把SQL语句传给项目内最终执行它的方法
+            for (MethodCallExpr methodCallExpr : callSites) {
+                if (!SqlPatterns.isSqlExecutionMethod(methodCallExpr.getNameAsString())
+                        && methodCallExpr.getArguments().isNonEmpty()) {
+                    checkSinkCall(methodCallExpr, summaries);
                 }
             }
-        }, null);
+            return new ArrayList<>(findings.values());
+        }
 
-        return results;
-    }
+        /**
+         * 记录问题，同一位置已有同级或更严重的问题时忽略
+         */
+        private void report(AuditResult result) {
+            FindingKey key = new FindingKey(result.getLine(), result.getColumn(), result.getRuleName());
+            AuditResult existing = findings.get(key);
+            if (existing == null || existing.getSeverity().getLevel() > result.getSeverity().getLevel()) {
+                findings.put(key, result);
+            }
+        }
 
-    @Override
-    public Severity getSeverity() {
-        return Severity.ERROR;
+        /**
+         * 从调用所在方法开始逐层向外查找变量声明，内层声明遮蔽外层同名变量
+         */
+        private VariableFacts lookup(Node node, String varName) {
+            Node callable = enclosingCallable(node);
+            while (true) {
+                VariableFacts facts = variableFacts.get(callable);
+                if (facts != null && facts.declared.contains(varName)) {
+                    return facts;
+                }
+                if (callable == null) {
+                    return null;
+                }
+                callable = enclosingCallable(callable);
+            }
+        }
+
+        /**
+         * 检查SQL执行方法调用
+         */
+        private void checkSqlCall(MethodCallExpr methodCallExpr, TaintSummaries summaries) {
+            int line = methodCallExpr.getBegin().map(b -> b.line).orElse(0);
+            int column = methodCallExpr.getBegin().map(b -> b.column).orElse(0);
+            String scopeText = methodCallExpr.getScope().map(ExpressionKeys::of).orElse(null);
+            boolean plainStatement = scopeText != null && (scopeText.equals("stmt") || scopeText.endsWith("Statement"));
+
+            // 检查每个参数
+            methodCallExpr.getArguments().forEach(argExpr -> {
+                // 情况1：直接使用字符串拼接
+                if (SqlPatterns.isStringConcatenation(argExpr) && SqlPatterns.containsSqlKeywords(argExpr)) {
+                    if (SqlPatterns.containsVariableReference(argExpr)) {
+                        // 表名、列名等标识符不能使用参数占位符
+                        boolean identifier = SqlPatterns.concatenationPosition(argExpr) == SqlFragments.Position.IDENTIFIER;
+                        report(new AuditResult(
+                                getName(),
+                                Severity.ERROR,
+                                "SQL注入风险：直接拼接用户输入到SQL语句",
+                                filePath,
+                                line,
+                                column,
+                                identifier
+                                        ? "拼接的是表名或列名，无法参数化，应使用白名单校验后再拼接"
+                                        : "使用PreparedStatement参数化查询替代字符串拼接"
+                        ));
+                    }
+                }
+
+                // 情况2：使用变量传递SQL（可能是前面拼接好的）
+                if (argExpr.isNameExpr()) {
+                    String varName = argExpr.asNameExpr().getNameAsString();
+                    VariableFacts facts = lookup(methodCallExpr, varName);
+                    if (facts != null && facts.suspicious.containsKey(varName) && !facts.safe.contains(varName)) {
+                        report(new AuditResult(
+                                getName(),
+                                Severity.ERROR,
+                                "SQL注入风险：SQL语句通过变量拼接了用户输入",
+                                filePath,
+                                line,
+                                column,
+                                "变量 '" + varName + "' 在 line " + facts.suspicious.get(varName) + " 处拼接了用户输入，建议使用PreparedStatement参数化查询"
+                        ));
+                    }
+                }
+
+                // 情况4：SQL语句经由变量赋值、StringBuilder或项目内方法的返回值拼接了用户输入
+                if (summaries.resolve(MethodTaint.at(methodCallExpr).valueOf(argExpr)).isDynamicSql()) {
+                    report(new AuditResult(
+                            getName(),
+                            Severity.ERROR,
+                            "SQL注入风险：SQL语句经由方法调用拼接了用户输入",
+                            filePath,
+                            line,
+                            column,
+                            "使用PreparedStatement参数化查询替代字符串拼接"
+                    ));
+                }
+
+                // 情况3：使用Statement.execute*方法（而非PreparedStatement）
+                if (plainStatement) {
+                    // 如果是Statement而不是PreparedStatement，且参数不是纯字符串字面量
+                    if (!argExpr.isStringLiteralExpr() || SqlPatterns.isStringConcatenation(argExpr)) {
+                        report(new AuditResult(
+                                getName(),
+                                Severity.WARNING,
+                                "潜在SQL注入风险：使用Statement执行动态SQL",
+                                filePath,
+                                line,
+                                column,
+                                "建议使用PreparedStatement替代Statement，并使用参数化查询"
+                        ));
+                    }
+                }
+            });
+        }
+
+        /**
+         * 情况5：拼接了用户输入的SQL语句作为实参传给项目内的方法，并在该方法（或其调用的方法）中被执行
+         */
+        private void checkSinkCall(MethodCallExpr methodCallExpr, TaintSummaries summaries) {
+            String key = MethodTaint.keyOf(methodCallExpr);
+            if (!summaries.hasSink(Collections.singleton(key))) {
+                return;
+            }
+            MethodTaint taint = MethodTaint.at(methodCallExpr);
+            List<TaintValue> args = new ArrayList<>(methodCallExpr.getArguments().size());
+            methodCallExpr.getArguments().forEach(argExpr -> args.add(summaries.resolve(taint.valueOf(argExpr))));
+            if (summaries.dynamicSqlSinkArgument(key, args) < 0) {
+                return;
+            }
+            String methodName = methodCallExpr.getNameAsString();
+            report(new AuditResult(
+                    getName(),
+                    Severity.ERROR,
+                    "SQL注入风险：拼接了用户输入的SQL语句传入方法 " + methodName + " 后被执行",
+                    filePath,
+                    methodCallExpr.getBegin().map(b -> b.line).orElse(0),
+                    methodCallExpr.getBegin().map(b -> b.column).orElse(0),
+                    "在方法 '" + methodName + "' 中使用PreparedStatement参数化查询，调用处传入参数而非拼接好的SQL"
+            ));
+        }
     }
 
     /**
-     * 检查是否为SQL执行方法
+     * 单个方法内声明的SQL变量
      */
-    private boolean isSqlExecutionMethod(String methodName) {
-        return methodName.equals("execute") || 
-               methodName.equals("executeQuery") || 
-               methodName.equals("executeUpdate") || 
-               methodName.equals("executeBatch");
+    private static class VariableFacts {
+
+        private final Set<String> declared = new HashSet<>();
+
+        // 可疑的SQL变量（包含SQL关键字且有字符串拼接）-> 声明所在行
+        private final Map<String, Integer> suspicious = new HashMap<>();
+
+        private final Set<String> safe = new HashSet<>();
     }
 
     /**
-     * 检查字符串是否包含SQL关键字
+     * 问题去重键：行、列、规则名
      */
-    private boolean containsSqlKeywords(String sql) {
-        String[] keywords = {"SELECT", "INSERT", "UPDATE", "DELETE", "FROM", "WHERE", "AND", "OR"};
-        String upperSql = sql.toUpperCase();
-        for (String keyword : keywords) {
-            if (upperSql.contains(keyword)) {
+    private static final class FindingKey {
+
+        private final int line;
+
+        private final int column;
+
+        private final String ruleName;
+
+        private FindingKey(int line, int column, String ruleName) {
+            this.line = line;
+            this.column = column;
+            this.ruleName = ruleName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
                 return true;
             }
+            if (!(o instanceof FindingKey)) {
+                return false;
+            }
+            FindingKey other = (FindingKey) o;
+            return line == other.line && column == other.column && ruleName.equals(other.ruleName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(line, column, ruleName);
         }
-        return false;
     }
 
     /**
-     * 检查表达式是否包含字符串拼接（+操作符）
+     * 获取节点所在的方法、构造器或初始化块，不在其中时返回null
      */
-    private boolean isStringConcatenation(com.github.javaparser.ast.expr.Expression expr) {
-        if (expr.isBinaryExpr()) {
-            BinaryExpr binary = expr.asBinaryExpr();
-            if (binary.getOperator() == BinaryExpr.Operator.PLUS) {
-                return true;
+    private static Node enclosingCallable(Node node) {
+        for (Node current = node.getParentNode().orElse(null); current != null; current = current.getParentNode().orElse(null)) {
+            if (current instanceof CallableDeclaration || current instanceof InitializerDeclaration) {
+                return current;
             }
-            // 递归检查左右两边
-            return isStringConcatenation(binary.getLeft()) || 
-                   isStringConcatenation(binary.getRight());
         }
-        return false;
+        return null;
     }
 
-    /**
-     * 检查表达式中是否包含变量引用（用户输入）
-     */
-    private boolean containsVariableReference(com.github.javaparser.ast.expr.Expression expr) {
-        final boolean[] found = {false};
-        expr.accept(new VoidVisitorAdapter<Void>() {
-            @Override
-            public void visit(NameExpr nameExpr, Void arg) {
-                super.visit(nameExpr, arg);
-                // 排除常见的SQL关键字和大写常量
-                String name = nameExpr.getNameAsString();
-                if (!name.equals("SELECT") && !name.equals("FROM") && !name.equals("WHERE") &&
-                    !name.equals("AND") && !name.equals("OR") && !name.equals("INSERT") &&
-                    !name.equals("UPDATE") && !name.equals("DELETE") &&
-                    !name.toUpperCase().equals(name)) {  // 假设用户输入变量不是全大写
-                    found[0] = true;
-                }
-            }
-        }, null);
-        return found[0];
+    @Override
+    public Set<String> getTriggerTokens() {
+        return SqlPatterns.SQL_EXECUTION_METHODS;
+    }
+
+    @Override
+    public Severity getSeverity() {
+        return Severity.ERROR;
     }
 }
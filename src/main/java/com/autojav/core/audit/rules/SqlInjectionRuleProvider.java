@@ -0,0 +1,38 @@
+package com.autojav.core.audit.rules;
+
+import com.autojav.core.audit.AuditRule;
+import com.autojav.core.audit.RuleProvider;
+
+import java.util.Set;
+
+/**
+ * SQL注入检查规则的提供者
+ */
+public class SqlInjectionRuleProvider implements RuleProvider {
+
+    /**
+     * 规则ID
+     */
+    public static final String ID = "sql-injection";
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public Set<String> getTags() {
+        return Set.of("security");
+    }
+
+    @Override
+    public Cost getCost() {
+        // 方法级的污点摘要，跨文件的摘要在审计前统一计算
+        return Cost.MODERATE;
+    }
+
+    @Override
+    public AuditRule create() {
+        return new SqlInjectionRule();
+    }
+}
@@ -0,0 +1,132 @@
+package com.autojav.core.audit.taint;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 单个方法的符号污点模型
+ * <p>
+ * 只由方法体决定：返回值的来源、传给SQL执行方法的实参来源，以及调用其他方法时各实参的来源。
+ * 与被调方法的摘要组合后得到 {@link MethodSummary}。
+ */
+public final class MethodModel {
+
+    private final String key;
+
+    private final Set<String> types;
+
+    private final TaintValue returnValue;
+
+    private final List<TaintValue> sinkArgs;
+
+    private final List<TaintValue.CallTerm> callSites;
+
+    MethodModel(String key, Set<String> types, TaintValue returnValue, List<TaintValue> sinkArgs,
+                List<TaintValue.CallTerm> callSites) {
+        this.key = key;
+        this.types = Collections.unmodifiableSet(new TreeSet<>(types));
+        this.returnValue = returnValue;
+        this.sinkArgs = Collections.unmodifiableList(new ArrayList<>(sinkArgs));
+        this.callSites = Collections.unmodifiableList(new ArrayList<>(callSites));
+    }
+
+    /**
+     * 方法签名键，形如 {@code buildQuery/2}
+     * @return 签名键
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 声明该方法的类型及其直接父类、接口的简单类名，用于匹配带类型的调用键
+     * @return 类名集合
+     */
+    public Set<String> getTypes() {
+        return types;
+    }
+
+    public TaintValue getReturnValue() {
+        return returnValue;
+    }
+
+    public List<TaintValue> getSinkArgs() {
+        return sinkArgs;
+    }
+
+    public List<TaintValue.CallTerm> getCallSites() {
+        return callSites;
+    }
+
+    /**
+     * 收集模型中引用的所有被调方法调用键
+     * @param keys 输出集合
+     */
+    void collectCalledKeys(Set<String> keys) {
+        collectCalledKeys(returnValue, keys);
+        for (TaintValue sinkArg : sinkArgs) {
+            collectCalledKeys(sinkArg, keys);
+        }
+        for (TaintValue.CallTerm callSite : callSites) {
+            collectCalledKeys(callSite, keys);
+        }
+    }
+
+    private static void collectCalledKeys(TaintValue value, Set<String> keys) {
+        for (TaintValue.CallTerm call : value.getCalls()) {
+            collectCalledKeys(call, keys);
+        }
+    }
+
+    private static void collectCalledKeys(TaintValue.CallTerm call, Set<String> keys) {
+        keys.add(call.getKey());
+        collectCalledKeys(call.getReceiver(), keys);
+        for (TaintValue arg : call.getArgs()) {
+            collectCalledKeys(arg, keys);
+        }
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeUTF(key);
+        out.writeInt(types.size());
+        for (String type : types) {
+            out.writeUTF(type);
+        }
+        returnValue.write(out);
+        out.writeInt(sinkArgs.size());
+        for (TaintValue sinkArg : sinkArgs) {
+            sinkArg.write(out);
+        }
+        out.writeInt(callSites.size());
+        for (TaintValue.CallTerm callSite : callSites) {
+            callSite.write(out);
+        }
+    }
+
+    static MethodModel read(DataInputStream in) throws IOException {
+        String key = in.readUTF();
+        int typeCount = in.readInt();
+        Set<String> types = new TreeSet<>();
+        for (int i = 0; i < typeCount; i++) {
+            types.add(in.readUTF());
+        }
+        TaintValue returnValue = TaintValue.read(in);
+        int sinkCount = in.readInt();
+        List<TaintValue> sinkArgs = new ArrayList<>(sinkCount);
+        for (int i = 0; i < sinkCount; i++) {
+            sinkArgs.add(TaintValue.read(in));
+        }
+        int callCount = in.readInt();
+        List<TaintValue.CallTerm> callSites = new ArrayList<>(callCount);
+        for (int i = 0; i < callCount; i++) {
+            callSites.add(TaintValue.CallTerm.read(in));
+        }
+        return new MethodModel(key, types, returnValue, sinkArgs, callSites);
+    }
+}
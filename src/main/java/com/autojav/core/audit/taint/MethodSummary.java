@@ -0,0 +1,75 @@
+package com.autojav.core.audit.taint;
+
+/**
+ * 方法的污点摘要：哪些参数流向返回值、哪些参数流向SQL执行方法
+ * <p>
+ * 参数以位掩码表示，第i位对应第i个参数。实例不可变。
+ */
+public final class MethodSummary {
+
+    public static final MethodSummary EMPTY = new MethodSummary(0L, false, 0L);
+
+    private final long returnParams;
+
+    private final boolean returnsDynamicSql;
+
+    private final long sinkParams;
+
+    MethodSummary(long returnParams, boolean returnsDynamicSql, long sinkParams) {
+        this.returnParams = returnParams;
+        this.returnsDynamicSql = returnsDynamicSql;
+        this.sinkParams = sinkParams;
+    }
+
+    /**
+     * 流向返回值的参数
+     * @return 参数位掩码
+     */
+    public long getReturnParams() {
+        return returnParams;
+    }
+
+    /**
+     * 返回值是否为拼接了变量的动态SQL
+     * @return 是否为动态SQL
+     */
+    public boolean isReturnsDynamicSql() {
+        return returnsDynamicSql;
+    }
+
+    /**
+     * 流向SQL执行方法的参数（含经由其他方法间接流向的）
+     * @return 参数位掩码
+     */
+    public long getSinkParams() {
+        return sinkParams;
+    }
+
+    MethodSummary union(MethodSummary other) {
+        return new MethodSummary(returnParams | other.returnParams, returnsDynamicSql || other.returnsDynamicSql,
+                sinkParams | other.sinkParams);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MethodSummary)) {
+            return false;
+        }
+        MethodSummary other = (MethodSummary) o;
+        return returnParams == other.returnParams && returnsDynamicSql == other.returnsDynamicSql
+                && sinkParams == other.sinkParams;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(returnParams) * 31 + Long.hashCode(sinkParams) * 2 + (returnsDynamicSql ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toHexString(returnParams) + (returnsDynamicSql ? "+sql" : "") + "/" + Long.toHexString(sinkParams);
+    }
+}
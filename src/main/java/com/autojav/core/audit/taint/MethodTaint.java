@@ -0,0 +1,563 @@
+package com.autojav.core.audit.taint;
+
+import com.autojav.core.audit.BinaryChain;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithExtends;
+import com.github.javaparser.ast.nodeTypes.NodeWithImplements;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单个方法体的过程内污点传播
+ * <p>
+ * 局部变量的来源按流不敏感方式计算：方法内对同一变量的所有赋值（含 {@code sb.append(x)}）取并集，
+ * 按源码顺序扫描两遍以覆盖循环中先使用后赋值的情况。对污点分析而言这是保守的近似。
+ * <p>
+ * 这里有意没有建在 {@link com.autojav.core.audit.flow.CfgBuilder} 和
+ * {@link com.autojav.core.audit.flow.DataflowSolver} 之上：摘要要对项目中的每个方法计算，
+ * 逐方法构建控制流图并迭代求解的开销与空指针分析相当，而污点只需知道“是否可能”。
+ * 代价是精度：赋值的先后不被区分，如 {@code sql = input; sql = "SELECT 1"; execute(sql);}
+ * 中的第二次赋值不会清除污点，分支各自赋值的变量在汇合后也按并集处理，可能产生误报，但不会因此漏报。
+ * 结果挂在方法节点上，同一编译单元内的多次查询只计算一次。
+ * <p>
+ * 方法调用以调用键标识被调方法，带上调用者对象声明类型的简单类名（见 {@link #keyOf(MethodCallExpr)}），
+ * 避免项目方法的摘要套用到同名的JDK或第三方库方法上。
+ */
+public final class MethodTaint {
+
+    private static final DataKey<MethodTaint> TAINT_KEY = new DataKey<MethodTaint>() {
+    };
+
+    /**
+     * 不在任何方法中的代码（如字段初始化表达式）使用的空环境
+     */
+    private static final MethodTaint NO_METHOD = new MethodTaint(null);
+
+    /**
+     * 会把实参累积到调用者对象上的方法，如 StringBuilder.append
+     */
+    private static final String[] ACCUMULATING_METHODS = {"append", "insert", "add"};
+
+    /**
+     * 调用者对象的类型无法确定时调用键中的类型名，不匹配任何项目方法
+     */
+    public static final String UNKNOWN_TYPE = "?";
+
+    // 字段类型缓存中表示没有该字段
+    private static final String NO_FIELD = "";
+
+    private final CallableDeclaration<?> callable;
+
+    private final Map<String, Integer> params = new HashMap<>();
+
+    private final Map<String, TaintValue> locals = new HashMap<>();
+
+    // 参数与局部变量声明类型的简单类名，同名变量声明了不同类型时为 UNKNOWN_TYPE
+    private final Map<String, String> variableTypes = new HashMap<>();
+
+    // 按名称查找到的外层类字段类型
+    private final Map<String, String> fieldTypes = new ConcurrentHashMap<>();
+
+    // 追加过含SQL关键字的字符串字面量的变量
+    private final Set<String> sqlText = new HashSet<>();
+
+    // 追加过变量的变量
+    private final Set<String> variableText = new HashSet<>();
+
+    // 构造完成后各方法调用的来源，链式调用的每一段只求值一次；构造期间局部变量尚不完整，不缓存
+    private Map<MethodCallExpr, TaintValue> callValues;
+
+    private MethodTaint(CallableDeclaration<?> callable) {
+        this.callable = callable;
+        if (callable == null) {
+            return;
+        }
+        List<Parameter> parameters = callable.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            params.put(parameters.get(i).getNameAsString(), i);
+        }
+        List<Node> nodes = ownNodes(callable, false);
+        for (Node node : nodes) {
+            if (node instanceof Parameter) {
+                Parameter parameter = (Parameter) node;
+                declareType(parameter.getNameAsString(), typeName(parameter.getType(), null));
+            } else if (node instanceof VariableDeclarator) {
+                VariableDeclarator variable = (VariableDeclarator) node;
+                declareType(variable.getNameAsString(),
+                        typeName(variable.getType(), variable.getInitializer().orElse(null)));
+            }
+        }
+        Map<MethodCallExpr, String> targets = accumulationTargets(nodes);
+        for (int round = 0; round < 2; round++) {
+            for (Node node : nodes) {
+                if (node instanceof VariableDeclarator) {
+                    VariableDeclarator variable = (VariableDeclarator) node;
+                    variable.getInitializer().ifPresent(init -> {
+                        assign(variable.getNameAsString(), eval(init));
+                        if (init.isObjectCreationExpr()) {
+                            appendText(variable.getNameAsString(), init.asObjectCreationExpr().getArguments());
+                        }
+                    });
+                } else if (node instanceof AssignExpr) {
+                    AssignExpr assign = (AssignExpr) node;
+                    if (assign.getTarget().isNameExpr()) {
+                        assign(assign.getTarget().asNameExpr().getNameAsString(), eval(assign.getValue()));
+                    }
+                } else if (node instanceof MethodCallExpr) {
+                    MethodCallExpr call = (MethodCallExpr) node;
+                    String target = targets.get(call);
+                    if (target != null) {
+                        TaintValue appended = TaintValue.EMPTY;
+                        for (Expression arg : call.getArguments()) {
+                            appended = appended.union(eval(arg));
+                        }
+                        assign(target, appended);
+                        appendText(target, call.getArguments());
+                    }
+                }
+            }
+        }
+        callValues = Collections.synchronizedMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * 获取节点所在方法的污点传播结果
+     * @param node 方法内的任意节点
+     * @return 污点传播结果
+     */
+    public static MethodTaint at(Node node) {
+        for (Node current = node; current != null; current = current.getParentNode().orElse(null)) {
+            if (current instanceof CallableDeclaration) {
+                return of((CallableDeclaration<?>) current);
+            }
+        }
+        return NO_METHOD;
+    }
+
+    /**
+     * 获取方法的污点传播结果，首次调用时计算
+     * @param callable 方法或构造器
+     * @return 污点传播结果
+     */
+    public static MethodTaint of(CallableDeclaration<?> callable) {
+        if (callable.containsData(TAINT_KEY)) {
+            return callable.getData(TAINT_KEY);
+        }
+        MethodTaint taint = new MethodTaint(callable);
+        callable.setData(TAINT_KEY, taint);
+        return taint;
+    }
+
+    /**
+     * 为编译单元中的所有方法建立符号模型
+     * @param compilationUnit 编译单元
+     * @return 方法模型列表
+     */
+    public static List<MethodModel> models(CompilationUnit compilationUnit) {
+        List<MethodModel> models = new ArrayList<>();
+        for (MethodDeclaration method : compilationUnit.findAll(MethodDeclaration.class)) {
+            if (method.getBody().isPresent()) {
+                models.add(of(method).toModel());
+            }
+        }
+        return models;
+    }
+
+    /**
+     * 方法声明的签名键，按方法名与参数个数区分重载
+     */
+    public static String keyOf(MethodDeclaration method) {
+        return method.getNameAsString() + "/" + method.getParameters().size();
+    }
+
+    /**
+     * 方法调用的调用键
+     * <p>
+     * 没有调用者对象或调用者为 {@code this}、{@code super} 时与签名键相同，形如 {@code add/1}，
+     * 可匹配任何同签名的项目方法；否则在前面加上调用者对象声明类型的简单类名，形如 {@code Dao.add/1}。
+     * 类型取自参数、局部变量、外层类字段的声明，或静态调用的类名；无法确定时为 {@code ?.add/1}
+     */
+    public static String keyOf(MethodCallExpr call) {
+        return at(call).callKey(call);
+    }
+
+    /**
+     * 计算表达式的污点来源
+     * @param expression 本方法内的表达式
+     * @return 符号来源，需经 {@link TaintSummaries#resolve(TaintValue)} 求值
+     */
+    public TaintValue valueOf(Expression expression) {
+        return eval(expression);
+    }
+
+    MethodModel toModel() {
+        TaintValue returnValue = TaintValue.EMPTY;
+        List<TaintValue> sinkArgs = new ArrayList<>();
+        List<TaintValue.CallTerm> callSites = new ArrayList<>();
+        for (Node node : ownNodes(callable, true)) {
+            if (node instanceof ReturnStmt) {
+                ReturnStmt returnStmt = (ReturnStmt) node;
+                if (returnStmt.getExpression().isPresent()) {
+                    returnValue = returnValue.union(eval(returnStmt.getExpression().get()));
+                }
+            }
+        }
+        for (Node node : ownNodes(callable, false)) {
+            if (!(node instanceof MethodCallExpr)) {
+                continue;
+            }
+            MethodCallExpr call = (MethodCallExpr) node;
+            List<TaintValue> args = new ArrayList<>(call.getArguments().size());
+            boolean carriesParams = false;
+            for (Expression arg : call.getArguments()) {
+                TaintValue value = eval(arg);
+                args.add(value);
+                carriesParams |= value.flatten().getParams() != 0;
+            }
+            if (SqlPatterns.isSqlExecutionMethod(call.getNameAsString())) {
+                sinkArgs.addAll(args);
+            }
+            // 实参不含参数来源的调用不会让本方法的参数流向SQL执行方法
+            if (carriesParams) {
+                TaintValue receiver = call.getScope().map(this::eval).orElse(TaintValue.EMPTY);
+                callSites.add(TaintValue.CallTerm.of(callKey(call), receiver, args));
+            }
+        }
+        return new MethodModel(keyOf((MethodDeclaration) callable), declaringTypes(callable),
+                returnValue, sinkArgs, callSites);
+    }
+
+    private String callKey(MethodCallExpr call) {
+        String key = call.getNameAsString() + "/" + call.getArguments().size();
+        if (!call.getScope().isPresent()) {
+            return key;
+        }
+        String type = receiverType(call.getScope().get());
+        return type != null ? type + "." + key : key;
+    }
+
+    /**
+     * 调用者对象声明类型的简单类名
+     * @return 调用者为 this 或 super 时返回null，无法确定时返回 {@link #UNKNOWN_TYPE}
+     */
+    private String receiverType(Expression scope) {
+        if (scope.isThisExpr() || scope.isSuperExpr()) {
+            return null;
+        }
+        if (scope.isEnclosedExpr()) {
+            return receiverType(scope.asEnclosedExpr().getInner());
+        }
+        if (scope.isCastExpr()) {
+            return typeName(scope.asCastExpr().getType(), null);
+        }
+        if (scope.isObjectCreationExpr()) {
+            return scope.asObjectCreationExpr().getType().getNameAsString();
+        }
+        if (scope.isNameExpr()) {
+            String name = scope.asNameExpr().getNameAsString();
+            String type = variableTypes.get(name);
+            if (type == null) {
+                type = fieldType(scope, name);
+            }
+            if (type == null) {
+                // 不是变量或字段时按类名处理，即静态调用
+                type = isTypeName(name) ? name : UNKNOWN_TYPE;
+            }
+            return type;
+        }
+        if (scope.isFieldAccessExpr()) {
+            FieldAccessExpr access = scope.asFieldAccessExpr();
+            String name = access.getNameAsString();
+            if (access.getScope().isThisExpr()) {
+                String type = fieldType(scope, name);
+                return type != null ? type : UNKNOWN_TYPE;
+            }
+            // 全限定类名上的静态调用，如 com.example.Dao.run(sql)
+            return isTypeName(name) ? name : UNKNOWN_TYPE;
+        }
+        return UNKNOWN_TYPE;
+    }
+
+    /**
+     * 在外层类中按名称查找字段的声明类型
+     * @return 没有该字段时返回null
+     */
+    private String fieldType(Node node, String name) {
+        if (callable == null) {
+            return lookupFieldType(node, name);
+        }
+        String type = fieldTypes.computeIfAbsent(name, key -> {
+            String found = lookupFieldType(callable, key);
+            return found != null ? found : NO_FIELD;
+        });
+        return type.equals(NO_FIELD) ? null : type;
+    }
+
+    private static String lookupFieldType(Node node, String name) {
+        for (Node current = node; current != null; current = current.getParentNode().orElse(null)) {
+            if (!(current instanceof TypeDeclaration)) {
+                continue;
+            }
+            FieldDeclaration field = ((TypeDeclaration<?>) current).getFieldByName(name).orElse(null);
+            if (field != null) {
+                for (VariableDeclarator variable : field.getVariables()) {
+                    if (variable.getNameAsString().equals(name)) {
+                        return typeName(variable.getType(), null);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void declareType(String name, String type) {
+        variableTypes.merge(name, type, (previous, current) -> previous.equals(current) ? previous : UNKNOWN_TYPE);
+    }
+
+    private static String typeName(Type type, Expression initializer) {
+        if (type.isClassOrInterfaceType()) {
+            return type.asClassOrInterfaceType().getNameAsString();
+        }
+        if (type.isVarType() && initializer != null && initializer.isObjectCreationExpr()) {
+            return initializer.asObjectCreationExpr().getType().getNameAsString();
+        }
+        return UNKNOWN_TYPE;
+    }
+
+    private static boolean isTypeName(String name) {
+        return !name.isEmpty() && Character.isUpperCase(name.charAt(0));
+    }
+
+    /**
+     * 声明方法的类型及其直接父类、接口的简单类名，匿名类取其创建的类型
+     */
+    private static Set<String> declaringTypes(CallableDeclaration<?> callable) {
+        Set<String> types = new TreeSet<>();
+        Node parent = callable.getParentNode().orElse(null);
+        if (parent instanceof EnumConstantDeclaration) {
+            parent = parent.getParentNode().orElse(null);
+        }
+        if (parent instanceof ObjectCreationExpr) {
+            types.add(((ObjectCreationExpr) parent).getType().getNameAsString());
+        } else if (parent instanceof TypeDeclaration) {
+            types.add(((TypeDeclaration<?>) parent).getNameAsString());
+            if (parent instanceof NodeWithExtends) {
+                for (ClassOrInterfaceType type : ((NodeWithExtends<?>) parent).getExtendedTypes()) {
+                    types.add(type.getNameAsString());
+                }
+            }
+            if (parent instanceof NodeWithImplements) {
+                for (ClassOrInterfaceType type : ((NodeWithImplements<?>) parent).getImplementedTypes()) {
+                    types.add(type.getNameAsString());
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * 记录逐段追加的内容，如 {@code sb.append("SELECT * FROM t WHERE id = ").append(id)}；
+     * 既追加了SQL关键字又追加了变量时视为动态SQL
+     */
+    private void appendText(String name, List<Expression> args) {
+        for (Expression arg : args) {
+            if (arg.isStringLiteralExpr()) {
+                if (SqlPatterns.containsSqlKeywords(arg.asStringLiteralExpr().getValue())) {
+                    sqlText.add(name);
+                }
+            } else if (SqlPatterns.containsVariableReference(arg)) {
+                variableText.add(name);
+            }
+        }
+        if (sqlText.contains(name) && variableText.contains(name)) {
+            assign(name, TaintValue.dynamicSql());
+        }
+    }
+
+    private void assign(String name, TaintValue value) {
+        locals.merge(name, value, TaintValue::union);
+    }
+
+    private TaintValue eval(Expression expression) {
+        if (expression.isNameExpr()) {
+            String name = expression.asNameExpr().getNameAsString();
+            Integer index = params.get(name);
+            TaintValue value = index != null ? TaintValue.param(index) : TaintValue.EMPTY;
+            TaintValue local = locals.get(name);
+            return local != null ? value.union(local) : value;
+        }
+        if (expression.isEnclosedExpr()) {
+            return eval(expression.asEnclosedExpr().getInner());
+        }
+        if (expression.isCastExpr()) {
+            return eval(expression.asCastExpr().getExpression());
+        }
+        if (expression.isBinaryExpr()) {
+            BinaryExpr binary = expression.asBinaryExpr();
+            if (binary.getOperator() != BinaryExpr.Operator.PLUS) {
+                return TaintValue.EMPTY;
+            }
+            // 拼接链展开为操作数逐个求值，上千段的拼接也不递归
+            TaintValue value = TaintValue.EMPTY;
+            for (Expression operand : BinaryChain.concatenation(binary)) {
+                value = value.union(eval(operand));
+            }
+            // 拼接链只在最外层判断一次是否为动态SQL
+            boolean nested = binary.getParentNode()
+                    .filter(parent -> parent instanceof BinaryExpr
+                            && ((BinaryExpr) parent).getOperator() == BinaryExpr.Operator.PLUS)
+                    .isPresent();
+            if (!nested && SqlPatterns.isDynamicSql(binary)) {
+                value = value.union(TaintValue.dynamicSql());
+            }
+            return value;
+        }
+        if (expression.isConditionalExpr()) {
+            return eval(expression.asConditionalExpr().getThenExpr())
+                    .union(eval(expression.asConditionalExpr().getElseExpr()));
+        }
+        if (expression.isAssignExpr()) {
+            return eval(expression.asAssignExpr().getValue());
+        }
+        if (expression.isArrayAccessExpr()) {
+            return eval(expression.asArrayAccessExpr().getName());
+        }
+        if (expression.isMethodCallExpr()) {
+            return evalCall(expression.asMethodCallExpr());
+        }
+        if (expression.isObjectCreationExpr()) {
+            TaintValue value = TaintValue.EMPTY;
+            for (Expression arg : expression.asObjectCreationExpr().getArguments()) {
+                value = value.union(eval(arg));
+            }
+            return value;
+        }
+        return TaintValue.EMPTY;
+    }
+
+    /**
+     * 求值方法调用，链式调用 {@code a.b().c()...} 从最内层开始逐段求值，不递归
+     */
+    private TaintValue evalCall(MethodCallExpr outermost) {
+        List<MethodCallExpr> chain = new ArrayList<>();
+        Expression current = outermost;
+        TaintValue receiver = null;
+        while (current != null && current.isMethodCallExpr()) {
+            MethodCallExpr call = current.asMethodCallExpr();
+            if (callValues != null && callValues.containsKey(call)) {
+                receiver = callValues.get(call);
+                break;
+            }
+            chain.add(call);
+            current = call.getScope().orElse(null);
+        }
+        if (receiver == null) {
+            receiver = current != null ? eval(current) : TaintValue.EMPTY;
+        }
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            MethodCallExpr call = chain.get(i);
+            List<TaintValue> args = new ArrayList<>(call.getArguments().size());
+            for (Expression arg : call.getArguments()) {
+                args.add(eval(arg));
+            }
+            receiver = TaintValue.call(callKey(call), receiver, args);
+            if (callValues != null) {
+                callValues.put(call, receiver);
+            }
+        }
+        return receiver;
+    }
+
+    /**
+     * 计算各累积调用的目标变量，支持链式调用 {@code sb.append(a).append(b)}
+     * 节点按源码顺序排列，外层调用在其调用者对象之前，倒序处理时内层调用的目标已经确定
+     * @return 累积调用到目标变量名，不是对局部变量的累积调用不在其中
+     */
+    private static Map<MethodCallExpr, String> accumulationTargets(List<Node> nodes) {
+        Map<MethodCallExpr, String> targets = new IdentityHashMap<>();
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            if (!(nodes.get(i) instanceof MethodCallExpr) || !isAccumulating((MethodCallExpr) nodes.get(i))) {
+                continue;
+            }
+            MethodCallExpr call = (MethodCallExpr) nodes.get(i);
+            Expression scope = call.getScope().get();
+            String target = null;
+            if (scope.isNameExpr()) {
+                target = scope.asNameExpr().getNameAsString();
+            } else if (scope.isMethodCallExpr()) {
+                target = targets.get(scope.asMethodCallExpr());
+            }
+            if (target != null) {
+                targets.put(call, target);
+            }
+        }
+        return targets;
+    }
+
+    private static boolean isAccumulating(MethodCallExpr call) {
+        if (!call.getScope().isPresent()) {
+            return false;
+        }
+        for (String name : ACCUMULATING_METHODS) {
+            if (name.equals(call.getNameAsString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按源码顺序列出方法体内的节点，不进入嵌套的类声明；skipLambdas为true时也不进入lambda
+     */
+    private static List<Node> ownNodes(Node root, boolean skipLambdas) {
+        List<Node> nodes = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            nodes.add(node);
+            List<Node> children = node.getChildNodes();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                Node child = children.get(i);
+                if (child instanceof TypeDeclaration
+                        || child instanceof BodyDeclaration && node instanceof ObjectCreationExpr
+                        || skipLambdas && child instanceof LambdaExpr) {
+                    continue;
+                }
+                stack.push(child);
+            }
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,202 @@
+package com.autojav.core.audit.taint;
+
+/**
+ * SQL片段的词法分类，不分配对象
+ * <p>
+ * 按单词边界、忽略大小写匹配关键字（{@code ORDER} 不会匹配 {@code OR}，{@code fromDate} 不会匹配 {@code FROM}）。
+ * 拼接SQL时逐个扫描字符串片段，状态编码在一个int中在片段之间传递，据此判断下一个拼接点
+ * 位于值的位置（如 {@code id = } 之后、单引号内）还是标识符的位置（如 {@code FROM}、{@code ORDER BY} 之后）。
+ */
+public final class SqlFragments {
+
+    /**
+     * 拼接点在SQL中的位置
+     */
+    public enum Position {
+        /**
+         * 无法判断
+         */
+        UNKNOWN,
+        /**
+         * 值，可以改为参数占位符
+         */
+        VALUE,
+        /**
+         * 表名、列名等标识符，不能参数化
+         */
+        IDENTIFIER
+    }
+
+    /**
+     * 初始状态：不在引号内，前面没有可判断位置的词
+     */
+    public static final int INITIAL = 0;
+
+    private static final String[] KEYWORDS = {"SELECT", "INSERT", "UPDATE", "DELETE", "FROM", "WHERE", "AND", "OR"};
+
+    // 其后为值的关键字
+    private static final String[] VALUE_KEYWORDS = {"LIKE", "IN", "VALUES", "LIMIT", "OFFSET", "BETWEEN"};
+
+    // 其后为标识符的关键字
+    private static final String[] IDENTIFIER_KEYWORDS = {"SELECT", "FROM", "JOIN", "INTO", "UPDATE", "TABLE", "BY",
+            "WHERE", "AND", "OR", "ON", "SET", "HAVING", "DISTINCT"};
+
+    // 状态位：0-1位引号，2-3位下一个位置，4位是否在IN/VALUES的括号列表中
+    private static final int QUOTE_MASK = 0b11;
+
+    private static final int SINGLE_QUOTE = 1;
+
+    private static final int IDENTIFIER_QUOTE = 2;
+
+    private static final int POSITION_SHIFT = 2;
+
+    private static final int POSITION_MASK = 0b11 << POSITION_SHIFT;
+
+    private static final int VALUE_LIST = 1 << 4;
+
+    private SqlFragments() {
+    }
+
+    /**
+     * 文本中是否包含SQL关键字（完整单词，忽略大小写）
+     * @param text 文本
+     * @return 是否包含
+     */
+    public static boolean containsKeyword(String text) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (!isWordChar(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && isWordChar(text.charAt(i))) {
+                i++;
+            }
+            if (matchesAny(text, start, i - start, KEYWORDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 扫描一个字符串片段，返回扫描后的状态
+     * @param text 片段内容
+     * @param state 扫描前的状态，第一个片段使用 {@link #INITIAL}
+     * @return 扫描后的状态
+     */
+    public static int scan(String text, int state) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            int quote = state & QUOTE_MASK;
+            if (quote != 0) {
+                if ((quote == SINGLE_QUOTE && c == '\'') || (quote == IDENTIFIER_QUOTE && (c == '"' || c == '`'))) {
+                    state = withPosition(state & ~QUOTE_MASK, Position.UNKNOWN);
+                }
+                i++;
+                continue;
+            }
+            if (isWordChar(c)) {
+                int start = i;
+                while (i < length && isWordChar(text.charAt(i))) {
+                    i++;
+                }
+                state = afterWord(text, start, i - start, state);
+                continue;
+            }
+            switch (c) {
+                case '\'':
+                    state |= SINGLE_QUOTE;
+                    break;
+                case '"':
+                case '`':
+                    state |= IDENTIFIER_QUOTE;
+                    break;
+                case '=':
+                case '<':
+                case '>':
+                    state = withPosition(state, Position.VALUE);
+                    break;
+                case '.':
+                    state = withPosition(state, Position.IDENTIFIER);
+                    break;
+                case '(':
+                case ',':
+                    state = withPosition(state, (state & VALUE_LIST) != 0 ? Position.VALUE : Position.UNKNOWN);
+                    break;
+                case ')':
+                    state = withPosition(state & ~VALUE_LIST, Position.UNKNOWN);
+                    break;
+                default:
+                    // 空白不改变状态，其他符号（如 *）之后无法判断
+                    if (!Character.isWhitespace(c)) {
+                        state = withPosition(state, Position.UNKNOWN);
+                    }
+                    break;
+            }
+            i++;
+        }
+        return state;
+    }
+
+    /**
+     * 在给定状态处拼接的值位于SQL中的什么位置
+     * @param state 扫描状态
+     * @return 位置
+     */
+    public static Position position(int state) {
+        switch (state & QUOTE_MASK) {
+            case SINGLE_QUOTE:
+                return Position.VALUE;
+            case IDENTIFIER_QUOTE:
+                return Position.IDENTIFIER;
+            default:
+                return Position.values()[(state & POSITION_MASK) >>> POSITION_SHIFT];
+        }
+    }
+
+    /**
+     * 拼接了一个非字面量的值之后的状态：引号内保持不变，否则其后的位置无法判断
+     * @param state 拼接前的状态
+     * @return 拼接后的状态
+     */
+    public static int afterValue(int state) {
+        return (state & QUOTE_MASK) != 0 ? state : withPosition(state, Position.UNKNOWN);
+    }
+
+    private static int afterWord(String text, int start, int length, int state) {
+        if (matchesAny(text, start, length, VALUE_KEYWORDS)) {
+            boolean list = matches(text, start, length, "IN") || matches(text, start, length, "VALUES");
+            return withPosition(list ? state | VALUE_LIST : state, Position.VALUE);
+        }
+        if (matchesAny(text, start, length, IDENTIFIER_KEYWORDS)) {
+            return withPosition(state, Position.IDENTIFIER);
+        }
+        return withPosition(state, Position.UNKNOWN);
+    }
+
+    private static int withPosition(int state, Position position) {
+        return (state & ~POSITION_MASK) | (position.ordinal() << POSITION_SHIFT);
+    }
+
+    private static boolean matchesAny(String text, int start, int length, String[] keywords) {
+        for (String keyword : keywords) {
+            if (matches(text, start, length, keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(String text, int start, int length, String keyword) {
+        return length == keyword.length() && text.regionMatches(true, start, keyword, 0, length);
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
@@ -0,0 +1,126 @@
+package com.autojav.core.audit.taint;
+
+import com.autojav.core.audit.BinaryChain;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.NameExpr;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * SQL注入检查使用的语法特征判断，规则与污点分析共用
+ */
+public final class SqlPatterns {
+
+    /**
+     * 执行SQL语句的方法名
+     */
+    public static final Set<String> SQL_EXECUTION_METHODS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("execute", "executeQuery", "executeUpdate", "executeBatch")));
+
+    private SqlPatterns() {
+    }
+
+    /**
+     * 检查是否为SQL执行方法
+     */
+    public static boolean isSqlExecutionMethod(String methodName) {
+        return SQL_EXECUTION_METHODS.contains(methodName);
+    }
+
+    /**
+     * 检查字符串是否包含SQL关键字（完整单词，忽略大小写）
+     */
+    public static boolean containsSqlKeywords(String sql) {
+        return SqlFragments.containsKeyword(sql);
+    }
+
+    /**
+     * 检查拼接表达式中的字符串字面量是否包含SQL关键字
+     */
+    public static boolean containsSqlKeywords(Expression expr) {
+        for (Expression operand : BinaryChain.concatenation(expr)) {
+            if (operand.isStringLiteralExpr() && SqlFragments.containsKeyword(operand.asStringLiteralExpr().getValue())) {
+                return true;
+            }
+            if (operand.isTextBlockLiteralExpr() && SqlFragments.containsKeyword(operand.asTextBlockLiteralExpr().getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断拼接表达式中的变量位于SQL的什么位置，有多个变量时取最危险的：标识符、值、无法判断
+     * 按从左到右的顺序扫描拼接的各部分，扫描状态在各部分之间传递
+     * @param expr 拼接表达式
+     * @return 位置，没有拼接变量时为 {@link SqlFragments.Position#UNKNOWN}
+     */
+    public static SqlFragments.Position concatenationPosition(Expression expr) {
+        int state = SqlFragments.INITIAL;
+        int worst = SqlFragments.Position.UNKNOWN.ordinal();
+        for (Expression operand : BinaryChain.concatenation(expr)) {
+            if (operand.isStringLiteralExpr()) {
+                state = SqlFragments.scan(operand.asStringLiteralExpr().getValue(), state);
+            } else if (operand.isTextBlockLiteralExpr()) {
+                state = SqlFragments.scan(operand.asTextBlockLiteralExpr().getValue(), state);
+            } else if (operand.isLiteralExpr()) {
+                state = SqlFragments.afterValue(state);
+            } else {
+                worst = Math.max(worst, SqlFragments.position(state).ordinal());
+                state = SqlFragments.afterValue(state);
+            }
+        }
+        return SqlFragments.Position.values()[worst];
+    }
+
+    /**
+     * 检查表达式是否包含字符串拼接（+操作符），只沿二元运算向下查找
+     */
+    public static boolean isStringConcatenation(Expression expr) {
+        Deque<Expression> pending = new ArrayDeque<>();
+        pending.push(expr);
+        while (!pending.isEmpty()) {
+            Expression current = pending.pop();
+            if (!current.isBinaryExpr()) {
+                continue;
+            }
+            BinaryExpr binary = current.asBinaryExpr();
+            if (binary.getOperator() == BinaryExpr.Operator.PLUS) {
+                return true;
+            }
+            pending.push(binary.getRight());
+            pending.push(binary.getLeft());
+        }
+        return false;
+    }
+
+    /**
+     * 检查表达式中是否包含变量引用（用户输入）
+     */
+    public static boolean containsVariableReference(Expression expr) {
+        // 排除大写常量（假设用户输入变量不是全大写）
+        return expr.findFirst(NameExpr.class, nameExpr -> hasLowerCase(nameExpr.getName().getIdentifier())).isPresent();
+    }
+
+    private static boolean hasLowerCase(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isLowerCase(name.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否为拼接了变量的动态SQL，如 {@code "SELECT * FROM t WHERE id = " + id}
+     */
+    public static boolean isDynamicSql(Expression expr) {
+        return isStringConcatenation(expr) && containsSqlKeywords(expr) && containsVariableReference(expr);
+    }
+}
@@ -0,0 +1,266 @@
+package com.autojav.core.audit.taint;
+
+import com.autojav.core.HashUtils;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 项目内所有方法的污点摘要
+ * <p>
+ * 由各方法的 {@link MethodModel} 组合而成：反复求值被调方法的摘要直到不再变化（不动点），
+ * 某个方法的摘要变化时只重新计算调用它的方法。同名且参数个数相同的方法（重载、不同类中的同名方法）
+ * 共用一个摘要，取并集。调用键带有调用者对象的类型时，只有声明该签名的类型（或其直接父类、接口）
+ * 与之同名才使用摘要，类型无法确定的限定调用按库方法处理，避免把项目方法的摘要套用到同名的库方法上。
+ * 组合完成后实例只读，可在多个线程间共享。
+ */
+public final class TaintSummaries {
+
+    private static final DataKey<TaintSummaries> SUMMARIES_KEY = new DataKey<TaintSummaries>() {
+    };
+
+    /**
+     * 不含任何项目方法的摘要，所有调用都按库方法处理
+     */
+    public static final TaintSummaries EMPTY = new TaintSummaries(Collections.emptyMap(), Collections.emptyMap());
+
+    private final Map<String, MethodSummary> summaries;
+
+    // 签名键 -> 声明该签名的类型及其直接父类、接口
+    private final Map<String, Set<String>> types;
+
+    private TaintSummaries(Map<String, MethodSummary> summaries, Map<String, Set<String>> types) {
+        this.summaries = summaries;
+        this.types = types;
+    }
+
+    /**
+     * 组合方法模型得到摘要
+     * @param models 项目内所有方法的模型
+     * @return 方法摘要
+     */
+    public static TaintSummaries compose(Collection<MethodModel> models) {
+        Map<String, List<MethodModel>> byKey = new HashMap<>();
+        Map<String, Set<String>> types = new HashMap<>();
+        Map<String, Set<String>> callers = new HashMap<>();
+        Set<String> calledKeys = new HashSet<>();
+        for (MethodModel model : models) {
+            byKey.computeIfAbsent(model.getKey(), key -> new ArrayList<>()).add(model);
+            types.computeIfAbsent(model.getKey(), key -> new HashSet<>()).addAll(model.getTypes());
+            calledKeys.clear();
+            model.collectCalledKeys(calledKeys);
+            for (String called : calledKeys) {
+                callers.computeIfAbsent(methodKey(called), key -> new HashSet<>()).add(model.getKey());
+            }
+        }
+
+        Map<String, MethodSummary> summaries = new HashMap<>();
+        for (String key : byKey.keySet()) {
+            summaries.put(key, MethodSummary.EMPTY);
+        }
+        TaintSummaries result = new TaintSummaries(summaries, types);
+        Deque<String> worklist = new ArrayDeque<>(byKey.keySet());
+        Set<String> queued = new HashSet<>(byKey.keySet());
+        while (!worklist.isEmpty()) {
+            String key = worklist.poll();
+            queued.remove(key);
+            MethodSummary summary = MethodSummary.EMPTY;
+            for (MethodModel model : byKey.get(key)) {
+                summary = summary.union(result.summarize(model));
+            }
+            // 摘要只会增大，不变时调用者无需重算
+            if (!summary.equals(summaries.get(key))) {
+                summaries.put(key, summary);
+                for (String caller : callers.getOrDefault(key, Collections.emptySet())) {
+                    if (queued.add(caller)) {
+                        worklist.add(caller);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取编译单元可用的摘要：优先使用 {@link #attach} 关联的项目级摘要，
+     * 否则只根据编译单元自身的方法组合，结果缓存在编译单元上
+     * @param compilationUnit 编译单元
+     * @return 方法摘要
+     */
+    public static TaintSummaries of(CompilationUnit compilationUnit) {
+        synchronized (compilationUnit) {
+            if (compilationUnit.containsData(SUMMARIES_KEY)) {
+                return compilationUnit.getData(SUMMARIES_KEY);
+            }
+            TaintSummaries summaries = compose(MethodTaint.models(compilationUnit));
+            compilationUnit.setData(SUMMARIES_KEY, summaries);
+            return summaries;
+        }
+    }
+
+    /**
+     * 将项目级摘要关联到编译单元，供审计规则使用
+     * @param compilationUnit 编译单元
+     * @param summaries 方法摘要
+     */
+    public static void attach(CompilationUnit compilationUnit, TaintSummaries summaries) {
+        synchronized (compilationUnit) {
+            compilationUnit.setData(SUMMARIES_KEY, summaries);
+        }
+    }
+
+    /**
+     * 获取方法摘要
+     * @param key 方法签名键或调用键
+     * @return 方法摘要，不是项目内的方法或调用者对象的类型不匹配时返回null
+     */
+    public MethodSummary get(String key) {
+        int dot = key.indexOf('.');
+        if (dot < 0) {
+            return summaries.get(key);
+        }
+        String methodKey = key.substring(dot + 1);
+        Set<String> declaring = types.get(methodKey);
+        return declaring != null && declaring.contains(key.substring(0, dot)) ? summaries.get(methodKey) : null;
+    }
+
+    /**
+     * 调用键中的方法签名键部分
+     */
+    private static String methodKey(String callKey) {
+        return callKey.substring(callKey.indexOf('.') + 1);
+    }
+
+    /**
+     * 根据被调方法的摘要求出符号来源的实际值
+     * <p>
+     * 项目内方法的返回值只包含流向返回值的实参来源；库方法（如 {@code StringBuilder.toString}）
+     * 无摘要，保守地认为调用者对象和所有实参都流向返回值。两者都包含调用者对象的来源。
+     * @param value 符号来源
+     * @return 不含调用的来源
+     */
+    public TaintValue resolve(TaintValue value) {
+        if (value.getCalls().isEmpty()) {
+            return value;
+        }
+        TaintValue resolved = value.withoutCalls();
+        for (TaintValue.CallTerm call : value.getCalls()) {
+            resolved = resolved.union(resolve(call.getReceiver()));
+            MethodSummary summary = get(call.getKey());
+            List<TaintValue> args = call.getArgs();
+            if (summary == null) {
+                for (TaintValue arg : args) {
+                    resolved = resolved.union(resolve(arg));
+                }
+                continue;
+            }
+            if (summary.isReturnsDynamicSql()) {
+                resolved = resolved.union(TaintValue.dynamicSql());
+            }
+            long returnParams = summary.getReturnParams();
+            for (int i = 0; i < args.size() && i < TaintValue.MAX_PARAMS; i++) {
+                if ((returnParams & (1L << i)) != 0) {
+                    resolved = resolved.union(resolve(args.get(i)));
+                }
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * 调用方法时实参中的动态SQL是否会流向SQL执行方法
+     * @param key 被调方法调用键
+     * @param args 各实参的实际来源
+     * @return 流向SQL执行方法的动态SQL实参下标，没有时返回-1
+     */
+    public int dynamicSqlSinkArgument(String key, List<TaintValue> args) {
+        MethodSummary summary = get(key);
+        if (summary == null || summary.getSinkParams() == 0) {
+            return -1;
+        }
+        for (int i = 0; i < args.size() && i < TaintValue.MAX_PARAMS; i++) {
+            if ((summary.getSinkParams() & (1L << i)) != 0 && args.get(i).isDynamicSql()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 给定的方法中是否有参数会流向SQL执行方法
+     * @param keys 方法签名键或调用键
+     * @return 是否存在
+     */
+    public boolean hasSink(Collection<String> keys) {
+        for (String key : keys) {
+            MethodSummary summary = get(key);
+            if (summary != null && summary.getSinkParams() != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 计算给定方法摘要的指纹，用于判断依赖这些方法的审计结果是否仍然有效
+     * @param keys 方法签名键或调用键
+     * @return 指纹，给定方法都不在项目内时返回空字符串
+     */
+    public String fingerprint(Collection<String> keys) {
+        StringBuilder text = new StringBuilder();
+        for (String key : new TreeSet<>(keys)) {
+            MethodSummary summary = get(key);
+            if (summary != null) {
+                text.append(key).append('=').append(summary).append(';');
+            }
+        }
+        if (text.length() == 0) {
+            return "";
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        return HashUtils.sha256(bytes, 0, bytes.length).substring(0, 16);
+    }
+
+    /**
+     * 项目内方法签名键的数量
+     */
+    public int size() {
+        return summaries.size();
+    }
+
+    /**
+     * 由方法模型计算其摘要，被调方法使用当前已知的摘要
+     */
+    private MethodSummary summarize(MethodModel model) {
+        TaintValue returned = resolve(model.getReturnValue());
+        long sinkParams = 0;
+        for (TaintValue sinkArg : model.getSinkArgs()) {
+            sinkParams |= resolve(sinkArg).getParams();
+        }
+        for (TaintValue.CallTerm callSite : model.getCallSites()) {
+            MethodSummary callee = get(callSite.getKey());
+            if (callee == null || callee.getSinkParams() == 0) {
+                continue;
+            }
+            List<TaintValue> args = callSite.getArgs();
+            for (int i = 0; i < args.size() && i < TaintValue.MAX_PARAMS; i++) {
+                if ((callee.getSinkParams() & (1L << i)) != 0) {
+                    sinkParams |= resolve(args.get(i)).getParams();
+                }
+            }
+        }
+        return new MethodSummary(returned.getParams(), returned.isDynamicSql(), sinkParams);
+    }
+}
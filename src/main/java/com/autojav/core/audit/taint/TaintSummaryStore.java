@@ -0,0 +1,451 @@
+package com.autojav.core.audit.taint;
+
+import com.autojav.core.CodeParser;
+import com.autojav.core.ParseOutcome;
+import com.autojav.core.SourceFile;
+import com.autojav.core.pipeline.ParsePipeline;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 方法污点模型的持久化存储
+ * <p>
+ * 以文件路径为键保存该文件内容哈希及其中各方法的 {@link MethodModel}。
+ * 每次审计前只重新解析内容发生变化的文件，其余文件直接复用已保存的模型，
+ * 再由全部模型组合出项目级摘要；组合只涉及摘要求值，不需要语法树。
+ * 存储文件头记录工具版本与规则集版本，任一变化时全部失效。
+ * <p>
+ * 只审计部分文件时（如git变更集）用 {@link #refresh(List, File, CodeParser, int)} 只更新这些文件
+ * 及其直接或间接调用的方法所在的文件，后者按文件大小和修改时间判断是否需要重新解析。
+ * 更新时解析出的语法树可以保留下来（见 {@link #retainParsed(int)}），审计同一文件时直接取用，不必再次解析。
+ */
+@Slf4j
+public class TaintSummaryStore {
+
+    private static final String STORE_FILE_NAME = "taint-models.bin";
+
+    private static final int MAGIC = 0x414A5453;
+
+    private static final int FORMAT_VERSION = 3;
+
+    private final File storeFile;
+
+    private final String fingerprint;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private int reused;
+
+    private int analyzed;
+
+    private int retainLimit;
+
+    // 本次更新中解析出的结果，按文件路径保存，供审计时取用
+    private final Map<String, Retained> retained = new HashMap<>();
+
+    private TaintSummaryStore(File storeFile, String fingerprint) {
+        this.storeFile = storeFile;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * 打开存储，文件不存在、损坏或版本不一致时返回空存储
+     * @param directory 存储目录，为null时只在内存中保存
+     * @param fingerprint 工具版本与规则集版本组成的指纹
+     * @return 模型存储
+     */
+    public static TaintSummaryStore open(File directory, String fingerprint) {
+        TaintSummaryStore store = new TaintSummaryStore(
+                directory != null ? new File(directory, STORE_FILE_NAME) : null, fingerprint);
+        if (store.storeFile != null && store.storeFile.exists()) {
+            try {
+                store.load();
+            } catch (IOException | RuntimeException e) {
+                log.warn("污点模型读取失败，将重新建立: {}", e.getMessage());
+                store.entries.clear();
+            }
+        }
+        return store;
+    }
+
+    /**
+     * 更新目录下所有Java文件的模型：内容未变化的文件复用已有模型，其余文件重新解析；
+     * 该目录下已不存在的文件的模型被移除
+     * @param directory 目录
+     * @param recursive 是否递归
+     * @param parser 解析器
+     * @param threads 解析线程数
+     * @throws IOException IO异常
+     */
+    public void refresh(File directory, boolean recursive, CodeParser parser, int threads) throws IOException {
+        Set<String> seen = new HashSet<>();
+        synchronized (this) {
+            reused = 0;
+            analyzed = 0;
+        }
+        ParsePipeline<Entry> pipeline = new ParsePipeline<>(parser, threads);
+        pipeline.run(directory, recursive, source -> analyze(source, parser), entry -> {
+            seen.add(entry.path);
+            record(entry);
+        });
+        // 只清理本目录下已删除的文件，其他目录的模型保持不变
+        String prefix = pathKey(directory) + File.separator;
+        synchronized (this) {
+            entries.keySet().removeIf(path -> path.startsWith(prefix) && !seen.contains(path));
+        }
+    }
+
+    /**
+     * 只更新给定文件及其依赖的文件的模型
+     * <p>
+     * 给定文件按内容判断是否变化；它们调用的方法（按方法名与参数个数匹配，偏保守）所在的文件，
+     * 以及这些文件继续调用的方法所在的文件，按文件大小和修改时间判断是否过期，过期的重新解析，
+     * 已删除的移除。其他文件的模型不读取也不更新，它们不影响给定文件的审计结果。
+     * 存储中还没有该目录的任何模型时，退化为更新整个目录。
+     * @param files 需要更新的文件，如git变更集中的文件，已删除的文件的模型被移除
+     * @param directory 项目目录
+     * @param parser 解析器
+     * @param threads 解析线程数
+     * @throws IOException IO异常
+     */
+    public void refresh(List<File> files, File directory, CodeParser parser, int threads) throws IOException {
+        String prefix = pathKey(directory) + File.separator;
+        boolean known;
+        synchronized (this) {
+            known = entries.keySet().stream().anyMatch(path -> path.startsWith(prefix));
+        }
+        if (!known) {
+            refresh(directory, true, parser, threads);
+            return;
+        }
+        synchronized (this) {
+            reused = 0;
+            analyzed = 0;
+        }
+        Map<String, Set<String>> declaringFiles = declaringFiles();
+        Set<String> visited = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        List<File> stale = new ArrayList<>();
+        for (File file : files) {
+            String path = pathKey(file);
+            if (!visited.add(path)) {
+                continue;
+            }
+            if (file.isFile()) {
+                // 变更的文件总是按内容判断，修改时间可能因检出等操作而不变
+                stale.add(new File(path));
+            } else {
+                synchronized (this) {
+                    entries.remove(path);
+                }
+            }
+        }
+        ParsePipeline<Entry> pipeline = new ParsePipeline<>(parser, threads);
+        while (!stale.isEmpty()) {
+            List<Entry> updated = new ArrayList<>();
+            pipeline.run(stale, source -> analyze(source, parser), entry -> {
+                record(entry);
+                updated.add(entry);
+            });
+            stale = new ArrayList<>();
+            for (Entry entry : updated) {
+                enqueueCallees(entry, declaringFiles, visited, pending);
+            }
+            while (!pending.isEmpty()) {
+                String path = pending.poll();
+                File file = new File(path);
+                Entry entry = get(path);
+                if (!file.isFile()) {
+                    synchronized (this) {
+                        entries.remove(path);
+                    }
+                } else if (entry == null || entry.isStale(file)) {
+                    stale.add(file);
+                } else {
+                    synchronized (this) {
+                        reused++;
+                    }
+                    enqueueCallees(entry, declaringFiles, visited, pending);
+                }
+            }
+        }
+    }
+
+    /**
+     * 保留此后更新中重新解析的结果，供 {@link #takeParsed(SourceFile)} 取用
+     * 保留的语法树占用内存，超过上限的部分不再保留，审计时重新解析
+     * @param limit 最多保留的文件数，为0时不保留并丢弃已保留的结果
+     */
+    public synchronized void retainParsed(int limit) {
+        retainLimit = limit;
+        if (limit == 0) {
+            retained.clear();
+        }
+    }
+
+    /**
+     * 取出更新时为该文件保留的解析结果，取出后不再保留
+     * @param source 源文件
+     * @return 解析结果，没有保留或文件内容已变化时返回null
+     */
+    public synchronized ParseOutcome takeParsed(SourceFile source) {
+        Retained parsed = retained.remove(pathKey(source.getFile()));
+        return parsed != null && parsed.contentHash.equals(source.getContentHash()) ? parsed.outcome : null;
+    }
+
+    /**
+     * 由全部模型组合项目级摘要
+     * @return 方法摘要
+     */
+    public synchronized TaintSummaries compose() {
+        List<MethodModel> models = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            models.addAll(entry.models);
+        }
+        return TaintSummaries.compose(models);
+    }
+
+    /**
+     * 获取文件中调用的所有方法签名键，文件的审计结果只依赖这些方法的摘要
+     * @param file 文件
+     * @return 方法签名键，文件没有模型时为空集合
+     */
+    public synchronized Set<String> calledKeys(File file) {
+        Entry entry = entries.get(pathKey(file));
+        return entry != null ? entry.calledKeys : Collections.emptySet();
+    }
+
+    /**
+     * 最近一次更新中复用模型的文件数
+     */
+    public synchronized int getReused() {
+        return reused;
+    }
+
+    /**
+     * 最近一次更新中重新分析的文件数
+     */
+    public synchronized int getAnalyzed() {
+        return analyzed;
+    }
+
+    /**
+     * 保存到磁盘，只在内存中保存时不做任何事
+     * @throws IOException IO异常
+     */
+    public synchronized void save() throws IOException {
+        if (storeFile == null) {
+            return;
+        }
+        File directory = storeFile.getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+
+        File tempFile = new File(storeFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(fingerprint);
+            out.writeInt(entries.size());
+            for (Entry entry : entries.values()) {
+                out.writeUTF(entry.path);
+                out.writeUTF(entry.contentHash);
+                out.writeLong(entry.length);
+                out.writeLong(entry.lastModified);
+                out.writeInt(entry.models.size());
+                for (MethodModel model : entry.models) {
+                    model.write(out);
+                }
+                out.writeInt(entry.calledKeys.size());
+                for (String key : entry.calledKeys) {
+                    out.writeUTF(key);
+                }
+            }
+        }
+        Files.move(tempFile.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        log.debug("污点模型保存成功: {}", storeFile.getAbsolutePath());
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storeFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !fingerprint.equals(in.readUTF())) {
+                log.info("工具或规则集版本已变化，污点模型失效");
+                return;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String path = in.readUTF();
+                String contentHash = in.readUTF();
+                long length = in.readLong();
+                long lastModified = in.readLong();
+                int count = in.readInt();
+                List<MethodModel> models = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    models.add(MethodModel.read(in));
+                }
+                int keyCount = in.readInt();
+                Set<String> calledKeys = new HashSet<>(keyCount);
+                for (int j = 0; j < keyCount; j++) {
+                    calledKeys.add(in.readUTF());
+                }
+                entries.put(path, new Entry(path, contentHash, length, lastModified, models, calledKeys, false));
+            }
+        }
+        log.debug("污点模型加载成功: {} 个文件", entries.size());
+    }
+
+    private Entry analyze(SourceFile source, CodeParser parser) {
+        String path = pathKey(source.getFile());
+        long length = source.getFile().length();
+        long lastModified = source.getFile().lastModified();
+        Entry existing = get(path);
+        if (existing != null && existing.contentHash.equals(source.getContentHash())) {
+            return existing.reused(length, lastModified);
+        }
+        ParseOutcome outcome = parser.tryParse(source);
+        retain(path, source.getContentHash(), outcome);
+        CompilationUnit cu = outcome.getCompilationUnit();
+        if (cu == null) {
+            return new Entry(path, source.getContentHash(), length, lastModified,
+                    Collections.emptyList(), Collections.emptySet(), true);
+        }
+        Set<String> calledKeys = new HashSet<>();
+        for (MethodCallExpr call : cu.findAll(MethodCallExpr.class)) {
+            calledKeys.add(MethodTaint.keyOf(call));
+        }
+        return new Entry(path, source.getContentHash(), length, lastModified, MethodTaint.models(cu), calledKeys, true);
+    }
+
+    private synchronized void retain(String path, String contentHash, ParseOutcome outcome) {
+        if (retained.size() < retainLimit) {
+            retained.put(path, new Retained(contentHash, outcome));
+        }
+    }
+
+    private synchronized void record(Entry entry) {
+        if (entry.fresh) {
+            analyzed++;
+        } else {
+            reused++;
+        }
+        // 复用的模型同样写回，以更新记录的文件大小和修改时间
+        entries.put(entry.path, entry);
+    }
+
+    /**
+     * 按不带类型的调用键（方法名与参数个数）索引声明方法的文件
+     */
+    private synchronized Map<String, Set<String>> declaringFiles() {
+        Map<String, Set<String>> files = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            for (MethodModel model : entry.models) {
+                files.computeIfAbsent(model.getKey(), key -> new HashSet<>()).add(entry.path);
+            }
+        }
+        return files;
+    }
+
+    private static void enqueueCallees(Entry entry, Map<String, Set<String>> declaringFiles,
+                                       Set<String> visited, Deque<String> pending) {
+        for (String key : entry.calledKeys) {
+            // 带类型的调用键去掉类型部分，只按方法名与参数个数匹配
+            String name = key.substring(key.indexOf('.') + 1);
+            for (String path : declaringFiles.getOrDefault(name, Collections.emptySet())) {
+                if (visited.add(path)) {
+                    pending.add(path);
+                }
+            }
+        }
+        for (MethodModel model : entry.models) {
+            declaringFiles.computeIfAbsent(model.getKey(), key -> new HashSet<>()).add(entry.path);
+        }
+    }
+
+    private synchronized Entry get(String path) {
+        return entries.get(path);
+    }
+
+    private static String pathKey(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * 单个文件的模型
+     */
+    private static final class Entry {
+
+        private final String path;
+
+        private final String contentHash;
+
+        private final long length;
+
+        private final long lastModified;
+
+        private final List<MethodModel> models;
+
+        private final Set<String> calledKeys;
+
+        // 本次更新中重新分析得到的，需要写回存储
+        private final boolean fresh;
+
+        private Entry(String path, String contentHash, long length, long lastModified,
+                      List<MethodModel> models, Set<String> calledKeys, boolean fresh) {
+            this.path = path;
+            this.contentHash = contentHash;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.models = models;
+            this.calledKeys = Collections.unmodifiableSet(calledKeys);
+            this.fresh = fresh;
+        }
+
+        private Entry reused(long length, long lastModified) {
+            return new Entry(path, contentHash, length, lastModified, models, calledKeys, false);
+        }
+
+        /**
+         * 文件大小或修改时间与记录的不同时视为过期，需要重新读取
+         */
+        private boolean isStale(File file) {
+            return file.length() != length || file.lastModified() != lastModified;
+        }
+    }
+
+    /**
+     * 更新时保留的解析结果
+     */
+    private static final class Retained {
+
+        private final String contentHash;
+
+        private final ParseOutcome outcome;
+
+        private Retained(String contentHash, ParseOutcome outcome) {
+            this.contentHash = contentHash;
+            this.outcome = outcome;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.autojav.core.audit.taint;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 方法内某个值的污点来源（符号形式）
+ * <p>
+ * 来源包括：方法参数（按下标记录在位掩码中）、值本身是否为拼接了变量的动态SQL，
+ * 以及流入该值的方法调用返回值。调用返回值在组合摘要时才根据被调方法的摘要求值，
+ * 因此一个方法的符号模型只依赖它自己的方法体，方法体不变时可直接复用。
+ * 实例不可变。
+ */
+public final class TaintValue {
+
+    /**
+     * 无任何来源的值，如常量
+     */
+    public static final TaintValue EMPTY = new TaintValue(0L, false, Collections.emptyList());
+
+    /**
+     * 调用嵌套的最大深度，超过时展开为参数与动态SQL标记，避免循环赋值导致无限增长
+     */
+    static final int MAX_DEPTH = 3;
+
+    /**
+     * 单个值最多记录的调用数
+     */
+    static final int MAX_CALLS = 16;
+
+    /**
+     * 只跟踪前64个参数
+     */
+    static final int MAX_PARAMS = 64;
+
+    private final long params;
+
+    private final boolean dynamicSql;
+
+    private final List<CallTerm> calls;
+
+    private TaintValue(long params, boolean dynamicSql, List<CallTerm> calls) {
+        this.params = params;
+        this.dynamicSql = dynamicSql;
+        this.calls = calls;
+    }
+
+    public static TaintValue param(int index) {
+        return index < MAX_PARAMS ? new TaintValue(1L << index, false, Collections.emptyList()) : EMPTY;
+    }
+
+    public static TaintValue dynamicSql() {
+        return new TaintValue(0L, true, Collections.emptyList());
+    }
+
+    /**
+     * 方法调用的返回值
+     * @param key 被调方法调用键，见 {@link MethodTaint#keyOf(com.github.javaparser.ast.expr.MethodCallExpr)}
+     * @param receiver 调用者对象的来源
+     * @param args 各实参的来源
+     * @return 调用返回值的来源
+     */
+    public static TaintValue call(String key, TaintValue receiver, List<TaintValue> args) {
+        int depth = receiver.depth();
+        for (TaintValue arg : args) {
+            depth = Math.max(depth, arg.depth());
+        }
+        CallTerm term = new CallTerm(key, receiver, args);
+        if (depth >= MAX_DEPTH) {
+            return term.flatten();
+        }
+        return new TaintValue(0L, false, Collections.singletonList(term));
+    }
+
+    /**
+     * 合并两个来源
+     */
+    public TaintValue union(TaintValue other) {
+        if (other == EMPTY || other.equals(this)) {
+            return this;
+        }
+        if (this == EMPTY) {
+            return other;
+        }
+        Set<CallTerm> merged = new LinkedHashSet<>(calls);
+        merged.addAll(other.calls);
+        if (merged.size() > MAX_CALLS) {
+            // 调用过多时展开，保留参数与动态SQL信息
+            return flatten().unionFlat(other.flatten());
+        }
+        return new TaintValue(params | other.params, dynamicSql || other.dynamicSql,
+                Collections.unmodifiableList(new ArrayList<>(merged)));
+    }
+
+    private TaintValue unionFlat(TaintValue other) {
+        return new TaintValue(params | other.params, dynamicSql || other.dynamicSql, Collections.emptyList());
+    }
+
+    /**
+     * 不区分被调方法、把调用中出现的所有来源合并到一起
+     */
+    TaintValue flatten() {
+        TaintValue flat = new TaintValue(params, dynamicSql, Collections.emptyList());
+        for (CallTerm call : calls) {
+            flat = flat.unionFlat(call.flatten());
+        }
+        return flat;
+    }
+
+    /**
+     * 去掉调用、只保留参数与动态SQL标记
+     */
+    TaintValue withoutCalls() {
+        return calls.isEmpty() ? this : new TaintValue(params, dynamicSql, Collections.emptyList());
+    }
+
+    int depth() {
+        int depth = 0;
+        for (CallTerm call : calls) {
+            depth = Math.max(depth, call.depth());
+        }
+        return depth;
+    }
+
+    public long getParams() {
+        return params;
+    }
+
+    public boolean isDynamicSql() {
+        return dynamicSql;
+    }
+
+    public List<CallTerm> getCalls() {
+        return calls;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeLong(params);
+        out.writeBoolean(dynamicSql);
+        out.writeInt(calls.size());
+        for (CallTerm call : calls) {
+            call.write(out);
+        }
+    }
+
+    static TaintValue read(DataInputStream in) throws IOException {
+        long params = in.readLong();
+        boolean dynamicSql = in.readBoolean();
+        int count = in.readInt();
+        if (params == 0 && !dynamicSql && count == 0) {
+            return EMPTY;
+        }
+        List<CallTerm> calls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            calls.add(CallTerm.read(in));
+        }
+        return new TaintValue(params, dynamicSql, Collections.unmodifiableList(calls));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TaintValue)) {
+            return false;
+        }
+        TaintValue other = (TaintValue) o;
+        return params == other.params && dynamicSql == other.dynamicSql && calls.equals(other.calls);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(params, dynamicSql, calls);
+    }
+
+    /**
+     * 流入某个值的一次方法调用
+     */
+    public static final class CallTerm {
+
+        private final String key;
+
+        private final TaintValue receiver;
+
+        private final List<TaintValue> args;
+
+        private CallTerm(String key, TaintValue receiver, List<TaintValue> args) {
+            this.key = key;
+            this.receiver = receiver;
+            this.args = Collections.unmodifiableList(new ArrayList<>(args));
+        }
+
+        static CallTerm of(String key, TaintValue receiver, List<TaintValue> args) {
+            return new CallTerm(key, receiver, args);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public TaintValue getReceiver() {
+            return receiver;
+        }
+
+        public List<TaintValue> getArgs() {
+            return args;
+        }
+
+        TaintValue flatten() {
+            TaintValue flat = receiver.flatten();
+            for (TaintValue arg : args) {
+                flat = flat.unionFlat(arg.flatten());
+            }
+            return flat;
+        }
+
+        int depth() {
+            int depth = receiver.depth();
+            for (TaintValue arg : args) {
+                depth = Math.max(depth, arg.depth());
+            }
+            return depth + 1;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(key);
+            receiver.write(out);
+            out.writeInt(args.size());
+            for (TaintValue arg : args) {
+                arg.write(out);
+            }
+        }
+
+        static CallTerm read(DataInputStream in) throws IOException {
+            String key = in.readUTF();
+            TaintValue receiver = TaintValue.read(in);
+            int count = in.readInt();
+            List<TaintValue> args = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                args.add(TaintValue.read(in));
+            }
+            return new CallTerm(key, receiver, args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CallTerm)) {
+                return false;
+            }
+            CallTerm other = (CallTerm) o;
+            return key.equals(other.key) && receiver.equals(other.receiver) && args.equals(other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, receiver, args);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.autojav.core.cache;
+
+import com.autojav.core.HashUtils;
+import com.autojav.core.audit.AuditResult;
+import com.autojav.core.audit.AuditRule;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 审计结果缓存
+ * <p>
+ * 以文件内容哈希为键保存该文件的审计结果，内容未变化的文件无需再次解析和审计。
+ * 缓存文件头记录工具版本与规则集版本，任一变化时整个缓存失效。
+ * 条目数超过上限时按最近最少使用淘汰。
+ */
+@Slf4j
+public class AuditCache {
+
+    /**
+     * 默认缓存目录
+     */
+    public static final String DEFAULT_DIR = ".autojav" + File.separator + "cache";
+
+    /**
+     * 默认最大条目数
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    private static final String CACHE_FILE_NAME = "audit-results.bin";
+
+    private static final int MAGIC = 0x414A4143;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final File cacheFile;
+
+    private final String fingerprint;
+
+    private final int maxEntries;
+
+    private final Map<String, List<AuditResult>> entries;
+
+    private boolean invalidated;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private AuditCache(File directory, String fingerprint, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("缓存条目上限必须大于0: " + maxEntries);
+        }
+        this.cacheFile = new File(directory, CACHE_FILE_NAME);
+        this.fingerprint = fingerprint;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, List<AuditResult>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<AuditResult>> eldest) {
+                if (size() > AuditCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 打开缓存，缓存文件不存在、损坏或版本不一致时返回空缓存
+     * @param directory 缓存目录
+     * @param fingerprint 工具版本与规则集版本组成的指纹
+     * @param maxEntries 最大条目数
+     * @return 审计结果缓存
+     */
+    public static AuditCache open(File directory, String fingerprint, int maxEntries) {
+        AuditCache cache = new AuditCache(directory, fingerprint, maxEntries);
+        if (cache.cacheFile.exists()) {
+            try {
+                cache.load();
+            } catch (IOException | RuntimeException e) {
+                log.warn("审计缓存读取失败，将重新建立: {}", e.getMessage());
+                cache.entries.clear();
+                cache.invalidated = true;
+            }
+        }
+        cache.evictions = 0;
+        return cache;
+    }
+
+    /**
+     * 计算文件内容哈希
+     * @param content 文件内容
+     * @return 十六进制SHA-256哈希
+     */
+    public static String hash(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return HashUtils.sha256(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 查询缓存
+     * @param contentHash 文件内容哈希
+     * @param filePath 当前文件路径，缓存结果中的文件路径替换为该值
+     * @return 审计结果列表，未命中时返回null
+     */
+    public synchronized List<AuditResult> get(String contentHash, String filePath) {
+        List<AuditResult> cached = entries.get(contentHash);
+        if (cached == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        List<AuditResult> results = new ArrayList<>(cached.size());
+        for (AuditResult result : cached) {
+            results.add(new AuditResult(result.getRuleName(), result.getSeverity(), result.getMessage(),
+                    filePath, result.getLine(), result.getColumn(), result.getFixSuggestion()));
+        }
+        return results;
+    }
+
+    /**
+     * 写入缓存
+     * @param contentHash 文件内容哈希
+     * @param results 审计结果列表
+     */
+    public synchronized void put(String contentHash, List<AuditResult> results) {
+        List<AuditResult> stored = new ArrayList<>(results.size());
+        for (AuditResult result : results) {
+            stored.add(new AuditResult(result.getRuleName(), result.getSeverity(), result.getMessage(),
+                    null, result.getLine(), result.getColumn(), result.getFixSuggestion()));
+        }
+        entries.put(contentHash, Collections.unmodifiableList(stored));
+    }
+
+    /**
+     * 保存缓存到磁盘
+     * @throws IOException IO异常
+     */
+    public synchronized void save() throws IOException {
+        File directory = cacheFile.getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+
+        File tempFile = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(fingerprint);
+            out.writeInt(entries.size());
+            // 按访问顺序写出，下次加载后保持LRU顺序
+            for (Map.Entry<String, List<AuditResult>> entry : entries.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (AuditResult result : entry.getValue()) {
+                    out.writeUTF(result.getRuleName());
+                    out.writeUTF(result.getSeverity().name());
+                    out.writeUTF(result.getMessage());
+                    out.writeInt(result.getLine());
+                    out.writeInt(result.getColumn());
+                    out.writeBoolean(result.getFixSuggestion() != null);
+                    if (result.getFixSuggestion() != null) {
+                        out.writeUTF(result.getFixSuggestion());
+                    }
+                }
+            }
+        }
+        Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        log.debug("审计缓存保存成功: {}", cacheFile.getAbsolutePath());
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !fingerprint.equals(in.readUTF())) {
+                log.info("工具或规则集版本已变化，审计缓存失效");
+                invalidated = true;
+                return;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String key = in.readUTF();
+                int count = in.readInt();
+                List<AuditResult> results = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    String ruleName = in.readUTF();
+                    AuditRule.Severity severity = AuditRule.Severity.valueOf(in.readUTF());
+                    String message = in.readUTF();
+                    int line = in.readInt();
+                    int column = in.readInt();
+                    String fixSuggestion = in.readBoolean() ? in.readUTF() : null;
+                    results.add(new AuditResult(ruleName, severity, message, null, line, column, fixSuggestion));
+                }
+                entries.put(key, Collections.unmodifiableList(results));
+            }
+        }
+        log.debug("审计缓存加载成功: {} 条", entries.size());
+    }
+
+    /**
+     * 缓存是否因版本变化或文件损坏而失效
+     * @return 是否失效
+     */
+    public synchronized boolean isInvalidated() {
+        return invalidated;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 获取缓存统计信息
+     * @return 统计信息
+     */
+    public synchronized String getStatistics() {
+        long total = hits + misses;
+        long hitRate = total == 0 ? 0 : hits * 100 / total;
+        return "命中 " + hits + "，未命中 " + misses + "，命中率 " + hitRate + "%，淘汰 " + evictions
+                + "，条目 " + entries.size() + "/" + maxEntries;
+    }
+}
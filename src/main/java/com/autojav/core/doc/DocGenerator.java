@@ -1,12 +1,20 @@
 package com.autojav.core.doc;
 
+import com.autojav.core.index.FileSymbols;
+import com.autojav.core.index.ProjectIndex;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 
 import java.io.File;
 import java.util.List;
 
 public interface DocGenerator {
 
+    /**
+     * 标识需要生成接口文档的类的注解
+     */
+    List<String> CONTROLLER_ANNOTATIONS = List.of("RestController", "Controller");
+
     /**
      * 生成文档
      * @param compilationUnits 编译单元列表
@@ -23,6 +31,36 @@ public interface DocGenerator {
      */
     void generateAndSave(List<CompilationUnit> compilationUnits, File outputFile) throws DocGenerationException;
 
+    /**
+     * 判断编译单元是否包含需要生成文档的内容，默认为带有Controller注解的类
+     * 流式解析时只保留返回true的编译单元，其余语法树解析后即可释放
+     * @param compilationUnit 编译单元
+     * @return 是否需要保留
+     */
+    default boolean accepts(CompilationUnit compilationUnit) {
+        return compilationUnit.findAll(ClassOrInterfaceDeclaration.class).stream()
+                .anyMatch(clazz -> clazz.getAnnotations().stream()
+                        .anyMatch(annotation -> CONTROLLER_ANNOTATIONS.contains(annotation.getNameAsString())));
+    }
+
+    /**
+     * 根据项目索引中保存的文件符号判断是否可能包含需要生成文档的内容
+     * 返回false的文件不必解析，因此不能漏掉 {@link #accepts(CompilationUnit)} 会接受的文件
+     * @param symbols 文件符号
+     * @return 是否需要解析
+     */
+    default boolean accepts(FileSymbols symbols) {
+        return CONTROLLER_ANNOTATIONS.stream().anyMatch(symbols::hasTypeAnnotation);
+    }
+
+    /**
+     * 设置项目索引，生成文档时可查询其他文件中声明的类型与成员，不必保留或解析这些文件的语法树
+     * 默认不使用索引
+     * @param projectIndex 项目索引
+     */
+    default void setProjectIndex(ProjectIndex projectIndex) {
+    }
+
     /**
      * 获取文档格式
      * @return 文档格式
@@ -1,6 +1,10 @@
 package com.autojav.core.doc;
 
+import com.autojav.core.index.FileSymbols;
+import com.autojav.core.index.ProjectIndex;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
@@ -8,16 +12,21 @@ import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.MemberValuePair;
 import com.github.javaparser.ast.expr.NormalAnnotationExpr;
 import com.github.javaparser.ast.expr.SingleMemberAnnotationExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
 public class MarkdownDocGenerator implements DocGenerator {
 
+    private ProjectIndex projectIndex;
+
     @Override
     public String generate(List<CompilationUnit> compilationUnits) throws DocGenerationException {
         StringBuilder markdown = new StringBuilder();
@@ -56,7 +65,7 @@ public class MarkdownDocGenerator implements DocGenerator {
                                 for (Parameter param : parameters) {
                                     String paramName = param.getNameAsString();
                                     String paramType = param.getTypeAsString();
-                                    String paramDesc = extractParamDescription(param);
+                                    String paramDesc = extractParamDescription(cu, param);
                                     markdown.append("| " + paramName + " | " + paramType + " | " + paramDesc + " |\n");
                                 }
                                 markdown.append("\n");
@@ -94,6 +103,11 @@ public class MarkdownDocGenerator implements DocGenerator {
         }
     }
 
+    @Override
+    public void setProjectIndex(ProjectIndex projectIndex) {
+        this.projectIndex = projectIndex;
+    }
+
     @Override
     public String getFormat() {
         return "markdown";
@@ -175,13 +189,68 @@ public class MarkdownDocGenerator implements DocGenerator {
     }
 
     /**
-     * 提取参数描述
+     * 提取参数描述：参数类型（或集合的元素类型）是项目中声明的类型时，从项目索引中列出其字段
+     * @param cu 参数所在的编译单元，用于按导入和包名确定类型
      * @param parameter 参数
      * @return 参数描述
      */
-    private String extractParamDescription(Parameter parameter) {
-        // 简单实现，后续可以通过注解提取更详细的描述
-        return "";
+    private String extractParamDescription(CompilationUnit cu, Parameter parameter) {
+        if (projectIndex == null) {
+            return "";
+        }
+        String typeName = elementTypeName(parameter.getType());
+        String type = typeName != null ? resolveType(cu, typeName) : null;
+        if (type == null) {
+            return "";
+        }
+        List<String> fields = new ArrayList<>();
+        for (String member : projectIndex.membersOf(type)) {
+            if (projectIndex.kindOf(member) == FileSymbols.Kind.FIELD) {
+                fields.add(member.substring(member.indexOf('#') + 1));
+            }
+        }
+        return fields.isEmpty() ? "" : "字段: " + String.join(", ", fields);
+    }
+
+    /**
+     * 获取参数类型的简单名称，数组取元素类型，带类型参数的取最后一个类型参数（如 List&lt;UserDto&gt; 取 UserDto）
+     * @param type 参数类型
+     * @return 简单名称，基本类型返回null
+     */
+    private static String elementTypeName(Type type) {
+        Type element = type.getElementType();
+        if (!(element instanceof ClassOrInterfaceType)) {
+            return null;
+        }
+        ClassOrInterfaceType classType = (ClassOrInterfaceType) element;
+        NodeList<Type> arguments = classType.getTypeArguments().orElse(null);
+        if (arguments != null && !arguments.isEmpty()) {
+            return elementTypeName(arguments.get(arguments.size() - 1));
+        }
+        return classType.getNameAsString();
+    }
+
+    /**
+     * 按单类型导入、同包、项目内唯一同名类型的顺序确定类型的全限定名
+     * @param cu 引用该类型的编译单元
+     * @param simpleName 类型简单名称
+     * @return 全限定名，不是项目中声明的类型或无法确定时返回null
+     */
+    private String resolveType(CompilationUnit cu, String simpleName) {
+        for (ImportDeclaration importDeclaration : cu.getImports()) {
+            if (!importDeclaration.isStatic() && !importDeclaration.isAsterisk()
+                    && importDeclaration.getName().getIdentifier().equals(simpleName)) {
+                String imported = importDeclaration.getNameAsString();
+                return projectIndex.kindOf(imported) == FileSymbols.Kind.TYPE ? imported : null;
+            }
+        }
+        String samePackage = cu.getPackageDeclaration()
+                .map(declaration -> declaration.getNameAsString() + ".").orElse("") + simpleName;
+        if (projectIndex.kindOf(samePackage) == FileSymbols.Kind.TYPE) {
+            return samePackage;
+        }
+        List<String> candidates = projectIndex.typesNamed(simpleName);
+        return candidates.size() == 1 ? candidates.get(0) : null;
     }
 
     /**
@@ -0,0 +1,208 @@
+package com.autojav.core.git;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基于本地git仓库计算的变更集：变更的Java文件及其新增/修改的行范围
+ * <p>
+ * 通过 {@code git diff -U0} 获取变更块，只记录新文件一侧的行号。
+ * 相对于指定版本计算时，未跟踪（且未被忽略）的新文件整个视为变更。
+ * 审计读取的是工作区文件，暂存模式下若同一文件还有未暂存的修改，行号可能存在偏差。
+ */
+@Slf4j
+public class GitChangeSet {
+
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -\\d+(?:,\\d+)? \\+(\\d+)(?:,(\\d+))? @@");
+
+    private final Map<Path, List<int[]>> changedLines;
+
+    GitChangeSet(Map<Path, List<int[]>> changedLines) {
+        this.changedLines = changedLines;
+    }
+
+    /**
+     * 计算工作区相对于指定版本的变更，包括未跟踪的新文件
+     * @param workDir 仓库内的任意目录
+     * @param revision 基准版本，如 origin/main、HEAD~1
+     * @return 变更集
+     * @throws IOException git命令执行失败
+     */
+    public static GitChangeSet since(File workDir, String revision) throws IOException {
+        if (revision == null || revision.isEmpty() || revision.startsWith("-")) {
+            throw new IllegalArgumentException("无效的git版本: " + revision);
+        }
+        File directory = directoryOf(workDir);
+        Path topLevel = topLevel(directory);
+        GitChangeSet changeSet = diff(directory, topLevel, revision);
+        String untracked = git(directory, "ls-files", "-z", "--others", "--exclude-standard", "--full-name", "--", "*.java");
+        for (String name : untracked.split("\0")) {
+            if (!name.isEmpty()) {
+                changeSet.changedLines.putIfAbsent(normalize(topLevel.resolve(name)),
+                        Collections.singletonList(new int[]{1, Integer.MAX_VALUE}));
+            }
+        }
+        return changeSet;
+    }
+
+    /**
+     * 计算暂存区相对于HEAD的变更
+     * @param workDir 仓库内的任意目录
+     * @return 变更集
+     * @throws IOException git命令执行失败
+     */
+    public static GitChangeSet staged(File workDir) throws IOException {
+        File directory = directoryOf(workDir);
+        return diff(directory, topLevel(directory), "--cached");
+    }
+
+    private static GitChangeSet diff(File directory, Path topLevel, String target) throws IOException {
+        // 显式指定前缀和路径基准，不受用户配置的 diff.noprefix / diff.mnemonicPrefix / diff.relative 影响
+        String diff = git(directory, "-c", "core.quotePath=false", "diff", "--no-ext-diff", "--no-color", "--no-relative",
+                "--src-prefix=a/", "--dst-prefix=b/", "-U0", "--diff-filter=ACMR", target, "--", "*.java");
+        GitChangeSet changeSet = parseDiff(topLevel, diff);
+        log.debug("git变更文件数: {}", changeSet.changedLines.size());
+        return changeSet;
+    }
+
+    private static File directoryOf(File workDir) {
+        return workDir.isDirectory() ? workDir : workDir.getAbsoluteFile().getParentFile();
+    }
+
+    private static Path topLevel(File directory) throws IOException {
+        return Paths.get(git(directory, "rev-parse", "--show-toplevel").trim());
+    }
+
+    /**
+     * 解析 {@code git diff -U0} 的输出
+     * @param topLevel 仓库根目录
+     * @param diff diff输出
+     * @return 变更集
+     */
+    static GitChangeSet parseDiff(Path topLevel, String diff) {
+        Map<Path, List<int[]>> changedLines = new LinkedHashMap<>();
+        List<int[]> current = null;
+        for (String line : diff.split("\n")) {
+            if (line.startsWith("+++ ")) {
+                String name = line.substring(4).trim();
+                if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\"")) {
+                    name = name.substring(1, name.length() - 1);
+                }
+                if (name.equals("/dev/null")) {
+                    current = null;
+                } else {
+                    if (name.startsWith("b/")) {
+                        name = name.substring(2);
+                    }
+                    current = new ArrayList<>();
+                    changedLines.put(normalize(topLevel.resolve(name)), current);
+                }
+            } else if (line.startsWith("@@") && current != null) {
+                Matcher matcher = HUNK_HEADER.matcher(line);
+                if (matcher.find()) {
+                    int start = Integer.parseInt(matcher.group(1));
+                    int count = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 1;
+                    // 纯删除的变更块在新文件中没有对应的行
+                    if (count > 0) {
+                        current.add(new int[]{start, start + count - 1});
+                    }
+                }
+            }
+        }
+        return new GitChangeSet(changedLines);
+    }
+
+    /**
+     * 获取变更的文件
+     * @return 文件绝对路径列表
+     */
+    public List<Path> getFiles() {
+        return Collections.unmodifiableList(new ArrayList<>(changedLines.keySet()));
+    }
+
+    /**
+     * 检查文件的指定行是否在变更范围内
+     * @param file 文件路径
+     * @param line 行号
+     * @return 是否变更
+     */
+    public boolean isChanged(Path file, int line) {
+        List<int[]> ranges = changedLines.get(normalize(file));
+        if (ranges == null) {
+            return false;
+        }
+        for (int[] range : ranges) {
+            if (line >= range[0] && line <= range[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 统一路径形式，git输出的是物理路径，工作目录可能经过符号链接
+     */
+    private static Path normalize(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    private static String git(File directory, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        // 错误输出写入临时文件：两个管道依次读取时，git写满错误输出的管道缓冲区后会阻塞（如大量换行符警告）
+        Path errorFile = Files.createTempFile("autojav-git", ".err");
+        try {
+            Process process = new ProcessBuilder(command).directory(directory)
+                    .redirectError(errorFile.toFile())
+                    .start();
+            String output = readFully(process.getInputStream());
+            try {
+                int exitCode = process.waitFor();
+                if (exitCode != 0) {
+                    String error = new String(Files.readAllBytes(errorFile), StandardCharsets.UTF_8);
+                    throw new IOException("git命令执行失败: " + String.join(" ", command) + " - " + error.trim());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroy();
+                throw new IOException("git命令被中断: " + String.join(" ", command), e);
+            }
+            return output;
+        } finally {
+            Files.deleteIfExists(errorFile);
+        }
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = input.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8.name());
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.autojav.core.index;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 单个文件中声明的符号：类型、字段、方法及其注解和方法调用
+ * <p>
+ * 只由文件内容决定，可随文件内容哈希一起持久化，文件不变时无需再次解析。
+ * 方法调用按方法名与参数个数记录；只解析声明结构（方法体为空）时没有调用信息。
+ * 实例不可变。
+ */
+public final class FileSymbols {
+
+    /**
+     * 声明的种类
+     */
+    public enum Kind {
+        TYPE, FIELD, METHOD, CONSTRUCTOR
+    }
+
+    private final List<Declaration> declarations;
+
+    private FileSymbols(List<Declaration> declarations) {
+        this.declarations = Collections.unmodifiableList(declarations);
+    }
+
+    /**
+     * 从编译单元提取符号
+     * @param compilationUnit 编译单元
+     * @return 文件符号
+     */
+    public static FileSymbols of(CompilationUnit compilationUnit) {
+        List<Declaration> declarations = new ArrayList<>();
+        Map<TypeDeclaration<?>, Integer> typeIndexes = new IdentityHashMap<>();
+        // findAll为先序遍历，外层类型总在内层类型之前
+        for (TypeDeclaration<?> type : compilationUnit.findAll(TypeDeclaration.class)) {
+            int owner = type.getParentNode()
+                    .filter(parent -> parent instanceof TypeDeclaration)
+                    .map(parent -> typeIndexes.getOrDefault(parent, -1))
+                    .orElse(-1);
+            String name = type.getFullyQualifiedName().orElse(type.getNameAsString());
+            int typeIndex = declarations.size();
+            typeIndexes.put(type, typeIndex);
+            declarations.add(new Declaration(Kind.TYPE, owner, name, annotationNames(type), Collections.emptyList()));
+
+            for (BodyDeclaration<?> member : type.getMembers()) {
+                if (member instanceof FieldDeclaration) {
+                    List<String> annotations = annotationNames(member);
+                    for (VariableDeclarator variable : ((FieldDeclaration) member).getVariables()) {
+                        declarations.add(new Declaration(Kind.FIELD, typeIndex, variable.getNameAsString(),
+                                annotations, Collections.emptyList()));
+                    }
+                } else if (member instanceof MethodDeclaration || member instanceof ConstructorDeclaration) {
+                    CallableDeclaration<?> callable = (CallableDeclaration<?>) member;
+                    String callableName = member instanceof ConstructorDeclaration ? "<init>" : callable.getNameAsString();
+                    declarations.add(new Declaration(
+                            member instanceof ConstructorDeclaration ? Kind.CONSTRUCTOR : Kind.METHOD,
+                            typeIndex, callableName + "/" + callable.getParameters().size(),
+                            annotationNames(member), calledKeys(callable)));
+                }
+            }
+        }
+        return new FileSymbols(declarations);
+    }
+
+    public List<Declaration> getDeclarations() {
+        return declarations;
+    }
+
+    /**
+     * 文件中是否有类型带有指定注解
+     * @param annotation 注解简单名称
+     * @return 是否存在
+     */
+    public boolean hasTypeAnnotation(String annotation) {
+        for (Declaration declaration : declarations) {
+            if (declaration.kind == Kind.TYPE && declaration.annotations.contains(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取声明的完整名称：类型为全限定名，成员为 {@code 类型#名称}
+     * @param declaration 本文件中的声明
+     * @return 完整名称
+     */
+    public String qualifiedName(Declaration declaration) {
+        if (declaration.kind == Kind.TYPE) {
+            return declaration.name;
+        }
+        return declarations.get(declaration.owner).name + "#" + declaration.name;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(declarations.size());
+        for (Declaration declaration : declarations) {
+            out.writeByte(declaration.kind.ordinal());
+            out.writeInt(declaration.owner);
+            out.writeUTF(declaration.name);
+            writeStrings(out, declaration.annotations);
+            writeStrings(out, declaration.calls);
+        }
+    }
+
+    public static FileSymbols read(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<Declaration> declarations = new ArrayList<>(count);
+        Kind[] kinds = Kind.values();
+        for (int i = 0; i < count; i++) {
+            Kind kind = kinds[in.readByte()];
+            int owner = in.readInt();
+            String name = in.readUTF();
+            List<String> annotations = readStrings(in);
+            List<String> calls = readStrings(in);
+            declarations.add(new Declaration(kind, owner, name, annotations, calls));
+        }
+        return new FileSymbols(declarations);
+    }
+
+    private static List<String> annotationNames(BodyDeclaration<?> declaration) {
+        if (declaration.getAnnotations().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>(declaration.getAnnotations().size());
+        for (AnnotationExpr annotation : declaration.getAnnotations()) {
+            names.add(annotation.getNameAsString());
+        }
+        return names;
+    }
+
+    private static List<String> calledKeys(CallableDeclaration<?> callable) {
+        TreeSet<String> keys = new TreeSet<>();
+        for (MethodCallExpr call : callable.findAll(MethodCallExpr.class)) {
+            keys.add(call.getNameAsString() + "/" + call.getArguments().size());
+        }
+        return keys.isEmpty() ? Collections.emptyList() : new ArrayList<>(keys);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            out.writeUTF(string);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+
+    /**
+     * 单个声明
+     */
+    public static final class Declaration {
+
+        private final Kind kind;
+
+        // 所属类型在本文件声明列表中的下标，顶层类型为-1
+        private final int owner;
+
+        private final String name;
+
+        private final List<String> annotations;
+
+        private final List<String> calls;
+
+        private Declaration(Kind kind, int owner, String name, List<String> annotations, List<String> calls) {
+            this.kind = kind;
+            this.owner = owner;
+            this.name = name;
+            this.annotations = Collections.unmodifiableList(annotations);
+            this.calls = Collections.unmodifiableList(calls);
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getOwner() {
+            return owner;
+        }
+
+        /**
+         * 名称：类型为全限定名，字段为字段名，方法为 {@code 方法名/参数个数}，构造器为 {@code <init>/参数个数}
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 注解简单名称
+         */
+        public List<String> getAnnotations() {
+            return annotations;
+        }
+
+        /**
+         * 方法体中调用的方法，形如 {@code 方法名/参数个数}
+         */
+        public List<String> getCalls() {
+            return calls;
+        }
+    }
+}
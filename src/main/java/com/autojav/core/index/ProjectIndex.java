@@ -0,0 +1,231 @@
+package com.autojav.core.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 项目级符号索引：类型到成员、方法到调用方/被调方、注解到声明
+ * <p>
+ * 由各文件的 {@link FileSymbols} 合并而成，不需要语法树，可由 {@link ProjectIndexStore#build()}
+ * 从持久化的文件符号直接构建。名称统一编号后，关系以编号为下标的整数数组保存，
+ * 查询为一次哈希查找加数组访问。方法调用未做类型解析，按方法名与参数个数匹配；
+ * 只解析声明结构时方法体为空，没有调用关系。构建完成后实例只读，可在多个线程间共享。
+ */
+public final class ProjectIndex {
+
+    private static final int[] NONE = new int[0];
+
+    // 类型与成员的完整名称：类型为全限定名，成员为 类型#名称
+    private final SymbolTable declarations = new SymbolTable();
+
+    private final SymbolTable annotations = new SymbolTable();
+
+    private final SymbolTable simpleNames = new SymbolTable();
+
+    // 方法调用键：方法名/参数个数
+    private final SymbolTable callKeys = new SymbolTable();
+
+    // 声明编号 -> 种类
+    private FileSymbols.Kind[] kinds;
+
+    // 类型编号 -> 成员编号
+    private int[][] members;
+
+    // 注解编号 -> 声明编号
+    private int[][] annotated;
+
+    // 简单名称编号 -> 类型编号
+    private int[][] namedTypes;
+
+    // 方法编号 -> 调用键编号
+    private int[][] callees;
+
+    // 调用键编号 -> 调用方方法编号
+    private int[][] callers;
+
+    // 调用键编号 -> 具有该名称与参数个数的方法编号
+    private int[][] implementations;
+
+    private ProjectIndex() {
+    }
+
+    /**
+     * 合并各文件的符号构建索引
+     * @param files 各文件的符号
+     * @return 项目索引
+     */
+    public static ProjectIndex build(Collection<FileSymbols> files) {
+        ProjectIndex index = new ProjectIndex();
+        IntLists memberLists = new IntLists();
+        IntLists annotatedLists = new IntLists();
+        IntLists namedTypeLists = new IntLists();
+        IntLists calleeLists = new IntLists();
+        IntLists callerLists = new IntLists();
+        IntLists implementationLists = new IntLists();
+        List<FileSymbols.Kind> kinds = new ArrayList<>();
+
+        for (FileSymbols file : files) {
+            for (FileSymbols.Declaration declaration : file.getDeclarations()) {
+                int id = index.declarations.intern(file.qualifiedName(declaration));
+                if (id == kinds.size()) {
+                    kinds.add(declaration.getKind());
+                }
+                if (declaration.getKind() == FileSymbols.Kind.TYPE) {
+                    String name = declaration.getName();
+                    namedTypeLists.add(index.simpleNames.intern(name.substring(name.lastIndexOf('.') + 1)), id);
+                } else {
+                    int owner = index.declarations.intern(file.qualifiedName(file.getDeclarations().get(declaration.getOwner())));
+                    memberLists.add(owner, id);
+                }
+                for (String annotation : declaration.getAnnotations()) {
+                    annotatedLists.add(index.annotations.intern(annotation), id);
+                }
+                if (declaration.getKind() == FileSymbols.Kind.METHOD) {
+                    implementationLists.add(index.callKeys.intern(declaration.getName()), id);
+                }
+                for (String call : declaration.getCalls()) {
+                    int key = index.callKeys.intern(call);
+                    calleeLists.add(id, key);
+                    callerLists.add(key, id);
+                }
+            }
+        }
+
+        index.kinds = kinds.toArray(new FileSymbols.Kind[0]);
+        index.members = memberLists.toArrays(index.declarations.size());
+        index.annotated = annotatedLists.toArrays(index.annotations.size());
+        index.namedTypes = namedTypeLists.toArrays(index.simpleNames.size());
+        index.callees = calleeLists.toArrays(index.declarations.size());
+        index.callers = callerLists.toArrays(index.callKeys.size());
+        index.implementations = implementationLists.toArrays(index.callKeys.size());
+        return index;
+    }
+
+    /**
+     * 获取类型的成员
+     * @param type 类型全限定名
+     * @return 成员完整名称，类型不存在时为空列表
+     */
+    public List<String> membersOf(String type) {
+        int id = declarations.lookup(type);
+        return id < 0 ? Collections.emptyList() : names(declarations, members[id]);
+    }
+
+    /**
+     * 获取带有指定注解的声明
+     * @param annotation 注解简单名称
+     * @return 声明完整名称
+     */
+    public List<String> annotatedWith(String annotation) {
+        int id = annotations.lookup(annotation);
+        return id < 0 ? Collections.emptyList() : names(declarations, annotated[id]);
+    }
+
+    /**
+     * 获取具有指定简单名称的类型
+     * @param simpleName 类型简单名称，如 {@code UserDto}
+     * @return 类型全限定名，不同包中的同名类型都会返回
+     */
+    public List<String> typesNamed(String simpleName) {
+        int id = simpleNames.lookup(simpleName);
+        return id < 0 ? Collections.emptyList() : names(declarations, namedTypes[id]);
+    }
+
+    /**
+     * 获取方法调用的其他方法
+     * @param method 方法完整名称，如 {@code com.example.UserService#find/1}
+     * @return 调用键，形如 {@code 方法名/参数个数}
+     */
+    public List<String> calleesOf(String method) {
+        int id = declarations.lookup(method);
+        return id < 0 ? Collections.emptyList() : names(callKeys, callees[id]);
+    }
+
+    /**
+     * 获取调用了指定名称与参数个数的方法的所有方法
+     * @param callKey 调用键，形如 {@code find/1}
+     * @return 调用方方法完整名称
+     */
+    public List<String> callersOf(String callKey) {
+        int id = callKeys.lookup(callKey);
+        return id < 0 ? Collections.emptyList() : names(declarations, callers[id]);
+    }
+
+    /**
+     * 获取项目内具有指定名称与参数个数的方法
+     * @param callKey 调用键，形如 {@code find/1}
+     * @return 方法完整名称，不是项目内的方法时为空列表
+     */
+    public List<String> implementationsOf(String callKey) {
+        int id = callKeys.lookup(callKey);
+        return id < 0 ? Collections.emptyList() : names(declarations, implementations[id]);
+    }
+
+    /**
+     * 获取声明的种类
+     * @param name 声明完整名称
+     * @return 种类，不存在时返回null
+     */
+    public FileSymbols.Kind kindOf(String name) {
+        int id = declarations.lookup(name);
+        return id < 0 ? null : kinds[id];
+    }
+
+    /**
+     * 声明（类型与成员）总数
+     */
+    public int size() {
+        return declarations.size();
+    }
+
+    private static List<String> names(SymbolTable table, int[] ids) {
+        List<String> names = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            names.add(table.name(id));
+        }
+        return names;
+    }
+
+    /**
+     * 构建期间按编号追加的整数列表，完成后压缩为定长数组
+     */
+    private static final class IntLists {
+
+        private int[][] data = new int[16][];
+
+        private int[] sizes = new int[16];
+
+        private void add(int key, int value) {
+            if (key >= data.length) {
+                int capacity = Math.max(data.length * 2, key + 1);
+                data = Arrays.copyOf(data, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            int[] values = data[key];
+            int size = sizes[key];
+            if (values == null) {
+                values = new int[4];
+                data[key] = values;
+            } else if (size > 0 && values[size - 1] == value) {
+                // 同一声明的重复关系（如同一注解写了两次）只记录一次
+                return;
+            } else if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                data[key] = values;
+            }
+            values[size] = value;
+            sizes[key] = size + 1;
+        }
+
+        private int[][] toArrays(int count) {
+            int[][] arrays = new int[count][];
+            for (int key = 0; key < count; key++) {
+                arrays[key] = key < data.length && data[key] != null ? Arrays.copyOf(data[key], sizes[key]) : NONE;
+            }
+            return arrays;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.autojav.core.index;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 项目索引的增量持久化
+ * <p>
+ * 以文件路径为键保存文件内容哈希和该文件的 {@link FileSymbols}。
+ * 处理文件时先查询，内容未变化的文件直接使用已保存的符号，不必解析；
+ * 变化的文件解析后写回。项目索引由全部文件的符号合并得到。
+ * 存储文件头记录指纹（工具版本与解析方式），指纹变化时全部失效。
+ * 方法可在多个线程中并发调用。
+ */
+@Slf4j
+public class ProjectIndexStore {
+
+    /**
+     * 默认存储文件
+     */
+    public static final String DEFAULT_FILE = ".autojav" + File.separator + "cache" + File.separator + "project-index.bin";
+
+    private static final int MAGIC = 0x414A5049;
+
+    private static final int FORMAT_VERSION = 3;
+
+    private final File storeFile;
+
+    private final String fingerprint;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    // 本次运行中查询或写入过的文件
+    private final Set<String> seen = new HashSet<>();
+
+    private int reused;
+
+    private int indexed;
+
+    private ProjectIndexStore(File storeFile, String fingerprint) {
+        this.storeFile = storeFile;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * 打开存储，文件不存在、损坏或指纹不一致时返回空存储
+     * @param storeFile 存储文件，为null时只在内存中保存
+     * @param fingerprint 指纹
+     * @return 索引存储
+     */
+    public static ProjectIndexStore open(File storeFile, String fingerprint) {
+        ProjectIndexStore store = new ProjectIndexStore(storeFile, fingerprint);
+        if (storeFile != null && storeFile.exists()) {
+            try {
+                store.load();
+            } catch (IOException | RuntimeException e) {
+                log.warn("项目索引读取失败，将重新建立: {}", e.getMessage());
+                store.entries.clear();
+            }
+        }
+        return store;
+    }
+
+    /**
+     * 查询文件的符号
+     * @param file 文件
+     * @param contentHash 文件当前内容哈希
+     * @return 文件符号，未保存或内容已变化时返回null
+     */
+    public synchronized FileSymbols get(File file, String contentHash) {
+        String path = pathKey(file);
+        seen.add(path);
+        Entry entry = entries.get(path);
+        if (entry == null || !entry.contentHash.equals(contentHash)) {
+            return null;
+        }
+        reused++;
+        return entry.symbols;
+    }
+
+    /**
+     * 保存文件的符号
+     * @param file 文件
+     * @param contentHash 文件内容哈希
+     * @param symbols 文件符号
+     */
+    public synchronized void put(File file, String contentHash, FileSymbols symbols) {
+        String path = pathKey(file);
+        seen.add(path);
+        entries.put(path, new Entry(contentHash, symbols));
+        indexed++;
+    }
+
+    /**
+     * 移除本次遍历范围内未处理过的文件（已删除或已被排除的文件），范围外的条目保留
+     * @param directory 本次处理的目录
+     * @param recursive 是否递归处理了子目录，为false时只清理目录下直接包含的文件
+     */
+    public synchronized void prune(File directory, boolean recursive) {
+        String prefix = pathKey(directory) + File.separator;
+        entries.keySet().removeIf(path -> path.startsWith(prefix) && !seen.contains(path)
+                && (recursive || path.indexOf(File.separatorChar, prefix.length()) < 0));
+    }
+
+    /**
+     * 合并全部文件的符号构建项目索引
+     * @return 项目索引
+     */
+    public synchronized ProjectIndex build() {
+        List<FileSymbols> files = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            files.add(entry.symbols);
+        }
+        return ProjectIndex.build(files);
+    }
+
+    /**
+     * 本次运行中直接使用已保存符号的文件数
+     */
+    public synchronized int getReused() {
+        return reused;
+    }
+
+    /**
+     * 本次运行中重新解析并写入的文件数
+     */
+    public synchronized int getIndexed() {
+        return indexed;
+    }
+
+    /**
+     * 保存到磁盘，只在内存中保存时不做任何事
+     * @throws IOException IO异常
+     */
+    public synchronized void save() throws IOException {
+        if (storeFile == null) {
+            return;
+        }
+        File directory = storeFile.getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+
+        File tempFile = new File(storeFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(fingerprint);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue().contentHash);
+                entry.getValue().symbols.write(out);
+            }
+        }
+        Files.move(tempFile.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        log.debug("项目索引保存成功: {}", storeFile.getAbsolutePath());
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storeFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !fingerprint.equals(in.readUTF())) {
+                log.info("工具版本或解析方式已变化，项目索引失效");
+                return;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String path = in.readUTF();
+                String contentHash = in.readUTF();
+                entries.put(path, new Entry(contentHash, FileSymbols.read(in)));
+            }
+        }
+        log.debug("项目索引加载成功: {} 个文件", entries.size());
+    }
+
+    private static String pathKey(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    private static final class Entry {
+
+        private final String contentHash;
+
+        private final FileSymbols symbols;
+
+        private Entry(String contentHash, FileSymbols symbols) {
+            this.contentHash = contentHash;
+            this.symbols = symbols;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.autojav.core.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字符串到连续整数编号的映射
+ * <p>
+ * 同一字符串只保存一份，索引中的其他结构都以编号为下标，用数组代替以字符串为键的映射。
+ */
+public class SymbolTable {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * 获取字符串的编号，不存在时分配新编号
+     * @param name 字符串
+     * @return 编号，从0开始连续分配
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        int newId = names.size();
+        ids.put(name, newId);
+        names.add(name);
+        return newId;
+    }
+
+    /**
+     * 查找字符串的编号
+     * @param name 字符串
+     * @return 编号，不存在时返回-1
+     */
+    public int lookup(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * 获取编号对应的字符串
+     * @param id 编号
+     * @return 字符串
+     */
+    public String name(int id) {
+        return names.get(id);
+    }
+
+    public int size() {
+        return names.size();
+    }
+}
@@ -0,0 +1,293 @@
+package com.autojav.core.pipeline;
+
+import com.autojav.core.CodeParser;
+import com.autojav.core.SourceFile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 流式处理流水线：文件发现 → 读取 → 解析/处理 → 结果输出
+ * <p>
+ * 各阶段之间通过有界队列连接，下游处理不过来时上游阻塞等待（背压）。
+ * 同时在途的文件数不超过队列容量，处理函数返回后语法树即可被回收，
+ * 因此内存占用取决于线程数和队列容量，而与项目规模无关。
+ * 结果按文件遍历顺序交给输出回调，与线程数无关。
+ *
+ * @param <T> 单个文件的处理结果类型
+ */
+@Slf4j
+public class ParsePipeline<T> {
+
+    /**
+     * 默认队列容量
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private final CodeParser parser;
+
+    private final int threads;
+
+    private final int queueCapacity;
+
+    public ParsePipeline(CodeParser parser, int threads) {
+        this(parser, threads, Math.max(DEFAULT_QUEUE_CAPACITY, threads * 4));
+    }
+
+    public ParsePipeline(CodeParser parser, int threads, int queueCapacity) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("处理线程数必须大于0: " + threads);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("队列容量必须大于0: " + queueCapacity);
+        }
+        this.parser = parser;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * 运行流水线
+     * @param directory 目录
+     * @param recursive 是否递归
+     * @param worker 处理函数，在处理线程上执行，返回null表示该文件无输出
+     * @param sink 输出回调，在调用线程上按文件顺序执行
+     * @return 运行统计
+     * @throws IOException IO异常
+     */
+    public PipelineStats run(File directory, boolean recursive, Function<SourceFile, T> worker, Consumer<T> sink) throws IOException {
+        if (!directory.exists() || !directory.isDirectory()) {
+            throw new IllegalArgumentException("无效的目录: " + directory.getAbsolutePath());
+        }
+        return run(consumer -> parser.walkJavaFiles(directory, recursive, consumer), worker, sink);
+    }
+
+    /**
+     * 对给定的文件列表运行流水线
+     * @param files 文件列表
+     * @param worker 处理函数，在处理线程上执行，返回null表示该文件无输出
+     * @param sink 输出回调，在调用线程上按列表顺序执行
+     * @return 运行统计
+     * @throws IOException IO异常
+     */
+    public PipelineStats run(List<File> files, Function<SourceFile, T> worker, Consumer<T> sink) throws IOException {
+        return run(consumer -> files.forEach(consumer), worker, sink);
+    }
+
+    private PipelineStats run(FileSource fileSource, Function<SourceFile, T> worker, Consumer<T> sink) throws IOException {
+        BlockingQueue<Item<T>> discovered = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Item<T>> loaded = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Item<T>> processed = new ArrayBlockingQueue<>(queueCapacity);
+        // 限制在途文件数，乱序完成的结果在输出前最多缓存这么多个
+        Semaphore inFlight = new Semaphore(queueCapacity);
+        AtomicReference<Throwable> discoveryFailure = new AtomicReference<>();
+        AtomicInteger runningWorkers = new AtomicInteger(threads);
+
+        ExecutorService executor = newPipelinePool(threads + 2);
+        try {
+            // 文件发现阶段
+            executor.execute(() -> {
+                long[] sequence = {0};
+                try {
+                    fileSource.forEach(file -> {
+                        try {
+                            inFlight.acquire();
+                            discovered.put(new Item<>(sequence[0]++, file));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new PipelineInterruptedException();
+                        }
+                    });
+                } catch (PipelineInterruptedException e) {
+                    return;
+                } catch (Throwable e) {
+                    discoveryFailure.set(e);
+                }
+                putQuietly(discovered, Item.poison());
+            });
+
+            // 读取阶段
+            executor.execute(() -> {
+                try {
+                    while (true) {
+                        Item<T> item = discovered.take();
+                        if (item.isPoison()) {
+                            for (int i = 0; i < threads; i++) {
+                                loaded.put(item);
+                            }
+                            return;
+                        }
+                        try {
+                            item.source = SourceFile.read(item.file);
+                        } catch (Throwable e) {
+                            item.failure = e;
+                        }
+                        loaded.put(item);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            // 解析与处理阶段
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    try {
+                        while (true) {
+                            Item<T> item = loaded.take();
+                            if (item.isPoison()) {
+                                break;
+                            }
+                            // 任何异常或错误都记为该文件失败，保证每个序号都到达输出阶段，否则输出阶段会一直等待
+                            if (item.failure == null) {
+                                try {
+                                    item.result = worker.apply(item.source);
+                                } catch (Throwable e) {
+                                    item.failure = e;
+                                }
+                            }
+                            // 释放源文件内容，语法树随处理函数返回一并释放
+                            item.source = null;
+                            processed.put(item);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        if (runningWorkers.decrementAndGet() == 0) {
+                            putQuietly(processed, Item.poison());
+                        }
+                    }
+                });
+            }
+
+            return drain(processed, inFlight, sink, discoveryFailure);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 按文件顺序输出处理结果
+     */
+    private PipelineStats drain(BlockingQueue<Item<T>> processed, Semaphore inFlight, Consumer<T> sink,
+                                AtomicReference<Throwable> discoveryFailure) throws IOException {
+        PipelineStats stats = new PipelineStats();
+        Map<Long, Item<T>> pending = new HashMap<>();
+        long next = 0;
+        try {
+            while (true) {
+                Item<T> item = processed.take();
+                if (item.isPoison()) {
+                    break;
+                }
+                pending.put(item.sequence, item);
+                Item<T> ready;
+                while ((ready = pending.remove(next)) != null) {
+                    next++;
+                    inFlight.release();
+                    emit(ready, sink, stats);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("流水线处理被中断", e);
+        }
+
+        Throwable failure = discoveryFailure.get();
+        if (failure != null) {
+            throw new IOException("文件遍历失败: " + failure.getMessage(), failure);
+        }
+        return stats;
+    }
+
+    private void emit(Item<T> item, Consumer<T> sink, PipelineStats stats) {
+        if (item.failure != null) {
+            log.error("处理文件失败: {}", item.file.getAbsolutePath(), item.failure);
+            stats.failed++;
+            return;
+        }
+        stats.processed++;
+        if (item.result != null) {
+            sink.accept(item.result);
+        }
+    }
+
+    private ExecutorService newPipelinePool(int size) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, runnable -> {
+            // 解析深度嵌套的表达式需要比默认更大的栈
+            Thread thread = new Thread(null, runnable, "autojav-pipeline-" + counter.incrementAndGet(),
+                    CodeParser.THREAD_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static <E> void putQuietly(BlockingQueue<E> queue, E element) {
+        try {
+            queue.put(element);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 待处理文件的来源
+     */
+    private interface FileSource {
+
+        void forEach(Consumer<File> consumer) throws IOException;
+    }
+
+    /**
+     * 流水线中传递的单个文件
+     */
+    private static class Item<T> {
+
+        private static final long POISON = -1;
+
+        private final long sequence;
+
+        private final File file;
+
+        private SourceFile source;
+
+        private T result;
+
+        private Throwable failure;
+
+        private Item(long sequence, File file) {
+            this.sequence = sequence;
+            this.file = file;
+        }
+
+        private static <T> Item<T> poison() {
+            return new Item<>(POISON, null);
+        }
+
+        private boolean isPoison() {
+            return sequence == POISON;
+        }
+    }
+
+    /**
+     * 遍历线程被中断时用于跳出遍历回调
+     */
+    private static class PipelineInterruptedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+    }
+}
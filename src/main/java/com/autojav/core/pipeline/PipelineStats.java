@@ -0,0 +1,27 @@
+package com.autojav.core.pipeline;
+
+/**
+ * 流水线运行统计
+ */
+public class PipelineStats {
+
+    int processed;
+
+    int failed;
+
+    /**
+     * 获取成功处理的文件数
+     * @return 文件数
+     */
+    public int getProcessed() {
+        return processed;
+    }
+
+    /**
+     * 获取处理失败的文件数
+     * @return 文件数
+     */
+    public int getFailed() {
+        return failed;
+    }
+}
@@ -3,9 +3,13 @@ package com.autojav.core;
 import com.github.javaparser.ast.CompilationUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,6 +39,77 @@ class CodeParserTest {
         assertFalse(compilationUnits.isEmpty());
     }
 
+    @Test
+    void testParseDirectoryParallelKeepsOrder() throws IOException {
+        File testDir = new File("src/main/java/com/autojav");
+        List<CompilationUnit> sequential = codeParser.parseDirectory(testDir, true, 1);
+        List<CompilationUnit> parallel = codeParser.parseDirectory(testDir, true, 4);
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getStorage().get().getPath(),
+                    parallel.get(i).getStorage().get().getPath());
+        }
+    }
+
+    @Test
+    void testParserProfiles() throws IOException {
+        File testFile = new File("src/main/java/com/autojav/core/CodeParser.java");
+        CompilationUnit full = codeParser.parseFile(testFile);
+        CompilationUnit audit = new CodeParser(ParserProfile.AUDIT).parseFile(testFile);
+        CompilationUnit lean = new CodeParser(ParserProfile.LEAN).parseFile(testFile);
+
+        // 审计档位不归属注释，但保留与完整配置一致的位置信息
+        List<com.github.javaparser.ast.body.MethodDeclaration> fullMethods = codeParser.extractMethods(full);
+        List<com.github.javaparser.ast.body.MethodDeclaration> auditMethods = codeParser.extractMethods(audit);
+        assertEquals(fullMethods.size(), auditMethods.size());
+        for (int i = 0; i < fullMethods.size(); i++) {
+            assertEquals(fullMethods.get(i).getBegin(), auditMethods.get(i).getBegin());
+        }
+        assertTrue(fullMethods.stream().anyMatch(m -> m.getComment().isPresent()));
+        assertFalse(auditMethods.stream().anyMatch(m -> m.getComment().isPresent()));
+
+        // 最小档位没有位置信息
+        assertEquals(fullMethods.size(), codeParser.extractMethods(lean).size());
+        assertFalse(lean.getRange().isPresent());
+    }
+
+    @Test
+    void testRecoveryKeepsPartialAst(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("Broken.java");
+        Files.write(file, "class Broken {\n  void f() { int x = ; }\n  void g() { g(); }\n}\n".getBytes(StandardCharsets.UTF_8));
+        SourceFile source = SourceFile.read(file.toFile());
+
+        ParseOutcome strict = codeParser.tryParse(source);
+        assertEquals(ParseOutcome.Status.FAILED, strict.getStatus());
+        assertNull(strict.getCompilationUnit());
+
+        codeParser.setRecovery(true);
+        ParseOutcome recovered = codeParser.tryParse(source);
+        assertEquals(ParseOutcome.Status.PARTIAL, recovered.getStatus());
+        assertEquals(2, codeParser.extractMethods(recovered.getCompilationUnit()).size());
+        assertEquals(2, recovered.getIssues().get(0).getLine());
+    }
+
+    @Test
+    void testParseTimeout(@TempDir Path tempDir) throws IOException {
+        StringBuilder content = new StringBuilder("class Generated {\n");
+        for (int i = 0; i < 200_000; i++) {
+            content.append("  int field").append(i).append(" = ").append(i).append(" + 1;\n");
+        }
+        content.append("}\n");
+        Path file = tempDir.resolve("Generated.java");
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+
+        codeParser.setParseTimeout(1);
+        ParseOutcome outcome = codeParser.tryParse(SourceFile.read(file.toFile()));
+        assertEquals(ParseOutcome.Status.TIMEOUT, outcome.getStatus());
+        assertNull(outcome.getCompilationUnit());
+
+        // 超时后同一线程上的解析器仍可继续使用
+        codeParser.setParseTimeout(10_000);
+        assertNotNull(codeParser.parseFile(new File("src/test/java/com/autojav/core/CodeParserTest.java")));
+    }
+
     @Test
     void testExtractMethods() throws IOException {
         File testFile = new File("src/test/java/com/autojav/core/CodeParserTest.java");
@@ -0,0 +1,98 @@
+package com.autojav.core;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileDiscoveryTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testSkipsBuildDirectoriesAndTests() throws IOException {
+        touch("src/b/B.java");
+        touch("src/a/A.java");
+        touch("src/a/ATest.java");
+        touch("target/classes/Gen.java");
+        touch(".git/hooks/Hook.java");
+        touch("node_modules/x/X.java");
+        touch("src/a/readme.txt");
+
+        assertEquals(List.of("src/a/A.java", "src/b/B.java"), relative(new FileDiscovery().discover(root, true)));
+    }
+
+    @Test
+    void testBuildOutputNamesAreOnlySkippedNextToBuildFiles() throws IOException {
+        touch("app/pom.xml");
+        touch("app/target/generated/Gen.java");
+        touch("app/src/main/java/com/acme/build/Builder.java");
+        touch("app/src/main/java/io/out/Writer.java");
+        touch("lib/build.gradle");
+        touch("lib/build/tmp/Stub.java");
+        touch("out/Compiled.java");
+
+        FileDiscovery discovery = new FileDiscovery();
+        assertEquals(List.of("app/src/main/java/com/acme/build/Builder.java", "app/src/main/java/io/out/Writer.java"),
+                relative(discovery.discover(root, true)));
+        assertTrue(discovery.matches(root, root.resolve("app/src/main/java/com/acme/build/Builder.java")));
+        assertFalse(discovery.matches(root, root.resolve("app/target/generated/Gen.java")));
+        assertFalse(discovery.matches(root, root.resolve("out/Compiled.java")));
+    }
+
+    @Test
+    void testIncludeExcludeAndTestPolicy() throws IOException {
+        touch("src/main/Service.java");
+        touch("src/main/ServiceTest.java");
+        touch("src/generated/Dto.java");
+        touch("Top.java");
+
+        FileDiscovery discovery = new FileDiscovery()
+                .setIncludes(List.of("src/**"))
+                .setExcludes(List.of("src/generated/**"));
+        assertEquals(List.of("src/main/Service.java"), relative(discovery.discover(root, true)));
+
+        discovery.setTestFilePolicy(FileDiscovery.TestFilePolicy.ONLY);
+        assertEquals(List.of("src/main/ServiceTest.java"), relative(discovery.discover(root, true)));
+
+        assertEquals(List.of("Top.java"), relative(new FileDiscovery().discover(root, false)));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new FileDiscovery().setExcludes(List.of("src/[")));
+        assertTrue(e.getMessage().startsWith("无效的glob模式: src/["), e.getMessage());
+    }
+
+    @Test
+    void testSymlinkLoopIsVisitedOnce() throws IOException {
+        touch("src/A.java");
+        try {
+            Files.createSymbolicLink(root.resolve("src/loop"), root.resolve("src"));
+        } catch (UnsupportedOperationException | IOException e) {
+            Assumptions.assumeTrue(false, "当前文件系统不支持符号链接");
+        }
+
+        assertEquals(List.of("src/A.java"), relative(new FileDiscovery().discover(root, true)));
+    }
+
+    private void touch(String path) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "class X {}");
+    }
+
+    private List<String> relative(List<Path> files) {
+        List<String> paths = new ArrayList<>();
+        for (Path file : files) {
+            paths.add(root.relativize(file).toString().replace('\\', '/'));
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,74 @@
+package com.autojav.core;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 各解析配置档位及骨架解析的解析耗时与语法树内存对比
+ * 用法：ParserProfileBenchmark [目录] [轮数]
+ */
+class ParserProfileBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : "src/main/java");
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<SourceFile> sources = new ArrayList<>();
+        new CodeParser().walkJavaFiles(dir, true, file -> {
+            try {
+                sources.add(SourceFile.read(file));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        System.out.println("文件数量: " + sources.size() + "，轮数: " + rounds);
+
+        for (ParserProfile profile : ParserProfile.values()) {
+            measure(profile.name(), new CodeParser(profile), false, sources, rounds);
+        }
+        measure("DOC+骨架", new CodeParser(ParserProfile.DOC), true, sources, rounds);
+    }
+
+    private static void measure(String name, CodeParser parser, boolean skeleton, List<SourceFile> sources, int rounds) {
+        // 预热
+        for (int i = 0; i < rounds; i++) {
+            parseAll(parser, skeleton, sources);
+        }
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            parseAll(parser, skeleton, sources);
+        }
+        long elapsed = (System.nanoTime() - startTime) / rounds / 1_000_000;
+
+        long before = usedMemory();
+        List<CompilationUnit> retained = parseAll(parser, skeleton, sources);
+        long after = usedMemory();
+        long perAst = (after - before) / Math.max(1, retained.size());
+
+        System.out.printf("%-8s 解析时间: %5dms/轮  平均语法树内存: %6dKB%n", name, elapsed, perAst / 1024);
+    }
+
+    private static List<CompilationUnit> parseAll(CodeParser parser, boolean skeleton, List<SourceFile> sources) {
+        List<CompilationUnit> compilationUnits = new ArrayList<>(sources.size());
+        for (SourceFile source : sources) {
+            CompilationUnit cu = skeleton ? parser.parseSkeleton(source) : parser.parse(source);
+            if (cu != null) {
+                compilationUnits.add(cu);
+            }
+        }
+        return compilationUnits;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,93 @@
+package com.autojav.core;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkeletonFilterTest {
+
+    private static final String SOURCE = String.join("\n",
+            "@RestController",
+            "@RequestMapping(value = {\"/users\", \"/members\"})",
+            "public class UserController {",
+            "    private static final String[] NAMES = {\"a\", \"}\"};",
+            "    private final Runnable task = new Runnable() {",
+            "        public void run() { }",
+            "    };",
+            "    static { init(); }",
+            "    /** 获取用户 {@code id} */",
+            "    @GetMapping(\"/{id}\")",
+            "    public User get(@PathVariable Long id) {",
+            "        String s = \"{\" + '}' + \"\"\"",
+            "            }",
+            "            \"\"\";",
+            "        class Local { void f() { } }",
+            "        return service.find(id); // }",
+            "    }",
+            "    public void record() { Object o = Foo.class; }",
+            "    enum Kind { A { void f() { } }, B; }",
+            "    record Page(int size) { Page { check(size); } }",
+            "}");
+
+    @Test
+    void testStripKeepsDeclarationsAndPositions(@TempDir Path tempDir) throws IOException {
+        String skeleton = SkeletonFilter.strip(SOURCE);
+        assertEquals(SOURCE.length(), skeleton.length());
+        assertEquals(SOURCE.split("\n", -1).length, skeleton.split("\n", -1).length);
+
+        assertTrue(skeleton.contains("{\"a\", \"}\"}"));
+        assertTrue(skeleton.contains("public void run() { }"));
+        assertTrue(skeleton.contains("/** 获取用户 {@code id} */"));
+        assertFalse(skeleton.contains("service.find"));
+        assertFalse(skeleton.contains("init()"));
+        assertFalse(skeleton.contains("Local"));
+        assertFalse(skeleton.contains("Foo.class"));
+        assertFalse(skeleton.contains("check(size)"));
+
+        Path file = tempDir.resolve("UserController.java");
+        Files.write(file, SOURCE.getBytes(StandardCharsets.UTF_8));
+        CompilationUnit cu = new CodeParser(ParserProfile.AUDIT).parseSkeleton(SourceFile.read(file.toFile()));
+        assertNotNull(cu);
+        MethodDeclaration get = cu.findFirst(MethodDeclaration.class, m -> m.getNameAsString().equals("get")).get();
+        assertEquals(10, get.getBegin().get().line);
+        assertTrue(get.getAnnotationByName("GetMapping").isPresent());
+        assertTrue(get.getBody().get().getStatements().isEmpty());
+        assertTrue(cu.findFirst(MethodDeclaration.class, m -> m.getNameAsString().equals("record")).isPresent());
+    }
+
+    @Test
+    void testSkeletonParsesProjectSources(@TempDir Path tempDir) throws IOException {
+        CodeParser parser = new CodeParser(ParserProfile.DOC);
+        List<Path> files = new FileDiscovery().discover(new File("src").toPath(), true);
+        assertFalse(files.isEmpty());
+        for (Path file : files) {
+            SourceFile source = SourceFile.read(file.toFile());
+            CompilationUnit full = parser.parse(source);
+            CompilationUnit skeleton = parser.parseSkeleton(source);
+            assertNotNull(skeleton, file.toString());
+            assertEquals(countMemberMethods(full), countMemberMethods(skeleton), file.toString());
+        }
+        Files.write(tempDir.resolve("Empty.java"), new byte[0]);
+        assertNotNull(parser.parseSkeleton(SourceFile.read(tempDir.resolve("Empty.java").toFile())));
+    }
+
+    /**
+     * 统计不在方法体内的方法声明，骨架中方法体内的局部类和匿名类不再存在
+     */
+    private static long countMemberMethods(CompilationUnit cu) {
+        return cu.findAll(MethodDeclaration.class).stream()
+                .filter(m -> !m.findAncestor(BlockStmt.class).isPresent())
+                .count();
+    }
+}
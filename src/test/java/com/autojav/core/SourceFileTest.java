@@ -0,0 +1,83 @@
+package com.autojav.core;
+
+import com.autojav.core.audit.AuditContext;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSmallFile() throws IOException {
+        String content = "class A {\n    void f() {}\n}\n";
+        Path file = write("A.java", content);
+
+        SourceFile source = SourceFile.read(file.toFile());
+        assertEquals(content, source.getContent());
+        assertEquals(3, source.getLineCount());
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        assertEquals(HashUtils.sha256(bytes, 0, bytes.length), source.getContentHash());
+    }
+
+    @Test
+    void testPathMatchesParsedStorage() throws IOException {
+        // 相对路径读取的文件，审计结果中的路径与语法树记录的一致
+        SourceFile source = SourceFile.read(new File("src/main/java/com/autojav/core/SourceFile.java"));
+        assertTrue(new File(source.getPath()).isAbsolute());
+        CompilationUnit cu = new CodeParser().parse(source);
+        assertEquals(source.getPath(), AuditContext.of(cu).getFilePath());
+    }
+
+    @Test
+    void testMappedFileMatchesBufferedRead() throws IOException {
+        StringBuilder sb = new StringBuilder("class Big {\n");
+        while (sb.length() <= SourceFile.MMAP_THRESHOLD) {
+            sb.append("    // 注释行 comment line\n");
+        }
+        sb.append("}\n");
+        String content = sb.toString();
+        Path file = write("Big.java", content);
+
+        SourceFile source = SourceFile.read(file.toFile());
+        assertEquals(content, source.getContent());
+        assertEquals(content.split("\n", -1).length - 1, source.getLineCount());
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        assertEquals(HashUtils.sha256(bytes, 0, bytes.length), source.getContentHash());
+
+        // 读过大文件后，复用缓冲区读取小文件仍然正确
+        Path small = write("B.java", "class B {}");
+        assertEquals("class B {}", SourceFile.read(small.toFile()).getContent());
+    }
+
+    @Test
+    void testBomIsStrippedFromParserInput() throws IOException {
+        Path file = dir.resolve("C.java");
+        byte[] body = "class C {}".getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[body.length + 3];
+        bytes[0] = (byte) 0xEF;
+        bytes[1] = (byte) 0xBB;
+        bytes[2] = (byte) 0xBF;
+        System.arraycopy(body, 0, bytes, 3, body.length);
+        Files.write(file, bytes);
+
+        assertEquals("class C {}", SourceFile.read(file.toFile()).getContent());
+        assertNotNull(new CodeParser().parseFile(file.toFile()));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
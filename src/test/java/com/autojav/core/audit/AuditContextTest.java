@@ -0,0 +1,86 @@
+package com.autojav.core.audit;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditContextTest {
+
+    private static final String SOURCE = String.join("\n",
+            "class A {",
+            "    private String name;",
+            "    private int count, total;",
+            "    void find(String id, int limit, Object... args) {",
+            "        query(\"SELECT * FROM t WHERE id = \" + id + \" LIMIT \" + (limit + 1)).close();",
+            "    }",
+            "    int sum(int a, int b) { return a + b; }",
+            "}");
+
+    @Test
+    void testFactsAreComputedOncePerFile() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+        AuditContext context = AuditContext.of(cu);
+        assertSame(context, AuditContext.of(cu));
+        assertEquals("unknown", context.getFilePath());
+
+        assertEquals(Set.of("name", "count", "total"), context.getFieldNames());
+        MethodDeclaration find = cu.findFirst(MethodDeclaration.class, m -> m.getNameAsString().equals("find")).orElseThrow();
+        MethodDeclaration sum = cu.findFirst(MethodDeclaration.class, m -> m.getNameAsString().equals("sum")).orElseThrow();
+        assertEquals(Set.of("id", "args"), context.parametersOf(find));
+        assertTrue(context.parametersOf(sum).isEmpty());
+
+        // 后序：内层调用在外层调用之前；数值相加不是字符串拼接，括号内的拼接并入外层
+        assertEquals(List.of("query", "close"), names(context.getCallSites()));
+        assertEquals(1, context.callSites("close").size());
+        assertEquals(1, context.getStringConcatenations().size());
+        assertSame(context.getCallSites(), AuditContext.of(cu).getCallSites());
+    }
+
+    @Test
+    void testFactsCollectedDuringSharedWalk() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+        AuditContext context = AuditContext.of(cu);
+        NodeDispatcher dispatcher = new NodeDispatcher();
+        context.collectDuring(dispatcher);
+        dispatcher.walk(cu);
+        assertEquals(List.of("query", "close"), names(context.getCallSites()));
+        assertEquals(Set.of("name", "count", "total"), context.getFieldNames());
+    }
+
+    @Test
+    void testCallSitesArePartitionedByMember() {
+        CompilationUnit cu = StaticJavaParser.parse(String.join("\n",
+                "@Table(name = \"a\")",
+                "class A {",
+                "    private String name = init();",
+                "    void f() { g(); new Runnable() { public void run() { h(); } }; }",
+                "    class Inner { void i() { j(); } }",
+                "}",
+                "enum E { X(k()); void m() { n(); } }"));
+        AuditContext context = AuditContext.of(cu);
+        assertEquals(5, context.getMembers().size());
+        List<List<String>> perMember = context.getMembers().stream()
+                .map(member -> names(context.callSitesIn(member)))
+                .collect(Collectors.toList());
+        assertTrue(perMember.contains(List.of("init")));
+        assertTrue(perMember.contains(List.of("g", "h")));
+        assertTrue(perMember.contains(List.of("j")));
+        assertTrue(perMember.contains(List.of("k")));
+        assertTrue(perMember.contains(List.of("n")));
+        assertEquals(context.getCallSites().size(), perMember.stream().mapToInt(List::size).sum());
+    }
+
+    private static List<String> names(List<MethodCallExpr> calls) {
+        return calls.stream()
+                .map(MethodCallExpr::getNameAsString)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,51 @@
+package com.autojav.core.audit;
+
+import com.autojav.core.CodeParser;
+import com.autojav.core.ParserProfile;
+import com.autojav.core.audit.rules.NullPointerExceptionRule;
+import com.autojav.core.audit.rules.SqlInjectionRule;
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 单次遍历分发与逐规则遍历的审计耗时对比
+ * 用法：AuditDispatchBenchmark [目录] [轮数] [规则副本数]
+ */
+class AuditDispatchBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : "src/main/java");
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int copies = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        List<CompilationUnit> compilationUnits = new CodeParser(ParserProfile.AUDIT).parseDirectory(dir, true);
+        System.out.println("文件数量: " + compilationUnits.size() + "，轮数: " + rounds);
+
+        for (int ruleCopies : new int[]{1, copies}) {
+            AuditManager auditManager = new AuditManager();
+            // 追加同样的规则模拟规则数量增长
+            for (int i = 1; i < ruleCopies; i++) {
+                auditManager.addRule(new NullPointerExceptionRule());
+                auditManager.addRule(new SqlInjectionRule());
+            }
+            for (boolean singlePass : new boolean[]{false, true}) {
+                auditManager.setSinglePass(singlePass);
+                // 预热
+                for (int i = 0; i < rounds; i++) {
+                    auditManager.audit(compilationUnits);
+                }
+                long startTime = System.nanoTime();
+                int issues = 0;
+                for (int i = 0; i < rounds; i++) {
+                    issues = auditManager.audit(compilationUnits).size();
+                }
+                long elapsed = (System.nanoTime() - startTime) / rounds / 1_000_000;
+                System.out.printf("规则数 %2d  %s  审计时间: %5dms/轮  问题数: %d%n",
+                        auditManager.getRules().size(), singlePass ? "单次遍历" : "逐规则遍历", elapsed, issues);
+            }
+        }
+    }
+}
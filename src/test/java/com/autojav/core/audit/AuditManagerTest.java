@@ -0,0 +1,259 @@
+package com.autojav.core.audit;
+
+import com.autojav.core.CodeParser;
+import com.autojav.core.ParserProfile;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditManagerTest {
+
+    @Test
+    void testSinglePassMatchesPerRuleWalks() throws IOException {
+        CodeParser parser = new CodeParser(ParserProfile.AUDIT);
+        List<CompilationUnit> compilationUnits = new ArrayList<>();
+        compilationUnits.addAll(parser.parseDirectory(new File("src/main/java"), true));
+        compilationUnits.addAll(parser.parseDirectory(new File("examples"), true));
+
+        AuditManager auditManager = new AuditManager();
+        List<String> singlePass = describe(auditManager.audit(compilationUnits));
+        auditManager.setSinglePass(false);
+        List<String> multiWalk = describe(auditManager.audit(compilationUnits));
+
+        assertFalse(singlePass.isEmpty());
+        assertEquals(multiWalk, singlePass);
+    }
+
+    @Test
+    void testParallelAuditIsIdenticalToSequential() throws IOException {
+        List<CompilationUnit> compilationUnits = new CodeParser(ParserProfile.AUDIT)
+                .parseDirectory(new File("src/main/java"), true);
+        AuditManager auditManager = new AuditManager();
+
+        List<AuditResult> sequential = auditManager.audit(compilationUnits);
+        List<AuditResult> parallel = auditManager.audit(compilationUnits, 4);
+        assertEquals(sequential.stream().map(AuditResult::toString).collect(Collectors.toList()),
+                parallel.stream().map(AuditResult::toString).collect(Collectors.toList()));
+        for (int i = 1; i < sequential.size(); i++) {
+            assertTrue(AuditResult.POSITION_ORDER.compare(sequential.get(i - 1), sequential.get(i)) <= 0);
+        }
+    }
+
+    @Test
+    void testLargeFilesAreSplitByMember() throws IOException {
+        CodeParser parser = new CodeParser(ParserProfile.AUDIT);
+        List<CompilationUnit> compilationUnits = new ArrayList<>();
+        compilationUnits.addAll(parser.parseDirectory(new File("src/main/java"), true));
+        compilationUnits.addAll(parser.parseDirectory(new File("examples"), true));
+
+        // 先拆分审计，各成员的分析在成员线程中首次计算
+        AuditManager split = new AuditManager();
+        split.setMemberThreads(4);
+        split.setSplitLines(1);
+        split.setRuleTimeout(60_000);
+        RuleStatistics statistics = new RuleStatistics();
+        split.setRuleStatistics(statistics);
+        List<String> splitResults = describe(split.audit(compilationUnits));
+
+        List<String> wholeResults = describe(new AuditManager().audit(compilationUnits));
+        assertFalse(wholeResults.isEmpty());
+        assertEquals(wholeResults, splitResults);
+        assertTrue(statistics.summarize().stream().allMatch(latency -> latency.getFiles() == compilationUnits.size()));
+
+        split.setRuleTimeout(0);
+        split.setRuleStatistics(null);
+        assertEquals(wholeResults, describe(split.audit(compilationUnits, 2)));
+    }
+
+    @Test
+    void testMemberTasksRunAllLocalRulesOnOneThread() {
+        AuditManager auditManager = new AuditManager(List.of());
+        auditManager.addRule(new ThreadRecordingRule("甲"));
+        auditManager.addRule(new ThreadRecordingRule("乙"));
+        auditManager.setMemberThreads(4);
+        auditManager.setSplitLines(1);
+        try {
+            CompilationUnit cu = StaticJavaParser.parse(
+                    "class A { void a() {} void b() {} void c() {} void d() {} void e() {} void f() {} }");
+            List<AuditResult> results = auditManager.audit(cu);
+            assertEquals(12, results.size());
+
+            // 同一成员上的方法局部规则在同一个任务中依次执行，不会并发修改节点数据
+            for (int line = 0; line < results.size(); line += 2) {
+                assertEquals(results.get(line).getColumn(), results.get(line + 1).getColumn());
+                assertEquals(results.get(line).getMessage(), results.get(line + 1).getMessage());
+            }
+        } finally {
+            auditManager.close();
+        }
+    }
+
+    @Test
+    void testStatefulRulesAreRejected() {
+        AuditManager auditManager = new AuditManager();
+        assertThrows(IllegalArgumentException.class, () -> auditManager.addRule(new CountingRule()));
+
+        // 通过工厂注册时每个线程使用独立实例
+        auditManager.addRule(CountingRule::new);
+        // 规则会在节点上缓存数据，每个任务使用各自的编译单元
+        List<CompilationUnit> compilationUnits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            compilationUnits.add(StaticJavaParser.parse("class A { void f() { g(); } }"));
+        }
+        List<AuditResult> results = auditManager.audit(compilationUnits, 2);
+        assertEquals(4, results.stream().filter(r -> r.getRuleName().equals("计数")).count());
+
+        CompilationUnit cu = compilationUnits.get(0);
+        assertThrows(IllegalArgumentException.class, () -> auditManager.audit(List.of(cu, cu), 2));
+    }
+
+    @Test
+    void testDispatcherMatchesSubclasses() {
+        CompilationUnit cu = StaticJavaParser.parse("class A { void f() { g(h(1)); } }");
+        List<String> calls = new ArrayList<>();
+        List<String> expressions = new ArrayList<>();
+        NodeDispatcher dispatcher = new NodeDispatcher();
+        dispatcher.on(MethodCallExpr.class, call -> calls.add(call.getNameAsString()));
+        dispatcher.on(Expression.class, expression -> expressions.add(expression.toString()));
+        dispatcher.walk(cu);
+
+        // 后序：内层调用先于外层调用
+        assertEquals(List.of("h", "g"), calls);
+        assertEquals(List.of("1", "h(1)", "g(h(1))"), expressions);
+    }
+
+    @Test
+    void testRulesOverBudgetAreSkipped() {
+        AuditManager auditManager = new AuditManager();
+        auditManager.addRule(new SpinningRule());
+        auditManager.setRuleTimeout(20);
+        RuleStatistics statistics = new RuleStatistics();
+        auditManager.setRuleStatistics(statistics);
+
+        CompilationUnit cu = StaticJavaParser.parse("class A { void f() { g(); } }");
+        List<AuditResult> results = auditManager.audit(cu);
+        assertTrue(results.stream().noneMatch(r -> r.getRuleName().equals("空转")));
+        assertEquals(1, results.stream().filter(r -> r.getRuleName().equals(AuditManager.TIMEOUT_RULE_NAME)).count());
+
+        // 每个规则都有耗时记录，超时的规则耗时不小于时限
+        List<RuleStatistics.RuleLatency> latencies = statistics.summarize();
+        assertEquals(3, latencies.size());
+        RuleStatistics.RuleLatency spinning = latencies.stream()
+                .filter(latency -> latency.getRuleName().equals("空转")).findFirst().orElseThrow();
+        assertEquals(1, spinning.getFiles());
+        assertEquals(1, spinning.getTimeouts());
+        assertTrue(spinning.getMaxNanos() >= 20_000_000L);
+        assertEquals(1, spinning.getWorstFiles().size());
+    }
+
+    private static List<String> describe(List<AuditResult> results) {
+        return results.stream()
+                .map(r -> r.getFilePath() + ":" + r.getLine() + ":" + r.getColumn() + ":" + r.getRuleName() + ":" + r.getMessage())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static class CountingRule implements AuditRule {
+
+        private int audited;
+
+        @Override
+        public String getName() {
+            return "计数";
+        }
+
+        @Override
+        public String getDescription() {
+            return "记录审计次数的有状态规则";
+        }
+
+        @Override
+        public List<AuditResult> audit(CompilationUnit compilationUnit) {
+            audited++;
+            return List.of(new AuditResult(getName(), Severity.INFO, "第 " + audited + " 次", null, 1, 1));
+        }
+
+        @Override
+        public Severity getSeverity() {
+            return Severity.INFO;
+        }
+    }
+
+    private static class ThreadRecordingRule implements MethodLocalAuditRule {
+
+        private final String name;
+
+        ThreadRecordingRule(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return "记录审计成员所在线程的规则";
+        }
+
+        @Override
+        public List<AuditResult> audit(CompilationUnit compilationUnit) {
+            AuditContext context = AuditContext.of(compilationUnit);
+            List<AuditResult> results = new ArrayList<>();
+            for (BodyDeclaration<?> member : context.getMembers()) {
+                results.addAll(audit(context, member));
+            }
+            return results;
+        }
+
+        @Override
+        public List<AuditResult> audit(AuditContext context, BodyDeclaration<?> member) {
+            int column = member.getBegin().map(position -> position.column).orElse(0);
+            return List.of(new AuditResult(name, Severity.INFO, Thread.currentThread().getName(), null, 1, column));
+        }
+
+        @Override
+        public Severity getSeverity() {
+            return Severity.INFO;
+        }
+    }
+
+    private static class SpinningRule implements AuditRule {
+
+        @Override
+        public String getName() {
+            return "空转";
+        }
+
+        @Override
+        public String getDescription() {
+            return "只在检查点响应取消的耗时规则";
+        }
+
+        @Override
+        public List<AuditResult> audit(CompilationUnit compilationUnit) {
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (System.nanoTime() < deadline) {
+                RuleBudget.checkpoint();
+            }
+            return List.of(new AuditResult(getName(), Severity.INFO, "未被取消", null, 1, 1));
+        }
+
+        @Override
+        public Severity getSeverity() {
+            return Severity.INFO;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.autojav.core.audit;
+
+import com.autojav.core.CodeParser;
+import com.autojav.core.audit.taint.SqlFragments;
+import com.autojav.core.audit.taint.SqlPatterns;
+import com.autojav.core.pipeline.ParsePipeline;
+import com.autojav.core.pipeline.PipelineStats;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryChainTest {
+
+    // 递归遍历在这个深度和下面的线程栈大小下必然溢出
+    private static final int DEPTH = 20000;
+
+    private static final long STACK_SIZE = 256 * 1024;
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void testOperandsAreFlattenedLeftToRight() {
+        Expression expr = StaticJavaParser.parseExpression("\"a\" + (b + \"c\") + d * e + f");
+        assertEquals(List.of("\"a\"", "b", "\"c\"", "d * e", "f"),
+                BinaryChain.concatenation(expr).stream().map(Expression::toString).collect(Collectors.toList()));
+        assertSame(BinaryChain.concatenation(expr), BinaryChain.concatenation(expr));
+        assertEquals(List.of("a", "b || c", "d"), BinaryChain.operands(StaticJavaParser.parseExpression("a && (b || c) && d"),
+                BinaryExpr.Operator.AND).stream().map(Expression::toString).collect(Collectors.toList()));
+        assertEquals(1, BinaryChain.concatenation(StaticJavaParser.parseExpression("a - b")).size());
+    }
+
+    @Test
+    void testPostOrderMatchesJavaParser() {
+        CompilationUnit cu = StaticJavaParser.parse(
+                "class A { int x = 1; void f(int a) { if (a > 0) { g(a + 1, () -> h()); } } class B { } }");
+        List<Node> expected = new ArrayList<>();
+        cu.walk(Node.TreeTraversal.POSTORDER, expected::add);
+        List<Node> actual = new ArrayList<>();
+        TreeWalker.postOrder(cu, actual::add);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void testDeeplyNestedExpressionsDoNotExhaustStack() throws Exception {
+        StringBuilder source = new StringBuilder(String.join("\n",
+                "class Dao {",
+                "    void find(java.sql.Statement stmt, String id, StringBuilder sb) throws Exception {",
+                "        stmt.execute(\"SELECT * FROM t WHERE id = \""));
+        for (int i = 0; i < DEPTH; i++) {
+            source.append(" + id");
+        }
+        source.append(");\n        String built = sb");
+        for (int i = 0; i < DEPTH; i++) {
+            source.append(".append(id)");
+        }
+        source.append(".toString();\n    }\n}\n");
+        Files.write(new File(tempDir, "Dao.java").toPath(), source.toString().getBytes(StandardCharsets.UTF_8));
+
+        // JavaParser 的语法分析本身是递归的，在解析流水线的大栈工作线程中完成
+        CodeParser parser = new CodeParser();
+        List<CompilationUnit> units = new ArrayList<>();
+        PipelineStats stats = new ParsePipeline<CompilationUnit>(parser, 1).run(tempDir, false, parser::parse, units::add);
+        assertEquals(0, stats.getFailed());
+        assertEquals(1, units.size());
+        CompilationUnit cu = units.get(0);
+        MethodCallExpr execute = cu.findFirst(MethodCallExpr.class, call -> call.getNameAsString().equals("execute")).get();
+
+        Expression chain = execute.getArgument(0);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicReference<List<AuditResult>> results = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                int[] count = new int[1];
+                TreeWalker.postOrder(cu, node -> count[0]++);
+                assertTrue(count[0] > 2 * DEPTH);
+                assertEquals(DEPTH + 1, BinaryChain.concatenation(chain).size());
+                assertTrue(SqlPatterns.isDynamicSql(chain));
+                assertEquals(SqlFragments.Position.VALUE, SqlPatterns.concatenationPosition(chain));
+                results.set(new AuditManager().audit(cu));
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, "deep-chain", STACK_SIZE);
+        thread.start();
+        thread.join();
+        if (failure.get() != null) {
+            fail(failure.get());
+        }
+        assertTrue(results.get().stream().anyMatch(r -> r.getRuleName().equals("SQL注入检查")));
+        assertTrue(results.get().stream().noneMatch(r -> r.getRuleName().equals(AuditManager.TIMEOUT_RULE_NAME)));
+    }
+}
@@ -0,0 +1,29 @@
+package com.autojav.core.audit;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.expr.Expression;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressionKeysTest {
+
+    @Test
+    void testKeysMatchSourceTextWithoutPrinting() {
+        for (String source : new String[]{"name", "user.address.city", "this.helper", "super.cache", "java.util.Objects",
+                "a.b().c", "list.get(0)", "Outer.this.value"}) {
+            Expression expression = StaticJavaParser.parseExpression(source);
+            assertEquals(expression.toString(), ExpressionKeys.of(expression), source);
+        }
+        // 注释不属于键
+        Expression commented = StaticJavaParser.parseExpression("user./* 地址 */address");
+        assertEquals("user.address", ExpressionKeys.of(commented));
+    }
+
+    @Test
+    void testKeysAreCachedOnTheNode() {
+        Expression expression = StaticJavaParser.parseExpression("user.address.city");
+        String key = ExpressionKeys.of(expression);
+        assertSame(key, ExpressionKeys.of(expression));
+    }
+}
@@ -0,0 +1,96 @@
+package com.autojav.core.audit;
+
+import com.autojav.core.audit.rules.NullPointerExceptionRuleProvider;
+import com.autojav.core.audit.rules.SqlInjectionRuleProvider;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleRegistryTest {
+
+    @Test
+    void testSelectByIdAndTag() {
+        RuleRegistry registry = RuleRegistry.load();
+        assertEquals(List.of(NullPointerExceptionRuleProvider.ID, SqlInjectionRuleProvider.ID), ids(registry.getProviders()));
+
+        assertEquals(List.of(SqlInjectionRuleProvider.ID), ids(registry.select(List.of("security"), List.of())));
+        assertEquals(List.of(NullPointerExceptionRuleProvider.ID), ids(registry.select(List.of(), List.of("sql-injection"))));
+        assertThrows(IllegalArgumentException.class, () -> registry.select(List.of("unknown"), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> registry.select(List.of("security"), List.of("security")));
+
+        AuditManager auditManager = new AuditManager(registry.select(List.of("security"), List.of()));
+        assertEquals(List.of(SqlInjectionRuleProvider.ID), auditManager.getRuleIds());
+        assertEquals(1, auditManager.getRules().size());
+    }
+
+    @Test
+    void testStatefulProviderRulesArePerThread() {
+        AuditManager auditManager = new AuditManager(List.of(new CountingRuleProvider()));
+        assertEquals(List.of("counting"), auditManager.getRuleIds());
+        assertTrue(auditManager.getRules().get(0) instanceof PerThreadRule);
+
+        List<CompilationUnit> compilationUnits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            compilationUnits.add(StaticJavaParser.parse("class A { }"));
+        }
+        assertEquals(4, auditManager.audit(compilationUnits, 2).size());
+    }
+
+    private static List<String> ids(List<RuleProvider> providers) {
+        return providers.stream().map(RuleProvider::getId).collect(Collectors.toList());
+    }
+
+    private static class CountingRuleProvider implements RuleProvider {
+
+        @Override
+        public String getId() {
+            return "counting";
+        }
+
+        @Override
+        public Set<String> getTags() {
+            return Set.of();
+        }
+
+        @Override
+        public Cost getCost() {
+            return Cost.CHEAP;
+        }
+
+        @Override
+        public AuditRule create() {
+            return new AuditRule() {
+
+                private int audited;
+
+                @Override
+                public String getName() {
+                    return "计数";
+                }
+
+                @Override
+                public String getDescription() {
+                    return "记录审计次数的有状态规则";
+                }
+
+                @Override
+                public List<AuditResult> audit(CompilationUnit compilationUnit) {
+                    audited++;
+                    return List.of(new AuditResult(getName(), Severity.INFO, "第 " + audited + " 次", null, 1, 1));
+                }
+
+                @Override
+                public Severity getSeverity() {
+                    return Severity.INFO;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.autojav.core.audit;
+
+import com.autojav.core.audit.rules.NullPointerExceptionRule;
+import com.autojav.core.audit.rules.SqlInjectionRule;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenPrefilterTest {
+
+    @Test
+    void testSelectsRulesByTriggerTokens() {
+        AuditRule sql = new SqlInjectionRule();
+        AuditRule overlapping = new TokenRule(Set.of("cute", "Query"));
+        TokenPrefilter prefilter = new TokenPrefilter(List.of(sql, overlapping));
+
+        assertEquals(List.of(sql, overlapping), prefilter.select("stmt.executeQuery(sql);"));
+        assertEquals(List.of(overlapping), prefilter.select("String q = \"cute\";"));
+        assertEquals(List.of(overlapping), prefilter.select("runQuery();"));
+        assertTrue(prefilter.select("class A { void f() { System.out.println(\"中文\"); } }").isEmpty());
+    }
+
+    @Test
+    void testRulesWithoutTokensAlwaysRun() {
+        AuditRule npe = new NullPointerExceptionRule();
+        AuditRule sql = new SqlInjectionRule();
+        TokenPrefilter prefilter = new TokenPrefilter(List.of(npe, sql));
+
+        assertEquals(List.of(npe), prefilter.select("class A {}"));
+    }
+
+    private static class TokenRule implements AuditRule {
+
+        private final Set<String> tokens;
+
+        TokenRule(Set<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        @Override
+        public String getName() {
+            return "测试规则";
+        }
+
+        @Override
+        public String getDescription() {
+            return "测试规则";
+        }
+
+        @Override
+        public List<AuditResult> audit(CompilationUnit compilationUnit) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Set<String> getTriggerTokens() {
+            return tokens;
+        }
+
+        @Override
+        public Severity getSeverity() {
+            return Severity.INFO;
+        }
+    }
+}
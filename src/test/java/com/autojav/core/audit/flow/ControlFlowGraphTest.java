@@ -0,0 +1,210 @@
+package com.autojav.core.audit.flow;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.WhileStmt;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ControlFlowGraphTest {
+
+    @Test
+    void testLoopsAndJumps() {
+        MethodDeclaration method = method(
+                "void f(int n) {",
+                "    outer:",
+                "    while (n > 0) {",
+                "        for (int i = 0; i < n; i++) {",
+                "            if (i == 3) continue outer;",
+                "            if (i == 5) break outer;",
+                "        }",
+                "        n--;",
+                "    }",
+                "    done();",
+                "}");
+        ControlFlowGraph graph = ControlFlowGraph.of(method);
+        assertSame(graph, ControlFlowGraph.of(method));
+
+        CfgNode whileCondition = graph.nodeOf(method.findFirst(WhileStmt.class).get().getCondition());
+        CfgNode done = graph.nodeOf(call(method, "done"));
+        // 循环条件的前驱：入口、n--、continue outer
+        assertEquals(3, whileCondition.getPredecessors().size());
+        // done() 的前驱：循环条件为假、break outer
+        List<CfgEdge.Kind> kinds = done.getPredecessors().stream().map(CfgEdge::getKind).collect(Collectors.toList());
+        assertEquals(2, kinds.size());
+        assertTrue(kinds.contains(CfgEdge.Kind.FALSE));
+        assertEquals(graph.getExit(), done.getSuccessors().get(0).getTarget());
+    }
+
+    @Test
+    void testNullnessFollowsBranchesLoopsAndHandlers() {
+        MethodDeclaration method = method(
+                "void f(String a, String b, String c, String d) {",
+                "    if (a == null || b == null) {",
+                "        throw new IllegalArgumentException();",
+                "    }",
+                "    use(a, b);",
+                "    while (c != null) {",
+                "        use(c);",
+                "        c = next();",
+                "    }",
+                "    use(c);",
+                "    try {",
+                "        d = new String();",
+                "        risky();",
+                "    } catch (Exception e) {",
+                "        use(d);",
+                "    }",
+                "    switch (a.length()) {",
+                "        case 1:",
+                "            b = null;",
+                "        case 2:",
+                "            use(b);",
+                "            break;",
+                "        default:",
+                "            use(b, b);",
+                "    }",
+                "}");
+        MethodCallExpr afterGuard = calls(method, "use").get(0);
+        assertTrue(NullnessAnalysis.isNonNull(afterGuard, "a"));
+        assertTrue(NullnessAnalysis.isNonNull(afterGuard, "b"));
+
+        List<MethodCallExpr> uses = calls(method, "use");
+        assertTrue(NullnessAnalysis.isNonNull(uses.get(1), "c"));
+        assertFalse(NullnessAnalysis.isNonNull(uses.get(2), "c"));
+        // 异常可能在赋值之前抛出
+        assertFalse(NullnessAnalysis.isNonNull(uses.get(3), "d"));
+        // case 1 贯穿到 case 2
+        assertFalse(NullnessAnalysis.isNonNull(uses.get(4), "b"));
+        assertTrue(NullnessAnalysis.isNonNull(uses.get(5), "b"));
+    }
+
+    @Test
+    void testFinallyRunsOnAbruptExits() {
+        MethodDeclaration method = method(
+                "void f(String p, String q, String r, String d) {",
+                "    try {",
+                "        if (p == null) return;",
+                "    } finally {",
+                "        use(p);",
+                "    }",
+                "    use(p);",
+                "    while (more()) {",
+                "        try {",
+                "            if (q == null) break;",
+                "            if (r == null) continue;",
+                "        } finally {",
+                "            use(q, r);",
+                "        }",
+                "        use(q, r);",
+                "    }",
+                "    try {",
+                "        d = new String();",
+                "        risky();",
+                "    } finally {",
+                "        use(d);",
+                "    }",
+                "    use(d);",
+                "}");
+        List<MethodCallExpr> uses = calls(method, "use");
+        // return 经过 finally
+        assertFalse(NullnessAnalysis.isNonNull(uses.get(0), "p"));
+        assertTrue(NullnessAnalysis.isNonNull(uses.get(1), "p"));
+        // break、continue 经过 finally
+        assertFalse(NullnessAnalysis.isNonNull(uses.get(2), "q"));
+        assertFalse(NullnessAnalysis.isNonNull(uses.get(2), "r"));
+        assertTrue(NullnessAnalysis.isNonNull(uses.get(3), "q"));
+        assertTrue(NullnessAnalysis.isNonNull(uses.get(3), "r"));
+        // 异常可能在赋值之前抛出，但正常完成后一定已赋值
+        assertFalse(NullnessAnalysis.isNonNull(uses.get(4), "d"));
+        assertTrue(NullnessAnalysis.isNonNull(uses.get(5), "d"));
+
+        // finally 按正常完成、return 和异常各有一份副本，return 经 finally 到达出口
+        ControlFlowGraph graph = ControlFlowGraph.of(method);
+        assertEquals(3, graph.nodesOf(uses.get(0)).size());
+        assertSame(graph.nodeOf(uses.get(0)), graph.nodesOf(uses.get(0)).get(0));
+        assertTrue(graph.getExit().getPredecessors().stream()
+                .noneMatch(edge -> edge.getSource().getAst() instanceof ReturnStmt));
+    }
+
+    @Test
+    void testCustomMayProblem() {
+        // 可能被赋值过的变量：前向、并集
+        MethodDeclaration method = method(
+                "void f(boolean flag) {",
+                "    int x;",
+                "    if (flag) {",
+                "        x = 1;",
+                "    } else {",
+                "        y = 2;",
+                "    }",
+                "    done();",
+                "}");
+        ControlFlowGraph graph = ControlFlowGraph.of(method);
+        FactIndex<String> names = new FactIndex<>();
+        names.add("x");
+        names.add("y");
+        DataflowResult result = DataflowSolver.solve(graph, new DataflowProblem() {
+            @Override
+            public Direction getDirection() {
+                return Direction.FORWARD;
+            }
+
+            @Override
+            public Meet getMeet() {
+                return Meet.UNION;
+            }
+
+            @Override
+            public int getWidth() {
+                return names.size();
+            }
+
+            @Override
+            public BitSet boundary() {
+                return new BitSet();
+            }
+
+            @Override
+            public BitSet transfer(CfgNode node, BitSet facts) {
+                if (node.getAst() instanceof ExpressionStmt) {
+                    ((ExpressionStmt) node.getAst()).getExpression().toAssignExpr().ifPresent(assign -> {
+                        int index = names.indexOf(assign.getTarget().toString());
+                        if (index >= 0) {
+                            facts.set(index);
+                        }
+                    });
+                }
+                return facts;
+            }
+        });
+        BitSet atDone = result.before(graph.nodeOf(call(method, "done")));
+        assertTrue(atDone.get(names.indexOf("x")));
+        assertTrue(atDone.get(names.indexOf("y")));
+        assertTrue(result.after(graph.getEntry()).isEmpty());
+    }
+
+    private static MethodDeclaration method(String... lines) {
+        CompilationUnit cu = StaticJavaParser.parse("class A {\n" + String.join("\n", lines) + "\n}");
+        return cu.findFirst(MethodDeclaration.class).get();
+    }
+
+    private static MethodCallExpr call(MethodDeclaration method, String name) {
+        return calls(method, name).get(0);
+    }
+
+    private static List<MethodCallExpr> calls(MethodDeclaration method, String name) {
+        return method.findAll(MethodCallExpr.class).stream()
+                .filter(call -> call.getNameAsString().equals(name))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,165 @@
+package com.autojav.core.audit.query;
+
+import com.autojav.core.audit.AuditManager;
+import com.autojav.core.audit.AuditResult;
+import com.autojav.core.audit.AuditRule;
+import com.autojav.core.audit.RuleProvider;
+import com.autojav.core.audit.RuleRegistry;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryRuleTest {
+
+    private static final String SOURCE = String.join("\n",
+            "class Dao {",
+            "    void find(java.sql.Statement stmt, String id) throws Exception {",
+            "        stmt.executeQuery(\"SELECT * FROM t WHERE id = \" + id);",
+            "        stmt.executeQuery(\"SELECT * FROM t\");",
+            "        stmt.execute((\"DELETE FROM t WHERE id = \" + id));",
+            "        try { run(); } catch (Exception e) { e.printStackTrace(); }",
+            "        System.exit(1);",
+            "        Runtime.getRuntime().exit(1);",
+            "        String url = \"jdbc:mysql://db?password=secret\";",
+            "    }",
+            "}");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testQueriesMatchStructure() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+        assertEquals(List.of(3, 5), lines(cu, "call[name~execute*](arg:concat(contains-sql, has-var))"));
+        assertEquals(List.of(3, 5), lines(cu, "call[name~exec*](arg:dynamic-sql)"));
+        assertEquals(List.of(4), lines(cu, "call[name=executeQuery](arg0:!dynamic-sql)"));
+        assertEquals(List.of(6), lines(cu, "call[name=printStackTrace, args=0]"));
+        assertEquals(List.of(7), lines(cu, "call[name=exit](scope:name[name=System])"));
+        assertEquals(List.of(7, 8), lines(cu, "call[name=exit, args=1](arg0:literal)"));
+        assertEquals(List.of(9), lines(cu, "string[value~*password=*]"));
+        assertEquals(List.of(6, 7, 8), lines(cu, "call[name=printStackTrace] | call[name~?xit]"));
+    }
+
+    @Test
+    void testSyntaxErrorsReportPosition() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Query.compile("call[name=a"));
+        assertTrue(e.getMessage().contains("期望 ]"), e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> Query.compile("call(arg:unknown)"));
+        assertTrue(e.getMessage().contains("第 10 个字符"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Query.compile("contains-sql"));
+        assertThrows(IllegalArgumentException.class, () -> Query.compile("string[args=1]"));
+        assertThrows(IllegalArgumentException.class, () -> Query.compile("name(scope:any)"));
+        assertThrows(IllegalArgumentException.class, () -> Query.compile("call[args=x]"));
+        assertThrows(IllegalArgumentException.class, () -> Query.compile("call) "));
+    }
+
+    @Test
+    void testTriggerTokens() {
+        assertEquals(Set.of("executeQuery", "prepare"),
+                rule("a", "call[name=executeQuery] | call[name~prepare*]").getTriggerTokens());
+        assertTrue(rule("b", "call[name=exit] | string").getTriggerTokens().isEmpty());
+        assertTrue(rule("c", "call[name~*Query]").getTriggerTokens().isEmpty());
+    }
+
+    @Test
+    void testVersionIsStableAcrossRuns() {
+        QueryRule warning = new QueryRule("a", null, AuditRule.Severity.WARNING, Query.compile("call[name=exit]"), "m", null);
+        // 内容摘要与进程无关，可与预先计算的值比较
+        assertEquals("09815f110790ce1a", warning.getVersion());
+        QueryRule error = new QueryRule("a", null, AuditRule.Severity.ERROR, Query.compile("call[name=exit]"), "m", null);
+        assertNotEquals(warning.getVersion(), error.getVersion());
+    }
+
+    @Test
+    void testMergedRulesMatchSeparateRules() {
+        List<RuleProvider> providers = new ArrayList<>();
+        String[] queries = {
+                "call[name~execute*](arg:dynamic-sql)",
+                "call[name=printStackTrace]",
+                "call[name=exit](scope:name[name=System])",
+                "call[name~*xit]",
+                "string[value~*password*]",
+                "concat(operand:name)",
+                "call[name=executeQuery] | call[name=execute]",
+        };
+        for (int i = 0; i < queries.length; i++) {
+            providers.add(new QueryRuleProvider("q" + i, Set.of("query"), rule("q" + i, queries[i])));
+        }
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+        AuditManager merged = new AuditManager(providers);
+        List<String> mergedResults = describe(merged.audit(cu));
+
+        List<String> separate = new ArrayList<>();
+        for (RuleProvider provider : providers) {
+            separate.addAll(describe(provider.create().audit(cu)));
+        }
+        assertEquals(separate.stream().sorted().collect(Collectors.toList()),
+                mergedResults.stream().sorted().collect(Collectors.toList()));
+        assertEquals(12, mergedResults.size());
+
+        merged.setSinglePass(false);
+        assertEquals(mergedResults, describe(merged.audit(cu)));
+    }
+
+    @Test
+    void testLoadRulesFromFile() throws IOException {
+        File file = tempDir.resolve("rules.properties").toFile();
+        Files.write(file.toPath(), String.join("\n",
+                "exit.query=call[name=exit](scope:name[name=System])",
+                "exit.message=不要调用 System.exit",
+                "exit.severity=error",
+                "exit.tags=style, query",
+                "trace.query=call[name=printStackTrace]",
+                "trace.message=使用日志记录异常").getBytes(StandardCharsets.UTF_8));
+        List<RuleProvider> providers = QueryRuleProvider.load(file);
+        assertEquals(List.of("exit", "trace"), providers.stream().map(RuleProvider::getId).collect(Collectors.toList()));
+        assertEquals(Set.of("style", "query"), providers.get(0).getTags());
+
+        RuleRegistry registry = RuleRegistry.load().with(providers);
+        List<RuleProvider> selected = registry.select(List.of("style"), List.of());
+        assertEquals(1, selected.size());
+        List<AuditResult> results = new AuditManager(selected).audit(StaticJavaParser.parse(SOURCE));
+        assertEquals(1, results.size());
+        assertEquals("exit", results.get(0).getRuleName());
+        assertEquals(AuditRule.Severity.ERROR, results.get(0).getSeverity());
+        assertEquals("不要调用 System.exit", results.get(0).getMessage());
+        assertThrows(IllegalStateException.class, () -> registry.with(providers));
+
+        Files.write(file.toPath(), "bad.query=call[\nbad.message=x".getBytes(StandardCharsets.UTF_8));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> QueryRuleProvider.load(file));
+        assertTrue(e.getMessage().contains("bad"), e.getMessage());
+        Files.write(file.toPath(), "bad.query=call".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> QueryRuleProvider.load(file));
+    }
+
+    private static QueryRule rule(String name, String query) {
+        return new QueryRule(name, null, AuditRule.Severity.WARNING, Query.compile(query), name, null);
+    }
+
+    private static List<Integer> lines(CompilationUnit cu, String text) {
+        Query query = Query.compile(text);
+        return cu.findAll(Node.class, query::matches).stream()
+                .map(node -> node.getBegin().get().line)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> describe(List<AuditResult> results) {
+        return results.stream()
+                .map(r -> r.getRuleName() + "@" + r.getLine() + ":" + r.getColumn())
+                .collect(Collectors.toList());
+    }
+}
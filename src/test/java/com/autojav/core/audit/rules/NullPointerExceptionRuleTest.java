@@ -0,0 +1,121 @@
+package com.autojav.core.audit.rules;
+
+import com.autojav.core.audit.AuditResult;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NullPointerExceptionRuleTest {
+
+    private final NullPointerExceptionRule rule = new NullPointerExceptionRule();
+
+    @Test
+    void testNullChecks() {
+        String source = String.join("\n",
+                "class A {",
+                "    private Helper helper;",
+                "    void unchecked(String p) { p.trim(); }",
+                "    void guarded(String p) { if (p != null && p.length() > 0) { p.trim(); } }",
+                "    void earlyReturn(String p) {",
+                "        if (p == null) {",
+                "            return;",
+                "        }",
+                "        p.trim();",
+                "    }",
+                "    void required(String p) { java.util.Objects.requireNonNull(p, \"p\"); p.trim(); }",
+                "    void field() { helper.inner.run(); }",
+                "    void primitive(int n) { n.toString(); }",
+                "}");
+        List<Integer> lines = audit(source).stream().map(AuditResult::getLine).collect(Collectors.toList());
+        assertEquals(List.of(3, 12), lines);
+    }
+
+    @Test
+    void testParametersAreScopedToTheirMethod() {
+        String source = String.join("\n",
+                "class A {",
+                "    void f(String p) { p.trim(); }",
+                "    void g() { String p = \"x\"; p.trim(); }",
+                "    void h(String q) {",
+                "        new Thread(new Runnable() { public void run() { q.trim(); } });",
+                "    }",
+                "}");
+        List<Integer> lines = audit(source).stream().map(AuditResult::getLine).collect(Collectors.toList());
+        assertEquals(List.of(2, 5), lines);
+    }
+
+    @Test
+    void testNullChecksOnlyCoverGuardedPaths() {
+        String source = String.join("\n",
+                "class A {",
+                "    void f(String p, String q) {",
+                "        p.trim();",
+                "        if (p == null) {",
+                "            System.out.println();",
+                "        }",
+                "        p.trim();",
+                "        if (q != null) {",
+                "            q.trim();",
+                "        }",
+                "        q.trim();",
+                "        Runnable r = () -> q.trim();",
+                "        if (q != null) {",
+                "            Runnable s = () -> q.trim();",
+                "        }",
+                "    }",
+                "}");
+        List<Integer> lines = audit(source).stream().map(AuditResult::getLine).collect(Collectors.toList());
+        assertEquals(List.of(3, 7, 11, 12), lines);
+    }
+
+    @Test
+    void testRuntimeIsLinearInFileSize() {
+        // 预热
+        audit(generate(200));
+        long small = time(generate(500));
+        long large = time(generate(4000));
+
+        // 规模扩大8倍，二次复杂度下耗时约为64倍
+        assertTrue(large < small * 20 + 200,
+                "耗时随规模非线性增长: 500个方法 " + small + "ms, 4000个方法 " + large + "ms");
+    }
+
+    private List<AuditResult> audit(String source) {
+        return rule.audit(StaticJavaParser.parse(source));
+    }
+
+    // 每次重新解析：审计上下文和空值分析的结果缓存在节点上，重复审计同一语法树测不到分析本身。
+    // 支持时按当前线程的CPU时间计量，减少机器负载的影响
+    private long time(String source) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean cpuTime = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            CompilationUnit cu = StaticJavaParser.parse(source);
+            long start = cpuTime ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+            assertFalse(rule.audit(cu).isEmpty());
+            long end = cpuTime ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+            best = Math.min(best, (end - start) / 1_000_000);
+        }
+        return best;
+    }
+
+    private static String generate(int methods) {
+        StringBuilder source = new StringBuilder("class Gen {\n    private Helper helper;\n");
+        for (int i = 0; i < methods; i++) {
+            source.append("    void m").append(i).append("(String p").append(i).append(", String q").append(i).append(") {\n")
+                    .append("        if (q").append(i).append(" != null) { q").append(i).append(".trim(); }\n")
+                    .append("        p").append(i).append(".trim();\n")
+                    .append("        helper.inner.run();\n")
+                    .append("    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
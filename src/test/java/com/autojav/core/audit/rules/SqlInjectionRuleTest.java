@@ -0,0 +1,57 @@
+package com.autojav.core.audit.rules;
+
+import com.autojav.core.audit.AuditResult;
+import com.autojav.core.audit.AuditRule;
+import com.github.javaparser.StaticJavaParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlInjectionRuleTest {
+
+    private final SqlInjectionRule rule = new SqlInjectionRule();
+
+    @Test
+    void testVariablesAreScopedPerMethod() {
+        String source = String.join("\n",
+                "class UserDao {",
+                "    void unsafe(java.sql.Connection conn, String name) throws Exception {",
+                "        String sql = \"SELECT * FROM users WHERE name = '\" + name + \"'\";",
+                "        conn.createStatement().executeQuery(sql);",
+                "    }",
+                "    void safe(java.sql.Connection conn) throws Exception {",
+                "        String sql = \"SELECT * FROM users\";",
+                "        conn.createStatement().executeQuery(sql);",
+                "    }",
+                "    void captured(java.sql.Connection conn, String name) {",
+                "        String sql = \"DELETE FROM users WHERE name = '\" + name + \"'\";",
+                "        Runnable task = new Runnable() {",
+                "            public void run() { try { conn.createStatement().execute(sql); } catch (Exception e) { } }",
+                "        };",
+                "    }",
+                "}");
+        List<Integer> lines = rule.audit(StaticJavaParser.parse(source)).stream()
+                .map(AuditResult::getLine).collect(Collectors.toList());
+        assertEquals(List.of(4, 13), lines);
+    }
+
+    @Test
+    void testFindingsAreDeduplicatedByPosition() {
+        String source = String.join("\n",
+                "class UserDao {",
+                "    void find(java.sql.Statement stmt, String name) throws Exception {",
+                "        stmt.executeQuery(\"SELECT * FROM users WHERE name = '\" + name + \"'\");",
+                "        stmt.execute(name);",
+                "    }",
+                "}");
+        List<AuditResult> results = rule.audit(StaticJavaParser.parse(source));
+        assertEquals(2, results.size());
+        assertEquals(3, results.get(0).getLine());
+        assertEquals(AuditRule.Severity.ERROR, results.get(0).getSeverity());
+        assertEquals(4, results.get(1).getLine());
+        assertEquals(AuditRule.Severity.WARNING, results.get(1).getSeverity());
+    }
+}
@@ -0,0 +1,50 @@
+package com.autojav.core.audit.taint;
+
+import com.github.javaparser.StaticJavaParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlFragmentsTest {
+
+    @Test
+    void testKeywordsMatchWholeWordsIgnoringCase() {
+        assertTrue(SqlFragments.containsKeyword("select * from users"));
+        assertTrue(SqlFragments.containsKeyword("id = 1 Or 1=1"));
+        assertFalse(SqlFragments.containsKeyword("ORDER_STATUS"));
+        assertFalse(SqlFragments.containsKeyword("fromDate"));
+        assertFalse(SqlFragments.containsKeyword("Author: "));
+        assertFalse(SqlFragments.containsKeyword(""));
+    }
+
+    @Test
+    void testPositionAfterFragment() {
+        assertEquals(SqlFragments.Position.VALUE, positionAfter("SELECT * FROM users WHERE id = "));
+        assertEquals(SqlFragments.Position.VALUE, positionAfter("SELECT * FROM users WHERE name = '"));
+        assertEquals(SqlFragments.Position.VALUE, positionAfter("DELETE FROM users WHERE id IN ("));
+        assertEquals(SqlFragments.Position.VALUE, positionAfter("INSERT INTO users VALUES (1, "));
+        assertEquals(SqlFragments.Position.IDENTIFIER, positionAfter("SELECT * FROM "));
+        assertEquals(SqlFragments.Position.IDENTIFIER, positionAfter("SELECT * FROM users ORDER BY "));
+        assertEquals(SqlFragments.Position.IDENTIFIER, positionAfter("SELECT * FROM users u WHERE u."));
+        assertEquals(SqlFragments.Position.IDENTIFIER, positionAfter("SELECT \""));
+        assertEquals(SqlFragments.Position.UNKNOWN, positionAfter("SELECT * FROM users "));
+        assertEquals(SqlFragments.Position.UNKNOWN, positionAfter("SELECT * FROM users WHERE name = 'a' "));
+        assertEquals(SqlFragments.Position.UNKNOWN, positionAfter("SELECT COUNT("));
+    }
+
+    @Test
+    void testConcatenationPosition() {
+        assertEquals(SqlFragments.Position.VALUE, SqlPatterns.concatenationPosition(
+                StaticJavaParser.parseExpression("\"SELECT * FROM users WHERE name = '\" + name + \"' AND age > \" + age")));
+        assertEquals(SqlFragments.Position.IDENTIFIER, SqlPatterns.concatenationPosition(
+                StaticJavaParser.parseExpression("\"SELECT * FROM users WHERE id = \" + id + \" ORDER BY \" + column")));
+        assertEquals(SqlFragments.Position.UNKNOWN, SqlPatterns.concatenationPosition(
+                StaticJavaParser.parseExpression("\"SELECT * FROM users \" + where")));
+        assertTrue(SqlPatterns.containsSqlKeywords(StaticJavaParser.parseExpression("\"SELECT * FROM t WHERE id = \" + fromDate")));
+        assertFalse(SqlPatterns.containsSqlKeywords(StaticJavaParser.parseExpression("\"Order: \" + selectedOrder")));
+    }
+
+    private static SqlFragments.Position positionAfter(String fragment) {
+        return SqlFragments.position(SqlFragments.scan(fragment, SqlFragments.INITIAL));
+    }
+}
@@ -0,0 +1,220 @@
+package com.autojav.core.audit.taint;
+
+import com.autojav.core.CodeParser;
+import com.autojav.core.SourceFile;
+import com.autojav.core.audit.AuditResult;
+import com.autojav.core.audit.AuditRule;
+import com.autojav.core.audit.rules.SqlInjectionRule;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaintSummariesTest {
+
+    private static final String QUERY_BUILDER = String.join("\n",
+            "class QueryBuilder {",
+            "    static String byName(String table, String name) {",
+            "        StringBuilder sb = new StringBuilder(\"SELECT * FROM \");",
+            "        sb.append(table).append(\" WHERE name = '\" + name + \"'\");",
+            "        return wrap(sb.toString());",
+            "    }",
+            "    static String wrap(String sql) {",
+            "        return sql.trim();",
+            "    }",
+            "    static String fixed() {",
+            "        return \"SELECT * FROM users\";",
+            "    }",
+            "}");
+
+    private static final String USER_DAO = String.join("\n",
+            "class UserDao {",
+            "    void run(String sql) throws Exception {",
+            "        runQuery(sql);",
+            "    }",
+            "    private void runQuery(String query) throws Exception {",
+            "        connection.createStatement().execute(query);",
+            "    }",
+            "}");
+
+    @TempDir
+    File projectDir;
+
+    @TempDir
+    File cacheDir;
+
+    @Test
+    void testHelperReturningDynamicSql() {
+        String caller = String.join("\n",
+                "class UserService {",
+                "    void find(java.sql.Statement stmt, String name) throws Exception {",
+                "        String sql = QueryBuilder.byName(\"users\", name);",
+                "        stmt.executeQuery(sql);",
+                "        stmt.executeQuery(QueryBuilder.fixed());",
+                "    }",
+                "}");
+        List<AuditResult> results = audit(caller, QUERY_BUILDER).stream()
+                .filter(result -> result.getSeverity() == AuditRule.Severity.ERROR).collect(Collectors.toList());
+        assertEquals(1, results.size());
+        assertEquals(4, results.get(0).getLine());
+        assertEquals("SQL注入风险：SQL语句经由方法调用拼接了用户输入", results.get(0).getMessage());
+
+        // 没有项目级摘要时被调方法按库方法处理，拼接发生在别的文件中因而无法识别
+        assertTrue(new SqlInjectionRule().audit(StaticJavaParser.parse(caller)).stream()
+                .noneMatch(result -> result.getMessage().contains("经由方法调用")));
+    }
+
+    @Test
+    void testHelperExecutingParameter() {
+        String caller = String.join("\n",
+                "class UserService {",
+                "    void delete(UserDao dao, String id) throws Exception {",
+                "        dao.run(\"DELETE FROM users WHERE id = \" + id);",
+                "        dao.run(\"DELETE FROM users\");",
+                "    }",
+                "}");
+        TaintSummaries summaries = TaintSummaries.compose(models(USER_DAO));
+        assertEquals(1L, summaries.get("run/1").getSinkParams());
+        assertEquals(1L, summaries.get("runQuery/1").getSinkParams());
+
+        List<AuditResult> results = audit(caller, USER_DAO);
+        assertEquals(1, results.size());
+        assertEquals(3, results.get(0).getLine());
+        assertEquals("SQL注入风险：拼接了用户输入的SQL语句传入方法 run 后被执行", results.get(0).getMessage());
+    }
+
+    @Test
+    void testSinkSummaryOnlyAppliesToDeclaringType() {
+        String dao = String.join("\n",
+                "class Dao {",
+                "    void add(String sql) throws Exception {",
+                "        stmt.execute(sql);",
+                "    }",
+                "}");
+        String caller = String.join("\n",
+                "class UserService {",
+                "    private Dao dao;",
+                "    void save(java.util.List<String> lines, String name) throws Exception {",
+                "        lines.add(\"SELECT * FROM users WHERE name = '\" + name + \"'\");",
+                "        java.util.Set<String> seen = new java.util.HashSet<>();",
+                "        seen.add(\"DELETE FROM users WHERE name = '\" + name + \"'\");",
+                "        dao.add(\"DELETE FROM users WHERE name = '\" + name + \"'\");",
+                "        this.dao.add(\"DELETE FROM users WHERE name = '\" + name + \"'\");",
+                "        helper().add(\"DELETE FROM users WHERE name = '\" + name + \"'\");",
+                "    }",
+                "}");
+        List<Integer> lines = audit(caller, dao).stream()
+                .filter(result -> result.getSeverity() == AuditRule.Severity.ERROR)
+                .map(AuditResult::getLine).collect(Collectors.toList());
+        // 同名的库方法和类型无法确定的调用者不套用 Dao.add 的摘要
+        assertEquals(List.of(7, 8), lines);
+
+        TaintSummaries summaries = TaintSummaries.compose(models(dao));
+        assertNotNull(summaries.get("Dao.add/1"));
+        assertNotNull(summaries.get("add/1"));
+        assertNull(summaries.get("List.add/1"));
+        assertNull(summaries.get(MethodTaint.UNKNOWN_TYPE + ".add/1"));
+    }
+
+    @Test
+    void testStoreReusesModelsOfUnchangedFiles() throws IOException {
+        write("QueryBuilder.java", QUERY_BUILDER);
+        write("UserDao.java", USER_DAO);
+        CodeParser parser = new CodeParser();
+
+        TaintSummaryStore store = TaintSummaryStore.open(cacheDir, "v1");
+        store.refresh(projectDir, true, parser, 2);
+        assertEquals(2, store.getAnalyzed());
+        TaintSummaries first = store.compose();
+        store.save();
+
+        TaintSummaryStore reopened = TaintSummaryStore.open(cacheDir, "v1");
+        reopened.refresh(projectDir, true, parser, 2);
+        assertEquals(0, reopened.getAnalyzed());
+        assertEquals(2, reopened.getReused());
+        TaintSummaries second = reopened.compose();
+        assertEquals(first.get("byName/2"), second.get("byName/2"));
+        assertTrue(second.get("byName/2").isReturnsDynamicSql());
+        assertTrue(second.hasSink(List.of("run/1")));
+
+        // 只重新分析修改过的文件，依赖它的摘要随之变化
+        write("UserDao.java", USER_DAO.replace("runQuery(sql);", "runQuery(\"SELECT 1\");"));
+        reopened.refresh(projectDir, true, parser, 2);
+        assertEquals(1, reopened.getAnalyzed());
+        assertEquals(1, reopened.getReused());
+        assertFalse(reopened.compose().hasSink(List.of("run/1")));
+
+        // 工具或规则集版本变化时全部重新分析
+        TaintSummaryStore invalidated = TaintSummaryStore.open(cacheDir, "v2");
+        invalidated.refresh(projectDir, true, parser, 2);
+        assertEquals(2, invalidated.getAnalyzed());
+    }
+
+    @Test
+    void testChangedFilesRefreshOnlyTheirCallees() throws IOException {
+        String service = String.join("\n",
+                "class UserService {",
+                "    void delete(UserDao dao, String id) throws Exception {",
+                "        dao.run(\"DELETE FROM users WHERE id = \" + id);",
+                "    }",
+                "}");
+        write("UserService.java", service);
+        write("UserDao.java", USER_DAO);
+        write("QueryBuilder.java", QUERY_BUILDER);
+        CodeParser parser = new CodeParser();
+        TaintSummaryStore store = TaintSummaryStore.open(cacheDir, "v1");
+        File serviceFile = new File(projectDir, "UserService.java");
+
+        // 存储中还没有模型时更新整个目录
+        store.refresh(List.of(serviceFile), projectDir, parser, 2);
+        assertEquals(3, store.getAnalyzed());
+
+        // 被调用的文件按修改时间判断过期，未被调用的文件即使修改了也不读取
+        write("UserDao.java", USER_DAO.replace("runQuery(sql);", "runQuery(\"SELECT 1\");"));
+        write("QueryBuilder.java", QUERY_BUILDER.replace("fixed()", "constant()"));
+        write("UserService.java", service + "\n");
+        store.retainParsed(1);
+        store.refresh(List.of(serviceFile), projectDir, parser, 2);
+        assertEquals(2, store.getAnalyzed());
+        assertEquals(0, store.getReused());
+        assertFalse(store.compose().hasSink(List.of("run/1")));
+        assertNotNull(store.compose().get("fixed/0"));
+
+        // 变更文件更新时解析出的语法树留给审计，取出一次后不再保留
+        SourceFile source = SourceFile.read(serviceFile);
+        assertNotNull(store.takeParsed(source).getCompilationUnit());
+        assertNull(store.takeParsed(source));
+
+        // 已删除的变更文件的模型被移除
+        assertTrue(new File(projectDir, "UserDao.java").delete());
+        store.refresh(List.of(new File(projectDir, "UserDao.java")), projectDir, parser, 2);
+        assertEquals(0, store.getAnalyzed());
+        assertNull(store.compose().get("run/1"));
+    }
+
+    private List<AuditResult> audit(String caller, String callee) {
+        CompilationUnit callerUnit = StaticJavaParser.parse(caller);
+        List<MethodModel> models = new ArrayList<>(MethodTaint.models(callerUnit));
+        models.addAll(models(callee));
+        TaintSummaries.attach(callerUnit, TaintSummaries.compose(models));
+        return new SqlInjectionRule().audit(callerUnit);
+    }
+
+    private static List<MethodModel> models(String source) {
+        return MethodTaint.models(StaticJavaParser.parse(source));
+    }
+
+    private void write(String name, String content) throws IOException {
+        Files.write(new File(projectDir, name).toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
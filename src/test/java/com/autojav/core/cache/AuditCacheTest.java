@@ -0,0 +1,67 @@
+package com.autojav.core.cache;
+
+import com.autojav.core.audit.AuditResult;
+import com.autojav.core.audit.AuditRule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditCacheTest {
+
+    @TempDir
+    File cacheDir;
+
+    @Test
+    void testHitUsesCurrentPath() {
+        AuditCache cache = AuditCache.open(cacheDir, "v1", 10);
+        String hash = AuditCache.hash("class A {}");
+        assertNull(cache.get(hash, "A.java"));
+
+        cache.put(hash, List.of(newResult("old/A.java")));
+        List<AuditResult> cached = cache.get(hash, "new/A.java");
+        assertEquals(1, cached.size());
+        assertEquals("new/A.java", cached.get(0).getFilePath());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        AuditCache cache = AuditCache.open(cacheDir, "v1", 2);
+        cache.put("a", Collections.emptyList());
+        cache.put("b", Collections.emptyList());
+        cache.get("a", "A.java");
+        cache.put("c", Collections.emptyList());
+
+        assertNotNull(cache.get("a", "A.java"));
+        assertNull(cache.get("b", "B.java"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void testPersistAndInvalidate() throws IOException {
+        AuditCache cache = AuditCache.open(cacheDir, "v1", 10);
+        cache.put("a", List.of(newResult("A.java")));
+        cache.save();
+
+        AuditCache reopened = AuditCache.open(cacheDir, "v1", 10);
+        assertFalse(reopened.isInvalidated());
+        AuditResult result = reopened.get("a", "A.java").get(0);
+        assertEquals(12, result.getLine());
+        assertEquals("建议", result.getFixSuggestion());
+
+        AuditCache changed = AuditCache.open(cacheDir, "v2", 10);
+        assertTrue(changed.isInvalidated());
+        assertNull(changed.get("a", "A.java"));
+    }
+
+    private AuditResult newResult(String filePath) {
+        return new AuditResult("规则", AuditRule.Severity.WARNING, "问题", filePath, 12, 5, "建议");
+    }
+}
@@ -0,0 +1,46 @@
+package com.autojav.core.doc;
+
+import com.autojav.core.index.FileSymbols;
+import com.autojav.core.index.ProjectIndex;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarkdownDocGeneratorTest {
+
+    private static final String CONTROLLER = String.join("\n",
+            "package com.example.web;",
+            "import com.example.dto.UserDto;",
+            "@RestController",
+            "class UserController {",
+            "    @PostMapping(\"/users\") void create(UserDto user) { }",
+            "    @PostMapping(\"/users/batch\") void createAll(List<UserDto> users, int size) { }",
+            "}");
+
+    private static final String USER_DTO = String.join("\n",
+            "package com.example.dto;",
+            "public class UserDto {",
+            "    private String name;",
+            "    private int age;",
+            "    public String getName() { return name; }",
+            "}");
+
+    @Test
+    void testParameterFieldsComeFromProjectIndex() throws DocGenerationException {
+        CompilationUnit controller = StaticJavaParser.parse(CONTROLLER);
+        MarkdownDocGenerator generator = new MarkdownDocGenerator();
+        assertTrue(generator.generate(List.of(controller)).contains("| user | UserDto |  |"));
+
+        // 参数类型所在的文件只需在索引中，不需要语法树
+        generator.setProjectIndex(ProjectIndex.build(List.of(
+                FileSymbols.of(controller), FileSymbols.of(StaticJavaParser.parse(USER_DTO)))));
+        String markdown = generator.generate(List.of(controller));
+        assertTrue(markdown.contains("| user | UserDto | 字段: name, age |"));
+        assertTrue(markdown.contains("| users | List<UserDto> | 字段: name, age |"));
+        assertTrue(markdown.contains("| size | int |  |"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.autojav.core.git;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitChangeSetTest {
+
+    @Test
+    void testParseDiff() {
+        Path root = Paths.get("/repo").toAbsolutePath();
+        String diff = "diff --git a/src/A.java b/src/A.java\n"
+                + "--- a/src/A.java\n"
+                + "+++ b/src/A.java\n"
+                + "@@ -3 +3 @@ class A {\n"
+                + "@@ -10,0 +11,3 @@ class A {\n"
+                + "@@ -20,2 +23,0 @@ class A {\n"
+                + "diff --git a/src/Old.java b/src/Old.java\n"
+                + "--- a/src/Old.java\n"
+                + "+++ /dev/null\n"
+                + "@@ -1,5 +0,0 @@\n";
+
+        GitChangeSet changeSet = GitChangeSet.parseDiff(root, diff);
+        Path file = root.resolve("src/A.java");
+
+        assertEquals(1, changeSet.getFiles().size());
+        assertTrue(changeSet.isChanged(file, 3));
+        assertTrue(changeSet.isChanged(file, 11));
+        assertTrue(changeSet.isChanged(file, 13));
+        assertFalse(changeSet.isChanged(file, 14));
+        assertFalse(changeSet.isChanged(file, 23));
+        assertFalse(changeSet.isChanged(root.resolve("src/Old.java"), 1));
+    }
+
+    @Test
+    void testStagedIgnoresUserPrefixConfig(@TempDir Path repo) throws IOException, InterruptedException {
+        Assumptions.assumeTrue(run(repo, "git", "init", "-q") == 0, "未安装git");
+        Path file = repo.resolve("src/A.java");
+        // 目录名为 b 时，noprefix 输出的路径以 b/ 开头
+        Path other = repo.resolve("b/B.java");
+        for (Path path : new Path[]{file, other}) {
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, "class A {\n}\n");
+        }
+        run(repo, "git", "add", "src/A.java", "b/B.java");
+
+        run(repo, "git", "config", "diff.mnemonicPrefix", "true");
+        assertStaged(repo, file, other);
+        run(repo, "git", "config", "diff.mnemonicPrefix", "false");
+        run(repo, "git", "config", "diff.noprefix", "true");
+        assertStaged(repo, file, other);
+        // diff.relative 会让路径相对于当前目录输出
+        run(repo, "git", "config", "diff.relative", "true");
+        GitChangeSet changeSet = GitChangeSet.staged(repo.resolve("src").toFile());
+        assertTrue(changeSet.isChanged(file, 2));
+    }
+
+    @Test
+    void testSinceIncludesUntrackedFiles(@TempDir Path repo) throws IOException, InterruptedException {
+        Assumptions.assumeTrue(run(repo, "git", "init", "-q") == 0, "未安装git");
+        Path tracked = repo.resolve("src/A.java");
+        Files.createDirectories(tracked.getParent());
+        Files.writeString(tracked, "class A {\n}\n");
+        Files.writeString(repo.resolve(".gitignore"), "Ignored.java\n");
+        run(repo, "git", "add", ".");
+        run(repo, "git", "-c", "user.name=t", "-c", "user.email=t@t", "commit", "-q", "-m", "init");
+
+        Path added = repo.resolve("src/N.java");
+        Files.writeString(added, "class N {\n    int x;\n}\n");
+        Files.writeString(repo.resolve("src/Ignored.java"), "class Ignored {\n}\n");
+        GitChangeSet changeSet = GitChangeSet.since(repo.resolve("src").toFile(), "HEAD");
+        assertEquals(1, changeSet.getFiles().size());
+        assertTrue(changeSet.isChanged(added, 1));
+        assertTrue(changeSet.isChanged(added, 3));
+        assertFalse(changeSet.isChanged(tracked, 1));
+    }
+
+    private static void assertStaged(Path repo, Path... files) throws IOException {
+        GitChangeSet changeSet = GitChangeSet.staged(repo.toFile());
+        assertEquals(files.length, changeSet.getFiles().size());
+        for (Path file : files) {
+            assertTrue(changeSet.isChanged(file, 2), file.toString());
+        }
+    }
+
+    private static int run(Path directory, String... command) throws IOException, InterruptedException {
+        try {
+            return new ProcessBuilder(command).directory(directory.toFile()).inheritIO().start().waitFor();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
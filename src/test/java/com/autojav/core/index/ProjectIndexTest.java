@@ -0,0 +1,116 @@
+package com.autojav.core.index;
+
+import com.github.javaparser.StaticJavaParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectIndexTest {
+
+    private static final String CONTROLLER = String.join("\n",
+            "package com.example;",
+            "@RestController",
+            "class UserController {",
+            "    @Autowired private UserService userService;",
+            "    @GetMapping(\"/users\") List<User> list() { return userService.findAll(); }",
+            "    class Page { int size; }",
+            "}");
+
+    private static final String SERVICE = String.join("\n",
+            "package com.example;",
+            "class UserService {",
+            "    UserService() { }",
+            "    List<User> findAll() { return dao.query(\"users\"); }",
+            "}");
+
+    @TempDir
+    File cacheDir;
+
+    @Test
+    void testFileSymbols() {
+        FileSymbols controller = symbols(CONTROLLER);
+        List<String> names = new ArrayList<>();
+        for (FileSymbols.Declaration declaration : controller.getDeclarations()) {
+            names.add(declaration.getKind() + " " + controller.qualifiedName(declaration)
+                    + " " + declaration.getAnnotations());
+        }
+        assertEquals(List.of(
+                "TYPE com.example.UserController [RestController]",
+                "FIELD com.example.UserController#userService [Autowired]",
+                "METHOD com.example.UserController#list/0 [GetMapping]",
+                "TYPE com.example.UserController.Page []",
+                "FIELD com.example.UserController.Page#size []"), names);
+        assertTrue(controller.hasTypeAnnotation("RestController"));
+        assertFalse(controller.hasTypeAnnotation("GetMapping"));
+
+        FileSymbols service = symbols(SERVICE);
+        assertEquals("com.example.UserService#<init>/0", service.qualifiedName(service.getDeclarations().get(1)));
+        assertEquals(FileSymbols.Kind.CONSTRUCTOR, service.getDeclarations().get(1).getKind());
+    }
+
+    @Test
+    void testQueriesAcrossFiles() {
+        ProjectIndex index = ProjectIndex.build(List.of(symbols(CONTROLLER), symbols(SERVICE)));
+
+        assertEquals(List.of("com.example.UserController#userService", "com.example.UserController#list/0"),
+                index.membersOf("com.example.UserController"));
+        assertEquals(List.of("com.example.UserController.Page#size"), index.membersOf("com.example.UserController.Page"));
+        assertEquals(List.of("com.example.UserService#<init>/0", "com.example.UserService#findAll/0"),
+                index.membersOf("com.example.UserService"));
+        assertEquals(List.of("com.example.UserController"), index.annotatedWith("RestController"));
+        assertEquals(List.of("com.example.UserController#list/0"), index.annotatedWith("GetMapping"));
+        assertEquals(List.of("com.example.UserController.Page"), index.typesNamed("Page"));
+
+        assertEquals(List.of("findAll/0"), index.calleesOf("com.example.UserController#list/0"));
+        assertEquals(List.of("com.example.UserController#list/0"), index.callersOf("findAll/0"));
+        assertEquals(List.of("com.example.UserService#findAll/0"), index.implementationsOf("findAll/0"));
+        assertTrue(index.implementationsOf("query/1").isEmpty());
+        assertEquals(FileSymbols.Kind.FIELD, index.kindOf("com.example.UserController#userService"));
+        assertNull(index.kindOf("com.example.Missing"));
+    }
+
+    @Test
+    void testStorePersistsSymbolsByContentHash() throws IOException {
+        File storeFile = new File(cacheDir, "project-index.bin");
+        File controller = new File("src/UserController.java");
+        ProjectIndexStore store = ProjectIndexStore.open(storeFile, "v1");
+        assertNull(store.get(controller, "h1"));
+        store.put(controller, "h1", symbols(CONTROLLER));
+        store.save();
+
+        ProjectIndexStore reopened = ProjectIndexStore.open(storeFile, "v1");
+        FileSymbols symbols = reopened.get(controller, "h1");
+        assertNotNull(symbols);
+        assertTrue(symbols.hasTypeAnnotation("RestController"));
+        assertEquals(1, reopened.getReused());
+        assertNull(reopened.get(controller, "h2"));
+        assertEquals(symbols(CONTROLLER).getDeclarations().size(), symbols.getDeclarations().size());
+        // 项目索引直接由保存的符号构建，调用关系随符号一起持久化
+        assertEquals(List.of("findAll/0"), reopened.build().calleesOf("com.example.UserController#list/0"));
+
+        // 目录下本次未处理的文件被移除；非递归处理时子目录中的文件不在范围内
+        File nested = new File("src/web/PageController.java");
+        reopened.put(nested, "h3", symbols(CONTROLLER));
+        reopened.save();
+        reopened.prune(new File("src"), true);
+        assertNotNull(reopened.get(controller, "h1"));
+        ProjectIndexStore pruned = ProjectIndexStore.open(storeFile, "v1");
+        pruned.prune(new File("src"), false);
+        pruned.save();
+        ProjectIndexStore afterPrune = ProjectIndexStore.open(storeFile, "v1");
+        assertNull(afterPrune.get(controller, "h1"));
+        assertNotNull(afterPrune.get(nested, "h3"));
+
+        assertNull(ProjectIndexStore.open(storeFile, "v2").get(controller, "h1"));
+    }
+
+    private static FileSymbols symbols(String source) {
+        return FileSymbols.of(StaticJavaParser.parse(source));
+    }
+}
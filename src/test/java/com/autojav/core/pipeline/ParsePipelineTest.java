@@ -0,0 +1,79 @@
+package com.autojav.core.pipeline;
+
+import com.autojav.core.CodeParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParsePipelineTest {
+
+    @Test
+    void testResultsFollowFileOrder() throws IOException {
+        CodeParser parser = new CodeParser();
+        File testDir = new File("src/main/java/com/autojav");
+        List<String> expected = new ArrayList<>();
+        for (CompilationUnit cu : parser.parseDirectory(testDir, true)) {
+            expected.add(cu.getStorage().get().getPath().toString());
+        }
+
+        // 容量为1时各阶段频繁阻塞，用于验证背压下不会死锁且顺序不变
+        List<String> actual = new ArrayList<>();
+        ParsePipeline<String> pipeline = new ParsePipeline<>(parser, 3, 1);
+        PipelineStats stats = pipeline.run(testDir, true, source -> {
+            CompilationUnit cu = parser.parse(source);
+            return cu != null ? cu.getStorage().get().getPath().toString() : null;
+        }, actual::add);
+
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), stats.getProcessed());
+        assertEquals(0, stats.getFailed());
+    }
+
+    @Test
+    void testWorkerFailureDoesNotStopPipeline() throws IOException {
+        CodeParser parser = new CodeParser();
+        File testDir = new File("src/main/java/com/autojav/core");
+        List<String> names = new ArrayList<>();
+        PipelineStats stats = new ParsePipeline<String>(parser, 2).run(testDir, false, source -> {
+            if (source.getFile().getName().equals("CodeParser.java")) {
+                throw new IllegalStateException("模拟处理失败");
+            }
+            return source.getFile().getName();
+        }, names::add);
+
+        assertEquals(1, stats.getFailed());
+        assertFalse(names.contains("CodeParser.java"));
+        assertTrue(names.contains("ConfigManager.java"));
+    }
+
+    @Test
+    void testWorkerErrorDoesNotHangPipeline() {
+        CodeParser parser = new CodeParser();
+        File[] files = new File("src/main/java/com/autojav/core").listFiles((dir, name) -> name.endsWith(".java"));
+        List<File> inputs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            inputs.add(files[i % files.length]);
+        }
+        AtomicInteger calls = new AtomicInteger();
+        List<String> names = new ArrayList<>();
+        PipelineStats stats = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> new ParsePipeline<String>(parser, 2, 4).run(inputs, source -> {
+                    if (calls.incrementAndGet() == 3) {
+                        throw new AssertionError("模拟处理错误");
+                    }
+                    return source.getFile().getName();
+                }, names::add));
+
+        assertEquals(1, stats.getFailed());
+        assertEquals(49, stats.getProcessed());
+        assertEquals(49, names.size());
+    }
+}